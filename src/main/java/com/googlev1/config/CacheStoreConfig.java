@@ -0,0 +1,70 @@
+package com.googlev1.config;
+
+import com.googlev1.service.store.SegmentedLogStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Disk-backed cache stores, enabled with {@code cache.store.type=disk}.
+ * When present, SearchCacheService and ContentService keep their entries in these stores instead of the
+ * database, so the caches survive restarts and hits don't touch JPA. Each cache gets its own directory
+ * under {@code cache.store.directory}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cache.store.type", havingValue = "disk")
+public class CacheStoreConfig {
+
+    @Bean
+    public SegmentedLogStore searchCacheStore(
+            @Value("${cache.store.directory:data/cache}") String directory,
+            @Value("${cache.store.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${cache.store.compaction-threshold:0.5}") double compactionThreshold) throws IOException {
+        return new SegmentedLogStore(Path.of(directory, "search"), segmentSizeMb * 1024 * 1024, compactionThreshold);
+    }
+
+    @Bean
+    public SegmentedLogStore contentCacheStore(
+            @Value("${cache.store.directory:data/cache}") String directory,
+            @Value("${cache.store.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${cache.store.compaction-threshold:0.5}") double compactionThreshold) throws IOException {
+        return new SegmentedLogStore(Path.of(directory, "content"), segmentSizeMb * 1024 * 1024, compactionThreshold);
+    }
+
+    @Bean
+    public MeterBinder cacheStoreMetrics(SegmentedLogStore searchCacheStore, SegmentedLogStore contentCacheStore) {
+        return registry -> Map.of("search", searchCacheStore, "content", contentCacheStore).forEach((cache, store) -> {
+            Gauge.builder("cache.store.entries", store, SegmentedLogStore::size)
+                    .tag("cache", cache)
+                    .register(registry);
+            Gauge.builder("cache.store.segments", store, SegmentedLogStore::getSegmentCount)
+                    .tag("cache", cache)
+                    .register(registry);
+            Gauge.builder("cache.store.bytes", store, SegmentedLogStore::getLiveBytes)
+                    .tag("cache", cache)
+                    .tag("state", "live")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("cache.store.bytes", store, SegmentedLogStore::getWrittenBytes)
+                    .tag("cache", cache)
+                    .tag("state", "written")
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder("cache.store.compactions", store, SegmentedLogStore::getCompactionCount)
+                    .tag("cache", cache)
+                    .register(registry);
+            FunctionCounter.builder("cache.store.reclaimed", store, SegmentedLogStore::getReclaimedBytes)
+                    .tag("cache", cache)
+                    .baseUnit("bytes")
+                    .register(registry);
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package com.googlev1.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlev1.service.cluster.ClusterTransport;
+import com.googlev1.service.cluster.ConsistentHashRing;
+import com.googlev1.service.cluster.HttpClusterTransport;
+import com.googlev1.service.cluster.LoopbackClusterTransport;
+import com.googlev1.service.cluster.SearchCacheCluster;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cluster-wide search cache, enabled with {@code search.cache.cluster.enabled=true}.
+ * Every instance lists all nodes as {@code id=baseUrl} pairs in {@code search.cache.cluster.nodes} and names
+ * itself in {@code node-id}. The http transport talks to the other instances at their base URLs; the loopback
+ * transport connects nodes started in the same JVM and ignores the URLs. Nodes calling each other over http
+ * authenticate with the shared {@code search.cache.cluster.secret}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "search.cache.cluster.enabled", havingValue = "true")
+public class ClusterConfig {
+
+    @Bean
+    public ClusterTransport searchCacheClusterTransport(
+            @Value("${search.cache.cluster.transport:http}") String transport,
+            @Value("${search.cache.cluster.nodes}") String nodes,
+            @Value("${search.cache.cluster.peer-timeout-ms:250}") long peerTimeoutMs,
+            @Value("${search.cache.cluster.secret:}") String secret,
+            ObjectMapper objectMapper) {
+        return switch (transport) {
+            case "http" -> new HttpClusterTransport(parseNodes(nodes), objectMapper,
+                    Duration.ofMillis(peerTimeoutMs), secret);
+            case "loopback" -> new LoopbackClusterTransport();
+            default -> throw new IllegalArgumentException("Unknown cluster transport: " + transport);
+        };
+    }
+
+    @Bean
+    public SearchCacheCluster searchCacheCluster(
+            @Value("${search.cache.cluster.node-id}") String nodeId,
+            @Value("${search.cache.cluster.nodes}") String nodes,
+            @Value("${search.cache.cluster.virtual-nodes:128}") int virtualNodes,
+            ClusterTransport searchCacheClusterTransport) {
+        ConsistentHashRing ring = new ConsistentHashRing(parseNodes(nodes).keySet(), virtualNodes);
+        SearchCacheCluster cluster = new SearchCacheCluster(nodeId, ring, searchCacheClusterTransport);
+        searchCacheClusterTransport.bind(cluster);
+        return cluster;
+    }
+
+    @Bean
+    public MeterBinder searchCacheClusterMetrics(SearchCacheCluster searchCacheCluster) {
+        return registry -> {
+            FunctionCounter.builder("search.cache.cluster.lookups", searchCacheCluster, SearchCacheCluster::getLocalHits)
+                    .description("Search cache lookups on this node by where they were answered")
+                    .tag("result", "local")
+                    .register(registry);
+            FunctionCounter.builder("search.cache.cluster.lookups", searchCacheCluster, SearchCacheCluster::getPeerHits)
+                    .description("Search cache lookups on this node by where they were answered")
+                    .tag("result", "peer")
+                    .register(registry);
+            FunctionCounter.builder("search.cache.cluster.lookups", searchCacheCluster,
+                            cluster -> cluster.localStats().misses())
+                    .description("Search cache lookups on this node by where they were answered")
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("search.cache.cluster.peer.failures", searchCacheCluster, SearchCacheCluster::getPeerFailures)
+                    .register(registry);
+            FunctionCounter.builder("search.cache.cluster.invalidations", searchCacheCluster, SearchCacheCluster::getInvalidationsSent)
+                    .tag("direction", "sent")
+                    .register(registry);
+            FunctionCounter.builder("search.cache.cluster.invalidations", searchCacheCluster, SearchCacheCluster::getInvalidationsReceived)
+                    .tag("direction", "received")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Parses {@code id=baseUrl} pairs separated by commas, keeping their order.
+     */
+    private static Map<String, URI> parseNodes(String nodes) {
+        Map<String, URI> parsed = new LinkedHashMap<>();
+        for (String node : nodes.split(",")) {
+            String[] parts = node.trim().split("=", 2);
+            if (parts.length != 2 || parts[0].isBlank()) {
+                throw new IllegalArgumentException("Cluster nodes must be id=baseUrl pairs, got: " + node);
+            }
+            parsed.put(parts[0].trim(), URI.create(parts[1].trim()));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,77 @@
+package com.googlev1.config;
+
+import com.googlev1.service.content.ContentPipeline;
+import com.googlev1.service.content.PipelineStage;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Staged fetch/extract/persist pipeline for page content, on unless {@code content.pipeline.enabled=false}; without
+ * it, ContentService fetches, extracts and stores pages on the request thread. The time each stage takes is the
+ * {@code content.stage} timer; the metrics here are how busy each stage is and how long work waits for it.
+ */
+@Configuration
+@ConditionalOnProperty(name = "content.pipeline.enabled", havingValue = "true", matchIfMissing = true)
+public class ContentPipelineConfig {
+
+    @Bean
+    public ContentPipeline contentPipeline(
+            MeterRegistry meterRegistry,
+            @Value("${content.pipeline.fetch-threads:16}") int fetchThreads,
+            @Value("${content.pipeline.fetch-queue:64}") int fetchQueue,
+            @Value("${content.pipeline.extract-threads:0}") int extractThreads,
+            @Value("${content.pipeline.extract-queue:32}") int extractQueue,
+            @Value("${content.pipeline.persist-threads:2}") int persistThreads,
+            @Value("${content.pipeline.persist-queue:64}") int persistQueue,
+            @Value("${content.pipeline.admission-wait-ms:1000}") long admissionWaitMs) {
+        if (extractThreads <= 0) {
+            extractThreads = Runtime.getRuntime().availableProcessors();
+        }
+        return new ContentPipeline(
+                new PipelineStage("fetch", fetchThreads, fetchQueue, waitTimer(meterRegistry, "fetch")),
+                new PipelineStage("extract", extractThreads, extractQueue, waitTimer(meterRegistry, "extract")),
+                new PipelineStage("persist", persistThreads, persistQueue, waitTimer(meterRegistry, "persist")),
+                Duration.ofMillis(admissionWaitMs));
+    }
+
+    @Bean
+    public MeterBinder contentPipelineMetrics(ContentPipeline contentPipeline) {
+        return registry -> {
+            for (PipelineStage stage : contentPipeline.stages()) {
+                Gauge.builder("content.pipeline.queue", stage, PipelineStage::getQueueDepth)
+                        .description("Content pipeline work waiting for a worker, by stage")
+                        .tag("stage", stage.getName())
+                        .register(registry);
+                Gauge.builder("content.pipeline.active", stage, PipelineStage::getActive)
+                        .description("Content pipeline workers busy, by stage")
+                        .tag("stage", stage.getName())
+                        .register(registry);
+                FunctionCounter.builder("content.pipeline.completed", stage, PipelineStage::getCompleted)
+                        .description("Content pipeline work done, by stage")
+                        .tag("stage", stage.getName())
+                        .register(registry);
+                FunctionCounter.builder("content.pipeline.rejected", stage, PipelineStage::getRejected)
+                        .description("Content pipeline work turned away because the stage was full, by stage")
+                        .tag("stage", stage.getName())
+                        .register(registry);
+            }
+        };
+    }
+
+    private static Timer waitTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("content.pipeline.wait")
+                .description("Time content pipeline work waited for a worker, by stage")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,61 @@
+package com.googlev1.config;
+
+import com.googlev1.service.dedup.NearDuplicateDetector;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Near-duplicate detection, on unless {@code search.dedup.enabled=false}.
+ * TavilyService collapses near-duplicate results and ContentService reuses the cached body of a near-duplicate
+ * page instead of fetching it.
+ */
+@Configuration
+@ConditionalOnProperty(name = "search.dedup.enabled", havingValue = "true", matchIfMissing = true)
+public class DeduplicationConfig {
+
+    @Bean
+    public NearDuplicateDetector nearDuplicateDetector(
+            @Value("${search.dedup.max-distance:5}") int maxDistance,
+            @Value("${search.dedup.min-tokens:12}") int minTokens,
+            @Value("${search.dedup.max-entries:100000}") int maxEntries) {
+        return new NearDuplicateDetector(maxDistance, minTokens, maxEntries);
+    }
+
+    @Bean
+    public MeterBinder nearDuplicateMetrics(NearDuplicateDetector nearDuplicateDetector) {
+        return registry -> {
+            FunctionCounter.builder("search.dedup.results", nearDuplicateDetector, NearDuplicateDetector::getResultsSeen)
+                    .tag("outcome", "seen")
+                    .register(registry);
+            FunctionCounter.builder("search.dedup.results", nearDuplicateDetector, NearDuplicateDetector::getResultsCollapsed)
+                    .tag("outcome", "collapsed")
+                    .register(registry);
+            Gauge.builder("search.dedup.rate", nearDuplicateDetector, NearDuplicateDetector::getDuplicateRate)
+                    .description("Share of search results collapsed into a near-duplicate since startup")
+                    .register(registry);
+            FunctionCounter.builder("content.dedup.bodies", nearDuplicateDetector, NearDuplicateDetector::getBodiesSeen)
+                    .tag("outcome", "seen")
+                    .register(registry);
+            FunctionCounter.builder("content.dedup.bodies", nearDuplicateDetector, NearDuplicateDetector::getDuplicateBodies)
+                    .tag("outcome", "duplicate")
+                    .register(registry);
+            FunctionCounter.builder("content.dedup.reuses", nearDuplicateDetector, NearDuplicateDetector::getContentReuses)
+                    .register(registry);
+            FunctionCounter.builder("dedup.bytes.saved", nearDuplicateDetector, NearDuplicateDetector::getCollapsedBytes)
+                    .description("Bytes not sent, cached or fetched thanks to near-duplicate detection")
+                    .tag("source", "results")
+                    .baseUnit("bytes")
+                    .register(registry);
+            FunctionCounter.builder("dedup.bytes.saved", nearDuplicateDetector, NearDuplicateDetector::getReusedBytes)
+                    .description("Bytes not sent, cached or fetched thanks to near-duplicate detection")
+                    .tag("source", "content")
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,91 @@
+package com.googlev1.config;
+
+import com.googlev1.service.SearchCacheService;
+import com.googlev1.service.cache.AdaptiveTtlPolicy;
+import com.googlev1.service.resilience.AdaptiveConcurrencyLimiter;
+import com.googlev1.service.resilience.CircuitBreaker;
+import com.googlev1.service.resilience.ClientRateLimiter;
+import com.googlev1.service.resilience.HedgingPolicy;
+import com.googlev1.service.resilience.UpstreamBudget;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics configuration.
+ * Publishes the state the search path already keeps in memory (cache size, adaptive TTL savings,
+ * circuit breaker, concurrency limit, hedging and rate-limit counters) as gauges and counters, so reading them
+ * costs nothing on the request path. Request timers are registered by the services themselves.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder searchStateMetrics(SearchCacheService searchCacheService,
+                                          AdaptiveTtlPolicy searchCacheTtlPolicy,
+                                          CircuitBreaker tavilyCircuitBreaker,
+                                          AdaptiveConcurrencyLimiter tavilyConcurrencyLimiter,
+                                          HedgingPolicy tavilyHedgingPolicy,
+                                          UpstreamBudget tavilyUpstreamBudget,
+                                          ClientRateLimiter searchClientRateLimiter) {
+        return registry -> {
+            Gauge.builder("search.cache.entries", searchCacheService, SearchCacheService::getCacheEntryCount)
+                    .description("Search cache entries, including expired ones kept as fallback")
+                    .register(registry);
+            FunctionCounter.builder("search.cache.ttl.upstream.calls", searchCacheTtlPolicy, AdaptiveTtlPolicy::getCallsSaved)
+                    .description("Upstream calls avoided or added by adaptive TTLs, compared with the fixed base TTL")
+                    .tag("effect", "saved")
+                    .register(registry);
+            FunctionCounter.builder("search.cache.ttl.upstream.calls", searchCacheTtlPolicy, AdaptiveTtlPolicy::getCallsAdded)
+                    .description("Upstream calls avoided or added by adaptive TTLs, compared with the fixed base TTL")
+                    .tag("effect", "added")
+                    .register(registry);
+
+            Gauge.builder("tavily.circuit.state", tavilyCircuitBreaker, breaker -> breaker.getState().ordinal())
+                    .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                    .register(registry);
+            Gauge.builder("tavily.circuit.failure.rate", tavilyCircuitBreaker, CircuitBreaker::getFailureRate)
+                    .baseUnit("percent")
+                    .register(registry);
+            Gauge.builder("tavily.circuit.slow.call.rate", tavilyCircuitBreaker, CircuitBreaker::getSlowCallRate)
+                    .baseUnit("percent")
+                    .register(registry);
+            FunctionCounter.builder("tavily.circuit.transitions", tavilyCircuitBreaker, CircuitBreaker::getTransitionCount)
+                    .register(registry);
+
+            Gauge.builder("tavily.concurrency.limit", tavilyConcurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .register(registry);
+            Gauge.builder("tavily.concurrency.in.flight", tavilyConcurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .register(registry);
+            FunctionCounter.builder("tavily.concurrency.rejected", tavilyConcurrencyLimiter, AdaptiveConcurrencyLimiter::getRejectedCount)
+                    .register(registry);
+
+            FunctionCounter.builder("tavily.hedge.sent", tavilyHedgingPolicy, HedgingPolicy::getHedgesSent)
+                    .register(registry);
+            FunctionCounter.builder("tavily.hedge.wins", tavilyHedgingPolicy, HedgingPolicy::getHedgeWins)
+                    .register(registry);
+            Gauge.builder("tavily.hedge.delay", tavilyHedgingPolicy, HedgingPolicy::getPercentileMillis)
+                    .baseUnit("milliseconds")
+                    .register(registry);
+
+            Gauge.builder("tavily.budget.tokens", tavilyUpstreamBudget, UpstreamBudget::getAvailableTokens)
+                    .description("Upstream requests that may be sent right now")
+                    .register(registry);
+            Gauge.builder("tavily.budget.quota.remaining", tavilyUpstreamBudget, UpstreamBudget::getRemainingQuota)
+                    .description("Upstream requests left in today's quota, -1 if unlimited")
+                    .register(registry);
+            FunctionCounter.builder("tavily.budget.rejected", tavilyUpstreamBudget, UpstreamBudget::getRateLimitedCount)
+                    .tag("reason", "rate")
+                    .register(registry);
+            FunctionCounter.builder("tavily.budget.rejected", tavilyUpstreamBudget, UpstreamBudget::getQuotaExhaustedCount)
+                    .tag("reason", "quota")
+                    .register(registry);
+            FunctionCounter.builder("search.client.rejected", searchClientRateLimiter, ClientRateLimiter::getRejectedCount)
+                    .register(registry);
+            Gauge.builder("search.client.tracked", searchClientRateLimiter, ClientRateLimiter::getTrackedClients)
+                    .register(registry);
+        };
+    }
+}
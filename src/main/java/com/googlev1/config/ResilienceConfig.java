@@ -0,0 +1,69 @@
+package com.googlev1.config;
+
+import com.googlev1.service.resilience.AdaptiveConcurrencyLimiter;
+import com.googlev1.service.resilience.CircuitBreaker;
+import com.googlev1.service.resilience.ClientRateLimiter;
+import com.googlev1.service.resilience.HedgingPolicy;
+import com.googlev1.service.resilience.UpstreamBudget;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Resilience configuration for the Tavily upstream.
+ * Creates the circuit breaker, the adaptive concurrency limiter, the hedging policy and the request budget
+ * used by TavilyService, plus the per-client rate limiter of the search endpoint.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    public CircuitBreaker tavilyCircuitBreaker(
+            @Value("${tavily.circuit-breaker.window-size:20}") int windowSize,
+            @Value("${tavily.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${tavily.circuit-breaker.failure-rate-threshold:50}") double failureRateThreshold,
+            @Value("${tavily.circuit-breaker.slow-call-rate-threshold:80}") double slowCallRateThreshold,
+            @Value("${tavily.circuit-breaker.slow-call-duration-ms:5000}") long slowCallDurationMs,
+            @Value("${tavily.circuit-breaker.open-duration-ms:30000}") long openDurationMs,
+            @Value("${tavily.circuit-breaker.half-open-calls:3}") int halfOpenCalls) {
+        return new CircuitBreaker("tavily", windowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold,
+                Duration.ofMillis(slowCallDurationMs), Duration.ofMillis(openDurationMs), halfOpenCalls);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter tavilyConcurrencyLimiter(
+            @Value("${tavily.concurrency.initial-limit:10}") int initialLimit,
+            @Value("${tavily.concurrency.min-limit:1}") int minLimit,
+            @Value("${tavily.concurrency.max-limit:50}") int maxLimit,
+            @Value("${tavily.concurrency.backoff-ratio:0.75}") double backoffRatio,
+            @Value("${tavily.circuit-breaker.slow-call-duration-ms:5000}") long slowCallDurationMs) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, backoffRatio,
+                Duration.ofMillis(slowCallDurationMs));
+    }
+
+    @Bean
+    public HedgingPolicy tavilyHedgingPolicy(
+            @Value("${tavily.hedging.enabled:true}") boolean enabled,
+            @Value("${tavily.hedging.percentile:95}") double percentile,
+            @Value("${tavily.hedging.min-delay-ms:200}") long minDelayMs,
+            @Value("${tavily.hedging.max-ratio:0.05}") double maxRatio) {
+        return new HedgingPolicy(enabled, percentile, Duration.ofMillis(minDelayMs), maxRatio);
+    }
+
+    @Bean
+    public UpstreamBudget tavilyUpstreamBudget(
+            @Value("${tavily.rate-limit.requests-per-second:5}") double requestsPerSecond,
+            @Value("${tavily.rate-limit.burst:20}") int burst,
+            @Value("${tavily.quota.daily-limit:0}") long dailyLimit) {
+        return new UpstreamBudget(requestsPerSecond, burst, dailyLimit);
+    }
+
+    @Bean
+    public ClientRateLimiter searchClientRateLimiter(
+            @Value("${search.rate-limit.client.requests-per-minute:60}") double requestsPerMinute,
+            @Value("${search.rate-limit.client.burst:20}") int burst) {
+        return new ClientRateLimiter(requestsPerMinute / 60.0, burst);
+    }
+}
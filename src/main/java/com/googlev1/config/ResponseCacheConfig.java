@@ -0,0 +1,43 @@
+package com.googlev1.config;
+
+import com.googlev1.service.cache.EncodedResponseCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Serialized and gzipped bodies of cached pages, on unless {@code content.response-cache.enabled=false}.
+ * ContentController writes them as they are on repeat hits instead of serializing and compressing each time.
+ */
+@Configuration
+@ConditionalOnProperty(name = "content.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheConfig {
+
+    @Bean
+    public EncodedResponseCache contentResponseCache(
+            @Value("${content.response-cache.max-size-mb:64}") int maxSizeMb,
+            @Value("${content.response-cache.gzip-level:6}") int gzipLevel) {
+        return new EncodedResponseCache(maxSizeMb * 1024L * 1024L, gzipLevel);
+    }
+
+    @Bean
+    public MeterBinder contentResponseCacheMetrics(EncodedResponseCache contentResponseCache) {
+        return registry -> {
+            FunctionCounter.builder("content.response.cache", contentResponseCache, EncodedResponseCache::getHits)
+                    .description("Content responses by whether their encoded body was reused")
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("content.response.cache", contentResponseCache, EncodedResponseCache::getMisses)
+                    .description("Content responses by whether their encoded body was reused")
+                    .tag("result", "miss")
+                    .register(registry);
+            Gauge.builder("content.response.cache.size", contentResponseCache, EncodedResponseCache::getBytes)
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+}
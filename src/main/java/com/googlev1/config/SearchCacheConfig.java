@@ -0,0 +1,61 @@
+package com.googlev1.config;
+
+import com.googlev1.service.cache.AdaptiveTtlPolicy;
+import com.googlev1.service.cache.SerializedSearchCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Search cache configuration.
+ * Creates the policy that gives each search cache entry its own TTL, based on its search type and on how
+ * much its results changed between refreshes, and, unless {@code search.cache.serialized.enabled=false}, the
+ * in-memory copy of hit entries serialized as they are sent.
+ */
+@Configuration
+public class SearchCacheConfig {
+
+    @Bean
+    public AdaptiveTtlPolicy searchCacheTtlPolicy(
+            @Value("${search.cache.ttl.adaptive:true}") boolean adaptive,
+            @Value("${search.cache.ttl-minutes:60}") long ttlMinutes,
+            @Value("${search.cache.ttl.news-minutes:15}") long newsTtlMinutes,
+            @Value("${search.cache.ttl.min-factor:0.25}") double minFactor,
+            @Value("${search.cache.ttl.max-factor:24}") double maxFactor,
+            @Value("${search.cache.ttl.growth-factor:1.25}") double growthFactor,
+            @Value("${search.cache.ttl.shrink-factor:0.5}") double shrinkFactor,
+            @Value("${search.cache.ttl.stable-similarity:0.8}") double stableSimilarity,
+            @Value("${search.cache.ttl.volatile-similarity:0.5}") double volatileSimilarity,
+            @Value("${search.cache.ttl.min-hits-to-extend:1}") long minHitsToExtend) {
+        return new AdaptiveTtlPolicy(adaptive, Duration.ofMinutes(ttlMinutes), Duration.ofMinutes(newsTtlMinutes),
+                minFactor, maxFactor, growthFactor, shrinkFactor, stableSimilarity, volatileSimilarity, minHitsToExtend);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "search.cache.serialized.enabled", havingValue = "true", matchIfMissing = true)
+    public SerializedSearchCache serializedSearchCache(
+            @Value("${search.cache.serialized.max-size-mb:32}") int maxSizeMb) {
+        return new SerializedSearchCache(maxSizeMb * 1024L * 1024L);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "search.cache.serialized.enabled", havingValue = "true", matchIfMissing = true)
+    public MeterBinder serializedSearchCacheMetrics(SerializedSearchCache serializedSearchCache) {
+        return registry -> {
+            FunctionCounter.builder("search.cache.serialized.hits", serializedSearchCache, SerializedSearchCache::getHits)
+                    .description("Search cache hits written from their serialized copy")
+                    .register(registry);
+            Gauge.builder("search.cache.serialized.entries", serializedSearchCache, SerializedSearchCache::size)
+                    .register(registry);
+            Gauge.builder("search.cache.serialized.size", serializedSearchCache, SerializedSearchCache::getBytes)
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.googlev1.config;
+
+import com.googlev1.service.index.LocalSearchIndex;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local search index configuration, on unless {@code search.index.enabled=false}.
+ * TavilyService indexes every upstream result and ContentService every extracted page; searches in
+ * local-first mode are answered from the index when it has enough matches.
+ */
+@Configuration
+@ConditionalOnProperty(name = "search.index.enabled", havingValue = "true", matchIfMissing = true)
+public class SearchIndexConfig {
+
+    @Bean
+    public LocalSearchIndex localSearchIndex(
+            @Value("${search.index.flush-documents:256}") int flushDocuments,
+            @Value("${search.index.merge-factor:8}") int mergeFactor,
+            @Value("${search.index.max-documents:50000}") int maxDocuments,
+            @Value("${search.index.body-terms:64}") int bodyTerms) {
+        return new LocalSearchIndex(flushDocuments, mergeFactor, maxDocuments, bodyTerms);
+    }
+
+    @Bean
+    public MeterBinder localSearchIndexMetrics(LocalSearchIndex localSearchIndex) {
+        return registry -> {
+            Gauge.builder("search.index.documents", localSearchIndex, LocalSearchIndex::size)
+                    .description("URLs in the local search index")
+                    .register(registry);
+            Gauge.builder("search.index.segments", localSearchIndex, LocalSearchIndex::getSegmentCount)
+                    .register(registry);
+            FunctionCounter.builder("search.index.merges", localSearchIndex, LocalSearchIndex::getMergeCount)
+                    .register(registry);
+            FunctionCounter.builder("search.index.evictions", localSearchIndex, LocalSearchIndex::getEvictionCount)
+                    .register(registry);
+            FunctionTimer.builder("search.index.indexing", localSearchIndex, LocalSearchIndex::getIndexedDocuments,
+                            LocalSearchIndex::getIndexSeconds, TimeUnit.SECONDS)
+                    .description("Documents indexed and the time spent indexing them")
+                    .register(registry);
+            FunctionTimer.builder("search.index.queries", localSearchIndex, LocalSearchIndex::getQueryCount,
+                            LocalSearchIndex::getQuerySeconds, TimeUnit.SECONDS)
+                    .description("Local search index queries and the time spent answering them")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package com.googlev1.config;
+
+import com.googlev1.controller.search.SearchController;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Startup configuration.
+ * With {@code spring.main.lazy-initialization=true} (fast-startup profile) beans are created on first use;
+ * the search endpoint and everything it depends on stay eager so the first search doesn't pay for them.
+ * Has no effect when lazy initialization is off.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter searchPathLazyInitializationExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(SearchController.class);
+    }
+}
@@ -0,0 +1,35 @@
+package com.googlev1.config;
+
+import com.googlev1.service.tracing.InMemorySpanExporter;
+import com.googlev1.service.tracing.JsonLinesSpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Tracing configuration.
+ * Spring Boot sets up the OpenTelemetry SDK and hands every SpanExporter bean to a batching span
+ * processor; this picks the local exporter with {@code tracing.exporter} (none, file or memory).
+ * Sampling is controlled by {@code management.tracing.sampling.probability}.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter", havingValue = "file")
+    public JsonLinesSpanExporter jsonLinesSpanExporter(
+            @Value("${tracing.file:logs/traces.jsonl}") String file) throws IOException {
+        return new JsonLinesSpanExporter(Path.of(file));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter", havingValue = "memory")
+    public InMemorySpanExporter inMemorySpanExporter(
+            @Value("${tracing.memory.capacity:10000}") int capacity) {
+        return new InMemorySpanExporter(capacity);
+    }
+}
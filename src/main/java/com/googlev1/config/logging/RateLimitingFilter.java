@@ -0,0 +1,42 @@
+package com.googlev1.config.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appender filter that passes at most {@code maxPerSecond} events per second and drops the rest.
+ * Used on the SQL channel so statement logging can stay enabled under load without flooding the output;
+ * the number of events dropped in each second is recorded in logback's status log.
+ */
+public class RateLimitingFilter extends Filter<ILoggingEvent> {
+
+    private long maxPerSecond = 50;
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicLong passed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        long second = event.getTimeStamp() / 1000;
+        long current = window.get();
+        if (second != current && window.compareAndSet(current, second)) {
+            passed.set(0);
+            long droppedLastWindow = dropped.getAndSet(0);
+            if (droppedLastWindow > 0) {
+                addInfo("Dropped " + droppedLastWindow + " events over the rate limit of " + maxPerSecond + "/s");
+            }
+        }
+        if (passed.incrementAndGet() <= maxPerSecond) {
+            return FilterReply.NEUTRAL;
+        }
+        dropped.incrementAndGet();
+        return FilterReply.DENY;
+    }
+
+    public void setMaxPerSecond(long maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+}
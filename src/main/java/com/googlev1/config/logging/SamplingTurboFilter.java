@@ -0,0 +1,48 @@
+package com.googlev1.config.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets through one in {@code every} INFO-or-lower events of one logger; WARN and ERROR always pass.
+ * <p>
+ * Meant for per-request summary loggers ({@code requests.search}, {@code requests.history}), configured once per
+ * logger in logback-spring.xml. Turbo filters run before the event is created, so dropped events cost a string
+ * comparison and an increment: the message is never formatted.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private String loggerName;
+    private long every = 1;
+    private final AtomicLong counter = new AtomicLong();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == null || level.levelInt > Level.INFO_INT || !logger.getName().equals(loggerName)) {
+            return FilterReply.NEUTRAL;
+        }
+        return counter.getAndIncrement() % every == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setLoggerName(String loggerName) {
+        this.loggerName = loggerName;
+    }
+
+    public void setEvery(long every) {
+        this.every = Math.max(1, every);
+    }
+
+    @Override
+    public void start() {
+        if (loggerName == null) {
+            addError("No loggerName set for SamplingTurboFilter");
+            return;
+        }
+        super.start();
+    }
+}
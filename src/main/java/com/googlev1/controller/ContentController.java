@@ -1,11 +1,30 @@
 package com.googlev1.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.googlev1.dto.ContentResponse;
+import com.googlev1.dto.PrefetchResult;
 import com.googlev1.service.ContentService;
+import com.googlev1.service.cache.EncodedResponseCache;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -13,23 +32,166 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequestMapping("/api/content")
 public class ContentController {
+    private static final int MAX_PREFETCH_URLS = 200;
+    // Seconds a client is asked to wait before retrying a page the content pipeline had no room for
+    private static final String RETRY_AFTER_SECONDS = "1";
+
     private final ContentService contentService;
+    private final Optional<EncodedResponseCache> responseCache;
+    private final ObjectMapper objectMapper;
 
-    public ContentController(ContentService contentService) {
+    public ContentController(ContentService contentService, Optional<EncodedResponseCache> responseCache,
+                             ObjectMapper objectMapper) {
         this.contentService = contentService;
+        this.responseCache = responseCache;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * Returns the extracted text of a page, from the cache while it is fresh.
+     * The ETag and Last-Modified come from when the page was fetched, and the response may be cached until the
+     * page goes stale, so clients revalidate with If-None-Match or If-Modified-Since and get a 304 without a body.
+     * A page answered from the cache is written as the JSON, or gzipped JSON, encoded on its first hit.
+     * A page that has to be fetched while the content pipeline is full is answered with a 503 and Retry-After.
+     */
     @GetMapping
     public ResponseEntity<?> getContent(
             @RequestParam(name = "url") String url,
-            @RequestParam(name = "forceRefresh", defaultValue = "false") boolean forceRefresh
+            @RequestParam(name = "forceRefresh", defaultValue = "false") boolean forceRefresh,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
     ) {
         if (url == null || url.isBlank()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", "url parameter is required"));
         }
 
-        ContentResponse response = contentService.getContent(url, forceRefresh);
-        return ResponseEntity.ok(response);
+        ContentResponse response;
+        try {
+            response = contentService.getContent(url, forceRefresh);
+        } catch (RejectedExecutionException e) {
+            return busy(e);
+        }
+        if (response.getFetchedAt() == null) {
+            return ResponseEntity.ok(response);
+        }
+        long fetchedAt = response.getFetchedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        // Weak, so it survives gzip; the URL hash keeps pages fetched in the same millisecond apart
+        String etag = "W/\"c-" + Integer.toHexString(url.hashCode()) + "-" + Long.toHexString(fetchedAt) + "\"";
+        Duration freshFor = Duration.between(LocalDateTime.now(), contentService.expiresAt(response.getFetchedAt()));
+        // Spring answers a matching conditional GET with a 304 carrying these headers, without writing the body
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .cacheControl(freshFor.isNegative() ? CacheControl.noCache()
+                        : CacheControl.maxAge(freshFor).cachePublic())
+                .eTag(etag)
+                .lastModified(fetchedAt);
+        // A fresh fetch says cached=false, so only cache hits share an encoded body
+        if (!response.isCached() || responseCache.isEmpty()) {
+            return ok.body(response);
+        }
+        EncodedResponseCache.Encoded encoded = responseCache.get().get(url + "\n" + fetchedAt, () -> serialize(response));
+        ok.contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            // Tomcat leaves a response that already has a Content-Encoding alone
+            return ok.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(encoded.gzip());
+        }
+        return ok.body(encoded.json());
+    }
+
+    /**
+     * Streams the extracted text of a page as NDJSON, one ContentStreamEvent per line: a meta line, the text in
+     * chunks, then an end line with the title, word count and length of the whole text. Each line is flushed as
+     * soon as it is known, and on a cache miss the text is sent while the page is still being fetched, so readers
+     * can show the first screen before the page is complete.
+     * {@code offset} and {@code length} select part of the text, in characters, for paging through long pages.
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<?> streamContent(
+            @RequestParam(name = "url") String url,
+            @RequestParam(name = "forceRefresh", defaultValue = "false") boolean forceRefresh,
+            @RequestParam(name = "offset", defaultValue = "0") int offset,
+            @RequestParam(name = "length", required = false) Integer length,
+            HttpServletResponse httpResponse
+    ) throws IOException {
+        if (url == null || url.isBlank()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "url parameter is required"));
+        }
+        if (offset < 0 || length != null && length < 1) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "offset must not be negative and length must be positive"));
+        }
+
+        httpResponse.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        ServletOutputStream out = httpResponse.getOutputStream();
+        contentService.streamContent(url, forceRefresh, offset, length, event -> {
+            out.write(objectMapper.writeValueAsBytes(event));
+            out.write('\n');
+            out.flush();
+        });
+        return null;
+    }
+
+    /**
+     * Fetches pages in the background so later requests for them are answered from the cache, e.g. the results of
+     * a search. Answers 202 right away with how many pages were queued, already cached, or turned away because the
+     * content pipeline was full.
+     */
+    @PostMapping("/prefetch")
+    public ResponseEntity<?> prefetch(@RequestBody List<String> urls) {
+        if (urls.size() > MAX_PREFETCH_URLS) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "At most " + MAX_PREFETCH_URLS + " URLs can be prefetched at once"));
+        }
+        if (urls.stream().anyMatch(url -> url == null || url.isBlank())) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", "URLs must not be blank"));
+        }
+        try {
+            PrefetchResult result = contentService.prefetch(urls);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static ResponseEntity<?> busy(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(Map.of("error", e.getMessage()));
+    }
+
+    private byte[] serialize(ContentResponse response) {
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize content of " + response.getUrl(), e);
+        }
+    }
+
+    /**
+     * @return whether an Accept-Encoding header lists gzip, or *, without q=0
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim().replace(" ", "");
+                if (param.startsWith("q=") && param.substring(2).matches("0(\\.0*)?")) {
+                    refused = true;
+                }
+            }
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
     }
 }
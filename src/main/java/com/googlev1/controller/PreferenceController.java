@@ -4,8 +4,12 @@ import com.googlev1.dto.PreferenceResponse;
 import com.googlev1.entity.UserPreference;
 import com.googlev1.service.PreferenceService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/preferences")
@@ -17,20 +21,20 @@ public class PreferenceController {
     
     /**
      * GET /api/preferences/search
-     * Returns the latest user preferences for search
+     * Returns the latest user preferences for search.
+     * Served from the in-memory snapshot; answers 304 when If-None-Match matches the current version.
      */
     @GetMapping("/search")
-    public ResponseEntity<PreferenceResponse> getSearchPreferences() {
-        UserPreference preferences = preferenceService.getLatestPreferences();
-        PreferenceResponse response = new PreferenceResponse(
-            preferences.getId(),
-            preferences.getDefaultQuery(),
-            preferences.getDefaultType(),
-            preferences.getTheme(),
-            preferences.getShowAdvancedTips(),
-            preferences.getUpdatedAt()
-        );
-        return ResponseEntity.ok(response);
+    public ResponseEntity<PreferenceResponse> getSearchPreferences(WebRequest webRequest) {
+        PreferenceService.Snapshot snapshot = preferenceService.getSnapshot();
+        String etag = "\"pref-" + snapshot.version() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(new PreferenceResponse(snapshot.preference()));
     }
     
     /**
@@ -41,15 +45,16 @@ public class PreferenceController {
     public ResponseEntity<PreferenceResponse> updateSearchPreferences(@RequestBody UserPreference updateData) {
         UserPreference existing = preferenceService.getLatestPreferences();
         UserPreference updated = preferenceService.updatePreferences(existing, updateData);
-        
-        PreferenceResponse response = new PreferenceResponse(
-            updated.getId(),
-            updated.getDefaultQuery(),
-            updated.getDefaultType(),
-            updated.getTheme(),
-            updated.getShowAdvancedTips(),
-            updated.getUpdatedAt()
-        );
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(new PreferenceResponse(updated));
+    }
+    
+    /**
+     * GET /api/preferences/stream
+     * Server-Sent Events stream of preference changes.
+     * Sends the current preferences on connect, then one "preferences" event per update.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPreferences() {
+        return preferenceService.subscribe();
     }
 }
@@ -1,13 +1,23 @@
 package com.googlev1.controller;
 
+import com.googlev1.dto.ImportResult;
+import com.googlev1.dto.SavedItemPageResponse;
 import com.googlev1.dto.SavedItemRequest;
 import com.googlev1.dto.SavedItemResponse;
 import com.googlev1.dto.UpdateNotesRequest;
+import com.googlev1.service.DataTransferService;
 import com.googlev1.service.SavedItemService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,16 +27,63 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class SavedItemController {
     
+    private static final int MAX_BULK_CHECK_URLS = 200;
+    
     private final SavedItemService service;
+    private final DataTransferService transferService;
     
-    public SavedItemController(SavedItemService service) {
+    public SavedItemController(SavedItemService service, DataTransferService transferService) {
         this.service = service;
+        this.transferService = transferService;
     }
     
     // GET /api/saved-items - Get all saved items
     @GetMapping
-    public ResponseEntity<List<SavedItemResponse>> getAllSavedItems() {
-        return ResponseEntity.ok(service.getAllSavedItems());
+    public ResponseEntity<List<SavedItemResponse>> getAllSavedItems(WebRequest webRequest) {
+        String etag = collectionETag("all");
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .body(service.getAllSavedItems());
+    }
+    
+    // GET /api/saved-items/page?cursor={cursor}&limit={limit} - One page of list projections, newest first
+    @GetMapping("/page")
+    public ResponseEntity<?> getSavedItemsPage(@RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "20") int limit,
+                                               WebRequest webRequest) {
+        int boundedLimit = Math.max(1, Math.min(limit, 100));
+        String etag = collectionETag("page:" + cursor + ":" + boundedLimit);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        try {
+            SavedItemPageResponse page = service.getPage(cursor, boundedLimit);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .eTag(etag)
+                    .body(page);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+    
+    // GET /api/saved-items/search?q={query}&limit={limit} - Full-text search, best match first
+    @GetMapping("/search")
+    public ResponseEntity<?> searchItems(@RequestParam String q,
+                                         @RequestParam(defaultValue = "20") int limit) {
+        if (q.isBlank()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "q parameter is required");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+        int boundedLimit = Math.max(1, Math.min(limit, 100));
+        return ResponseEntity.ok(service.searchItems(q, boundedLimit));
     }
     
     // POST /api/saved-items - Save a new item
@@ -68,6 +125,17 @@ public class SavedItemController {
         }
     }
     
+    // POST /api/saved-items/check - Check many URLs at once, e.g. a whole page of search results
+    @PostMapping("/check")
+    public ResponseEntity<?> checkUrls(@RequestBody List<String> urls) {
+        if (urls.size() > MAX_BULK_CHECK_URLS) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "At most " + MAX_BULK_CHECK_URLS + " URLs can be checked at once");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+        return ResponseEntity.ok(service.checkUrlsExist(urls));
+    }
+    
     // GET /api/saved-items/check?url={url} - Check if URL exists
     @GetMapping("/check")
     public ResponseEntity<Map<String, Boolean>> checkUrl(@RequestParam String url) {
@@ -75,4 +143,35 @@ public class SavedItemController {
         response.put("exists", service.checkUrlExists(url));
         return ResponseEntity.ok(response);
     }
+    
+    // GET /api/saved-items/export - Stream every saved item as NDJSON
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportItems() {
+        StreamingResponseBody body = transferService::exportSavedItems;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"saved-items.ndjson\"")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+    
+    // POST /api/saved-items/import?batchSize={n}&onDuplicate={skip|overwrite|fail} - Bulk import NDJSON
+    @PostMapping("/import")
+    public ResponseEntity<?> importItems(InputStream body,
+                                         @RequestParam(required = false) Integer batchSize,
+                                         @RequestParam(defaultValue = "skip") String onDuplicate) throws IOException {
+        try {
+            DataTransferService.DuplicatePolicy policy = DataTransferService.DuplicatePolicy.parse(onDuplicate);
+            ImportResult result = transferService.importSavedItems(body, batchSize, policy);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+    
+    // ETag = collection version + a hash of the view parameters, so any write invalidates every cached view
+    private String collectionETag(String view) {
+        return "\"" + service.getCollectionVersion() + "-" + Integer.toHexString(view.hashCode()) + "\"";
+    }
 }
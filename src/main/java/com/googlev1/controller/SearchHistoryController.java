@@ -2,11 +2,21 @@ package com.googlev1.controller;
 
 import com.googlev1.dto.HistoryRequest;
 import com.googlev1.dto.HistoryResponse;
+import com.googlev1.dto.ImportResult;
+import com.googlev1.service.DataTransferService;
 import com.googlev1.service.SearchHistoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -14,12 +24,17 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/history")
 @CrossOrigin(origins = "*")
+@Slf4j
 public class SearchHistoryController {
+    // One line per saved entry; sampled in logback-spring.xml
+    private static final Logger requestLog = LoggerFactory.getLogger("requests.history");
 
     private final SearchHistoryService service;
+    private final DataTransferService transferService;
 
-    public SearchHistoryController(SearchHistoryService service) {
+    public SearchHistoryController(SearchHistoryService service, DataTransferService transferService) {
         this.service = service;
+        this.transferService = transferService;
     }
 
     // GET /api/history
@@ -29,8 +44,7 @@ public class SearchHistoryController {
             List<HistoryResponse> history = service.getRecentHistory();
             return ResponseEntity.ok(history);
         } catch (Exception e) {
-            System.err.println("Error getting history: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error getting history", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(List.of());
         }
     }
@@ -39,21 +53,17 @@ public class SearchHistoryController {
     @PostMapping
     public ResponseEntity<?> addHistory(@RequestBody HistoryRequest request) {
         try {
-            System.out.println("POST /api/history - Request: query=" + request.getQuery() + 
-                             ", type=" + request.getSearchType() + 
-                             ", count=" + request.getResultsCount());
-            
             HistoryResponse response = service.saveHistory(request);
-            System.out.println("Successfully saved history entry: " + response.getId());
+            requestLog.info("history saved id={} type={} results={}",
+                    response.getId(), request.getSearchType(), request.getResultsCount());
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (IllegalArgumentException e) {
-            System.out.println("Validation error: " + e.getMessage());
+            log.debug("Rejected history entry: {}", e.getMessage());
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
         } catch (Exception e) {
-            System.err.println("Unexpected error saving history: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Unexpected error saving history", e);
             Map<String, String> error = new HashMap<>();
             error.put("error", "Failed to save history: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
@@ -65,14 +75,37 @@ public class SearchHistoryController {
     public ResponseEntity<?> clearHistory() {
         try {
             service.clearAll();
-            System.out.println("Successfully cleared all history");
+            log.info("Cleared all history");
             return ResponseEntity.ok().build();
         } catch (Exception e) {
-            System.err.println("Error clearing history: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error clearing history", e);
             Map<String, String> error = new HashMap<>();
             error.put("error", "Failed to clear history: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
         }
     }
+
+    // GET /api/history/export - Stream the whole history as NDJSON
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportHistory() {
+        StreamingResponseBody body = transferService::exportHistory;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"history.ndjson\"")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // POST /api/history/import?batchSize={n} - Bulk import NDJSON
+    @PostMapping("/import")
+    public ResponseEntity<?> importHistory(InputStream body,
+                                           @RequestParam(required = false) Integer batchSize) throws IOException {
+        try {
+            ImportResult result = transferService.importHistory(body, batchSize);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
 }
@@ -0,0 +1,137 @@
+package com.googlev1.controller.search;
+
+import com.googlev1.dto.search.ClusterCacheStatusResponse;
+import com.googlev1.service.cluster.ClusterCacheStats;
+import com.googlev1.service.cluster.HttpClusterTransport;
+import com.googlev1.service.cluster.PeerCacheEntry;
+import com.googlev1.service.cluster.SearchCacheCluster;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * REST controller for the cluster-wide search cache.
+ * Serves the requests other nodes send through HttpClusterTransport under /internal/cluster, and reports
+ * per-node and cluster-wide hit rates at /api/search/cluster. Requests under /internal/cluster must carry the
+ * shared {@code search.cache.cluster.secret}, otherwise they get a 403; with no secret configured they are all
+ * refused. Stores for keys this node doesn't own are refused with a 409.
+ * Only registered when {@code search.cache.cluster.enabled=true}.
+ */
+@RestController
+@ConditionalOnProperty(name = "search.cache.cluster.enabled", havingValue = "true")
+@Slf4j
+public class SearchCacheClusterController {
+
+    private final SearchCacheCluster searchCacheCluster;
+    private final byte[] secret;
+
+    @Autowired
+    public SearchCacheClusterController(SearchCacheCluster searchCacheCluster,
+                                        @Value("${search.cache.cluster.secret:}") String secret) {
+        this.searchCacheCluster = searchCacheCluster;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @GetMapping("/internal/cluster/cache")
+    public ResponseEntity<PeerCacheEntry> getEntry(
+            @RequestHeader(value = HttpClusterTransport.SECRET_HEADER, required = false) String peerSecret,
+            @RequestParam String key) {
+        if (!isPeer(peerSecret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return searchCacheCluster.handleFetch(key)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/internal/cluster/cache")
+    public ResponseEntity<Void> putEntry(
+            @RequestHeader(value = HttpClusterTransport.SECRET_HEADER, required = false) String peerSecret,
+            @RequestParam String key, @RequestBody PeerCacheEntry entry) {
+        if (!isPeer(peerSecret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!searchCacheCluster.handleStore(key, entry)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/internal/cluster/cache")
+    public ResponseEntity<Void> invalidateEntry(
+            @RequestHeader(value = HttpClusterTransport.SECRET_HEADER, required = false) String peerSecret,
+            @RequestParam String key) {
+        if (!isPeer(peerSecret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        searchCacheCluster.handleInvalidate(key);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/internal/cluster/stats")
+    public ResponseEntity<ClusterCacheStats> getLocalStats(
+            @RequestHeader(value = HttpClusterTransport.SECRET_HEADER, required = false) String peerSecret) {
+        if (!isPeer(peerSecret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(searchCacheCluster.localStats());
+    }
+
+    /**
+     * Returns the cache hit rates of every reachable node and of the cluster as a whole.
+     * Unreachable nodes are left out of the totals.
+     *
+     * @return ClusterCacheStatusResponse with per-node and cluster-wide hit rates
+     */
+    @GetMapping("/api/search/cluster")
+    public ResponseEntity<ClusterCacheStatusResponse> getClusterStatus() {
+        log.debug("Received request for search cache cluster status");
+        List<ClusterCacheStats> stats = searchCacheCluster.clusterStats();
+        ClusterCacheStats total = new ClusterCacheStats("cluster",
+                stats.stream().mapToLong(ClusterCacheStats::lookups).sum(),
+                stats.stream().mapToLong(ClusterCacheStats::localHits).sum(),
+                stats.stream().mapToLong(ClusterCacheStats::peerHits).sum());
+
+        return ResponseEntity.ok(ClusterCacheStatusResponse.builder()
+                .nodeId(searchCacheCluster.getNodeId())
+                .configuredNodes(searchCacheCluster.getNodes().size())
+                .nodes(stats.stream().map(SearchCacheClusterController::toHitRates).toList())
+                .cluster(toHitRates(total))
+                .build());
+    }
+
+    /**
+     * Compares in constant time, so the secret can't be guessed from how long a refusal takes.
+     */
+    private boolean isPeer(String peerSecret) {
+        return secret.length > 0 && peerSecret != null
+                && MessageDigest.isEqual(secret, peerSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ClusterCacheStatusResponse.HitRates toHitRates(ClusterCacheStats stats) {
+        long lookups = stats.lookups();
+        return ClusterCacheStatusResponse.HitRates.builder()
+                .nodeId(stats.nodeId())
+                .lookups(lookups)
+                .localHits(stats.localHits())
+                .peerHits(stats.peerHits())
+                .misses(stats.misses())
+                .localHitRate(lookups == 0 ? 0 : (double) stats.localHits() / lookups)
+                .clusterHitRate(lookups == 0 ? 0 : (double) (stats.localHits() + stats.peerHits()) / lookups)
+                .build();
+    }
+}
@@ -1,13 +1,36 @@
 package com.googlev1.controller.search;
 
+import com.googlev1.dto.search.SearchOptions;
 import com.googlev1.dto.search.SearchRequest;
 import com.googlev1.dto.search.SearchResponse;
+import com.googlev1.dto.search.SearchResult;
+import com.googlev1.service.SavedItemService;
 import com.googlev1.service.TavilyService;
+import com.googlev1.service.cache.SerializedSearchResponse;
+import com.googlev1.service.resilience.ClientRateLimiter;
+import com.googlev1.service.tracing.StageTracer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * REST controller for handling search requests.
@@ -18,39 +41,238 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class SearchController {
 
+    private static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+    private static final String MODE_STANDARD = "standard";
+    private static final String MODE_LOCAL_FIRST = "local-first";
+    // One line per search; sampled in logback-spring.xml
+    private static final Logger requestLog = LoggerFactory.getLogger("requests.search");
+
     private final TavilyService tavilyService;
+    private final SavedItemService savedItemService;
+    private final ClientRateLimiter clientRateLimiter;
+    private final StageTracer stageTracer;
 
     @Autowired
-    public SearchController(TavilyService tavilyService) {
+    public SearchController(TavilyService tavilyService, SavedItemService savedItemService,
+                            ClientRateLimiter searchClientRateLimiter, StageTracer stageTracer) {
         this.tavilyService = tavilyService;
+        this.savedItemService = savedItemService;
+        this.clientRateLimiter = searchClientRateLimiter;
+        this.stageTracer = stageTracer;
     }
 
     /**
      * Performs a web search using the provided query and search type.
      * 
-     * @param request the search request containing query, search type, and max results
-     * @return SearchResponse containing search results and metadata
+     * The client's deadline, taken from the X-Request-Timeout-Ms header or the timeoutMs field,
+     * bounds how long the upstream call may take. Each client (by address) gets its own rate limit;
+     * requests beyond it are rejected with 429 and a Retry-After header.
+     * In local-first mode, cache misses may be answered from the local index of earlier results.
+     * Max results, search depth and raw content shape the upstream request; a cached response with more
+     * results than asked for is cut down instead of calling Tavily again.
+     * Repeat cache hits without saved status are written from the serialized copy of their entry.
+     * 
+     * @param request the search request containing query, search type, and search options
+     * @param timeoutHeader optional deadline in milliseconds
+     * @param httpRequest the servlet request, used to identify the client
+     * @param httpResponse the servlet response, written directly on repeat cache hits
+     * @return SearchResponse containing search results and metadata, or null if already written
      */
     @PostMapping
-    public ResponseEntity<SearchResponse> search(@RequestBody SearchRequest request) {
-        log.info("Received search request for query: '{}' with searchType: '{}'", 
-                request.getQuery(), request.getSearchType());
+    public ResponseEntity<SearchResponse> search(@RequestBody SearchRequest request,
+                                                 @RequestHeader(value = TIMEOUT_HEADER, required = false) Long timeoutHeader,
+                                                 HttpServletRequest httpRequest,
+                                                 HttpServletResponse httpResponse) throws IOException {
+        return handle(request, timeoutHeader, httpRequest, httpResponse, false);
+    }
+
+    /**
+     * Performs the same search with the request fields as query parameters
+     * (e.g. GET /api/search?query=...&amp;maxResults=5).
+     * 
+     * Responses answered from the cache carry a weak ETag and Last-Modified derived from when the cache entry
+     * was written, and may be cached until it expires (privately if annotated with saved status), so clients and
+     * intermediaries can revalidate with If-None-Match and get a 304 without a body.
+     * 
+     * @param request the search request, bound from the query parameters
+     * @param timeoutHeader optional deadline in milliseconds
+     * @param httpRequest the servlet request, used to identify the client
+     * @param httpResponse the servlet response, written directly on repeat cache hits
+     * @return SearchResponse containing search results and metadata, 304 if the client's copy is current, or
+     * null if already written
+     */
+    @GetMapping
+    public ResponseEntity<SearchResponse> searchByQueryString(SearchRequest request,
+                                                              @RequestHeader(value = TIMEOUT_HEADER, required = false) Long timeoutHeader,
+                                                              HttpServletRequest httpRequest,
+                                                              HttpServletResponse httpResponse) throws IOException {
+        return handle(request, timeoutHeader, httpRequest, httpResponse, true);
+    }
+
+    /**
+     * @param cacheable whether to add HTTP caching headers; a POST response can't be revalidated
+     * @return the response, or null if it was written to {@code httpResponse}
+     */
+    private ResponseEntity<SearchResponse> handle(SearchRequest request, Long timeoutHeader,
+                                                  HttpServletRequest httpRequest, HttpServletResponse httpResponse,
+                                                  boolean cacheable) throws IOException {
+        long startNanos = System.nanoTime();
         
         // Additional validation for whitespace-only queries
         if (request.getQuery() == null || request.getQuery().trim().isEmpty()) {
-            log.warn("Rejected search request with empty or whitespace-only query");
+            log.debug("Rejected search request with empty or whitespace-only query");
+            return ResponseEntity.badRequest().build();
+        }
+        
+        String mode = request.getMode() == null ? MODE_STANDARD : request.getMode();
+        if (!MODE_STANDARD.equals(mode) && !MODE_LOCAL_FIRST.equals(mode)) {
+            log.debug("Rejected search request with unknown mode: {}", mode);
+            return ResponseEntity.badRequest().build();
+        }
+        
+        SearchOptions options;
+        try {
+            options = SearchOptions.of(request);
+        } catch (IllegalArgumentException e) {
+            log.debug("Rejected search request with invalid options: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        
+        String client = httpRequest.getRemoteAddr();
+        if (!clientRateLimiter.tryAcquire(client)) {
+            requestLog.info("search rejected reason=rate-limited client={}", client);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(clientRateLimiter.retryAfterSeconds(client)))
+                    .build();
+        }
+        
+        Duration budget = resolveBudget(request.getTimeoutMs(), timeoutHeader);
+        if (budget != null && (budget.isNegative() || budget.isZero())) {
+            log.debug("Rejected search request with non-positive timeout");
             return ResponseEntity.badRequest().build();
         }
         
+        // Saved status is per request, so only plain hits can be written as serialized
+        Optional<SerializedSearchResponse> serialized = request.isIncludeSavedStatus() ? Optional.empty()
+                : tavilyService.searchSerialized(request.getQuery().trim(), request.getSearchType(), options);
+        if (serialized.isPresent()) {
+            writeSerialized(request, options, serialized.get(), httpRequest, httpResponse, cacheable);
+            requestLog.info("search completed query=\"{}\" type={} results={} fromCache=true fromIndex=false stale=false durationMs={}",
+                    request.getQuery(), request.getSearchType(), serialized.get().getResultCount(),
+                    (System.nanoTime() - startNanos) / 1_000_000);
+            return null;
+        }
+        
         try {
-            SearchResponse response = tavilyService.search(request.getQuery().trim(), request.getSearchType());
-            log.info("Successfully processed search request for query: '{}' with {} results", 
-                    request.getQuery(), response.getResultCount());
-            return ResponseEntity.ok(response);
+            SearchResponse response = tavilyService.search(request.getQuery().trim(), request.getSearchType(), budget,
+                    MODE_LOCAL_FIRST.equals(mode), options);
+            // Read before annotating, so the ETag never claims a newer saved state than the body has
+            Long savedVersion = request.isIncludeSavedStatus() ? savedItemService.getCollectionVersion() : null;
+            if (request.isIncludeSavedStatus()) {
+                stageTracer.trace("search.saved-status", () -> annotateSavedStatus(response));
+            }
+            requestLog.info("search completed query=\"{}\" type={} results={} fromCache={} fromIndex={} stale={} durationMs={}",
+                    request.getQuery(), request.getSearchType(), response.getResultCount(),
+                    response.isFromCache(), response.isFromIndex(), response.isStale(),
+                    (System.nanoTime() - startNanos) / 1_000_000);
+            if (!cacheable) {
+                return ResponseEntity.ok(response);
+            }
+            if (response.getCachedAt() == null) {
+                // Answered from the local index or an error; nothing to revalidate against
+                return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(response);
+            }
+            long cachedAt = toEpochMillis(response.getCachedAt());
+            String etag = searchETag(request, options, response.isStale(), savedVersion, cachedAt);
+            // Spring answers a matching conditional GET with a 304 carrying these headers, without writing the body
+            return ResponseEntity.ok()
+                    .cacheControl(cacheControl(request, response.isStale(), response.getExpiresAt()))
+                    .eTag(etag)
+                    .lastModified(cachedAt)
+                    .body(response);
             
         } catch (Exception e) {
             log.error("Error processing search request for query '{}': {}", request.getQuery(), e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    /**
+     * Writes a serialized cached response, with the same caching headers as the regular path, or a 304 if the
+     * client's copy is current.
+     */
+    private void writeSerialized(SearchRequest request, SearchOptions options, SerializedSearchResponse serialized,
+                                 HttpServletRequest httpRequest, HttpServletResponse httpResponse,
+                                 boolean cacheable) throws IOException {
+        if (cacheable) {
+            long cachedAt = toEpochMillis(serialized.getCachedAt());
+            httpResponse.setHeader(HttpHeaders.CACHE_CONTROL,
+                    cacheControl(request, false, serialized.getExpiresAt()).getHeaderValue());
+            // Sets the ETag and Last-Modified, and the status to 304 if they match the request's
+            if (new ServletWebRequest(httpRequest, httpResponse)
+                    .checkNotModified(searchETag(request, options, false, null, cachedAt), cachedAt)) {
+                return;
+            }
+        }
+        httpResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        serialized.writeTo(httpResponse.getOutputStream(), LocalDateTime.now());
+    }
+
+    /**
+     * Weak ETag of a cached search response: a hash of the search, its options, the saved-items version it was
+     * annotated with and whether it is stale, plus when its cache entry was written. Weak, so it survives gzip.
+     */
+    private static String searchETag(SearchRequest request, SearchOptions options, boolean stale,
+                                     Long savedVersion, long cachedAt) {
+        String view = request.getQuery().trim() + '\n' + request.getSearchType() + '\n' + options + '\n'
+                + savedVersion + '\n' + stale;
+        return "W/\"s-" + Integer.toHexString(view.hashCode()) + "-" + Long.toHexString(cachedAt) + "\"";
+    }
+
+    /**
+     * Cache-Control of a cached search response: cacheable until its entry expires, privately if annotated with
+     * saved status, or to be revalidated every time if stale.
+     */
+    private static CacheControl cacheControl(SearchRequest request, boolean stale, LocalDateTime expiresAt) {
+        Duration freshFor = Duration.between(LocalDateTime.now(), expiresAt);
+        return stale || freshFor.isNegative() ? CacheControl.noCache()
+                : request.isIncludeSavedStatus() ? CacheControl.maxAge(freshFor).cachePrivate()
+                : CacheControl.maxAge(freshFor).cachePublic();
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Combines the deadline from the request body and the header; the stricter one wins.
+     * 
+     * @return the time budget, or null if the client didn't set one
+     */
+    private Duration resolveBudget(Long bodyTimeoutMs, Long headerTimeoutMs) {
+        if (bodyTimeoutMs == null && headerTimeoutMs == null) {
+            return null;
+        }
+        long millis = bodyTimeoutMs == null ? headerTimeoutMs
+                : headerTimeoutMs == null ? bodyTimeoutMs
+                : Math.min(bodyTimeoutMs, headerTimeoutMs);
+        return Duration.ofMillis(millis);
+    }
+
+    /**
+     * Marks each result with its saved status using one bulk membership check.
+     * 
+     * @param response the search response to annotate in place
+     */
+    private void annotateSavedStatus(SearchResponse response) {
+        List<SearchResult> results = response.getResults();
+        if (results == null || results.isEmpty()) {
+            return;
+        }
+        List<String> urls = results.stream().map(SearchResult::getUrl).collect(Collectors.toList());
+        Map<String, Boolean> saved = savedItemService.checkUrlsExist(urls);
+        for (SearchResult result : results) {
+            result.setSaved(saved.getOrDefault(result.getUrl(), false));
+        }
+    }
 }
@@ -3,6 +3,14 @@ package com.googlev1.controller.search;
 import com.googlev1.dto.search.SearchStatusResponse;
 import com.googlev1.service.SearchCacheService;
 import com.googlev1.service.TavilyService;
+import com.googlev1.service.cache.AdaptiveTtlPolicy;
+import com.googlev1.service.dedup.NearDuplicateDetector;
+import com.googlev1.service.index.LocalSearchIndex;
+import com.googlev1.service.resilience.AdaptiveConcurrencyLimiter;
+import com.googlev1.service.resilience.CircuitBreaker;
+import com.googlev1.service.resilience.ClientRateLimiter;
+import com.googlev1.service.resilience.HedgingPolicy;
+import com.googlev1.service.resilience.UpstreamBudget;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -10,6 +18,8 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Optional;
+
 /**
  * REST controller for search service status monitoring.
  * Provides endpoints for checking health status, cache statistics, and API metrics.
@@ -20,17 +30,45 @@ import org.springframework.web.bind.annotation.RestController;
 public class SearchStatusController {
 
     private final SearchCacheService searchCacheService;
+    private final AdaptiveTtlPolicy searchCacheTtlPolicy;
     private final TavilyService tavilyService;
+    private final CircuitBreaker tavilyCircuitBreaker;
+    private final AdaptiveConcurrencyLimiter tavilyConcurrencyLimiter;
+    private final HedgingPolicy tavilyHedgingPolicy;
+    private final UpstreamBudget tavilyUpstreamBudget;
+    private final ClientRateLimiter searchClientRateLimiter;
+    // Null when the local search index is disabled
+    private final LocalSearchIndex localSearchIndex;
+    // Null when deduplication is disabled
+    private final NearDuplicateDetector nearDuplicateDetector;
 
     @Autowired
-    public SearchStatusController(SearchCacheService searchCacheService, TavilyService tavilyService) {
+    public SearchStatusController(SearchCacheService searchCacheService, AdaptiveTtlPolicy searchCacheTtlPolicy,
+                                  TavilyService tavilyService,
+                                  CircuitBreaker tavilyCircuitBreaker,
+                                  AdaptiveConcurrencyLimiter tavilyConcurrencyLimiter,
+                                  HedgingPolicy tavilyHedgingPolicy,
+                                  UpstreamBudget tavilyUpstreamBudget,
+                                  ClientRateLimiter searchClientRateLimiter,
+                                  Optional<LocalSearchIndex> localSearchIndex,
+                                  Optional<NearDuplicateDetector> nearDuplicateDetector) {
         this.searchCacheService = searchCacheService;
+        this.searchCacheTtlPolicy = searchCacheTtlPolicy;
         this.tavilyService = tavilyService;
+        this.tavilyCircuitBreaker = tavilyCircuitBreaker;
+        this.tavilyConcurrencyLimiter = tavilyConcurrencyLimiter;
+        this.tavilyHedgingPolicy = tavilyHedgingPolicy;
+        this.tavilyUpstreamBudget = tavilyUpstreamBudget;
+        this.searchClientRateLimiter = searchClientRateLimiter;
+        this.localSearchIndex = localSearchIndex.orElse(null);
+        this.nearDuplicateDetector = nearDuplicateDetector.orElse(null);
     }
 
     /**
      * Returns the health status of the search service.
-     * Includes API health, cache statistics, and last successful call timestamp.
+     * Includes API health, cache statistics (with the upstream calls adaptive TTLs saved), last successful call timestamp,
+     * circuit breaker state, the current concurrency limit, hedging counters, the remaining upstream budget,
+     * how often the local index answered local-first searches and what near-duplicate detection saved.
      * 
      * @return SearchStatusResponse containing health and metrics information
      */
@@ -42,15 +80,44 @@ public class SearchStatusController {
             boolean isHealthy = tavilyService.isHealthy();
             long cachedEntryCount = searchCacheService.getCacheEntryCount();
             
+            CircuitBreaker.State circuitState = tavilyCircuitBreaker.getState();
+            
             String message = isHealthy 
                     ? "Search service is operational" 
-                    : "Search service is experiencing issues";
+                    : circuitState == CircuitBreaker.State.OPEN
+                        ? "Search service is experiencing issues, serving cached results only"
+                        : "Search service is recovering";
             
             SearchStatusResponse response = SearchStatusResponse.builder()
                     .healthy(isHealthy)
                     .cachedEntryCount(cachedEntryCount)
+                    .adaptiveTtlCallsSaved(searchCacheTtlPolicy.getCallsSaved())
+                    .adaptiveTtlCallsAdded(searchCacheTtlPolicy.getCallsAdded())
+                    .indexedDocuments(localSearchIndex != null ? localSearchIndex.size() : 0)
+                    .localFirstAnswered(tavilyService.getLocalFirstAnswered())
+                    .localFirstFallbacks(tavilyService.getLocalFirstFallbacks())
+                    .duplicateRate(nearDuplicateDetector != null ? nearDuplicateDetector.getDuplicateRate() : 0)
+                    .duplicateBytesSaved(nearDuplicateDetector != null
+                            ? nearDuplicateDetector.getCollapsedBytes() + nearDuplicateDetector.getReusedBytes() : 0)
+                    .contentReuses(nearDuplicateDetector != null ? nearDuplicateDetector.getContentReuses() : 0)
                     .lastSuccessfulCall(tavilyService.getLastSuccessfulCallTimestamp())
                     .message(message)
+                    .circuitState(circuitState.name())
+                    .failureRate(tavilyCircuitBreaker.getFailureRate())
+                    .slowCallRate(tavilyCircuitBreaker.getSlowCallRate())
+                    .circuitTransitions(tavilyCircuitBreaker.getTransitionCount())
+                    .lastCircuitTransition(tavilyCircuitBreaker.getLastTransition())
+                    .concurrencyLimit(tavilyConcurrencyLimiter.getLimit())
+                    .inFlightRequests(tavilyConcurrencyLimiter.getInFlight())
+                    .rejectedRequests(tavilyConcurrencyLimiter.getRejectedCount())
+                    .hedgeDelayMs(tavilyHedgingPolicy.getPercentileMillis())
+                    .upstreamRequests(tavilyHedgingPolicy.getRequestCount())
+                    .hedgesSent(tavilyHedgingPolicy.getHedgesSent())
+                    .hedgeWins(tavilyHedgingPolicy.getHedgeWins())
+                    .upstreamTokensAvailable(tavilyUpstreamBudget.getAvailableTokens())
+                    .upstreamQuotaRemaining(tavilyUpstreamBudget.getRemainingQuota())
+                    .budgetRejections(tavilyUpstreamBudget.getRateLimitedCount() + tavilyUpstreamBudget.getQuotaExhaustedCount())
+                    .clientRejections(searchClientRateLimiter.getRejectedCount())
                     .build();
             
             log.debug("Returning status: healthy={}, cachedEntries={}", isHealthy, cachedEntryCount);
@@ -1,5 +1,6 @@
 package com.googlev1.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.time.LocalDateTime;
 
 public class ContentResponse {
@@ -9,6 +10,13 @@ public class ContentResponse {
     private int wordCount;
     private LocalDateTime fetchedAt;
     private boolean cached;
+    // Page metadata, left out when the page doesn't give it
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String lang;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String canonicalUrl;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String publishedAt;
 
     public ContentResponse() {
     }
@@ -69,4 +77,28 @@ public class ContentResponse {
     public void setCached(boolean cached) {
         this.cached = cached;
     }
+
+    public String getLang() {
+        return lang;
+    }
+
+    public void setLang(String lang) {
+        this.lang = lang;
+    }
+
+    public String getCanonicalUrl() {
+        return canonicalUrl;
+    }
+
+    public void setCanonicalUrl(String canonicalUrl) {
+        this.canonicalUrl = canonicalUrl;
+    }
+
+    public String getPublishedAt() {
+        return publishedAt;
+    }
+
+    public void setPublishedAt(String publishedAt) {
+        this.publishedAt = publishedAt;
+    }
 }
@@ -0,0 +1,44 @@
+package com.googlev1.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.LocalDateTime;
+
+/**
+ * One line of a streamed page (see ContentController.streamContent), told apart by its type:
+ * "meta" first, then "text" chunks in order, then "end" once the whole text is known, or "error" if the page
+ * couldn't be fetched after streaming started.
+ * Offsets and lengths count characters of the extracted text. The end event also has the page's language,
+ * canonical URL and publication date, when it gives them.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ContentStreamEvent(String type, String url, String title, LocalDateTime fetchedAt, Boolean cached,
+                                 Integer wordCount, Integer length, Integer offset, String text, String error,
+                                 String lang, String canonicalUrl, String publishedAt) {
+
+    /**
+     * @param title null if it isn't known yet; the end event has it
+     * @param length of the whole text, null if it isn't known yet
+     */
+    public static ContentStreamEvent meta(String url, String title, LocalDateTime fetchedAt, boolean cached,
+                                          Integer length) {
+        return new ContentStreamEvent("meta", url, title, fetchedAt, cached, null, length, null, null, null, null,
+                null, null);
+    }
+
+    public static ContentStreamEvent text(int offset, String text) {
+        return new ContentStreamEvent("text", null, null, null, null, null, null, offset, text, null, null, null,
+                null);
+    }
+
+    public static ContentStreamEvent end(String url, String title, LocalDateTime fetchedAt, boolean cached,
+                                         int wordCount, int length, String lang, String canonicalUrl,
+                                         String publishedAt) {
+        return new ContentStreamEvent("end", url, title, fetchedAt, cached, wordCount, length, null, null, null,
+                lang, canonicalUrl, publishedAt);
+    }
+
+    public static ContentStreamEvent error(String error) {
+        return new ContentStreamEvent("error", null, null, null, null, null, null, null, null, error, null, null,
+                null);
+    }
+}
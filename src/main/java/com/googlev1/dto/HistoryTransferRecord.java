@@ -0,0 +1,16 @@
+package com.googlev1.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of a search-history NDJSON export/import.
+ * The id is informational on export and ignored on import.
+ */
+public record HistoryTransferRecord(
+        Long id,
+        String query,
+        String searchType,
+        Integer resultsCount,
+        LocalDateTime searchedAt
+) {
+}
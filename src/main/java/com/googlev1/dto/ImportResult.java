@@ -0,0 +1,79 @@
+package com.googlev1.dto;
+
+public class ImportResult {
+    private long read;
+    private long inserted;
+    private long updated;
+    private long skipped;
+    private long invalid;
+    private long elapsedMs;
+    private long rowsPerSecond;
+    
+    public ImportResult() {}
+    
+    public ImportResult(long read, long inserted, long updated, long skipped, long invalid, long elapsedMs) {
+        this.read = read;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.skipped = skipped;
+        this.invalid = invalid;
+        this.elapsedMs = elapsedMs;
+        this.rowsPerSecond = elapsedMs > 0 ? read * 1000 / elapsedMs : read;
+    }
+    
+    public long getRead() {
+        return read;
+    }
+    
+    public void setRead(long read) {
+        this.read = read;
+    }
+    
+    public long getInserted() {
+        return inserted;
+    }
+    
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+    
+    public long getUpdated() {
+        return updated;
+    }
+    
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+    
+    public long getSkipped() {
+        return skipped;
+    }
+    
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+    
+    public long getInvalid() {
+        return invalid;
+    }
+    
+    public void setInvalid(long invalid) {
+        this.invalid = invalid;
+    }
+    
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+    
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+    
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+    
+    public void setRowsPerSecond(long rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+}
@@ -1,5 +1,6 @@
 package com.googlev1.dto;
 
+import com.googlev1.entity.UserPreference;
 import java.time.LocalDateTime;
 
 public class PreferenceResponse {
@@ -23,6 +24,17 @@ public class PreferenceResponse {
         this.updatedAt = updatedAt;
     }
     
+    public PreferenceResponse(UserPreference preference) {
+        this(
+            preference.getId(),
+            preference.getDefaultQuery(),
+            preference.getDefaultType(),
+            preference.getTheme(),
+            preference.getShowAdvancedTips(),
+            preference.getUpdatedAt()
+        );
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
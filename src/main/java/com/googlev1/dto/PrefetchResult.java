@@ -0,0 +1,49 @@
+package com.googlev1.dto;
+
+public class PrefetchResult {
+    private int requested;
+    private int queued;
+    private int cached;
+    private int rejected;
+
+    public PrefetchResult() {}
+
+    public PrefetchResult(int requested, int queued, int cached, int rejected) {
+        this.requested = requested;
+        this.queued = queued;
+        this.cached = cached;
+        this.rejected = rejected;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public void setRequested(int requested) {
+        this.requested = requested;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public void setQueued(int queued) {
+        this.queued = queued;
+    }
+
+    public int getCached() {
+        return cached;
+    }
+
+    public void setCached(int cached) {
+        this.cached = cached;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+}
@@ -0,0 +1,40 @@
+package com.googlev1.dto;
+
+import com.googlev1.repository.SavedItemSummary;
+import java.util.List;
+
+public class SavedItemPageResponse {
+    private List<SavedItemSummary> items;
+    private String nextCursor;
+    private boolean hasMore;
+    
+    public SavedItemPageResponse(List<SavedItemSummary> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+    
+    public List<SavedItemSummary> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<SavedItemSummary> items) {
+        this.items = items;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,17 @@
+package com.googlev1.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of a saved-items NDJSON export/import.
+ * The id is informational on export and ignored on import; the url identifies the item.
+ */
+public record SavedItemTransferRecord(
+        Long id,
+        String title,
+        String url,
+        String summary,
+        String notes,
+        LocalDateTime savedDate
+) {
+}
@@ -0,0 +1,80 @@
+package com.googlev1.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO representing the hit rates of the cluster-wide search cache, per node and over all nodes.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterCacheStatusResponse {
+
+    /**
+     * ID of the node that answered.
+     */
+    private String nodeId;
+
+    /**
+     * Number of configured nodes.
+     */
+    private int configuredNodes;
+
+    /**
+     * Hit rates of each node that could be reached.
+     */
+    private List<HitRates> nodes;
+
+    /**
+     * Hit rates over all reachable nodes.
+     */
+    private HitRates cluster;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HitRates {
+
+        /**
+         * Node ID, or "cluster" for the totals.
+         */
+        private String nodeId;
+
+        /**
+         * Search cache lookups.
+         */
+        private long lookups;
+
+        /**
+         * Lookups answered from the node's own cache.
+         */
+        private long localHits;
+
+        /**
+         * Lookups answered by the key's owner node after a local miss.
+         */
+        private long peerHits;
+
+        /**
+         * Lookups that went upstream.
+         */
+        private long misses;
+
+        /**
+         * Share of lookups answered from the node's own cache.
+         */
+        private double localHitRate;
+
+        /**
+         * Share of lookups answered from any node's cache.
+         */
+        private double clusterHitRate;
+    }
+}
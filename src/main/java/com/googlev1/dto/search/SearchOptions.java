@@ -0,0 +1,51 @@
+package com.googlev1.dto.search;
+
+import java.util.Set;
+
+/**
+ * Options of a search that shape the upstream request and, with the query and search type, identify its cache entry.
+ * <p>
+ * The search depth and whether raw content is included are part of the cache key; the number of results is not.
+ * A cached response fetched with maxResults N answers any request for N results or fewer with its first results
+ * (see SearchCacheService), so lightweight clients asking for fewer results share the entry of full ones.
+ *
+ * @param maxResults how many results to ask Tavily for, 1 to {@value #MAX_RESULTS}
+ * @param searchDepth "basic" or "advanced" (slower, costs more upstream credits)
+ * @param includeRawContent whether each result carries the full text of its page
+ */
+public record SearchOptions(int maxResults, String searchDepth, boolean includeRawContent) {
+
+    // Initialized before DEFAULT, which the constructor validates against it
+    private static final Set<String> SEARCH_DEPTHS = Set.of("basic", "advanced");
+
+    public static final int MAX_RESULTS = 20;
+    public static final SearchOptions DEFAULT = new SearchOptions(10, "basic", false);
+
+    public SearchOptions {
+        if (maxResults < 1 || maxResults > MAX_RESULTS) {
+            throw new IllegalArgumentException("maxResults must be between 1 and " + MAX_RESULTS + ": " + maxResults);
+        }
+        if (!SEARCH_DEPTHS.contains(searchDepth)) {
+            throw new IllegalArgumentException("Unknown search depth: " + searchDepth);
+        }
+    }
+
+    /**
+     * Builds the options of a search request, using the defaults for the fields it leaves out.
+     *
+     * @throws IllegalArgumentException if a field is out of range
+     */
+    public static SearchOptions of(SearchRequest request) {
+        return new SearchOptions(
+                request.getMaxResults() != null ? request.getMaxResults() : DEFAULT.maxResults(),
+                request.getSearchDepth() != null ? request.getSearchDepth() : DEFAULT.searchDepth(),
+                request.isIncludeRawContent());
+    }
+
+    /**
+     * @return the part of the cache key these options contribute, e.g. "basic" or "advanced+raw"
+     */
+    public String cacheVariant() {
+        return includeRawContent ? searchDepth + "+raw" : searchDepth;
+    }
+}
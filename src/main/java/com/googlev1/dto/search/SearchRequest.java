@@ -7,7 +7,7 @@ import lombok.NoArgsConstructor;
 
 /**
  * DTO for search requests.
- * Contains the query text, search type, and maximum results configuration.
+ * Contains the query text, search type, and the options shaping the upstream request (see SearchOptions).
  */
 @Data
 @Builder
@@ -28,9 +28,43 @@ public class SearchRequest {
     private String searchType = "general";
 
     /**
-     * Maximum number of results to return.
+     * Maximum number of results to return, 1 to 20.
      * Defaults to 10 if not specified.
      */
     @Builder.Default
     private Integer maxResults = 10;
+
+    /**
+     * Search depth: "basic" or "advanced" (more thorough, slower, costs more upstream credits).
+     * Defaults to "basic" if not specified.
+     */
+    @Builder.Default
+    private String searchDepth = "basic";
+
+    /**
+     * Whether each result should carry the full text of its page in its content.
+     */
+    @Builder.Default
+    private boolean includeRawContent = false;
+
+    /**
+     * Whether each result should be annotated with its saved status.
+     * Saves the client a separate round trip to /api/saved-items/check.
+     */
+    @Builder.Default
+    private boolean includeSavedStatus = false;
+
+    /**
+     * How long the client is willing to wait, in milliseconds.
+     * Optional; the X-Request-Timeout-Ms header may be used instead (the smaller one wins).
+     */
+    private Long timeoutMs;
+
+    /**
+     * How the search is answered: "standard" (cache, then Tavily) or "local-first" (cache, then the local
+     * index of earlier results if it covers the query, then Tavily).
+     * Defaults to "standard" if not specified.
+     */
+    @Builder.Default
+    private String mode = "standard";
 }
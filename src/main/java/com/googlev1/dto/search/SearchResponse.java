@@ -1,5 +1,6 @@
 package com.googlev1.dto.search;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -38,6 +39,11 @@ public class SearchResponse {
      */
     private int resultCount;
 
+    /**
+     * Number of results that were asked for. Cached responses without it were fetched with the default of 10.
+     */
+    private Integer maxResults;
+
     /**
      * Timestamp when the response was generated.
      */
@@ -47,4 +53,27 @@ public class SearchResponse {
      * Whether this result was served from cache.
      */
     private boolean fromCache;
+
+    /**
+     * Whether this result came from an expired cache entry because the upstream was unavailable.
+     */
+    private boolean stale;
+
+    /**
+     * Whether this result was answered from the local index of earlier results instead of Tavily.
+     */
+    private boolean fromIndex;
+
+    /**
+     * When the cache entry holding this response was written; null if it isn't cached.
+     * Not serialized; the controller derives the ETag and Last-Modified from it.
+     */
+    @JsonIgnore
+    private LocalDateTime cachedAt;
+
+    /**
+     * When the cache entry holding this response expires; null if it isn't cached. Not serialized.
+     */
+    @JsonIgnore
+    private LocalDateTime expiresAt;
 }
\ No newline at end of file
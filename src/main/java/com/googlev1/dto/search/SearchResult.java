@@ -1,10 +1,13 @@
 package com.googlev1.dto.search;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 /**
  * DTO representing a single search result.
  * Contains the title, URL, summary, and optional content for a search result.
@@ -34,4 +37,17 @@ public class SearchResult {
      * Optional full content of the search result.
      */
     private String content;
+
+    /**
+     * Whether the URL is in the user's saved items.
+     * Only set when the request asked for saved status; never stored in the search cache.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean saved;
+
+    /**
+     * URLs of near-duplicate results (mirrors, syndicated copies) collapsed into this one.
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<String> duplicateUrls;
 }
\ No newline at end of file
@@ -27,6 +27,46 @@ public class SearchStatusResponse {
      */
     private long cachedEntryCount;
 
+    /**
+     * Cache hits that would have gone upstream with a fixed per-type TTL, thanks to adaptive TTLs.
+     */
+    private long adaptiveTtlCallsSaved;
+
+    /**
+     * Upstream calls made because adaptive TTLs expired a changing entry before the fixed TTL would have.
+     */
+    private long adaptiveTtlCallsAdded;
+
+    /**
+     * Number of pages in the local search index, 0 if it is disabled.
+     */
+    private long indexedDocuments;
+
+    /**
+     * Local-first searches answered from the local index.
+     */
+    private long localFirstAnswered;
+
+    /**
+     * Local-first searches the local index didn't cover, which went on to Tavily.
+     */
+    private long localFirstFallbacks;
+
+    /**
+     * Share of search results collapsed into a near-duplicate since startup.
+     */
+    private double duplicateRate;
+
+    /**
+     * Bytes of collapsed results and of page bodies reused from near-duplicates instead of fetched.
+     */
+    private long duplicateBytesSaved;
+
+    /**
+     * Pages answered with the cached body of a near-duplicate instead of being fetched.
+     */
+    private long contentReuses;
+
     /**
      * Timestamp of the last successful API call to Tavily.
      */
@@ -36,4 +76,84 @@ public class SearchStatusResponse {
      * Status message providing additional information.
      */
     private String message;
-}
\ No newline at end of file
+
+    /**
+     * State of the Tavily circuit breaker (CLOSED, OPEN or HALF_OPEN).
+     */
+    private String circuitState;
+
+    /**
+     * Failure rate (percent) over the circuit breaker's sliding window.
+     */
+    private double failureRate;
+
+    /**
+     * Slow-call rate (percent) over the circuit breaker's sliding window.
+     */
+    private double slowCallRate;
+
+    /**
+     * Number of circuit breaker state transitions since startup.
+     */
+    private long circuitTransitions;
+
+    /**
+     * Timestamp of the last circuit breaker state transition.
+     */
+    private LocalDateTime lastCircuitTransition;
+
+    /**
+     * Current adaptive limit on concurrent Tavily calls.
+     */
+    private int concurrencyLimit;
+
+    /**
+     * Number of Tavily calls currently in flight.
+     */
+    private int inFlightRequests;
+
+    /**
+     * Number of calls rejected because the concurrency limit was reached.
+     */
+    private long rejectedRequests;
+
+    /**
+     * Current hedge delay (recent p95 latency of Tavily calls) in milliseconds, -1 until enough calls were seen.
+     */
+    private long hedgeDelayMs;
+
+    /**
+     * Number of upstream requests that were eligible for hedging.
+     */
+    private long upstreamRequests;
+
+    /**
+     * Number of hedge requests sent.
+     */
+    private long hedgesSent;
+
+    /**
+     * Number of hedge requests that answered before the original request.
+     */
+    private long hedgeWins;
+
+    /**
+     * Upstream requests that may be sent right now without waiting for the rate limit.
+     */
+    private long upstreamTokensAvailable;
+
+    /**
+     * Upstream requests left in today's quota, -1 if there is no daily quota.
+     */
+    private long upstreamQuotaRemaining;
+
+    /**
+     * Cache misses not sent upstream because the rate limit or daily quota was exhausted.
+     */
+    private long budgetRejections;
+
+    /**
+     * Search requests rejected by the per-client rate limit.
+     */
+    private long clientRejections;
+}
@@ -5,12 +5,15 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Lob;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "content_cache")
+@Table(name = "content_cache", indexes = {
+    @Index(name = "idx_content_cache_fetched_at", columnList = "fetched_at")
+})
 public class ContentCacheEntry {
 
     @Id
@@ -33,6 +36,16 @@ public class ContentCacheEntry {
     @Column(name = "fetched_at", nullable = false)
     private LocalDateTime fetchedAt;
 
+    @Column(length = 35)
+    private String lang;
+
+    @Column(name = "canonical_url", length = 2048)
+    private String canonicalUrl;
+
+    // ISO-8601 date or date-time, as the page gives it
+    @Column(name = "published_at", length = 40)
+    private String publishedAt;
+
     public ContentCacheEntry() {
     }
 
@@ -91,4 +104,28 @@ public class ContentCacheEntry {
     public void setFetchedAt(LocalDateTime fetchedAt) {
         this.fetchedAt = fetchedAt;
     }
+
+    public String getLang() {
+        return lang;
+    }
+
+    public void setLang(String lang) {
+        this.lang = lang;
+    }
+
+    public String getCanonicalUrl() {
+        return canonicalUrl;
+    }
+
+    public void setCanonicalUrl(String canonicalUrl) {
+        this.canonicalUrl = canonicalUrl;
+    }
+
+    public String getPublishedAt() {
+        return publishedAt;
+    }
+
+    public void setPublishedAt(String publishedAt) {
+        this.publishedAt = publishedAt;
+    }
 }
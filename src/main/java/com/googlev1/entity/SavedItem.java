@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "saved_items")
+@Table(name = "saved_items", indexes = {
+    @Index(name = "idx_saved_items_saved_date", columnList = "saved_date, id")
+})
 public class SavedItem {
     
     @Id
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "search_history")
+@Table(name = "search_history", indexes = {
+    @Index(name = "idx_search_history_searched_at", columnList = "searched_at")
+})
 public class SearchHistory {
 
     @Id
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_preference")
+@Table(name = "user_preference", indexes = {
+    @Index(name = "idx_user_preference_updated_at", columnList = "updated_at")
+})
 public class UserPreference {
     
     @Id
@@ -43,6 +45,16 @@ public class UserPreference {
         this.updatedAt = LocalDateTime.now();
     }
     
+    /**
+     * Detached copy, so cached instances are never mutated in place
+     */
+    public UserPreference copy() {
+        UserPreference copy = new UserPreference(defaultQuery, defaultType, theme, showAdvancedTips);
+        copy.setId(id);
+        copy.setUpdatedAt(updatedAt);
+        return copy;
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
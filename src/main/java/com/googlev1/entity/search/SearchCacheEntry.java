@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "search_cache", 
-       uniqueConstraints = @UniqueConstraint(columnNames = {"query", "searchType"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"query", "searchType", "searchOptions"}),
+       indexes = @Index(name = "idx_search_cache_expires_at", columnList = "expiresAt"))
 @Data
 @Builder
 @NoArgsConstructor
@@ -40,6 +41,12 @@ public class SearchCacheEntry {
     @Column(nullable = false)
     private String searchType;
 
+    /**
+     * The search options that are part of the cache key (see SearchOptions#cacheVariant).
+     */
+    @Column(nullable = false)
+    private String searchOptions;
+
     /**
      * The serialized SearchResponse as JSON.
      */
@@ -57,4 +64,10 @@ public class SearchCacheEntry {
      */
     @Column(nullable = false)
     private LocalDateTime expiresAt;
+
+    /**
+     * TTL this entry was given, adapted per entry on each refresh (see AdaptiveTtlPolicy).
+     * Null for entries cached before TTLs were adaptive.
+     */
+    private Integer ttlSeconds;
 }
\ No newline at end of file
@@ -1,9 +1,15 @@
 package com.googlev1.repository;
 
+import com.googlev1.dto.SavedItemTransferRecord;
 import com.googlev1.entity.SavedItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -11,6 +17,33 @@ public interface SavedItemRepository extends JpaRepository<SavedItem, Long> {
     
     boolean existsByUrl(String url);
     
+    @Query("SELECT s.url FROM SavedItem s WHERE s.url IN :urls")
+    List<String> findExistingUrls(@Param("urls") Collection<String> urls);
+    
     
     List<SavedItem> findAllByOrderBySavedDateDesc();
+    
+    // Keyset pagination over (saved_date, id), newest first; served by idx_saved_items_saved_date
+    @Query("SELECT s.id AS id, s.title AS title, s.url AS url, s.summary AS summary, "
+            + "CASE WHEN s.notes IS NULL THEN false ELSE true END AS hasNotes, s.savedDate AS savedDate "
+            + "FROM SavedItem s ORDER BY s.savedDate DESC, s.id DESC")
+    List<SavedItemSummary> findFirstPage(Pageable pageable);
+    
+    @Query("SELECT s.id AS id, s.title AS title, s.url AS url, s.summary AS summary, "
+            + "CASE WHEN s.notes IS NULL THEN false ELSE true END AS hasNotes, s.savedDate AS savedDate "
+            + "FROM SavedItem s "
+            + "WHERE s.savedDate < :savedDate OR (s.savedDate = :savedDate AND s.id < :id) "
+            + "ORDER BY s.savedDate DESC, s.id DESC")
+    List<SavedItemSummary> findPageAfter(@Param("savedDate") LocalDateTime savedDate,
+                                         @Param("id") Long id,
+                                         Pageable pageable);
+    
+    // Export pages in id order; constructor results are not managed, so the persistence context stays empty
+    @Query("SELECT new com.googlev1.dto.SavedItemTransferRecord(s.id, s.title, s.url, s.summary, s.notes, s.savedDate) "
+            + "FROM SavedItem s WHERE s.id > :afterId ORDER BY s.id")
+    List<SavedItemTransferRecord> findTransferPage(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT new com.googlev1.dto.SavedItemTransferRecord(s.id, s.title, s.url, s.summary, s.notes, s.savedDate) "
+            + "FROM SavedItem s WHERE s.url IN :urls")
+    List<SavedItemTransferRecord> findTransferRecordsByUrls(@Param("urls") Collection<String> urls);
 }
@@ -0,0 +1,21 @@
+package com.googlev1.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight projection of a saved item for list views.
+ * Leaves out the notes body; hasNotes tells the UI whether there is one to load.
+ */
+public interface SavedItemSummary {
+    Long getId();
+
+    String getTitle();
+
+    String getUrl();
+
+    String getSummary();
+
+    boolean getHasNotes();
+
+    LocalDateTime getSavedDate();
+}
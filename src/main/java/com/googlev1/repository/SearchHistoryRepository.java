@@ -1,7 +1,11 @@
 package com.googlev1.repository;
 
+import com.googlev1.dto.HistoryTransferRecord;
 import com.googlev1.entity.SearchHistory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,4 +19,8 @@ public interface SearchHistoryRepository extends JpaRepository<SearchHistory, Lo
     List<SearchHistory> findTop20ByOrderBySearchedAtDesc();
 
     Optional<SearchHistory> findFirstByQueryAndSearchTypeOrderBySearchedAtDesc(String query, String searchType);
+
+    @Query("SELECT new com.googlev1.dto.HistoryTransferRecord(h.id, h.query, h.searchType, h.resultsCount, h.searchedAt) "
+            + "FROM SearchHistory h WHERE h.id > :afterId ORDER BY h.id")
+    List<HistoryTransferRecord> findTransferPage(@Param("afterId") Long afterId, Pageable pageable);
 }
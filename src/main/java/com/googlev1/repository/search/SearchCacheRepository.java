@@ -15,14 +15,16 @@ import java.util.Optional;
 public interface SearchCacheRepository extends JpaRepository<SearchCacheEntry, Long> {
     
     /**
-     * Find a cache entry by query and search type combination.
+     * Find a cache entry by query, search type and search options combination.
      * Used to check if a search result is already cached.
      * 
      * @param query the search query
      * @param searchType the type of search (e.g., "general", "news")
+     * @param searchOptions the cache variant of the search options (e.g., "basic", "advanced+raw")
      * @return Optional containing the cache entry if found
      */
-    Optional<SearchCacheEntry> findByQueryAndSearchType(String query, String searchType);
+    Optional<SearchCacheEntry> findByQueryAndSearchTypeAndSearchOptions(String query, String searchType,
+                                                                        String searchOptions);
     
     /**
      * Delete all cache entries that have expired before the given timestamp.
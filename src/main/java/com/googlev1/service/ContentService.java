@@ -1,79 +1,431 @@
 package com.googlev1.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.googlev1.dto.ContentResponse;
+import com.googlev1.dto.ContentStreamEvent;
+import com.googlev1.dto.PrefetchResult;
 import com.googlev1.entity.ContentCacheEntry;
 import com.googlev1.repository.ContentCacheRepository;
+import com.googlev1.service.content.ContentPipeline;
+import com.googlev1.service.content.ContentStreamListener;
+import com.googlev1.service.content.HtmlTextExtractor;
+import com.googlev1.service.content.HtmlTitleScanner;
+import com.googlev1.service.content.MainContentExtractor;
+import com.googlev1.service.content.PageTextExtractor;
+import com.googlev1.service.dedup.NearDuplicateDetector;
+import com.googlev1.service.index.LocalSearchIndex;
+import com.googlev1.service.store.SegmentedLogStore;
+import com.googlev1.service.tracing.StageTracer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.Locale;
+import java.time.ZoneId;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ContentService {
+    private static final Logger log = LoggerFactory.getLogger(ContentService.class);
     private static final int CACHE_TTL_HOURS = 24;
     private static final int MAX_BODY_LENGTH = 200_000;
+    private static final int MAX_DUPLICATE_CANDIDATES = 3;
+    // Characters of text per streamed chunk; more than the short texts MainContentExtractor replaces at the end
+    // of a page, so no chunk sent is taken back
+    private static final int STREAM_CHUNK_LENGTH = 8_192;
+    private static final int MAX_CANONICAL_URL_LENGTH = 2_048;
+    private static final String NO_CONTENT = "No readable content was extracted from this page.";
 
     private final ContentCacheRepository contentCacheRepository;
+    // Replaces the repository when cache.store.type=disk; null otherwise
+    private final SegmentedLogStore store;
+    private final ObjectMapper objectMapper;
     private final HttpClient httpClient;
+    private final StageTracer stageTracer;
+    // Extracted pages are added to the local search index; null when it is disabled
+    private final LocalSearchIndex localIndex;
+    // Lets a page reuse the cached body of a near-duplicate; null when deduplication is disabled
+    private final NearDuplicateDetector duplicateDetector;
+    // Runs misses and prefetches in fetch/extract/persist stages; null when disabled, and pages are then
+    // fetched, extracted and stored on the calling thread
+    private final ContentPipeline pipeline;
+    // Whether pages are reduced to their main content, with metadata, or keep all their text
+    private final boolean mainContent;
 
-    public ContentService(ContentCacheRepository contentCacheRepository) {
+    // content.requests: end-to-end by cache hit/miss; content.stage: where a miss spends its time
+    private final Timer hitTimer;
+    private final Timer missTimer;
+    private final Timer fetchTimer;
+    private final Timer extractTimer;
+    private final Timer persistTimer;
+    // Streamed misses download and extract at the same time
+    private final Timer fetchExtractTimer;
+
+    public ContentService(ContentCacheRepository contentCacheRepository, MeterRegistry meterRegistry,
+                          StageTracer stageTracer, ObjectMapper objectMapper,
+                          @Qualifier("contentCacheStore") Optional<SegmentedLogStore> contentCacheStore,
+                          Optional<LocalSearchIndex> localSearchIndex,
+                          Optional<NearDuplicateDetector> nearDuplicateDetector,
+                          Optional<ContentPipeline> contentPipeline,
+                          @Value("${content.extraction.main-content:true}") boolean mainContent) {
         this.contentCacheRepository = contentCacheRepository;
+        this.store = contentCacheStore.orElse(null);
+        this.objectMapper = objectMapper;
+        this.stageTracer = stageTracer;
+        this.localIndex = localSearchIndex.orElse(null);
+        this.duplicateDetector = nearDuplicateDetector.orElse(null);
+        this.pipeline = contentPipeline.orElse(null);
+        this.mainContent = mainContent;
         this.httpClient = HttpClient.newBuilder()
                 .followRedirects(HttpClient.Redirect.NORMAL)
                 .build();
+        this.hitTimer = timer(meterRegistry, "content.requests", "cache", "hit");
+        this.missTimer = timer(meterRegistry, "content.requests", "cache", "miss");
+        this.fetchTimer = timer(meterRegistry, "content.stage", "stage", "fetch");
+        this.extractTimer = timer(meterRegistry, "content.stage", "stage", "extract");
+        this.persistTimer = timer(meterRegistry, "content.stage", "stage", "persist");
+        this.fetchExtractTimer = timer(meterRegistry, "content.stage", "stage", "fetch-extract");
     }
 
+    /**
+     * @throws RejectedExecutionException if the page has to be fetched and the content pipeline has no room for it
+     */
     public ContentResponse getContent(String url, boolean forceRefresh) {
+        Timer.Sample sample = Timer.start();
         LocalDateTime now = LocalDateTime.now();
+        Optional<ContentCacheEntry> cached = findCached(url);
         if (!forceRefresh) {
-            Optional<ContentCacheEntry> cached = contentCacheRepository.findByUrl(url);
             if (cached.isPresent() && !isStale(cached.get(), now)) {
+                sample.stop(hitTimer);
                 return toResponse(cached.get(), true);
             }
+            Optional<ContentCacheEntry> duplicate = reuseDuplicate(url, now);
+            if (duplicate.isPresent()) {
+                sample.stop(hitTimer);
+                return toResponse(duplicate.get(), true);
+            }
         }
 
-        ContentCacheEntry fresh = fetchAndNormalize(url, now);
-        contentCacheRepository.save(fresh);
-        return toResponse(fresh, false);
+        try {
+            ContentCacheEntry fresh;
+            if (pipeline == null) {
+                fresh = fetchAndNormalize(url, now);
+                store(fresh, cached);
+            } else {
+                fresh = join(process(url, now, cached));
+            }
+            return toResponse(fresh, false);
+        } finally {
+            sample.stop(missTimer);
+        }
+    }
+
+    /**
+     * Streams the text of a page: a meta event, the text from {@code offset} in chunks, then an end event with
+     * the title, word count and length of the whole text.
+     * <p>
+     * A page answered from the cache is streamed from its stored body. On a miss, the text is extracted while the
+     * page downloads and each chunk is sent as soon as it is extracted, so the first lines go out long before the
+     * page is complete; the meta event goes out once the title is found, or with the first chunk without it.
+     * The download stops once the text reaches its maximum length and the title is known. The page is then cached
+     * as by {@link #getContent}, even if the client went away. A failure after the meta event is reported as an
+     * error event.
+     *
+     * @param offset first character of the text to send
+     * @param length characters of text to send at most, or null for the rest of the text
+     * @throws IllegalStateException if the page can't be fetched, before anything was sent
+     * @throws IOException if an event couldn't be delivered
+     */
+    public void streamContent(String url, boolean forceRefresh, int offset, Integer length,
+                              ContentStreamListener listener) throws IOException {
+        Timer.Sample sample = Timer.start();
+        LocalDateTime now = LocalDateTime.now();
+        StreamWriter writer = new StreamWriter(listener, offset, length);
+        Optional<ContentCacheEntry> cached = findCached(url);
+        if (!forceRefresh) {
+            Optional<ContentCacheEntry> hit = cached.filter(entry -> !isStale(entry, now));
+            if (hit.isEmpty()) {
+                hit = reuseDuplicate(url, now);
+            }
+            if (hit.isPresent()) {
+                ContentCacheEntry entry = hit.get();
+                writer.send(ContentStreamEvent.meta(url, entry.getTitle(), entry.getFetchedAt(), true,
+                        entry.getBody().length()));
+                writer.advance(entry.getBody(), true);
+                writer.send(ContentStreamEvent.end(url, entry.getTitle(), entry.getFetchedAt(), true,
+                        entry.getWordCount(), entry.getBody().length(), entry.getLang(), entry.getCanonicalUrl(),
+                        entry.getPublishedAt()));
+                sample.stop(hitTimer);
+                writer.rethrowFailure();
+                return;
+            }
+        }
+
+        try {
+            Optional<ContentCacheEntry> fresh = fetchAndStream(url, now, writer);
+            if (fresh.isPresent()) {
+                ContentCacheEntry entry = fresh.get();
+                if (pipeline == null) {
+                    store(entry, cached);
+                } else {
+                    join(pipeline.persist(stageTracer.inCurrentTrace(() -> {
+                        store(entry, cached);
+                        return entry;
+                    })));
+                }
+                writer.send(ContentStreamEvent.end(url, entry.getTitle(), entry.getFetchedAt(), false,
+                        entry.getWordCount(), entry.getBody().length(), entry.getLang(), entry.getCanonicalUrl(),
+                        entry.getPublishedAt()));
+            }
+        } finally {
+            sample.stop(missTimer);
+        }
+        writer.rethrowFailure();
+    }
+
+    /**
+     * Fetches pages in the background so later requests for them are cache hits, e.g. the results of a search
+     * the user is likely to open. Pages cached and fresh are skipped. Each page waits for room in the content
+     * pipeline up to its admission wait, and the pages after the first one it has no room for are not fetched.
+     * A page that fails to fetch is logged and left uncached.
+     *
+     * @throws IllegalStateException if the content pipeline is disabled
+     */
+    public PrefetchResult prefetch(List<String> urls) {
+        if (pipeline == null) {
+            throw new IllegalStateException("Prefetching needs the content pipeline, which is disabled");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int queued = 0;
+        int cachedCount = 0;
+        List<String> distinct = List.copyOf(new LinkedHashSet<>(urls));
+        for (String url : distinct) {
+            Optional<ContentCacheEntry> cached = findCached(url);
+            if (cached.isPresent() && !isStale(cached.get(), now)) {
+                cachedCount++;
+                continue;
+            }
+            try {
+                process(url, now, cached).whenComplete((entry, e) -> {
+                    if (e != null) {
+                        log.debug("Prefetch of {} failed: {}", url, e.getMessage());
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+            queued++;
+        }
+        return new PrefetchResult(distinct.size(), queued, cachedCount, distinct.size() - queued - cachedCount);
+    }
+
+    /**
+     * @return when a page fetched at the given time goes stale and is fetched again on the next request
+     */
+    public LocalDateTime expiresAt(LocalDateTime fetchedAt) {
+        return fetchedAt.plusHours(CACHE_TTL_HOURS);
     }
 
     public int evictStaleEntries() {
+        if (store != null) {
+            // Stored entries expire CACHE_TTL_HOURS after they were fetched
+            int removed = store.removeExpiredBefore(toEpochMillis(LocalDateTime.now()));
+            store.compact();
+            return removed;
+        }
         LocalDateTime cutoff = LocalDateTime.now().minusHours(CACHE_TTL_HOURS);
         return (int) contentCacheRepository.deleteByFetchedAtBefore(cutoff);
     }
 
+    /**
+     * Answers a page with the body of a fresh cached page whose body is a near-duplicate of the one last extracted
+     * from it. The answer is not cached under the URL, since it was never fetched from there, and it has no
+     * canonical URL: that link belongs to the other page. It keeps the original's fetch time.
+     */
+    private Optional<ContentCacheEntry> reuseDuplicate(String url, LocalDateTime now) {
+        if (duplicateDetector == null) {
+            return Optional.empty();
+        }
+        for (String duplicate : duplicateDetector.duplicatesOf(url).stream().limit(MAX_DUPLICATE_CANDIDATES).toList()) {
+            Optional<ContentCacheEntry> cached = findCached(duplicate);
+            if (cached.isPresent() && !isStale(cached.get(), now)) {
+                ContentCacheEntry source = cached.get();
+                duplicateDetector.recordContentReuse(source.getBody());
+                ContentCacheEntry copy = new ContentCacheEntry(url, source.getTitle(), source.getBody(),
+                        source.getWordCount(), source.getFetchedAt());
+                copy.setLang(source.getLang());
+                copy.setPublishedAt(source.getPublishedAt());
+                return Optional.of(copy);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Optional<ContentCacheEntry> findCached(String url) {
+        if (store == null) {
+            return contentCacheRepository.findByUrl(url);
+        }
+        return store.get(url).map(stored -> {
+            try {
+                return objectMapper.readValue(stored.value(), ContentCacheEntry.class);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unreadable cached content for " + url, e);
+            }
+        });
+    }
+
+    private void persist(ContentCacheEntry entry) {
+        if (store == null) {
+            contentCacheRepository.save(entry);
+            return;
+        }
+        try {
+            store.put(entry.getUrl(), objectMapper.writeValueAsBytes(entry), toEpochMillis(entry.getFetchedAt()),
+                    toEpochMillis(entry.getFetchedAt().plusHours(CACHE_TTL_HOURS)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to cache content for " + entry.getUrl(), e);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
     private boolean isStale(ContentCacheEntry entry, LocalDateTime now) {
         return entry.getFetchedAt() == null || entry.getFetchedAt().isBefore(now.minusHours(CACHE_TTL_HOURS));
     }
 
+    /**
+     * Fetches, extracts and stores a page in the stages of the pipeline, in the trace of the calling thread.
+     *
+     * @throws RejectedExecutionException if the fetch stage has no room for the page
+     */
+    private CompletableFuture<ContentCacheEntry> process(String url, LocalDateTime now,
+                                                         Optional<ContentCacheEntry> cached) {
+        return pipeline.process(
+                stageTracer.inCurrentTrace(() -> fetchTimer.record(
+                        () -> stageTracer.trace("content.fetch", () -> fetchHtml(url)))),
+                stageTracer.inCurrentTrace((String html) -> extractTimer.record(
+                        () -> stageTracer.trace("content.extract", () -> normalize(url, html, now)))),
+                stageTracer.inCurrentTrace((ContentCacheEntry fresh) -> {
+                    store(fresh, cached);
+                    return fresh;
+                }));
+    }
+
+    /**
+     * Waits for work done in the pipeline, rethrowing its failure as thrown by the work itself.
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
     private ContentCacheEntry fetchAndNormalize(String url, LocalDateTime now) {
-        String html = fetchHtml(url);
-        String title = extractTitle(html);
-        String text = extractText(html);
+        String html = fetchTimer.record(() -> stageTracer.trace("content.fetch", () -> fetchHtml(url)));
+        Timer.Sample extractSample = Timer.start();
+        ContentCacheEntry entry = stageTracer.trace("content.extract", () -> normalize(url, html, now));
+        extractSample.stop(extractTimer);
+        return entry;
+    }
+
+    private ContentCacheEntry normalize(String url, String html, LocalDateTime now) {
+        PageTextExtractor extractor = newExtractor();
+        extractor.feed(html);
+        extractor.finish();
+        return toEntry(url, HtmlTitleScanner.scan(html), extractor, now);
+    }
+
+    /**
+     * @return an extractor of the main content of a page, or of all its text if main content extraction is off
+     */
+    private PageTextExtractor newExtractor() {
+        return mainContent ? new MainContentExtractor(MAX_BODY_LENGTH) : new HtmlTextExtractor(MAX_BODY_LENGTH);
+    }
+
+    private ContentCacheEntry toEntry(String url, String title, PageTextExtractor extractor, LocalDateTime now) {
+        String text = extractor.text().toString();
         if (title == null || title.isBlank()) {
             title = url;
         }
         if (text.isBlank()) {
-            text = "No readable content was extracted from this page.";
+            text = NO_CONTENT;
         }
 
         int wordCount = countWords(text);
-        return new ContentCacheEntry(url, title, text, wordCount, now);
+        ContentCacheEntry entry = new ContentCacheEntry(url, title, text, wordCount, now);
+        if (extractor instanceof MainContentExtractor main) {
+            entry.setLang(main.getLang());
+            entry.setCanonicalUrl(resolve(url, main.getCanonicalUrl()));
+            entry.setPublishedAt(main.getPublished());
+        }
+        return entry;
+    }
+
+    /**
+     * @return a link of the page as an absolute URL, or null if it has none or it isn't a valid URL
+     */
+    private static String resolve(String url, String href) {
+        if (href == null) {
+            return null;
+        }
+        try {
+            String resolved = URI.create(url).resolve(href.replace(" ", "%20")).toString();
+            return resolved.length() <= MAX_CANONICAL_URL_LENGTH ? resolved : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Caches a freshly fetched page and makes it known to deduplication and the local index.
+     *
+     * @param cached the expired entry of the page, if any
+     */
+    private void store(ContentCacheEntry fresh, Optional<ContentCacheEntry> cached) {
+        // Replace the expired row instead of inserting a second one for the same URL
+        fresh.setId(cached.map(ContentCacheEntry::getId).orElse(null));
+        persistTimer.record(() -> stageTracer.trace("content.persist", () -> persist(fresh)));
+        if (duplicateDetector != null) {
+            duplicateDetector.registerBody(fresh.getUrl(), fresh.getBody());
+        }
+        if (localIndex != null) {
+            stageTracer.trace("search.index.add", () -> localIndex.indexContent(fresh.getUrl(), fresh.getTitle(),
+                    fresh.getBody(), toEpochMillis(fresh.getFetchedAt())));
+        }
     }
 
     private String fetchHtml(String url) {
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .GET()
-                    .header("User-Agent", "GoogleV1/1.0")
-                    .build();
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = httpClient.send(fetchRequest(url), HttpResponse.BodyHandlers.ofString());
             if (response.statusCode() >= 400) {
                 throw new IllegalStateException("Failed to fetch content. Status: " + response.statusCode());
             }
@@ -86,26 +438,102 @@ public class ContentService {
         }
     }
 
-    private String extractTitle(String html) {
-        String lower = html.toLowerCase(Locale.ROOT);
-        int start = lower.indexOf("<title>");
-        int end = lower.indexOf("</title>");
-        if (start >= 0 && end > start) {
-            String title = html.substring(start + 7, end);
-            return title.replaceAll("\\s+", " ").trim();
+    /**
+     * Downloads a page and extracts its text as it arrives, streaming the text with the writer.
+     *
+     * @return the page, or empty if it failed after the meta event, which the writer reported
+     * @throws IllegalStateException if the page can't be fetched, before anything was sent
+     */
+    private Optional<ContentCacheEntry> fetchAndStream(String url, LocalDateTime now, StreamWriter writer) {
+        Timer.Sample fetchExtractSample = Timer.start();
+        PageTextExtractor extractor = newExtractor();
+        HtmlTitleScanner titles = new HtmlTitleScanner();
+        try {
+            HttpResponse<InputStream> response = httpClient.send(fetchRequest(url),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            try (Reader reader = new InputStreamReader(response.body(), charsetOf(response.headers()))) {
+                if (response.statusCode() >= 400) {
+                    throw new IllegalStateException("Failed to fetch content. Status: " + response.statusCode());
+                }
+                char[] buffer = new char[8_192];
+                int read;
+                while ((read = reader.read(buffer)) != -1) {
+                    extractor.feed(buffer, 0, read);
+                    titles.feed(buffer, 0, read);
+                    if (!writer.isStarted() && (titles.isDone() || extractor.text().length() >= STREAM_CHUNK_LENGTH)) {
+                        writer.send(ContentStreamEvent.meta(url, titleOrUrl(titles.getTitle(), titles.isDone(), url),
+                                now, false, null));
+                    }
+                    if (writer.isStarted()) {
+                        writer.advance(extractor.text(), false);
+                    }
+                    if (extractor.isCut() && titles.isDone()) {
+                        // Nothing further in the page would be kept
+                        break;
+                    }
+                }
+            }
+            extractor.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fetchFailed(writer, new IllegalStateException("Unable to fetch content: " + e.getMessage(), e));
+        } catch (IllegalArgumentException | IOException e) {
+            return fetchFailed(writer, new IllegalStateException("Unable to fetch content: " + e.getMessage(), e));
+        } catch (IllegalStateException e) {
+            return fetchFailed(writer, e);
+        } finally {
+            fetchExtractSample.stop(fetchExtractTimer);
+        }
+
+        ContentCacheEntry entry = toEntry(url, titles.finish(), extractor, now);
+        if (!writer.isStarted()) {
+            writer.send(ContentStreamEvent.meta(url, entry.getTitle(), now, false, entry.getBody().length()));
+        }
+        writer.advance(entry.getBody(), true);
+        return Optional.of(entry);
+    }
+
+    private static Optional<ContentCacheEntry> fetchFailed(StreamWriter writer, IllegalStateException e) {
+        if (!writer.isStarted()) {
+            throw e;
+        }
+        writer.send(ContentStreamEvent.error(e.getMessage()));
+        return Optional.empty();
+    }
+
+    // The title as normalize would store it, or null if it isn't known yet
+    private static String titleOrUrl(String title, boolean known, String url) {
+        if (!known) {
+            return null;
         }
-        return null;
+        return title == null || title.isBlank() ? url : title;
     }
 
-    private String extractText(String html) {
-        String withoutScripts = html.replaceAll("(?is)<script.*?>.*?</script>", " ")
-                .replaceAll("(?is)<style.*?>.*?</style>", " ");
-        String noTags = withoutScripts.replaceAll("(?is)<[^>]+>", " ");
-        String normalized = noTags.replaceAll("\\s+", " ").trim();
-        if (normalized.length() > MAX_BODY_LENGTH) {
-            return normalized.substring(0, MAX_BODY_LENGTH) + "...";
+    private static HttpRequest fetchRequest(String url) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .GET()
+                .header("User-Agent", "GoogleV1/1.0")
+                .build();
+    }
+
+    /**
+     * @return the charset of the Content-Type header, UTF-8 if it has none or an unknown one, as
+     * {@link HttpResponse.BodyHandlers#ofString()} decodes
+     */
+    private static Charset charsetOf(HttpHeaders headers) {
+        String contentType = headers.firstValue("Content-Type").orElse("");
+        for (String parameter : contentType.split(";")) {
+            String[] pair = parameter.trim().split("=", 2);
+            if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("charset")) {
+                try {
+                    return Charset.forName(pair[1].trim().replace("\"", ""));
+                } catch (IllegalArgumentException e) {
+                    return StandardCharsets.UTF_8;
+                }
+            }
         }
-        return normalized;
+        return StandardCharsets.UTF_8;
     }
 
     private int countWords(String text) {
@@ -116,8 +544,74 @@ public class ContentService {
         return trimmed.split("\\s+").length;
     }
 
+    private static Timer timer(MeterRegistry registry, String name, String tagKey, String tagValue) {
+        return Timer.builder(name)
+                .tag(tagKey, tagValue)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Sends the text from an offset, for at most a length, in chunks, after the meta event of the page.
+     * Once an event can't be delivered, drops the events after it so the page is still cached, and reports the
+     * failure at the end.
+     */
+    private static final class StreamWriter {
+
+        private final ContentStreamListener listener;
+        private final int from;
+        private final int to;
+        // Characters of the text sent or skipped
+        private int position;
+        private boolean started;
+        private IOException failure;
+
+        StreamWriter(ContentStreamListener listener, int offset, Integer length) {
+            this.listener = listener;
+            this.from = offset;
+            this.to = length == null ? Integer.MAX_VALUE : (int) Math.min((long) offset + length, Integer.MAX_VALUE);
+        }
+
+        boolean isStarted() {
+            return started;
+        }
+
+        void send(ContentStreamEvent event) {
+            started = true;
+            if (failure != null) {
+                return;
+            }
+            try {
+                listener.onEvent(event);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        /**
+         * Sends the full chunks of the text extracted so far, or all of it if the text is complete.
+         */
+        void advance(CharSequence text, boolean complete) {
+            int available = Math.min(text.length(), to);
+            if (position < from) {
+                position = Math.min(from, available);
+            }
+            while (available - position >= STREAM_CHUNK_LENGTH || complete && available > position) {
+                int end = Math.min(available, position + STREAM_CHUNK_LENGTH);
+                send(ContentStreamEvent.text(position, text.subSequence(position, end).toString()));
+                position = end;
+            }
+        }
+
+        void rethrowFailure() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
     private ContentResponse toResponse(ContentCacheEntry entry, boolean cached) {
-        return new ContentResponse(
+        ContentResponse response = new ContentResponse(
                 entry.getUrl(),
                 entry.getTitle(),
                 entry.getBody(),
@@ -125,5 +619,9 @@ public class ContentService {
                 entry.getFetchedAt(),
                 cached
         );
+        response.setLang(entry.getLang());
+        response.setCanonicalUrl(entry.getCanonicalUrl());
+        response.setPublishedAt(entry.getPublishedAt());
+        return response;
     }
 }
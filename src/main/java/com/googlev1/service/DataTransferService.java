@@ -0,0 +1,387 @@
+package com.googlev1.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlev1.dto.HistoryTransferRecord;
+import com.googlev1.dto.ImportResult;
+import com.googlev1.dto.SavedItemTransferRecord;
+import com.googlev1.repository.SavedItemRepository;
+import com.googlev1.repository.SearchHistoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bulk export and import of saved items and search history as NDJSON (one JSON object per line).
+ * Exports page through the repositories by id so the full table is never held in memory;
+ * imports parse the stream incrementally and write each batch with a single JDBC batch statement
+ * in its own transaction. Saved-item imports that fail on duplicates run all batches in one transaction
+ * instead, so a rejected import leaves nothing behind.
+ */
+@Service
+@Slf4j
+public class DataTransferService {
+
+    private static final int EXPORT_PAGE_SIZE = 1000;
+    private static final int MAX_BATCH_SIZE = 10_000;
+
+    // Column limits from the saved_items schema; longer rows are reported as invalid instead of failing the batch
+    private static final int MAX_TITLE_LENGTH = 255;
+    private static final int MAX_URL_LENGTH = 255;
+    private static final int MAX_SUMMARY_LENGTH = 1000;
+    private static final int MAX_NOTES_LENGTH = 2000;
+
+    private static final String INSERT_SAVED_ITEM =
+            "INSERT INTO saved_items (title, url, summary, notes, saved_date) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_SAVED_ITEM =
+            "UPDATE saved_items SET title = ?, summary = ?, notes = ?, saved_date = ? WHERE url = ?";
+    private static final String INSERT_HISTORY =
+            "INSERT INTO search_history (query, search_type, results_count, searched_at) VALUES (?, ?, ?, ?)";
+
+    /**
+     * What to do with an imported saved item whose URL already exists.
+     */
+    public enum DuplicatePolicy {
+        SKIP, OVERWRITE, FAIL;
+
+        public static DuplicatePolicy parse(String value) {
+            if (value == null || value.isBlank()) {
+                return SKIP;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("onDuplicate must be one of skip, overwrite, fail");
+            }
+        }
+    }
+
+    private final SavedItemRepository savedItemRepository;
+    private final SearchHistoryRepository searchHistoryRepository;
+    private final SavedItemService savedItemService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int defaultBatchSize;
+
+    public DataTransferService(SavedItemRepository savedItemRepository,
+                               SearchHistoryRepository searchHistoryRepository,
+                               SavedItemService savedItemService,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               @Value("${transfer.import.batch-size:500}") int defaultBatchSize) {
+        this.savedItemRepository = savedItemRepository;
+        this.searchHistoryRepository = searchHistoryRepository;
+        this.savedItemService = savedItemService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.defaultBatchSize = defaultBatchSize;
+    }
+
+    public void exportSavedItems(OutputStream out) throws IOException {
+        export(out, afterId -> savedItemRepository.findTransferPage(afterId, PageRequest.of(0, EXPORT_PAGE_SIZE)),
+                SavedItemTransferRecord::id);
+    }
+
+    public void exportHistory(OutputStream out) throws IOException {
+        export(out, afterId -> searchHistoryRepository.findTransferPage(afterId, PageRequest.of(0, EXPORT_PAGE_SIZE)),
+                HistoryTransferRecord::id);
+    }
+
+    /**
+     * Imports saved items from an NDJSON stream.
+     *
+     * @param in the NDJSON body
+     * @param batchSize rows per JDBC batch, or null for the configured default
+     * @param policy how to treat URLs that are already saved (or repeated in the stream)
+     */
+    public ImportResult importSavedItems(InputStream in, Integer batchSize, DuplicatePolicy policy) throws IOException {
+        int size = resolveBatchSize(batchSize);
+        long start = System.nanoTime();
+        Counters counters = new Counters();
+
+        try {
+            if (policy == DuplicatePolicy.FAIL) {
+                // All or nothing: a duplicate anywhere rolls back every batch, so the fixed file can simply be sent again
+                BulkChange change = new BulkChange();
+                transactionTemplate.executeWithoutResult(status -> readSavedItems(in, size, policy, counters, change));
+                counters.committed = counters.inserted + counters.updated;
+                if (!change.isEmpty()) {
+                    savedItemService.onBulkChange(change.inserted, change.updated);
+                }
+            } else {
+                readSavedItems(in, size, policy, counters, null);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        ImportResult result = counters.toResult(start);
+        log.info("Imported saved items: read={}, inserted={}, updated={}, skipped={}, invalid={}, {} rows/s",
+                result.getRead(), result.getInserted(), result.getUpdated(), result.getSkipped(),
+                result.getInvalid(), result.getRowsPerSecond());
+        return result;
+    }
+
+    /**
+     * Reads the stream and writes it batch by batch.
+     *
+     * @param pending collects the written rows when the import runs in one enclosing transaction, so they are
+     *                indexed after it commits; null to index each batch once its own transaction commits
+     */
+    private void readSavedItems(InputStream in, int size, DuplicatePolicy policy, Counters counters,
+                                BulkChange pending) {
+        List<SavedItemTransferRecord> batch = new ArrayList<>(size);
+        try (MappingIterator<SavedItemTransferRecord> records =
+                     objectMapper.readerFor(SavedItemTransferRecord.class).readValues(in)) {
+            while (records.hasNextValue()) {
+                SavedItemTransferRecord record = records.nextValue();
+                counters.read++;
+                if (!isValid(record)) {
+                    counters.invalid++;
+                    continue;
+                }
+                batch.add(record);
+                if (batch.size() >= size) {
+                    writeSavedItemBatch(batch, policy, counters, pending);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeSavedItemBatch(batch, policy, counters, pending);
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(malformedMessage(counters, e));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Imports search history from an NDJSON stream. History has no natural key, so every valid row is inserted.
+     *
+     * @param in the NDJSON body
+     * @param batchSize rows per JDBC batch, or null for the configured default
+     */
+    public ImportResult importHistory(InputStream in, Integer batchSize) throws IOException {
+        int size = resolveBatchSize(batchSize);
+        long start = System.nanoTime();
+        Counters counters = new Counters();
+        List<HistoryTransferRecord> batch = new ArrayList<>(size);
+
+        try (MappingIterator<HistoryTransferRecord> records =
+                     objectMapper.readerFor(HistoryTransferRecord.class).readValues(in)) {
+            while (records.hasNextValue()) {
+                HistoryTransferRecord record = records.nextValue();
+                counters.read++;
+                if (record.query() == null || record.query().isBlank() || record.query().length() > MAX_TITLE_LENGTH) {
+                    counters.invalid++;
+                    continue;
+                }
+                batch.add(record);
+                if (batch.size() >= size) {
+                    writeHistoryBatch(batch, counters);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeHistoryBatch(batch, counters);
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(malformedMessage(counters, e));
+        }
+
+        ImportResult result = counters.toResult(start);
+        log.info("Imported history: read={}, inserted={}, invalid={}, {} rows/s",
+                result.getRead(), result.getInserted(), result.getInvalid(), result.getRowsPerSecond());
+        return result;
+    }
+
+    private <T> void export(OutputStream out, Function<Long, List<T>> pageLoader, Function<T, Long> idOf) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        try {
+            long afterId = 0;
+            List<T> page;
+            do {
+                page = pageLoader.apply(afterId);
+                for (T record : page) {
+                    objectMapper.writeValue(generator, record);
+                    generator.writeRaw('\n');
+                }
+                if (!page.isEmpty()) {
+                    afterId = idOf.apply(page.get(page.size() - 1));
+                }
+                generator.flush();
+            } while (page.size() == EXPORT_PAGE_SIZE);
+        } finally {
+            generator.close();
+        }
+    }
+
+    private void writeSavedItemBatch(List<SavedItemTransferRecord> batch, DuplicatePolicy policy, Counters counters,
+                                     BulkChange pending) {
+        BulkChange change = transactionTemplate.execute(status -> {
+            // Collapse repeats inside the batch first; they follow the same policy as existing rows
+            Map<String, SavedItemTransferRecord> byUrl = new LinkedHashMap<>();
+            for (SavedItemTransferRecord record : batch) {
+                if (byUrl.containsKey(record.url())) {
+                    if (policy == DuplicatePolicy.FAIL) {
+                        throw new IllegalArgumentException("Duplicate url in import: " + record.url()
+                                + "; nothing was imported");
+                    }
+                    if (policy == DuplicatePolicy.SKIP) {
+                        counters.skipped++;
+                        continue;
+                    }
+                    // The later row overwrites the earlier one, as it would have across batches
+                    counters.updated++;
+                }
+                byUrl.put(record.url(), record);
+            }
+
+            Set<String> existing = new HashSet<>(savedItemRepository.findExistingUrls(byUrl.keySet()));
+            List<SavedItemTransferRecord> inserts = new ArrayList<>(byUrl.size());
+            List<SavedItemTransferRecord> updates = new ArrayList<>();
+            for (SavedItemTransferRecord record : byUrl.values()) {
+                if (!existing.contains(record.url())) {
+                    inserts.add(record);
+                } else if (policy == DuplicatePolicy.OVERWRITE) {
+                    updates.add(record);
+                } else if (policy == DuplicatePolicy.FAIL) {
+                    throw new IllegalArgumentException("This URL is already saved: " + record.url()
+                            + "; nothing was imported");
+                } else {
+                    counters.skipped++;
+                }
+            }
+
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SAVED_ITEM, inserts, inserts.size(), (ps, record) -> {
+                    ps.setString(1, record.title());
+                    ps.setString(2, record.url());
+                    ps.setString(3, record.summary());
+                    ps.setString(4, record.notes());
+                    ps.setTimestamp(5, timestampOrNow(record.savedDate()));
+                });
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SAVED_ITEM, updates, updates.size(), (ps, record) -> {
+                    ps.setString(1, record.title());
+                    ps.setString(2, record.summary());
+                    ps.setString(3, record.notes());
+                    ps.setTimestamp(4, timestampOrNow(record.savedDate()));
+                    ps.setString(5, record.url());
+                });
+            }
+            counters.inserted += inserts.size();
+            counters.updated += updates.size();
+
+            BulkChange written = new BulkChange();
+            inserts.forEach(record -> written.inserted.add(record.url()));
+            updates.forEach(record -> written.updated.add(record.url()));
+            return written;
+        });
+        if (change == null || change.isEmpty()) {
+            return;
+        }
+        if (pending != null) {
+            pending.inserted.addAll(change.inserted);
+            pending.updated.addAll(change.updated);
+            return;
+        }
+        // Index only once the batch is committed, so search never shows rows that were rolled back
+        counters.committed = counters.inserted + counters.updated;
+        savedItemService.onBulkChange(change.inserted, change.updated);
+    }
+
+    private void writeHistoryBatch(List<HistoryTransferRecord> batch, Counters counters) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_HISTORY, batch, batch.size(), (ps, record) -> {
+                    ps.setString(1, record.query().trim());
+                    ps.setString(2, record.searchType() == null || record.searchType().isBlank()
+                            ? "general" : record.searchType());
+                    if (record.resultsCount() == null) {
+                        ps.setNull(3, Types.INTEGER);
+                    } else {
+                        ps.setInt(3, record.resultsCount());
+                    }
+                    ps.setTimestamp(4, timestampOrNow(record.searchedAt()));
+                }));
+        counters.inserted += batch.size();
+        counters.committed = counters.inserted;
+    }
+
+    private boolean isValid(SavedItemTransferRecord record) {
+        return record.title() != null && !record.title().isBlank() && record.title().length() <= MAX_TITLE_LENGTH
+                && record.url() != null && !record.url().isBlank() && record.url().length() <= MAX_URL_LENGTH
+                && (record.summary() == null || record.summary().length() <= MAX_SUMMARY_LENGTH)
+                && (record.notes() == null || record.notes().length() <= MAX_NOTES_LENGTH);
+    }
+
+    private int resolveBatchSize(Integer requested) {
+        int size = requested != null ? requested : defaultBatchSize;
+        return Math.max(1, Math.min(size, MAX_BATCH_SIZE));
+    }
+
+    private Timestamp timestampOrNow(LocalDateTime value) {
+        return Timestamp.valueOf(value != null ? value : LocalDateTime.now());
+    }
+
+    private String malformedMessage(Counters counters, JsonProcessingException e) {
+        return "Malformed NDJSON at record " + (counters.read + 1) + " (" + e.getOriginalMessage() + "); "
+                + counters.committed + " rows were imported before the error";
+    }
+
+    private static final class Counters {
+        private long read;
+        private long inserted;
+        private long updated;
+        private long skipped;
+        private long invalid;
+        // Rows written by transactions that have committed
+        private long committed;
+
+        private ImportResult toResult(long startNanos) {
+            long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+            return new ImportResult(read, inserted, updated, skipped, invalid, elapsedMs);
+        }
+    }
+
+    /**
+     * URLs of the saved items written by an import, split by whether the row is new.
+     */
+    private static final class BulkChange {
+        private final List<String> inserted = new ArrayList<>();
+        private final List<String> updated = new ArrayList<>();
+
+        private boolean isEmpty() {
+            return inserted.isEmpty() && updated.isEmpty();
+        }
+    }
+}
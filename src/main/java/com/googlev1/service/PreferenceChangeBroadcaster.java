@@ -0,0 +1,113 @@
+package com.googlev1.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes preference changes to connected clients over Server-Sent Events,
+ * so pages can react to updates instead of polling /api/preferences/search.
+ * Changes are sent by a single background thread, so a writer never waits on a slow client. Changes that arrive
+ * while it is busy are coalesced: only the latest one is sent. A subscriber whose send fails or takes longer than
+ * {@value #SEND_TIMEOUT_MS} ms is dropped, so it can't hold up the others again; it reconnects and starts over
+ * with the current preferences.
+ */
+@Component
+@Slf4j
+public class PreferenceChangeBroadcaster implements AutoCloseable {
+    private static final String EVENT_NAME = "preferences";
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+    private static final long SEND_TIMEOUT_MS = 2000;
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "preference-broadcast");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Latest change not taken by the sender yet; null while there is none
+    private final AtomicReference<Change> pending = new AtomicReference<>();
+    // Only used by the sender thread
+    private long lastSentVersion;
+
+    /**
+     * Registers a new subscriber and immediately sends it the current preferences,
+     * so a client never misses an update that happened before it connected.
+     */
+    public SseEmitter subscribe(Object current, long version) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+        send(emitter, current, version);
+        return emitter;
+    }
+
+    /**
+     * Queues a change for the subscribers and returns. It replaces a change still queued, unless that one
+     * has a newer version; subscribers never get an older version after a newer one.
+     */
+    public void publish(Object preferences, long version) {
+        Change change = new Change(preferences, version);
+        Change queued = pending.getAndAccumulate(change,
+                (current, next) -> current != null && current.version() >= next.version() ? current : next);
+        if (queued == null) {
+            sender.execute(this::sendPending);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return emitters.size();
+    }
+
+    @Override
+    public void close() {
+        sender.shutdownNow();
+    }
+
+    private void sendPending() {
+        Change change = pending.getAndSet(null);
+        if (change == null || change.version() <= lastSentVersion) {
+            return;
+        }
+        lastSentVersion = change.version();
+        for (SseEmitter emitter : emitters) {
+            send(emitter, change.preferences(), change.version());
+        }
+    }
+
+    private void send(SseEmitter emitter, Object preferences, long version) {
+        long start = System.nanoTime();
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(EVENT_NAME)
+                    .id(Long.toString(version))
+                    .data(preferences));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; drop it rather than failing the update
+            log.debug("Dropping preference subscriber: {}", e.getMessage());
+            emitters.remove(emitter);
+            emitter.completeWithError(e);
+            return;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (elapsedMs > SEND_TIMEOUT_MS) {
+            // Its connection isn't keeping up; the next change would block on it again
+            log.debug("Dropping preference subscriber that took {} ms to accept an event", elapsedMs);
+            emitters.remove(emitter);
+            emitter.complete();
+        }
+    }
+
+    private record Change(Object preferences, long version) {
+    }
+}
@@ -1,9 +1,14 @@
 package com.googlev1.service;
 
+import com.googlev1.dto.PreferenceResponse;
 import com.googlev1.entity.UserPreference;
 import com.googlev1.repository.PreferenceRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class PreferenceService {
@@ -11,48 +16,106 @@ public class PreferenceService {
     @Autowired
     private PreferenceRepository preferenceRepository;
     
+    @Autowired
+    private PreferenceChangeBroadcaster changeBroadcaster;
+    
+    // Current preferences and their version; null until first read. Replaced as a whole on every write.
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    // Seeded from the clock so ETags and event ids from a previous run never match
+    private final AtomicLong versionCounter = new AtomicLong(System.currentTimeMillis());
+    // Serializes writes; the broadcast to subscribers is queued after it is released
+    private final Object writeLock = new Object();
+    
     /**
      * Get the latest user preferences or return defaults if none exist
      */
     public UserPreference getLatestPreferences() {
-        return preferenceRepository.findLatest()
+        return getSnapshot().preference().copy();
+    }
+    
+    /**
+     * Get the current preferences together with their version, loading them on first use
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot.get();
+        if (current != null) {
+            return current;
+        }
+        UserPreference loaded = preferenceRepository.findLatest()
                 .orElseGet(() -> new UserPreference(
                     "latest news",
                     "general",
                     "light",
                     true
                 ));
+        Snapshot fresh = new Snapshot(loaded, versionCounter.incrementAndGet());
+        // A concurrent write may have published first; its snapshot wins
+        return snapshot.compareAndSet(null, fresh) ? fresh : snapshot.get();
     }
     
     /**
      * Save or update user preferences
      */
     public UserPreference savePreferences(UserPreference preference) {
-        if (preference.getId() == null) {
-            // New preference
-            return preferenceRepository.save(preference);
-        } else {
-            // Update existing
-            return preferenceRepository.save(preference);
+        UserPreference saved;
+        synchronized (writeLock) {
+            saved = preferenceRepository.save(preference);
+            publish(saved);
         }
+        broadcastLatest();
+        return saved;
     }
     
     /**
      * Update preferences from request data
      */
     public UserPreference updatePreferences(UserPreference existingPreference, UserPreference updateData) {
+        UserPreference target = existingPreference.copy();
         if (updateData.getDefaultQuery() != null) {
-            existingPreference.setDefaultQuery(updateData.getDefaultQuery());
+            target.setDefaultQuery(updateData.getDefaultQuery());
         }
         if (updateData.getDefaultType() != null) {
-            existingPreference.setDefaultType(updateData.getDefaultType());
+            target.setDefaultType(updateData.getDefaultType());
         }
         if (updateData.getTheme() != null) {
-            existingPreference.setTheme(updateData.getTheme());
+            target.setTheme(updateData.getTheme());
         }
         if (updateData.getShowAdvancedTips() != null) {
-            existingPreference.setShowAdvancedTips(updateData.getShowAdvancedTips());
+            target.setShowAdvancedTips(updateData.getShowAdvancedTips());
         }
-        return preferenceRepository.save(existingPreference);
+        UserPreference saved;
+        synchronized (writeLock) {
+            saved = preferenceRepository.save(target);
+            publish(saved);
+        }
+        broadcastLatest();
+        return saved;
+    }
+    
+    /**
+     * Open an SSE stream that receives the current preferences and every later change
+     */
+    public SseEmitter subscribe() {
+        Snapshot current = getSnapshot();
+        return changeBroadcaster.subscribe(new PreferenceResponse(current.preference()), current.version());
+    }
+    
+    private void publish(UserPreference saved) {
+        snapshot.set(new Snapshot(saved.copy(), versionCounter.incrementAndGet()));
+    }
+    
+    /**
+     * Queues the current snapshot for subscribers without waiting for it to be sent. The broadcaster skips it
+     * if a newer or the same one was already sent, and sends writes that land while it is busy together.
+     */
+    private void broadcastLatest() {
+        Snapshot current = snapshot.get();
+        changeBroadcaster.publish(new PreferenceResponse(current.preference()), current.version());
+    }
+    
+    /**
+     * Immutable view of the current preferences; version changes on every write
+     */
+    public record Snapshot(UserPreference preference, long version) {
     }
 }
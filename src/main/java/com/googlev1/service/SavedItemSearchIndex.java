@@ -0,0 +1,243 @@
+package com.googlev1.service;
+
+import com.googlev1.entity.SavedItem;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory inverted index over saved items (title, url, summary, notes).
+ * Documents are scored with BM25 over field-weighted term frequencies, so a
+ * match in the title counts for more than a match in the summary.
+ * The index is updated incrementally by SavedItemService once each write commits;
+ * queries only touch the postings of the query terms.
+ */
+@Component
+public class SavedItemSearchIndex {
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float NOTES_WEIGHT = 2.0f;
+    private static final float URL_WEIGHT = 1.5f;
+    private static final float SUMMARY_WEIGHT = 1.0f;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is",
+            "it", "of", "on", "or", "that", "the", "to", "was", "with", "www", "http", "https", "com"
+    );
+
+    // term -> (item id -> weighted term frequency)
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    // item id -> distinct terms, kept so an item can be removed without re-reading it
+    private final Map<Long, String[]> documents = new HashMap<>();
+    private final Map<Long, Float> lengths = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private double totalLength;
+
+    /**
+     * Adds an item to the index, replacing any previous version of it.
+     */
+    public void index(SavedItem item) {
+        index(item.getId(), item.getTitle(), item.getUrl(), item.getSummary(), item.getNotes());
+    }
+
+    /**
+     * Adds an item to the index from its raw fields, replacing any previous version of it.
+     */
+    public void index(Long id, String title, String url, String summary, String notes) {
+        if (id == null) {
+            return;
+        }
+        Map<String, Float> terms = new HashMap<>();
+        addField(terms, title, TITLE_WEIGHT);
+        addField(terms, url, URL_WEIGHT);
+        addField(terms, summary, SUMMARY_WEIGHT);
+        addField(terms, notes, NOTES_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            documents.put(id, terms.keySet().toArray(new String[0]));
+            float length = 0;
+            for (Map.Entry<String, Float> term : terms.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), k -> new HashMap<>()).put(id, term.getValue());
+                length += term.getValue();
+            }
+            lengths.put(id, length);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an item from the index. Unknown ids are ignored.
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops every indexed document.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            lengths.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the best matching items, highest score first.
+     * The last query term is also matched as a prefix so partially typed words still find results.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = documents.size();
+            if (docCount == 0) {
+                return Collections.emptyList();
+            }
+            double avgLength = totalLength / docCount;
+            Map<Long, Double> scores = new HashMap<>();
+
+            for (int i = 0; i < queryTerms.size(); i++) {
+                String term = queryTerms.get(i);
+                boolean last = i == queryTerms.size() - 1;
+                for (Map.Entry<String, Map<Long, Float>> match : matchingTerms(term, last)) {
+                    // Prefix expansions score a little lower than exact matches
+                    double boost = match.getKey().equals(term) ? 1.0 : 0.5;
+                    scoreTerm(match.getValue(), docCount, avgLength, boost, scores);
+                }
+            }
+
+            PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+            for (Map.Entry<Long, Double> score : scores.entrySet()) {
+                top.offer(score);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(top);
+            ranked.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder()));
+            List<Long> ids = new ArrayList<>(ranked.size());
+            for (Map.Entry<Long, Double> entry : ranked) {
+                ids.add(entry.getKey());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Map.Entry<String, Map<Long, Float>>> matchingTerms(String term, boolean allowPrefix) {
+        List<Map.Entry<String, Map<Long, Float>>> matches = new ArrayList<>();
+        if (!allowPrefix) {
+            Map<Long, Float> exact = postings.get(term);
+            if (exact != null) {
+                matches.add(Map.entry(term, exact));
+            }
+            return matches;
+        }
+        for (Map.Entry<String, Map<Long, Float>> entry : postings.tailMap(term, true).entrySet()) {
+            if (!entry.getKey().startsWith(term) || matches.size() >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            matches.add(entry);
+        }
+        return matches;
+    }
+
+    private void scoreTerm(Map<Long, Float> docs, int docCount, double avgLength, double boost, Map<Long, Double> scores) {
+        double idf = Math.log(1 + (docCount - docs.size() + 0.5) / (docs.size() + 0.5));
+        for (Map.Entry<Long, Float> doc : docs.entrySet()) {
+            double tf = doc.getValue();
+            double length = lengths.get(doc.getKey());
+            double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+            scores.merge(doc.getKey(), boost * idf * norm, Double::sum);
+        }
+    }
+
+    private void removeLocked(Long id) {
+        String[] terms = documents.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Float> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(id);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= lengths.remove(id);
+    }
+
+    private void addField(Map<String, Float> terms, String text, float weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Float::sum);
+        }
+    }
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> all = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i <= lower.length(); i++) {
+            char c = i < lower.length() ? lower.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                current.append(c);
+            } else if (current.length() > 0) {
+                String token = current.toString();
+                if (token.length() > 1 && !STOP_WORDS.contains(token)) {
+                    all.add(token);
+                }
+                current.setLength(0);
+            }
+        }
+        return all;
+    }
+}
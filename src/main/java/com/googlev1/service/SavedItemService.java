@@ -1,22 +1,50 @@
 package com.googlev1.service;
 
+import com.googlev1.dto.SavedItemPageResponse;
 import com.googlev1.dto.SavedItemRequest;
 import com.googlev1.dto.SavedItemResponse;
+import com.googlev1.dto.SavedItemTransferRecord;
 import com.googlev1.entity.SavedItem;
 import com.googlev1.repository.SavedItemRepository;
+import com.googlev1.repository.SavedItemSummary;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class SavedItemService {
     
+    private static final int INDEX_PAGE_SIZE = 500;
+    
     private final SavedItemRepository repository;
+    private final SavedItemSearchIndex searchIndex;
+    private final SavedUrlIndex urlIndex;
+    // Bumped once every write has committed; seeded from the clock so ETags from a previous run never match
+    private final AtomicLong collectionVersion = new AtomicLong(System.currentTimeMillis());
     
-    public SavedItemService(SavedItemRepository repository) {
+    public SavedItemService(SavedItemRepository repository, SavedItemSearchIndex searchIndex, SavedUrlIndex urlIndex) {
         this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.urlIndex = urlIndex;
     }
     
     public List<SavedItemResponse> getAllSavedItems() {
@@ -26,7 +54,102 @@ public class SavedItemService {
                 .collect(Collectors.toList());
     }
     
- 
+    /**
+     * Returns one page of saved items, newest first, using keyset pagination over (savedDate, id).
+     * Cost stays constant however deep the client pages because no rows are skipped with OFFSET.
+     *
+     * @param cursor opaque cursor from a previous page, or null for the first page
+     * @param limit page size
+     */
+    public SavedItemPageResponse getPage(String cursor, int limit) {
+        // Fetch one extra row to learn whether another page exists
+        PageRequest pageable = PageRequest.of(0, limit + 1);
+        List<SavedItemSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = repository.findFirstPage(pageable);
+        } else {
+            Cursor position = decodeCursor(cursor);
+            rows = repository.findPageAfter(position.savedDate, position.id, pageable);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            SavedItemSummary last = rows.get(limit - 1);
+            nextCursor = encodeCursor(last.getSavedDate(), last.getId());
+        }
+        return new SavedItemPageResponse(rows, nextCursor);
+    }
+    
+    /**
+     * Version of the saved-items collection, changed after every save, notes update and delete commits.
+     * Read it before querying: a write committing in between then leaves the ETag older than the body, which
+     * only costs a cache miss, whereas a version bumped before the commit could label the old rows as new.
+     */
+    public long getCollectionVersion() {
+        return collectionVersion.get();
+    }
+    
+    /**
+     * Full-text search over title, url, summary and notes, best match first.
+     * Only the matching rows are loaded from the database.
+     */
+    public List<SavedItemResponse> searchItems(String query, int limit) {
+        List<Long> ids = searchIndex.search(query, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, SavedItem> byId = repository.findAllById(ids)
+                .stream()
+                .collect(Collectors.toMap(SavedItem::getId, Function.identity()));
+        List<SavedItemResponse> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            SavedItem item = byId.get(id);
+            if (item != null) {
+                results.add(new SavedItemResponse(item));
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Rebuilds the search index and the saved-URL set from the database, one keyset page at a time.
+     * Pages are unmanaged projections, so nothing accumulates in an open persistence context.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIndexes() {
+        searchIndex.clear();
+        urlIndex.clear();
+        long afterId = 0;
+        List<SavedItemTransferRecord> page;
+        do {
+            page = repository.findTransferPage(afterId, PageRequest.of(0, INDEX_PAGE_SIZE));
+            for (SavedItemTransferRecord item : page) {
+                searchIndex.index(item.id(), item.title(), item.url(), item.summary(), item.notes());
+                urlIndex.add(item.url());
+                afterId = item.id();
+            }
+        } while (page.size() == INDEX_PAGE_SIZE);
+    }
+    
+    /**
+     * Called after rows were written behind JPA's back (bulk import): indexes the
+     * written rows and invalidates list ETags.
+     *
+     * @param inserted URLs of the rows that were inserted
+     * @param updated URLs of existing rows that were overwritten; they are already in the saved-URL set
+     */
+    public void onBulkChange(Collection<String> inserted, Collection<String> updated) {
+        for (SavedItemTransferRecord item : repository.findTransferRecordsByUrls(inserted)) {
+            searchIndex.index(item.id(), item.title(), item.url(), item.summary(), item.notes());
+            urlIndex.add(item.url());
+        }
+        for (SavedItemTransferRecord item : repository.findTransferRecordsByUrls(updated)) {
+            searchIndex.index(item.id(), item.title(), item.url(), item.summary(), item.notes());
+        }
+        afterCommit(collectionVersion::incrementAndGet);
+    }
+    
     @Transactional
     public SavedItemResponse saveItem(SavedItemRequest request) {
         if (repository.existsByUrl(request.getUrl())) {
@@ -40,6 +163,12 @@ public class SavedItemService {
         ); 
         
         SavedItem saved = repository.save(item);
+        // Searches and URL checks only see the item once its row has committed
+        afterCommit(() -> {
+            searchIndex.index(saved);
+            urlIndex.add(saved.getUrl());
+            collectionVersion.incrementAndGet();
+        });
         return new SavedItemResponse(saved);
     }
     
@@ -51,19 +180,90 @@ public class SavedItemService {
         
         item.setNotes(notes);
         SavedItem updated = repository.save(item);
+        afterCommit(() -> {
+            searchIndex.index(updated);
+            collectionVersion.incrementAndGet();
+        });
         return new SavedItemResponse(updated);
     }
     
 
     @Transactional
     public void deleteItem(Long id) {
-        if (!repository.existsById(id)) {
-            throw new IllegalArgumentException("Saved item not found");
-        }
-        repository.deleteById(id);
+        SavedItem item = repository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Saved item not found"));
+        repository.delete(item);
+        // A rolled back delete must not drop the URL's count or its search entry, or the item would vanish
+        afterCommit(() -> {
+            searchIndex.remove(id);
+            urlIndex.remove(item.getUrl());
+            collectionVersion.incrementAndGet();
+        });
     }
     
     public boolean checkUrlExists(String url) {
-        return repository.existsByUrl(url);
+        // Definite negatives are answered from memory
+        return urlIndex.mightContain(url) && repository.existsByUrl(url);
+    }
+    
+    /**
+     * Checks many URLs at once. URLs missing from the in-memory set are reported as not saved
+     * without a query; the remaining candidates are confirmed with a single IN query.
+     *
+     * @return saved status per URL, in request order
+     */
+    public Map<String, Boolean> checkUrlsExist(Collection<String> urls) {
+        Map<String, Boolean> status = new LinkedHashMap<>();
+        Set<String> candidates = new HashSet<>();
+        for (String url : urls) {
+            if (url == null) {
+                continue;
+            }
+            status.put(url, false);
+            if (urlIndex.mightContain(url)) {
+                candidates.add(url);
+            }
+        }
+        if (!candidates.isEmpty()) {
+            for (String url : repository.findExistingUrls(candidates)) {
+                status.put(url, true);
+            }
+        }
+        return status;
+    }
+    
+    /**
+     * Runs the action once the current transaction commits, or right away outside of one.
+     * Nothing runs if the transaction rolls back.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    private String encodeCursor(LocalDateTime savedDate, Long id) {
+        String raw = savedDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+    
+    private record Cursor(LocalDateTime savedDate, Long id) {
     }
 }
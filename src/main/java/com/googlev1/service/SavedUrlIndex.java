@@ -0,0 +1,60 @@
+package com.googlev1.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory membership set of saved URLs, stored as 64-bit hashes.
+ * A miss is a definite "not saved" and needs no database query; a hit is
+ * confirmed against the database because two URLs may share a hash.
+ * Hashes are reference counted so deleting one of two colliding URLs never
+ * produces a false negative for the other.
+ */
+@Component
+public class SavedUrlIndex {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final ConcurrentMap<Long, Integer> hashes = new ConcurrentHashMap<>();
+
+    public void add(String url) {
+        if (url != null) {
+            hashes.merge(hash(url), 1, Integer::sum);
+        }
+    }
+
+    public void remove(String url) {
+        if (url != null) {
+            hashes.computeIfPresent(hash(url), (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    public void clear() {
+        hashes.clear();
+    }
+
+    /**
+     * @return false if the URL is definitely not saved, true if it may be
+     */
+    public boolean mightContain(String url) {
+        return url != null && hashes.containsKey(hash(url));
+    }
+
+    public int size() {
+        return hashes.size();
+    }
+
+    // 64-bit FNV-1a over the UTF-16 code units, followed by a murmur-style finalizer
+    private static long hash(String url) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < url.length(); i++) {
+            h ^= url.charAt(i);
+            h *= FNV_PRIME;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -2,76 +2,156 @@ package com.googlev1.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlev1.dto.search.SearchOptions;
 import com.googlev1.dto.search.SearchResponse;
+import com.googlev1.dto.search.SearchResult;
 import com.googlev1.entity.search.SearchCacheEntry;
 import com.googlev1.repository.search.SearchCacheRepository;
+import com.googlev1.service.cache.AdaptiveTtlPolicy;
+import com.googlev1.service.cache.SerializedSearchCache;
+import com.googlev1.service.cache.SerializedSearchResponse;
+import com.googlev1.service.cluster.PeerCacheEntry;
+import com.googlev1.service.cluster.PeerCacheHandler;
+import com.googlev1.service.cluster.SearchCacheCluster;
+import com.googlev1.service.store.SegmentedLogStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * Service for managing search result caching with TTL functionality.
  * Handles storing, retrieving, and cleaning up cached search responses.
+ * Each entry gets its own TTL from the AdaptiveTtlPolicy, based on its search type, how much its
+ * results changed since the previous refresh and whether it was read.
+ * Entries live in the database, or in the disk-backed store when {@code cache.store.type=disk}
+ * (see CacheStoreConfig), which keeps them across restarts.
+ * With {@code search.cache.cluster.enabled=true} (see ClusterConfig) the instances share their entries: a local
+ * miss is looked up at the key's owner node before going upstream, and refreshed entries are published to the
+ * owner, once the write commits, while the other nodes drop their copies.
+ * Entries are keyed by query, search type and the cache variant of the search options (depth, raw content). An
+ * entry fetched with maxResults N answers requests for up to N results, cut down to the number asked for.
+ * Entries hit with the number of results they were fetched with are kept in memory, serialized, in the
+ * SerializedSearchCache until they are written again, invalidated or expire.
  */
 @Service
 @Slf4j
 public class SearchCacheService {
 
     private final SearchCacheRepository searchCacheRepository;
+    // Null unless the disk-backed store is enabled
+    private final SegmentedLogStore store;
     private final ObjectMapper objectMapper;
-    private final int cacheTtlMinutes;
+    private final AdaptiveTtlPolicy ttlPolicy;
+    // Null unless the cluster-wide cache is enabled
+    private final SearchCacheCluster cluster;
+    private final int staleRetentionMinutes;
+    // Null unless serialized hits are enabled
+    private final SerializedSearchCache serializedCache;
+    // Maintained on insert and resynced by the hourly eviction, so status checks don't need a COUNT(*)
+    private final AtomicLong entryCount = new AtomicLong();
 
     @Autowired
     public SearchCacheService(SearchCacheRepository searchCacheRepository, 
                              ObjectMapper objectMapper,
-                             @Value("${search.cache.ttl-minutes:60}") int cacheTtlMinutes) {
+                             AdaptiveTtlPolicy searchCacheTtlPolicy,
+                             @Value("${search.cache.stale-retention-minutes:1440}") int staleRetentionMinutes,
+                             @Qualifier("searchCacheStore") Optional<SegmentedLogStore> searchCacheStore,
+                             Optional<SearchCacheCluster> searchCacheCluster,
+                             Optional<SerializedSearchCache> serializedSearchCache) {
         this.searchCacheRepository = searchCacheRepository;
+        this.store = searchCacheStore.orElse(null);
         this.objectMapper = objectMapper;
-        this.cacheTtlMinutes = cacheTtlMinutes;
+        this.ttlPolicy = searchCacheTtlPolicy;
+        this.staleRetentionMinutes = staleRetentionMinutes;
+        this.cluster = searchCacheCluster.orElse(null);
+        this.serializedCache = serializedSearchCache.orElse(null);
+        if (cluster != null) {
+            cluster.setHandler(new PeerHandler());
+        }
     }
 
     /**
-     * Retrieves a cached search result if it exists and hasn't expired.
+     * Retrieves a cached search result if it exists, hasn't expired and was fetched with at least as many
+     * results as asked for.
      * 
      * @param query the search query
      * @param searchType the search type
+     * @param options the search options
      * @return Optional containing the cached SearchResponse if found and valid, empty otherwise
      */
-    public Optional<SearchResponse> getCachedResult(String query, String searchType) {
+    public Optional<SearchResponse> getCachedResult(String query, String searchType, SearchOptions options) {
+        String variant = options.cacheVariant();
+        String key = cacheKey(query, searchType, variant);
         try {
-            Optional<SearchCacheEntry> cacheEntry = searchCacheRepository.findByQueryAndSearchType(query, searchType);
+            long serializedVersion = serializedCache != null ? serializedCache.version() : 0;
+            Optional<SearchCacheEntry> cacheEntry = findEntry(query, searchType, variant);
+            LocalDateTime now = LocalDateTime.now();
+            boolean fromPeer = false;
+            
+            if (cluster != null && (cacheEntry.isEmpty() || cacheEntry.get().getExpiresAt().isBefore(now))) {
+                Optional<SearchCacheEntry> peerEntry = fetchFromOwner(query, searchType, variant, cacheEntry);
+                if (peerEntry.isPresent()) {
+                    cacheEntry = peerEntry;
+                    fromPeer = true;
+                }
+            }
             
             if (cacheEntry.isEmpty()) {
                 log.debug("No cache entry found for query: {} and searchType: {}", query, searchType);
+                recordClusterMiss();
                 return Optional.empty();
             }
             
             SearchCacheEntry entry = cacheEntry.get();
-            LocalDateTime now = LocalDateTime.now();
             
-            // Check if the cache entry has expired
+            // Check if the cache entry has expired. Expired entries are kept (see evictExpiredEntries)
+            // so they can still be served stale while the upstream is unavailable.
             if (entry.getExpiresAt().isBefore(now)) {
                 log.debug("Cache entry expired for query: {} and searchType: {}", query, searchType);
-                // Optionally delete the expired entry immediately
-                searchCacheRepository.delete(entry);
+                ttlPolicy.onExpired(key, searchType, entry.getCreatedAt(), entry.getExpiresAt(), now);
+                recordClusterMiss();
                 return Optional.empty();
             }
             
-            // Deserialize the cached response
-            SearchResponse cachedResponse = objectMapper.readValue(entry.getResponseJson(), SearchResponse.class);
-            
-            // Mark as from cache and update timestamp to current time
-            cachedResponse.setFromCache(true);
-            cachedResponse.setTimestamp(now);
+            SearchResponse response = toCachedResponse(entry, now);
+            if (maxResultsOf(response) < options.maxResults()) {
+                log.debug("Cache entry for query: {} and searchType: {} has fewer results than asked for", query, searchType);
+                recordClusterMiss();
+                return Optional.empty();
+            }
             
+            ttlPolicy.onHit(key, searchType, entry.getCreatedAt(), entry.getExpiresAt(), now);
+            if (cluster != null) {
+                if (fromPeer) {
+                    cluster.recordPeerHit();
+                } else {
+                    cluster.recordLocalHit();
+                }
+            }
             log.debug("Retrieved cached result for query: {} and searchType: {}", query, searchType);
-            return Optional.of(cachedResponse);
+            if (serializedCache != null && maxResultsOf(response) == options.maxResults()) {
+                SerializedSearchResponse.of(objectMapper, response)
+                        .ifPresent(serialized -> serializedCache.put(key, serialized, serializedVersion));
+            }
+            return Optional.of(limitResults(response, options.maxResults()));
             
         } catch (JsonProcessingException e) {
             log.error("Failed to deserialize cached response for query: {} and searchType: {}", query, searchType, e);
@@ -83,44 +163,106 @@ public class SearchCacheService {
     }
 
     /**
-     * Saves a search response to the cache with TTL.
+     * Retrieves the serialized copy of a cached search result, kept in memory since an earlier hit, if the entry
+     * hasn't expired and was fetched with exactly as many results as asked for. Counts as a hit of the entry.
      * 
      * @param query the search query
      * @param searchType the search type
+     * @param options the search options
+     * @return Optional containing the serialized response, empty if the caller must use {@link #getCachedResult}
+     */
+    public Optional<SerializedSearchResponse> getSerializedCachedResult(String query, String searchType,
+                                                                        SearchOptions options) {
+        if (serializedCache == null) {
+            return Optional.empty();
+        }
+        String key = cacheKey(query, searchType, options.cacheVariant());
+        SerializedSearchResponse serialized = serializedCache.get(key);
+        if (serialized == null || serialized.getMaxResults() != options.maxResults()) {
+            return Optional.empty();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (serialized.getExpiresAt().isBefore(now)) {
+            // The regular lookup records the expiry
+            serializedCache.remove(key);
+            return Optional.empty();
+        }
+        ttlPolicy.onHit(key, searchType, serialized.getCachedAt(), serialized.getExpiresAt(), now);
+        if (cluster != null) {
+            cluster.recordLocalHit();
+        }
+        serializedCache.recordHit();
+        return Optional.of(serialized);
+    }
+
+    /**
+     * Retrieves a cached search result even if it has expired, or has fewer results than asked for.
+     * Used as a fallback when the upstream must not or cannot be called.
+     * 
+     * @param query the search query
+     * @param searchType the search type
+     * @param options the search options
+     * @return Optional containing the cached SearchResponse, flagged stale if expired
+     */
+    public Optional<SearchResponse> getStaleCachedResult(String query, String searchType, SearchOptions options) {
+        try {
+            Optional<SearchCacheEntry> cacheEntry = findEntry(query, searchType, options.cacheVariant());
+            if (cacheEntry.isEmpty()) {
+                return Optional.empty();
+            }
+            LocalDateTime now = LocalDateTime.now();
+            SearchResponse response = limitResults(toCachedResponse(cacheEntry.get(), now), options.maxResults());
+            response.setStale(cacheEntry.get().getExpiresAt().isBefore(now));
+            return Optional.of(response);
+        } catch (Exception e) {
+            log.error("Error retrieving stale cached result for query: {} and searchType: {}", query, searchType, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Saves a search response to the cache with a TTL computed for this entry.
+     * It replaces the entry of the same search options, whatever number of results that one had, and records
+     * the entry's write and expiry times on the response.
+     * 
+     * @param query the search query
+     * @param searchType the search type
+     * @param options the search options the response was fetched with
      * @param response the SearchResponse to cache
      */
     @Transactional
-    public void saveToCache(String query, String searchType, SearchResponse response) {
+    public void saveToCache(String query, String searchType, SearchOptions options, SearchResponse response) {
+        String variant = options.cacheVariant();
+        String key = cacheKey(query, searchType, variant);
         try {
             // Serialize the response to JSON
             String responseJson = objectMapper.writeValueAsString(response);
             
             LocalDateTime now = LocalDateTime.now();
-            LocalDateTime expiresAt = now.plusMinutes(cacheTtlMinutes);
             
-            // Check if an entry already exists for this query and search type
-            Optional<SearchCacheEntry> existingEntry = searchCacheRepository.findByQueryAndSearchType(query, searchType);
+            // Check if an entry already exists for this query, search type and options
+            Optional<SearchCacheEntry> existingEntry = findEntry(query, searchType, variant);
             
-            if (existingEntry.isPresent()) {
-                // Update existing entry
-                SearchCacheEntry entry = existingEntry.get();
-                entry.setResponseJson(responseJson);
-                entry.setCreatedAt(now);
-                entry.setExpiresAt(expiresAt);
-                searchCacheRepository.save(entry);
-                log.debug("Updated cache entry for query: {} and searchType: {}", query, searchType);
-            } else {
-                // Create new entry
-                SearchCacheEntry newEntry = SearchCacheEntry.builder()
-                        .query(query)
-                        .searchType(searchType)
-                        .responseJson(responseJson)
-                        .createdAt(now)
-                        .expiresAt(expiresAt)
-                        .build();
-                
-                searchCacheRepository.save(newEntry);
-                log.debug("Created new cache entry for query: {} and searchType: {}", query, searchType);
+            // Compare only as many results as both responses were asked for
+            Optional<SearchResponse> existingResponse = existingEntry.flatMap(this::cachedResponse);
+            int compared = Math.min(maxResultsOf(response), existingResponse.map(SearchCacheService::maxResultsOf)
+                    .orElse(SearchOptions.MAX_RESULTS));
+            Duration ttl = ttlPolicy.onRefresh(key, searchType,
+                    existingEntry.map(SearchCacheService::ttlOf).orElse(null),
+                    existingResponse.map(cached -> urls(cached.getResults(), compared)).orElse(null),
+                    urls(response.getResults(), compared), now);
+            LocalDateTime expiresAt = now.plus(ttl);
+            log.debug("Caching query: {} and searchType: {} for {}s", query, searchType, ttl.toSeconds());
+            
+            writeEntry(query, searchType, variant, existingEntry, responseJson, now, expiresAt, (int) ttl.toSeconds());
+            response.setCachedAt(now);
+            response.setExpiresAt(expiresAt);
+            
+            if (cluster != null) {
+                // Peers that drop their copy before the row commits could fetch the previous entry back
+                PeerCacheEntry published = new PeerCacheEntry(responseJson,
+                        toEpochMillis(now), toEpochMillis(expiresAt), (int) ttl.toSeconds());
+                afterCommit(() -> cluster.publish(key, published));
             }
             
         } catch (JsonProcessingException e) {
@@ -132,14 +274,29 @@ public class SearchCacheService {
 
     /**
      * Scheduled method to clean up expired cache entries.
-     * Runs every hour to remove entries that have passed their expiration time.
+     * Runs every hour to remove entries that expired more than the stale retention period ago;
+     * younger expired entries are kept as a fallback for when the upstream is unavailable.
+     * Also resynchronizes the entry count; the first run happens at startup.
      */
     @Scheduled(fixedRate = 3600000) // Run every hour (3600000 ms)
     @Transactional
     public void evictExpiredEntries() {
         try {
-            LocalDateTime now = LocalDateTime.now();
-            int deletedCount = searchCacheRepository.deleteByExpiresAtBefore(now);
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(staleRetentionMinutes);
+            int deletedCount;
+            ttlPolicy.evictBefore(cutoff);
+            if (serializedCache != null) {
+                serializedCache.removeExpiredBefore(LocalDateTime.now());
+            }
+            if (store != null) {
+                deletedCount = store.removeExpiredBefore(toEpochMillis(cutoff));
+                store.compact();
+                store.flush();
+                entryCount.set(store.size());
+            } else {
+                deletedCount = searchCacheRepository.deleteByExpiresAtBefore(cutoff);
+                entryCount.set(searchCacheRepository.count());
+            }
             
             if (deletedCount > 0) {
                 log.info("Evicted {} expired cache entries", deletedCount);
@@ -152,17 +309,278 @@ public class SearchCacheService {
         }
     }
 
+    /**
+     * Writes an entry to the disk store if enabled, otherwise creates or updates its database row.
+     * Drops the serialized copy of the previous entry, and again once the write commits.
+     * 
+     * @param existingEntry the entry currently cached for the query, if any
+     * @return the written entry
+     */
+    private SearchCacheEntry writeEntry(String query, String searchType, String variant,
+                                        Optional<SearchCacheEntry> existingEntry, String responseJson,
+                                        LocalDateTime createdAt, LocalDateTime expiresAt, Integer ttlSeconds) {
+        if (serializedCache != null) {
+            String key = cacheKey(query, searchType, variant);
+            serializedCache.remove(key);
+            // A hit reading the previous row until the write commits could put its copy back in between
+            afterCommit(() -> serializedCache.remove(key));
+        }
+        if (store != null) {
+            store.put(cacheKey(query, searchType, variant), responseJson.getBytes(StandardCharsets.UTF_8),
+                    toEpochMillis(createdAt), toEpochMillis(expiresAt));
+            entryCount.set(store.size());
+            log.debug("Stored cache entry for query: {} and searchType: {}", query, searchType);
+            return SearchCacheEntry.builder()
+                    .query(query)
+                    .searchType(searchType)
+                    .searchOptions(variant)
+                    .responseJson(responseJson)
+                    .createdAt(createdAt)
+                    .expiresAt(expiresAt)
+                    .ttlSeconds(ttlSeconds)
+                    .build();
+        }
+        
+        if (existingEntry.isPresent()) {
+            // Update existing entry
+            SearchCacheEntry entry = existingEntry.get();
+            entry.setResponseJson(responseJson);
+            entry.setCreatedAt(createdAt);
+            entry.setExpiresAt(expiresAt);
+            entry.setTtlSeconds(ttlSeconds);
+            log.debug("Updated cache entry for query: {} and searchType: {}", query, searchType);
+            return searchCacheRepository.save(entry);
+        }
+        
+        // Create new entry
+        SearchCacheEntry newEntry = SearchCacheEntry.builder()
+                .query(query)
+                .searchType(searchType)
+                .searchOptions(variant)
+                .responseJson(responseJson)
+                .createdAt(createdAt)
+                .expiresAt(expiresAt)
+                .ttlSeconds(ttlSeconds)
+                .build();
+        
+        SearchCacheEntry saved = searchCacheRepository.save(newEntry);
+        entryCount.incrementAndGet();
+        log.debug("Created new cache entry for query: {} and searchType: {}", query, searchType);
+        return saved;
+    }
+
+    /**
+     * Asks the key's owner node for its entry and keeps it as the local copy if it is newer than ours.
+     * 
+     * @param localEntry the entry cached on this node, missing or expired
+     * @return the owner's entry if it is newer, expired or not
+     */
+    private Optional<SearchCacheEntry> fetchFromOwner(String query, String searchType, String variant,
+                                                      Optional<SearchCacheEntry> localEntry) {
+        Optional<PeerCacheEntry> peerEntry = cluster.fetchFromOwner(cacheKey(query, searchType, variant));
+        if (peerEntry.isEmpty() || localEntry.isPresent()
+                && peerEntry.get().expiresAt() <= toEpochMillis(localEntry.get().getExpiresAt())) {
+            return Optional.empty();
+        }
+        PeerCacheEntry entry = peerEntry.get();
+        return Optional.of(writeEntry(query, searchType, variant, localEntry, entry.responseJson(),
+                toLocalDateTime(entry.createdAt()), toLocalDateTime(entry.expiresAt()), entry.ttlSeconds()));
+    }
+
+    private void recordClusterMiss() {
+        if (cluster != null) {
+            cluster.recordMiss();
+        }
+    }
+
+    /**
+     * Answers cache requests from other nodes. Keys are {@link #cacheKey} strings.
+     */
+    private class PeerHandler implements PeerCacheHandler {
+
+        @Override
+        public Optional<PeerCacheEntry> get(String key) {
+            CacheKey parsed = CacheKey.parse(key);
+            return findEntry(parsed.query(), parsed.searchType(), parsed.variant())
+                    .map(entry -> new PeerCacheEntry(entry.getResponseJson(), toEpochMillis(entry.getCreatedAt()),
+                            toEpochMillis(entry.getExpiresAt()), entry.getTtlSeconds()));
+        }
+
+        @Override
+        public void put(String key, PeerCacheEntry entry) {
+            CacheKey parsed = CacheKey.parse(key);
+            String query = parsed.query();
+            String searchType = parsed.searchType();
+            try {
+                writeEntry(query, searchType, parsed.variant(), findEntry(query, searchType, parsed.variant()),
+                        entry.responseJson(), toLocalDateTime(entry.createdAt()), toLocalDateTime(entry.expiresAt()),
+                        entry.ttlSeconds());
+            } catch (Exception e) {
+                log.error("Error storing peer cache entry for query: {} and searchType: {}", query, searchType, e);
+            }
+        }
+
+        @Override
+        public void invalidate(String key) {
+            CacheKey parsed = CacheKey.parse(key);
+            String query = parsed.query();
+            String searchType = parsed.searchType();
+            if (serializedCache != null) {
+                serializedCache.remove(key);
+            }
+            try {
+                if (store != null) {
+                    store.remove(key);
+                    entryCount.set(store.size());
+                } else {
+                    searchCacheRepository.findByQueryAndSearchTypeAndSearchOptions(query, searchType, parsed.variant())
+                            .ifPresent(entry -> {
+                                searchCacheRepository.delete(entry);
+                                entryCount.decrementAndGet();
+                            });
+                }
+                log.debug("Invalidated cache entry for query: {} and searchType: {}", query, searchType);
+            } catch (Exception e) {
+                log.error("Error invalidating cache entry for query: {} and searchType: {}", query, searchType, e);
+            }
+        }
+    }
+
+    /**
+     * Looks up the entry in the disk store if enabled, otherwise in the database.
+     * Entries read from the disk store are not managed by JPA.
+     */
+    private Optional<SearchCacheEntry> findEntry(String query, String searchType, String variant) {
+        if (store == null) {
+            return searchCacheRepository.findByQueryAndSearchTypeAndSearchOptions(query, searchType, variant);
+        }
+        return store.get(cacheKey(query, searchType, variant))
+                .map(stored -> SearchCacheEntry.builder()
+                        .query(query)
+                        .searchType(searchType)
+                        .searchOptions(variant)
+                        .responseJson(new String(stored.value(), StandardCharsets.UTF_8))
+                        .createdAt(toLocalDateTime(stored.writtenAt()))
+                        .expiresAt(toLocalDateTime(stored.expiresAt()))
+                        .build());
+    }
+
+    /**
+     * Runs the action once the current transaction commits, or right away outside of one.
+     * Nothing runs if the transaction rolls back.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static String cacheKey(String query, String searchType, String variant) {
+        return searchType + '\n' + variant + '\n' + query;
+    }
+
+    /**
+     * A {@link #cacheKey} split back into its parts.
+     */
+    private record CacheKey(String searchType, String variant, String query) {
+
+        static CacheKey parse(String key) {
+            int first = key.indexOf('\n');
+            int second = key.indexOf('\n', first + 1);
+            if (first < 0 || second < 0) {
+                throw new IllegalArgumentException("Malformed cache key: " + key);
+            }
+            return new CacheKey(key.substring(0, first), key.substring(first + 1, second), key.substring(second + 1));
+        }
+    }
+
+    private static Duration ttlOf(SearchCacheEntry entry) {
+        return entry.getTtlSeconds() != null
+                ? Duration.ofSeconds(entry.getTtlSeconds())
+                : Duration.between(entry.getCreatedAt(), entry.getExpiresAt());
+    }
+
+    /**
+     * @return the cached response, or empty if it can't be read
+     */
+    private Optional<SearchResponse> cachedResponse(SearchCacheEntry entry) {
+        try {
+            return Optional.of(objectMapper.readValue(entry.getResponseJson(), SearchResponse.class));
+        } catch (JsonProcessingException e) {
+            log.debug("Unable to read cached results for query: {}", entry.getQuery());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return the URLs of the first {@code limit} results
+     */
+    private static Set<String> urls(List<SearchResult> results, int limit) {
+        if (results == null) {
+            return Set.of();
+        }
+        return results.stream().limit(limit).map(SearchResult::getUrl).collect(Collectors.toSet());
+    }
+
+    /**
+     * @return how many results the response was fetched with; the default for responses cached before that
+     * was recorded
+     */
+    private static int maxResultsOf(SearchResponse response) {
+        return response.getMaxResults() != null ? response.getMaxResults() : SearchOptions.DEFAULT.maxResults();
+    }
+
+    /**
+     * Cuts a response down to its first {@code maxResults} results, if it has more.
+     */
+    private static SearchResponse limitResults(SearchResponse response, int maxResults) {
+        if (maxResultsOf(response) <= maxResults) {
+            return response;
+        }
+        if (response.getResults() != null && response.getResults().size() > maxResults) {
+            response.setResults(new ArrayList<>(response.getResults().subList(0, maxResults)));
+            response.setResultCount(maxResults);
+        }
+        response.setMaxResults(maxResults);
+        return response;
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Deserializes a cache entry and marks it as served from cache.
+     */
+    private SearchResponse toCachedResponse(SearchCacheEntry entry, LocalDateTime now) throws JsonProcessingException {
+        SearchResponse cachedResponse = objectMapper.readValue(entry.getResponseJson(), SearchResponse.class);
+        
+        // Mark as from cache and update timestamp to current time
+        cachedResponse.setFromCache(true);
+        cachedResponse.setTimestamp(now);
+        cachedResponse.setCachedAt(entry.getCreatedAt());
+        cachedResponse.setExpiresAt(entry.getExpiresAt());
+        return cachedResponse;
+    }
+
     /**
      * Returns the total number of cache entries currently stored.
+     * The value is maintained in memory and does not query the database or the store.
      * 
      * @return the count of cache entries
      */
     public long getCacheEntryCount() {
-        try {
-            return searchCacheRepository.count();
-        } catch (Exception e) {
-            log.error("Error getting cache entry count", e);
-            return 0;
-        }
+        return entryCount.get();
     }
 }
\ No newline at end of file
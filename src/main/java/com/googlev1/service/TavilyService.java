@@ -1,42 +1,100 @@
 package com.googlev1.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlev1.dto.search.SearchOptions;
 import com.googlev1.dto.search.SearchResponse;
 import com.googlev1.dto.search.SearchResult;
+import com.googlev1.service.cache.SerializedSearchResponse;
+import com.googlev1.service.dedup.NearDuplicateDetector;
+import com.googlev1.service.index.LocalSearchIndex;
+import com.googlev1.service.resilience.AdaptiveConcurrencyLimiter;
+import com.googlev1.service.resilience.CircuitBreaker;
+import com.googlev1.service.resilience.HedgingPolicy;
+import com.googlev1.service.resilience.UpstreamBudget;
+import com.googlev1.service.tavily.TavilyResponseParser;
+import com.googlev1.service.tracing.StageTracer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Service for integrating with the Tavily API to perform web searches.
  * Handles API communication, response parsing, caching, and error handling.
+ * Upstream calls go through a circuit breaker and an adaptive concurrency limit; when either
+ * rejects a call, the request is answered from the (possibly stale) cache or fails fast.
+ * Each search may carry a deadline that bounds the upstream call, and slow calls may be hedged
+ * with a second request after the recent p95 latency, or right away if the first one fails; whichever
+ * answers first wins. A hedge holds a circuit breaker permission and a concurrency slot like any request.
+ * Every upstream request, hedges included, draws on a rate and daily quota budget; once it is
+ * exhausted, cache misses are answered from stale cache entries instead of calling Tavily.
+ * Every upstream result is added to the local search index; in local-first mode a cache miss is answered from
+ * that index when it has enough recent pages matching every query term.
+ * Near-duplicate results (mirrors, syndicated copies) are collapsed into the best ranked one before caching.
+ * Responses are parsed incrementally from the network buffers as they arrive, without building the body as a
+ * String or a JSON tree.
  */
 @Service
 @Slf4j
 public class TavilyService {
 
+    // Below this, an upstream call can't realistically complete before the caller's deadline
+    private static final Duration MIN_UPSTREAM_BUDGET = Duration.ofMillis(50);
+
     private final WebClient webClient;
     private final SearchCacheService searchCacheService;
     private final ObjectMapper objectMapper;
     private final String apiKey;
     private final Duration timeout;
+    private final CircuitBreaker circuitBreaker;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final HedgingPolicy hedgingPolicy;
+    private final UpstreamBudget upstreamBudget;
+    private final StageTracer stageTracer;
+    // Null when search.index.enabled=false
+    private final LocalSearchIndex localIndex;
+    private final int localFirstMinResults;
+    private final Duration localFirstMaxAge;
+    private final Duration localFirstNewsMaxAge;
+    // Null when search.dedup.enabled=false
+    private final NearDuplicateDetector duplicateDetector;
+    
+    private final Timer cacheHitTimer;
+    private final Timer cacheMissTimer;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Timer upstreamSuccessTimer;
+    private final Timer upstreamErrorTimer;
+    private final Timer upstreamDeadlineTimer;
+    private final Counter localFirstAnswered;
+    private final Counter localFirstFallbacks;
     
-    private LocalDateTime lastSuccessfulCall;
-    private boolean isHealthy = true;
+    private volatile LocalDateTime lastSuccessfulCall;
 
     @Autowired
     public TavilyService(
@@ -44,15 +102,52 @@ public class TavilyService {
             @Value("${tavily.api.key}") String apiKey,
             @Value("${tavily.api.timeout:30000}") long timeoutMs,
             SearchCacheService searchCacheService,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            CircuitBreaker tavilyCircuitBreaker,
+            AdaptiveConcurrencyLimiter tavilyConcurrencyLimiter,
+            HedgingPolicy tavilyHedgingPolicy,
+            UpstreamBudget tavilyUpstreamBudget,
+            MeterRegistry meterRegistry,
+            StageTracer stageTracer,
+            WebClient.Builder webClientBuilder,
+            Optional<LocalSearchIndex> localSearchIndex,
+            @Value("${search.local-first.min-results:5}") int localFirstMinResults,
+            @Value("${search.local-first.max-age-minutes:10080}") long localFirstMaxAgeMinutes,
+            @Value("${search.local-first.news-max-age-minutes:60}") long localFirstNewsMaxAgeMinutes,
+            Optional<NearDuplicateDetector> nearDuplicateDetector) {
         
         this.apiKey = apiKey;
         this.timeout = Duration.ofMillis(timeoutMs);
         this.searchCacheService = searchCacheService;
         this.objectMapper = objectMapper;
+        this.circuitBreaker = tavilyCircuitBreaker;
+        this.concurrencyLimiter = tavilyConcurrencyLimiter;
+        this.hedgingPolicy = tavilyHedgingPolicy;
+        this.upstreamBudget = tavilyUpstreamBudget;
+        this.stageTracer = stageTracer;
+        this.localIndex = localSearchIndex.orElse(null);
+        this.localFirstMinResults = localFirstMinResults;
+        this.localFirstMaxAge = Duration.ofMinutes(localFirstMaxAgeMinutes);
+        this.localFirstNewsMaxAge = Duration.ofMinutes(localFirstNewsMaxAgeMinutes);
+        this.duplicateDetector = nearDuplicateDetector.orElse(null);
+        
+        // search.requests: end-to-end time of a search, split by whether the cache answered it;
+        // tavily.requests: the upstream HTTP call alone
+        this.cacheHitTimer = searchTimer(meterRegistry, "hit");
+        this.cacheMissTimer = searchTimer(meterRegistry, "miss");
+        this.cacheHits = Counter.builder("search.cache.lookups").tag("result", "hit").register(meterRegistry);
+        this.cacheMisses = Counter.builder("search.cache.lookups").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("search.cache.hit.ratio", this, TavilyService::getCacheHitRatio)
+                .description("Share of searches answered from the cache since startup")
+                .register(meterRegistry);
+        this.upstreamSuccessTimer = upstreamTimer(meterRegistry, "success");
+        this.upstreamErrorTimer = upstreamTimer(meterRegistry, "error");
+        this.upstreamDeadlineTimer = upstreamTimer(meterRegistry, "deadline");
+        this.localFirstAnswered = Counter.builder("search.local.first").tag("outcome", "answered").register(meterRegistry);
+        this.localFirstFallbacks = Counter.builder("search.local.first").tag("outcome", "fallback").register(meterRegistry);
         
-        // Configure WebClient with base URL and timeout
-        this.webClient = WebClient.builder()
+        // Configure WebClient with base URL and timeout; Boot's builder adds client spans and trace headers
+        this.webClient = webClientBuilder
                 .baseUrl(baseUrl)
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .build();
@@ -69,74 +164,301 @@ public class TavilyService {
      * @return SearchResponse containing results and metadata
      */
     public SearchResponse search(String query, String searchType) {
+        return search(query, searchType, null);
+    }
+
+    /**
+     * Performs a search using the Tavily API within the caller's time budget.
+     * The upstream call is given whatever is left of the budget (capped by tavily.api.timeout);
+     * if too little is left, the request is answered from the cache or fails fast.
+     * 
+     * @param query the search query
+     * @param searchType the type of search (e.g., "general", "news")
+     * @param budget how long the caller is willing to wait, or null for no limit beyond tavily.api.timeout
+     * @return SearchResponse containing results and metadata
+     */
+    public SearchResponse search(String query, String searchType, Duration budget) {
+        return search(query, searchType, budget, false);
+    }
+
+    /**
+     * Performs a search within the caller's time budget, optionally answering cache misses from the local index.
+     * 
+     * @param query the search query
+     * @param searchType the type of search (e.g., "general", "news")
+     * @param budget how long the caller is willing to wait, or null for no limit beyond tavily.api.timeout
+     * @param localFirst whether a cache miss may be answered from the local index before calling Tavily
+     * @return SearchResponse containing results and metadata
+     */
+    public SearchResponse search(String query, String searchType, Duration budget, boolean localFirst) {
+        return search(query, searchType, budget, localFirst, SearchOptions.DEFAULT);
+    }
+
+    /**
+     * Performs a search with the given options: how many results, how deep, and whether with raw content.
+     * A cached response fetched with more results than asked for answers the search, cut down to the
+     * number asked for.
+     * 
+     * @param query the search query
+     * @param searchType the type of search (e.g., "general", "news")
+     * @param budget how long the caller is willing to wait, or null for no limit beyond tavily.api.timeout
+     * @param localFirst whether a cache miss may be answered from the local index before calling Tavily
+     * @param options the search options
+     * @return SearchResponse containing results and metadata
+     */
+    public SearchResponse search(String query, String searchType, Duration budget, boolean localFirst,
+                                 SearchOptions options) {
+        return stageTracer.trace("tavily.search", () -> {
+            stageTracer.tag("search.type", searchType);
+            return doSearch(query, searchType, budget, localFirst, options);
+        });
+    }
+
+    /**
+     * Answers a search from the serialized copy of its cache entry, kept in memory since an earlier hit.
+     * The caller writes it as it is; on empty, it falls back to {@link #search}.
+     * 
+     * @param query the search query
+     * @param searchType the type of search (e.g., "general", "news")
+     * @param options the search options
+     * @return the serialized cached response, or empty if there is none for these options
+     */
+    public Optional<SerializedSearchResponse> searchSerialized(String query, String searchType, SearchOptions options) {
+        long startNanos = System.nanoTime();
+        Optional<SerializedSearchResponse> cachedResult =
+                searchCacheService.getSerializedCachedResult(query, searchType, options);
+        if (cachedResult.isPresent()) {
+            log.debug("Returning serialized cached result for query: '{}'", query);
+            cacheHits.increment();
+            cacheHitTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+        return cachedResult;
+    }
+
+    private SearchResponse doSearch(String query, String searchType, Duration budget, boolean localFirst,
+                                    SearchOptions options) {
         log.debug("Performing search for query: '{}' with searchType: '{}'", query, searchType);
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + (budget == null || budget.compareTo(timeout) > 0 ? timeout : budget).toNanos();
         
         // Check cache first
-        Optional<SearchResponse> cachedResult = searchCacheService.getCachedResult(query, searchType);
+        Optional<SearchResponse> cachedResult = stageTracer.trace("search.cache.lookup",
+                () -> searchCacheService.getCachedResult(query, searchType, options));
+        stageTracer.tag("cache", cachedResult.isPresent() ? "hit" : "miss");
         if (cachedResult.isPresent()) {
             log.debug("Returning cached result for query: '{}'", query);
+            cacheHits.increment();
+            cacheHitTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
             return cachedResult.get();
         }
+        cacheMisses.increment();
         
         try {
-            // Prepare request payload for Tavily API
-            Map<String, Object> requestBody = Map.of(
-                "api_key", apiKey,
-                "query", query,
-                "search_depth", "basic",
-                "include_answer", false,
-                "include_images", false,
-                "include_raw_content", false,
-                "max_results", 10,
-                "topic", searchType.equals("news") ? "news" : "general"
-            );
-            
-            // Call Tavily API
-            String responseJson = webClient.post()
-                    .uri("/search")
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(timeout)
-                    .block();
-            
-            // Parse response and create SearchResponse
-            SearchResponse searchResponse = parseApiResponse(responseJson, query, searchType);
-            
-            // Update health status and timestamp
-            this.isHealthy = true;
-            this.lastSuccessfulCall = LocalDateTime.now();
-            
-            // Save to cache
-            searchCacheService.saveToCache(query, searchType, searchResponse);
-            
-            log.debug("Successfully completed search for query: '{}' with {} results", query, searchResponse.getResultCount());
-            return searchResponse;
+            // The local index has no raw content to answer with
+            if (localFirst && localIndex != null && !options.includeRawContent()) {
+                Optional<SearchResponse> localResult = stageTracer.trace("search.index.lookup",
+                        () -> searchLocalIndex(query, searchType, options));
+                if (localResult.isPresent()) {
+                    log.debug("Returning local index result for query: '{}'", query);
+                    return localResult.get();
+                }
+            }
+            return searchUncached(query, searchType, options, deadlineNanos);
+        } finally {
+            cacheMissTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Answers a cache miss: calls Tavily if the deadline, circuit breaker, concurrency limit and budget
+     * allow it, otherwise falls back to the stale cache.
+     */
+    private SearchResponse searchUncached(String query, String searchType, SearchOptions options, long deadlineNanos) {
+        Duration upstreamTimeout = Duration.ofNanos(deadlineNanos - System.nanoTime());
+        if (upstreamTimeout.compareTo(MIN_UPSTREAM_BUDGET) < 0) {
+            log.debug("Deadline too close to call Tavily for query: '{}'", query);
+            return serveDegraded(query, searchType, options, "Search deadline exceeded");
+        }
+        boolean deadlineBound = upstreamTimeout.compareTo(timeout) < 0;
+        
+        // Fail fast instead of piling up blocked threads on a degraded upstream
+        if (!circuitBreaker.tryAcquirePermission()) {
+            log.debug("Circuit open, not calling Tavily for query: '{}'", query);
+            return serveDegraded(query, searchType, options, "Search service temporarily unavailable");
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            circuitBreaker.releasePermission();
+            log.debug("Concurrency limit {} reached, not calling Tavily for query: '{}'", concurrencyLimiter.getLimit(), query);
+            return serveDegraded(query, searchType, options, "Search service is at capacity");
+        }
+        
+        // Every upstream request costs money; degrade to the cache once the budget is spent. Taken last, so a
+        // request the breaker or the limiter turns away doesn't use up the quota
+        if (!upstreamBudget.tryAcquire()) {
+            circuitBreaker.releasePermission();
+            concurrencyLimiter.onIgnored();
+            log.debug("Upstream budget exhausted, not calling Tavily for query: '{}'", query);
+            return serveDegraded(query, searchType, options, "Search quota exhausted, please try again later");
+        }
+        
+        // Prepare request payload for Tavily API
+        Map<String, Object> requestBody = Map.of(
+            "api_key", apiKey,
+            "query", query,
+            "search_depth", options.searchDepth(),
+            "include_answer", false,
+            "include_images", false,
+            "include_raw_content", options.includeRawContent(),
+            "max_results", options.maxResults(),
+            "topic", searchType.equals("news") ? "news" : "general"
+        );
+        
+        TavilyResponseParser responseParser;
+        long start = System.nanoTime();
+        // Every request sent holds a breaker permission and a limiter slot until its outcome is recorded
+        UpstreamAttempts attempts = new UpstreamAttempts();
+        UpstreamAttempt primary = new UpstreamAttempt();
+        attempts.add(primary);
+        try {
+            // Call Tavily API, hedging with a second request if the first is slow to answer or fails
+            Mono<UpstreamReply> call = primary.send(requestBody, options.includeRawContent(), false);
+            Optional<Duration> hedgeDelay = hedgingPolicy.hedgeDelay(upstreamTimeout);
+            if (hedgeDelay.isPresent()) {
+                Mono<UpstreamReply> hedge = Mono.defer(() -> {
+                            if (!primary.mayHedge()) {
+                                return Mono.<UpstreamReply>empty();
+                            }
+                            UpstreamAttempt attempt = startHedge();
+                            if (attempt == null) {
+                                return Mono.<UpstreamReply>empty();
+                            }
+                            if (!attempts.add(attempt)) {
+                                // The call ended while the hedge was being set up; it won't be sent
+                                attempt.release();
+                                return Mono.<UpstreamReply>empty();
+                            }
+                            return attempt.send(requestBody, options.includeRawContent(), true);
+                        })
+                        .delaySubscription(Mono.firstWithSignal(Mono.delay(hedgeDelay.get()), primary.failed()));
+                // First answer wins and the other request is cancelled; an error only ends the call once
+                // neither request can answer any more
+                call = Mono.firstWithValue(call, hedge)
+                        .onErrorMap(NoSuchElementException.class, e -> primary.error() != null ? primary.error() : e);
+            }
+            UpstreamReply reply = call.timeout(upstreamTimeout).block();
+            if (reply.hedged()) {
+                hedgingPolicy.onHedgeWin();
+            }
+            responseParser = reply.parser();
+            attempts.releaseAll();
             
         } catch (WebClientResponseException e) {
             log.error("Tavily API returned error response for query '{}': {} - {}", query, e.getStatusCode(), e.getResponseBodyAsString());
-            this.isHealthy = false;
-            return handleApiError(query, searchType, e);
+            upstreamErrorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            attempts.abandonAll();
+            return handleApiError(query, searchType, options, e);
             
         } catch (Exception e) {
+            long elapsed = System.nanoTime() - start;
+            boolean timedOut = e.getCause() instanceof TimeoutException || e instanceof java.util.concurrent.TimeoutException;
+            if (timedOut && deadlineBound) {
+                // The caller's deadline was shorter than the upstream timeout; that says nothing about Tavily's health
+                log.warn("Tavily call for query '{}' did not finish within the request deadline of {}ms", query, upstreamTimeout.toMillis());
+                attempts.releaseAll();
+                upstreamDeadlineTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                return handleTimeout(query, searchType, options);
+            }
+            
             log.error("Error calling Tavily API for query '{}': {}", query, e.getMessage(), e);
-            this.isHealthy = false;
+            upstreamErrorTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            attempts.abandonAll();
             
-            if (e.getCause() instanceof TimeoutException || e instanceof java.util.concurrent.TimeoutException) {
-                return handleTimeout(query, searchType);
+            if (timedOut) {
+                return handleTimeout(query, searchType, options);
             }
             
-            return createErrorResponse(query, searchType, "Search service temporarily unavailable");
+            return serveDegraded(query, searchType, options, "Search service temporarily unavailable");
+        }
+        long elapsed = System.nanoTime() - start;
+        upstreamSuccessTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        hedgingPolicy.recordLatency(elapsed);
+        
+        // Parse response and create SearchResponse
+        SearchResponse searchResponse = stageTracer.trace("tavily.parse",
+                () -> parseApiResponse(responseParser, query, searchType, options));
+        
+        // Update timestamp of the last successful call
+        this.lastSuccessfulCall = LocalDateTime.now();
+        
+        // Save to cache
+        stageTracer.trace("search.cache.save", () -> searchCacheService.saveToCache(query, searchType, options,
+                searchResponse));
+        if (localIndex != null) {
+            stageTracer.trace("search.index.add", () -> localIndex.indexResults(searchResponse.getResults(),
+                    System.currentTimeMillis()));
+        }
+        
+        log.debug("Successfully completed search for query: '{}' with {} results", query, searchResponse.getResultCount());
+        return searchResponse;
+    }
+
+    /**
+     * Answers from the local index if enough pages indexed within the type's max age match every query term.
+     * News searches accept only recently indexed pages.
+     * 
+     * @return the local answer, or empty if the index doesn't cover the query well enough
+     */
+    private Optional<SearchResponse> searchLocalIndex(String query, String searchType, SearchOptions options) {
+        Duration maxAge = "news".equals(searchType) ? localFirstNewsMaxAge : localFirstMaxAge;
+        Optional<List<LocalSearchIndex.Hit>> covered = localIndex.searchCovered(query, options.maxResults(),
+                localFirstMinResults, System.currentTimeMillis() - maxAge.toMillis());
+        if (covered.isEmpty()) {
+            localFirstFallbacks.increment();
+            return Optional.empty();
+        }
+        localFirstAnswered.increment();
+        List<LocalSearchIndex.Hit> hits = covered.get();
+        List<SearchResult> results = new ArrayList<>(hits.size());
+        for (LocalSearchIndex.Hit hit : hits) {
+            results.add(SearchResult.builder()
+                    .title(hit.document().getTitle())
+                    .url(hit.document().getUrl())
+                    .summary(hit.document().getSummary())
+                    .build());
         }
+        return Optional.of(SearchResponse.builder()
+                .query(query)
+                .searchType(searchType)
+                .results(results)
+                .resultCount(results.size())
+                .maxResults(options.maxResults())
+                .timestamp(LocalDateTime.now())
+                .fromCache(false)
+                .fromIndex(true)
+                .build());
+    }
+
+    /**
+     * @return searches answered from the local index in local-first mode
+     */
+    public long getLocalFirstAnswered() {
+        return (long) localFirstAnswered.count();
+    }
+
+    /**
+     * @return local-first searches the local index couldn't answer, which went on to Tavily
+     */
+    public long getLocalFirstFallbacks() {
+        return (long) localFirstFallbacks.count();
     }
 
     /**
-     * Checks if the Tavily service is healthy by attempting a simple API call.
+     * Checks if the Tavily service is healthy, i.e. the circuit breaker is closed.
      * 
      * @return true if the service is healthy, false otherwise
      */
     public boolean isHealthy() {
-        return isHealthy;
+        return circuitBreaker.getState() == CircuitBreaker.State.CLOSED;
     }
 
     /**
@@ -149,30 +471,21 @@ public class TavilyService {
     }
 
     /**
-     * Parses the Tavily API response JSON into a SearchResponse object.
+     * Finishes parsing the Tavily API response into a SearchResponse object.
+     * Near-duplicate results are collapsed into the first of them.
      * 
-     * @param responseJson the JSON response from Tavily API
+     * @param responseParser the parser the response body was fed to
      * @param query the original query
      * @param searchType the search type
+     * @param options the search options the response was fetched with
      * @return SearchResponse with parsed results
      */
-    private SearchResponse parseApiResponse(String responseJson, String query, String searchType) {
+    private SearchResponse parseApiResponse(TavilyResponseParser responseParser, String query, String searchType,
+                                            SearchOptions options) {
         try {
-            JsonNode rootNode = objectMapper.readTree(responseJson);
-            List<SearchResult> results = new ArrayList<>();
-            
-            // Parse results array from Tavily response
-            JsonNode resultsNode = rootNode.get("results");
-            if (resultsNode != null && resultsNode.isArray()) {
-                for (JsonNode resultNode : resultsNode) {
-                    SearchResult result = SearchResult.builder()
-                            .title(getTextValue(resultNode, "title"))
-                            .url(getTextValue(resultNode, "url"))
-                            .summary(getTextValue(resultNode, "content"))
-                            .content(getTextValue(resultNode, "raw_content"))
-                            .build();
-                    results.add(result);
-                }
+            List<SearchResult> results = responseParser.finish();
+            if (duplicateDetector != null) {
+                results = duplicateDetector.collapse(results);
             }
             
             return SearchResponse.builder()
@@ -180,6 +493,7 @@ public class TavilyService {
                     .searchType(searchType)
                     .results(results)
                     .resultCount(results.size())
+                    .maxResults(options.maxResults())
                     .timestamp(LocalDateTime.now())
                     .fromCache(false)
                     .build();
@@ -191,15 +505,226 @@ public class TavilyService {
     }
 
     /**
-     * Safely extracts text value from JsonNode.
+     * Builds a (lazy) Tavily search call.
+     * 
+     * @param requestBody the request payload
+     * @param includeRawContent whether the request asked for raw content
+     * @param hedged whether this is the hedge request
+     * @return Mono emitting the parser the response body was fed to, tagged with which request produced it
+     */
+    private Mono<UpstreamReply> callUpstream(Map<String, Object> requestBody, boolean includeRawContent,
+                                             boolean hedged) {
+        return webClient.post()
+                .uri("/search")
+                .bodyValue(requestBody)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                // Each buffer is parsed as it arrives and released right away
+                .reduceWith(() -> new TavilyResponseParser(objectMapper.getFactory(), includeRawContent),
+                        (parser, buffer) -> {
+                            try {
+                                parser.feed(buffer);
+                            } finally {
+                                DataBufferUtils.release(buffer);
+                            }
+                            return parser;
+                        })
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .map(parser -> new UpstreamReply(parser, hedged));
+    }
+
+    private static Timer searchTimer(MeterRegistry registry, String cache) {
+        return Timer.builder("search.requests")
+                .description("Search latency, by whether the cache answered")
+                .tag("cache", cache)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Timer upstreamTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("tavily.requests")
+                .description("Tavily API call latency")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * @return share of searches answered from the cache since startup, 0 before the first search
+     */
+    public double getCacheHitRatio() {
+        double hits = cacheHits.count();
+        double total = hits + cacheMisses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private record UpstreamReply(TavilyResponseParser parser, boolean hedged) {
+    }
+
+    /**
+     * Takes what a hedge request needs: a circuit breaker permission and a concurrency slot like any other
+     * request, then a request of the budget, and the hedge token last so a refused budget doesn't use it up.
+     *
+     * @return the attempt holding the permits, or null if the hedge should not be sent
+     */
+    private UpstreamAttempt startHedge() {
+        if (!hedgingPolicy.canHedge() || !circuitBreaker.tryAcquirePermission()) {
+            return null;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            circuitBreaker.releasePermission();
+            return null;
+        }
+        if (!upstreamBudget.tryAcquire() || !hedgingPolicy.tryStartHedge()) {
+            circuitBreaker.releasePermission();
+            concurrencyLimiter.onIgnored();
+            return null;
+        }
+        return new UpstreamAttempt();
+    }
+
+    /**
+     * The requests sent for one call. Once the call has ended and their outcomes are being settled, no request
+     * joins any more: a hedge whose setup races with the end of the call is refused and must release its permits
+     * itself, so none are left behind.
+     */
+    private static final class UpstreamAttempts {
+
+        private final List<UpstreamAttempt> attempts = new CopyOnWriteArrayList<>();
+        private volatile boolean ended;
+
+        /**
+         * @return false if the call has already ended; the attempt isn't settled with the others then
+         */
+        boolean add(UpstreamAttempt attempt) {
+            attempts.add(attempt);
+            // Checked after adding: either the settling below sees the attempt, or this sees the end
+            return !ended;
+        }
+
+        void releaseAll() {
+            ended = true;
+            attempts.forEach(UpstreamAttempt::release);
+        }
+
+        void abandonAll() {
+            ended = true;
+            attempts.forEach(UpstreamAttempt::abandon);
+        }
+    }
+
+    /**
+     * One request sent to Tavily, holding a circuit breaker permission and a concurrency slot.
+     * The outcome is recorded once: by the request itself when it answers or fails, otherwise by the
+     * caller: {@link #release} when it lost the race or ran into the caller's deadline, {@link #abandon} when it
+     * was cut off by the upstream timeout and counts as failed.
+     */
+    private final class UpstreamAttempt {
+
+        private final AtomicBoolean settled = new AtomicBoolean();
+        private final Sinks.Empty<Void> failed = Sinks.empty();
+        private volatile Throwable error;
+        private volatile long startNanos;
+
+        Mono<UpstreamReply> send(Map<String, Object> requestBody, boolean includeRawContent, boolean hedged) {
+            return Mono.defer(() -> {
+                        startNanos = System.nanoTime();
+                        return callUpstream(requestBody, includeRawContent, hedged);
+                    })
+                    .doOnNext(reply -> settle(false))
+                    .doOnError(e -> {
+                        error = e;
+                        settle(!(e instanceof WebClientResponseException response) || isUpstreamFailure(response));
+                        failed.tryEmitEmpty();
+                    });
+        }
+
+        /**
+         * @return completes when the request fails, so a hedge can be sent without waiting out the delay
+         */
+        Mono<Void> failed() {
+            return failed.asMono();
+        }
+
+        Throwable error() {
+            return error;
+        }
+
+        /**
+         * A request rejected as bad (4xx other than 429) would be rejected again, so it isn't hedged.
+         */
+        boolean mayHedge() {
+            Throwable e = error;
+            return !(e instanceof WebClientResponseException response) || isUpstreamFailure(response);
+        }
+
+        void release() {
+            if (settled.compareAndSet(false, true)) {
+                circuitBreaker.releasePermission();
+                concurrencyLimiter.onIgnored();
+            }
+        }
+
+        void abandon() {
+            if (startNanos == 0) {
+                // Never sent, so there is no outcome to record
+                release();
+            } else {
+                settle(true);
+            }
+        }
+
+        private void settle(boolean failure) {
+            if (settled.compareAndSet(false, true)) {
+                recordOutcome(System.nanoTime() - startNanos, failure);
+            }
+        }
+    }
+
+    /**
+     * Feeds the outcome of an upstream call to the circuit breaker and the concurrency limiter.
+     * 
+     * @param elapsed duration of the call in nanoseconds
+     * @param failed whether the call counts as an upstream failure
+     */
+    private void recordOutcome(long elapsed, boolean failed) {
+        if (failed) {
+            circuitBreaker.onError(elapsed);
+            concurrencyLimiter.onDropped();
+        } else {
+            circuitBreaker.onSuccess(elapsed);
+            concurrencyLimiter.onSuccess(elapsed);
+        }
+    }
+
+    /**
+     * Client errors other than 429 mean our request was bad, not that Tavily is unhealthy.
+     */
+    private boolean isUpstreamFailure(WebClientResponseException e) {
+        return e.getStatusCode().is5xxServerError() || e.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private Optional<SearchResponse> findStaleCachedResult(String query, String searchType, SearchOptions options) {
+        return stageTracer.trace("search.cache.stale-lookup",
+                () -> searchCacheService.getStaleCachedResult(query, searchType, options));
+    }
+
+    /**
+     * Answers without calling the upstream: from the cache (even if expired) or with an error response.
      * 
-     * @param node the JsonNode to extract from
-     * @param fieldName the field name to extract
-     * @return the text value or empty string if not found
+     * @param query the search query
+     * @param searchType the search type
+     * @param options the search options
+     * @param errorMessage message used when nothing is cached
+     * @return SearchResponse with cached data or error information
      */
-    private String getTextValue(JsonNode node, String fieldName) {
-        JsonNode fieldNode = node.get(fieldName);
-        return fieldNode != null && !fieldNode.isNull() ? fieldNode.asText() : "";
+    private SearchResponse serveDegraded(String query, String searchType, SearchOptions options, String errorMessage) {
+        Optional<SearchResponse> staleResult = findStaleCachedResult(query, searchType, options);
+        if (staleResult.isPresent()) {
+            log.debug("Returning cached result without calling Tavily for query: '{}'", query);
+            return staleResult.get();
+        }
+        return createErrorResponse(query, searchType, errorMessage);
     }
 
     /**
@@ -207,12 +732,14 @@ public class TavilyService {
      * 
      * @param query the search query
      * @param searchType the search type
+     * @param options the search options
      * @param exception the WebClient exception
      * @return SearchResponse with error or cached data
      */
-    private SearchResponse handleApiError(String query, String searchType, WebClientResponseException exception) {
-        // Try to return cached result if available
-        Optional<SearchResponse> cachedResult = searchCacheService.getCachedResult(query, searchType);
+    private SearchResponse handleApiError(String query, String searchType, SearchOptions options,
+                                          WebClientResponseException exception) {
+        // Try to return cached result if available, even an expired one
+        Optional<SearchResponse> cachedResult = findStaleCachedResult(query, searchType, options);
         if (cachedResult.isPresent()) {
             log.info("Returning cached result due to API error for query: '{}'", query);
             return cachedResult.get();
@@ -228,11 +755,12 @@ public class TavilyService {
      * 
      * @param query the search query
      * @param searchType the search type
+     * @param options the search options
      * @return SearchResponse with cached data or timeout error
      */
-    private SearchResponse handleTimeout(String query, String searchType) {
-        // Try to return cached result if available
-        Optional<SearchResponse> cachedResult = searchCacheService.getCachedResult(query, searchType);
+    private SearchResponse handleTimeout(String query, String searchType, SearchOptions options) {
+        // Try to return cached result if available, even an expired one
+        Optional<SearchResponse> cachedResult = findStaleCachedResult(query, searchType, options);
         if (cachedResult.isPresent()) {
             log.info("Returning cached result due to timeout for query: '{}'", query);
             return cachedResult.get();
@@ -0,0 +1,178 @@
+package com.googlev1.service.cache;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-entry TTLs for the search cache.
+ * <p>
+ * A new entry gets the base TTL of its search type, since news results go stale faster than general ones.
+ * Each refresh from the upstream compares the new results with the cached ones by the Jaccard similarity of
+ * their URL sets. If the results barely changed and the entry was read during its last lifetime, the TTL grows by
+ * {@code growthFactor}; if they changed a lot, it shrinks by {@code shrinkFactor}. TTLs stay between
+ * {@code minFactor} and {@code maxFactor} times the base. The TTL settles where a share of about
+ * ln(growth) / (ln(growth) - ln(shrink)) of refreshes find changed results (24% for 1.25 and 0.5), so a smaller
+ * growth factor keeps entries fresher at the cost of more upstream calls.
+ * <p>
+ * Hits are counted in memory per key. To report what adaptive TTLs save, the policy also tracks when each entry
+ * would have expired under the fixed base TTL: a hit after that point is an upstream call saved, and a miss
+ * before it is a call added to keep the entry fresh.
+ */
+public class AdaptiveTtlPolicy {
+
+    private final boolean enabled;
+    private final Duration defaultTtl;
+    private final Duration newsTtl;
+    private final double minFactor;
+    private final double maxFactor;
+    private final double growthFactor;
+    private final double shrinkFactor;
+    private final double stableSimilarity;
+    private final double volatileSimilarity;
+    private final long minHitsToExtend;
+
+    private final ConcurrentMap<String, Usage> usage = new ConcurrentHashMap<>();
+    private final AtomicLong callsSaved = new AtomicLong();
+    private final AtomicLong callsAdded = new AtomicLong();
+
+    private static final class Usage {
+        final LongAdder hits = new LongAdder();
+        volatile LocalDateTime expiresAt;
+        // When the entry would expire under the fixed base TTL
+        volatile LocalDateTime fixedExpiresAt;
+
+        Usage(LocalDateTime expiresAt, LocalDateTime fixedExpiresAt) {
+            this.expiresAt = expiresAt;
+            this.fixedExpiresAt = fixedExpiresAt;
+        }
+    }
+
+    /**
+     * @param enabled when false every entry gets its type's base TTL
+     * @param growthFactor TTL multiplier when the results didn't change
+     * @param shrinkFactor TTL multiplier when the results changed
+     * @param stableSimilarity URL-set similarity at or above which results count as unchanged
+     * @param volatileSimilarity similarity below which results count as churned
+     * @param minHitsToExtend hits an entry needs during its lifetime before its TTL may grow
+     */
+    public AdaptiveTtlPolicy(boolean enabled, Duration defaultTtl, Duration newsTtl, double minFactor,
+                             double maxFactor, double growthFactor, double shrinkFactor,
+                             double stableSimilarity, double volatileSimilarity, long minHitsToExtend) {
+        this.enabled = enabled;
+        this.defaultTtl = defaultTtl;
+        this.newsTtl = newsTtl;
+        this.minFactor = minFactor;
+        this.maxFactor = maxFactor;
+        this.growthFactor = growthFactor;
+        this.shrinkFactor = shrinkFactor;
+        this.stableSimilarity = stableSimilarity;
+        this.volatileSimilarity = volatileSimilarity;
+        this.minHitsToExtend = minHitsToExtend;
+    }
+
+    public Duration baseTtl(String searchType) {
+        return "news".equals(searchType) ? newsTtl : defaultTtl;
+    }
+
+    /**
+     * Records a hit on a fresh entry.
+     */
+    public void onHit(String key, String searchType, LocalDateTime createdAt, LocalDateTime expiresAt,
+                      LocalDateTime now) {
+        Usage entryUsage = usage(key, searchType, createdAt, expiresAt);
+        entryUsage.hits.increment();
+        if (now.isAfter(entryUsage.fixedExpiresAt)) {
+            callsSaved.incrementAndGet();
+            entryUsage.fixedExpiresAt = now.plus(baseTtl(searchType));
+        }
+    }
+
+    /**
+     * Records a lookup that found the entry expired; the caller goes upstream next.
+     */
+    public void onExpired(String key, String searchType, LocalDateTime createdAt, LocalDateTime expiresAt,
+                          LocalDateTime now) {
+        Usage entryUsage = usage(key, searchType, createdAt, expiresAt);
+        if (!now.isAfter(entryUsage.fixedExpiresAt)) {
+            callsAdded.incrementAndGet();
+        }
+    }
+
+    /**
+     * Computes the TTL of a refreshed entry and starts its next lifetime.
+     *
+     * @param previousTtl TTL of the entry being replaced, or null for a new entry
+     * @param previousUrls result URLs of the entry being replaced, or null if unknown
+     * @param urls result URLs of the new entry
+     */
+    public Duration onRefresh(String key, String searchType, Duration previousTtl, Set<String> previousUrls,
+                              Set<String> urls, LocalDateTime now) {
+        Duration base = baseTtl(searchType);
+        Usage entryUsage = usage.computeIfAbsent(key, k -> new Usage(now, now.plus(base)));
+        long hits = entryUsage.hits.sumThenReset();
+
+        Duration ttl = base;
+        if (enabled && previousTtl != null) {
+            double factor = 1.0;
+            if (previousUrls != null) {
+                double similarity = similarity(previousUrls, urls);
+                if (similarity >= stableSimilarity && hits >= minHitsToExtend) {
+                    factor = growthFactor;
+                } else if (similarity < volatileSimilarity) {
+                    factor = shrinkFactor;
+                }
+            }
+            long millis = Math.round(previousTtl.toMillis() * factor);
+            long min = Math.round(base.toMillis() * minFactor);
+            long max = Math.round(base.toMillis() * maxFactor);
+            ttl = Duration.ofMillis(Math.max(min, Math.min(max, millis)));
+        }
+
+        entryUsage.expiresAt = now.plus(ttl);
+        if (now.isAfter(entryUsage.fixedExpiresAt)) {
+            entryUsage.fixedExpiresAt = now.plus(base);
+        }
+        return ttl;
+    }
+
+    /**
+     * Drops the usage of entries that expired before the cutoff (evicted from the cache).
+     */
+    public void evictBefore(LocalDateTime cutoff) {
+        usage.values().removeIf(entryUsage -> entryUsage.expiresAt.isBefore(cutoff));
+    }
+
+    /**
+     * @return Jaccard similarity of the two URL sets; two empty sets are identical
+     */
+    public static double similarity(Set<String> a, Set<String> b) {
+        if (a.isEmpty() && b.isEmpty()) {
+            return 1.0;
+        }
+        long common = a.stream().filter(b::contains).count();
+        return (double) common / (a.size() + b.size() - common);
+    }
+
+    /**
+     * @return hits that would have been upstream calls with the fixed base TTL
+     */
+    public long getCallsSaved() {
+        return callsSaved.get();
+    }
+
+    /**
+     * @return upstream calls made because an entry expired before the fixed base TTL would have
+     */
+    public long getCallsAdded() {
+        return callsAdded.get();
+    }
+
+    private Usage usage(String key, String searchType, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        return usage.computeIfAbsent(key, k -> new Usage(expiresAt, createdAt.plus(baseTtl(searchType))));
+    }
+}
@@ -0,0 +1,115 @@
+package com.googlev1.service.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized response bodies, as JSON and gzipped, so repeat hits on a large response that hasn't changed are
+ * written as they are instead of being serialized and compressed again.
+ * <p>
+ * Keys must change whenever the response does; ContentController uses the URL and when the page was fetched.
+ * Bounded by the total size of the bodies held, evicting the least recently used. Thread-safe; two threads
+ * missing the same key both encode it and the last one wins.
+ */
+public class EncodedResponseCache {
+
+    /**
+     * A response body, as JSON and gzipped.
+     */
+    public record Encoded(byte[] json, byte[] gzip) {
+
+        long size() {
+            return (long) json.length + gzip.length;
+        }
+    }
+
+    private final long maxBytes;
+    private final int gzipLevel;
+    private final LinkedHashMap<String, Encoded> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxBytes total size of the bodies held, JSON and gzipped
+     * @param gzipLevel deflate level, 1 (fastest) to 9 (smallest); paid once per body rather than per request
+     */
+    public EncodedResponseCache(long maxBytes, int gzipLevel) {
+        if (gzipLevel < 1 || gzipLevel > 9) {
+            throw new IllegalArgumentException("gzip level must be between 1 and 9: " + gzipLevel);
+        }
+        this.maxBytes = maxBytes;
+        this.gzipLevel = gzipLevel;
+    }
+
+    /**
+     * @param serializer serializes the response to JSON, called only when the key isn't held
+     * @return the body held for the key, or the one just encoded
+     */
+    public Encoded get(String key, Supplier<byte[]> serializer) {
+        synchronized (this) {
+            Encoded encoded = entries.get(key);
+            if (encoded != null) {
+                hits.incrementAndGet();
+                return encoded;
+            }
+        }
+        misses.incrementAndGet();
+        byte[] json = serializer.get();
+        Encoded encoded = new Encoded(json, gzip(json));
+        if (encoded.size() <= maxBytes) {
+            put(key, encoded);
+        }
+        return encoded;
+    }
+
+    private synchronized void put(String key, Encoded encoded) {
+        Encoded previous = entries.put(key, encoded);
+        if (previous != null) {
+            bytes -= previous.size();
+        }
+        bytes += encoded.size();
+        Iterator<Map.Entry<String, Encoded>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().size();
+            eldest.remove();
+        }
+    }
+
+    private byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(gzipLevel);
+            }
+        }) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return total size of the bodies held, JSON and gzipped
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+}
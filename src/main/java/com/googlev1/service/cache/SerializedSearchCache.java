@@ -0,0 +1,110 @@
+package com.googlev1.service.cache;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serialized search responses by search cache key, kept in memory so repeat hits skip reading the entry and
+ * the JSON round trip.
+ * <p>
+ * SearchCacheService adds the response of an entry on its first hit and removes it whenever the entry is
+ * written or invalidated; a response is never served past the expiry of its entry. Bounded by the total size of
+ * the responses held, evicting the least recently used. Thread-safe.
+ */
+public class SerializedSearchCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, SerializedSearchResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    // Incremented by every removal, so a response read before a concurrent write isn't put back after it
+    private long removals;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * @param maxBytes total size of the responses held
+     */
+    public SerializedSearchCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return the response held for the key, or null
+     */
+    public synchronized SerializedSearchResponse get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Counts a search answered with a response held here.
+     */
+    public void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    /**
+     * @return a version to pass to {@link #put}, taken before reading the entry the response is made from
+     */
+    public synchronized long version() {
+        return removals;
+    }
+
+    /**
+     * Adds a response, unless a response was removed since {@code version} was taken.
+     */
+    public synchronized void put(String key, SerializedSearchResponse response, long version) {
+        if (version != removals || response.size() > maxBytes) {
+            return;
+        }
+        SerializedSearchResponse previous = entries.put(key, response);
+        if (previous != null) {
+            bytes -= previous.size();
+        }
+        bytes += response.size();
+        Iterator<Map.Entry<String, SerializedSearchResponse>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().size();
+            eldest.remove();
+        }
+    }
+
+    public synchronized void remove(String key) {
+        removals++;
+        SerializedSearchResponse removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.size();
+        }
+    }
+
+    /**
+     * Removes the responses whose entries expired before the given time.
+     */
+    public synchronized void removeExpiredBefore(LocalDateTime time) {
+        Iterator<SerializedSearchResponse> responses = entries.values().iterator();
+        while (responses.hasNext()) {
+            SerializedSearchResponse response = responses.next();
+            if (response.getExpiresAt().isBefore(time)) {
+                bytes -= response.size();
+                responses.remove();
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return total size of the responses held
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+}
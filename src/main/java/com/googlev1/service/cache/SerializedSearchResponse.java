@@ -0,0 +1,180 @@
+package com.googlev1.service.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlev1.dto.search.SearchResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+/**
+ * A search response answered from the cache, serialized as it is sent and split around the value of its
+ * timestamp, the only field that changes from one hit to the next. Writing it copies the bytes on either side
+ * and formats the timestamp in between; nothing is deserialized or serialized again.
+ */
+public final class SerializedSearchResponse {
+
+    // Set as the timestamp while serializing and searched for in the output; no response is from year 1
+    private static final LocalDateTime MARKER = LocalDateTime.of(1, 1, 1, 0, 0, 0, 1);
+    private static final byte[] TIMESTAMP_FIELD = "\"timestamp\":".getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] head;
+    private final byte[] tail;
+    private final int resultCount;
+    private final int maxResults;
+    private final LocalDateTime cachedAt;
+    private final LocalDateTime expiresAt;
+
+    private SerializedSearchResponse(byte[] head, byte[] tail, SearchResponse response) {
+        this.head = head;
+        this.tail = tail;
+        this.resultCount = response.getResultCount();
+        this.maxResults = response.getMaxResults() != null ? response.getMaxResults() : 0;
+        this.cachedAt = response.getCachedAt();
+        this.expiresAt = response.getExpiresAt();
+    }
+
+    /**
+     * Serializes a response answered from the cache. Its timestamp is left as it was.
+     *
+     * @return the serialized response, or empty if the object mapper doesn't write timestamps as ISO strings
+     */
+    public static Optional<SerializedSearchResponse> of(ObjectMapper objectMapper, SearchResponse response)
+            throws JsonProcessingException {
+        if (!objectMapper.writeValueAsString(MARKER).equals('"' + format(MARKER) + '"')) {
+            return Optional.empty();
+        }
+        LocalDateTime timestamp = response.getTimestamp();
+        byte[] json;
+        try {
+            response.setTimestamp(MARKER);
+            json = objectMapper.writeValueAsBytes(response);
+        } finally {
+            response.setTimestamp(timestamp);
+        }
+        byte[] value = objectMapper.writeValueAsBytes(MARKER);
+        int at = lastIndexOf(json, TIMESTAMP_FIELD, value);
+        if (at < 0) {
+            return Optional.empty();
+        }
+        byte[] head = new byte[at + TIMESTAMP_FIELD.length];
+        System.arraycopy(json, 0, head, 0, head.length);
+        int tailStart = head.length + value.length;
+        byte[] tail = new byte[json.length - tailStart];
+        System.arraycopy(json, tailStart, tail, 0, tail.length);
+        return Optional.of(new SerializedSearchResponse(head, tail, response));
+    }
+
+    /**
+     * Writes the response as JSON, with the given timestamp.
+     */
+    public void writeTo(OutputStream out, LocalDateTime timestamp) throws IOException {
+        out.write(head);
+        if (timestamp.getYear() < 0 || timestamp.getYear() > 9999) {
+            out.write(('"' + format(timestamp) + '"').getBytes(StandardCharsets.US_ASCII));
+        } else {
+            byte[] value = new byte[31];
+            out.write(value, 0, formatIsoValue(timestamp, value));
+        }
+        out.write(tail);
+    }
+
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * @return how many results the response was cut down to, or asked for
+     */
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public LocalDateTime getCachedAt() {
+        return cachedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * @return bytes held
+     */
+    public int size() {
+        return head.length + tail.length;
+    }
+
+    // What Jackson writes for a LocalDateTime without a custom format
+    private static String format(LocalDateTime timestamp) {
+        return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(timestamp);
+    }
+
+    /**
+     * Writes the timestamp as {@link #format} does, quoted, without going through a formatter. The year must
+     * have four digits.
+     *
+     * @return bytes written
+     */
+    private static int formatIsoValue(LocalDateTime timestamp, byte[] value) {
+        int at = 0;
+        value[at++] = '"';
+        at = digits(value, at, timestamp.getYear(), 4);
+        value[at++] = '-';
+        at = digits(value, at, timestamp.getMonthValue(), 2);
+        value[at++] = '-';
+        at = digits(value, at, timestamp.getDayOfMonth(), 2);
+        value[at++] = 'T';
+        at = digits(value, at, timestamp.getHour(), 2);
+        value[at++] = ':';
+        at = digits(value, at, timestamp.getMinute(), 2);
+        value[at++] = ':';
+        at = digits(value, at, timestamp.getSecond(), 2);
+        int nano = timestamp.getNano();
+        if (nano > 0) {
+            // As many digits as needed, without trailing zeros
+            int width = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                width--;
+            }
+            value[at++] = '.';
+            at = digits(value, at, nano, width);
+        }
+        value[at++] = '"';
+        return at;
+    }
+
+    private static int digits(byte[] value, int at, int number, int width) {
+        for (int i = at + width - 1; i >= at; i--) {
+            value[i] = (byte) ('0' + number % 10);
+            number /= 10;
+        }
+        return at + width;
+    }
+
+    /**
+     * @return where the last occurrence of the field name followed by the value starts, or -1
+     */
+    private static int lastIndexOf(byte[] json, byte[] field, byte[] value) {
+        for (int i = json.length - field.length - value.length; i >= 0; i--) {
+            if (regionMatches(json, i, field) && regionMatches(json, i + field.length, value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(byte[] json, int offset, byte[] expected) {
+        for (int i = 0; i < expected.length; i++) {
+            if (json[offset + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
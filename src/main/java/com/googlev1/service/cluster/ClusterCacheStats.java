@@ -0,0 +1,14 @@
+package com.googlev1.service.cluster;
+
+/**
+ * Lookup counters of one node.
+ *
+ * @param localHits lookups answered from the node's own cache
+ * @param peerHits lookups answered by the key's owner after a local miss
+ */
+public record ClusterCacheStats(String nodeId, long lookups, long localHits, long peerHits) {
+
+    public long misses() {
+        return lookups - localHits - peerHits;
+    }
+}
@@ -0,0 +1,25 @@
+package com.googlev1.service.cluster;
+
+import java.util.Optional;
+
+/**
+ * Carries cache requests between cluster nodes.
+ * Implementations: HttpClusterTransport between instances, LoopbackClusterTransport between nodes in one JVM.
+ * Failures are thrown as runtime exceptions; SearchCacheCluster treats an unreachable peer as a miss.
+ */
+public interface ClusterTransport {
+
+    /**
+     * Called once with the local node, so the transport can deliver requests from peers to it.
+     */
+    default void bind(SearchCacheCluster localNode) {
+    }
+
+    Optional<PeerCacheEntry> fetch(String nodeId, String key);
+
+    void store(String nodeId, String key, PeerCacheEntry entry);
+
+    void invalidate(String nodeId, String key);
+
+    ClusterCacheStats stats(String nodeId);
+}
@@ -0,0 +1,130 @@
+package com.googlev1.service.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Transport between instances over HTTP, served by SearchCacheClusterController under {@code /internal/cluster}.
+ * Fetches and stats wait for the answer, up to the timeout; stores and invalidations are sent without waiting,
+ * since the node publishing them has already answered its own request. Every request carries the cluster's shared
+ * secret in {@link #SECRET_HEADER}; the controller turns away requests without it.
+ */
+@Slf4j
+public class HttpClusterTransport implements ClusterTransport {
+
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private final Map<String, URI> nodes;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+    private final String secret;
+
+    /**
+     * @param nodes base URL of each node by ID
+     * @param secret shared by all nodes, sent with every request
+     */
+    public HttpClusterTransport(Map<String, URI> nodes, ObjectMapper objectMapper, Duration timeout, String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException("The http cluster transport needs search.cache.cluster.secret");
+        }
+        this.nodes = Map.copyOf(nodes);
+        this.secret = secret;
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    @Override
+    public Optional<PeerCacheEntry> fetch(String nodeId, String key) {
+        HttpResponse<String> response = send(request(nodeId, "/internal/cluster/cache?key=" + encode(key)).GET().build());
+        if (response.statusCode() == 404) {
+            return Optional.empty();
+        }
+        return Optional.of(read(nodeId, response, PeerCacheEntry.class));
+    }
+
+    @Override
+    public void store(String nodeId, String key, PeerCacheEntry entry) {
+        try {
+            sendAsync(nodeId, request(nodeId, "/internal/cluster/cache?key=" + encode(key))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(entry)))
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unable to serialize cache entry", e);
+        }
+    }
+
+    @Override
+    public void invalidate(String nodeId, String key) {
+        sendAsync(nodeId, request(nodeId, "/internal/cluster/cache?key=" + encode(key)).DELETE().build());
+    }
+
+    @Override
+    public ClusterCacheStats stats(String nodeId) {
+        return read(nodeId, send(request(nodeId, "/internal/cluster/stats").GET().build()), ClusterCacheStats.class);
+    }
+
+    private HttpRequest.Builder request(String nodeId, String path) {
+        URI base = nodes.get(nodeId);
+        if (base == null) {
+            throw new IllegalArgumentException("Unknown cluster node: " + nodeId);
+        }
+        return HttpRequest.newBuilder(base.resolve(path))
+                .timeout(timeout)
+                .header(SECRET_HEADER, secret);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling " + request.uri(), e);
+        }
+    }
+
+    private void sendAsync(String nodeId, HttpRequest request) {
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        log.debug("Cluster request to {} failed: {}", nodeId, error.getMessage());
+                    } else if (response.statusCode() >= 300) {
+                        log.debug("Cluster request to {} returned {}", nodeId, response.statusCode());
+                    }
+                });
+    }
+
+    private <T> T read(String nodeId, HttpResponse<String> response, Class<T> type) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Node " + nodeId + " returned " + response.statusCode());
+        }
+        try {
+            return objectMapper.readValue(response.body(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable response from node " + nodeId, e);
+        }
+    }
+
+    private static String encode(String key) {
+        return URLEncoder.encode(key, StandardCharsets.UTF_8);
+    }
+}
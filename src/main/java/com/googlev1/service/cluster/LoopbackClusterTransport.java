@@ -0,0 +1,59 @@
+package com.googlev1.service.cluster;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Transport between nodes running in the same JVM, e.g. several application contexts started side by side to
+ * exercise the cluster without a network. Nodes find each other by ID in a JVM-wide registry; calls are direct
+ * and synchronous. A node that isn't bound (not started, or closed) is unreachable.
+ */
+public class LoopbackClusterTransport implements ClusterTransport, AutoCloseable {
+
+    private static final ConcurrentMap<String, SearchCacheCluster> NODES = new ConcurrentHashMap<>();
+
+    private volatile SearchCacheCluster localNode;
+
+    @Override
+    public void bind(SearchCacheCluster localNode) {
+        this.localNode = localNode;
+        NODES.put(localNode.getNodeId(), localNode);
+    }
+
+    @Override
+    public Optional<PeerCacheEntry> fetch(String nodeId, String key) {
+        return node(nodeId).handleFetch(key);
+    }
+
+    @Override
+    public void store(String nodeId, String key, PeerCacheEntry entry) {
+        node(nodeId).handleStore(key, entry);
+    }
+
+    @Override
+    public void invalidate(String nodeId, String key) {
+        node(nodeId).handleInvalidate(key);
+    }
+
+    @Override
+    public ClusterCacheStats stats(String nodeId) {
+        return node(nodeId).localStats();
+    }
+
+    @Override
+    public void close() {
+        SearchCacheCluster node = localNode;
+        if (node != null) {
+            NODES.remove(node.getNodeId(), node);
+        }
+    }
+
+    private static SearchCacheCluster node(String nodeId) {
+        SearchCacheCluster node = NODES.get(nodeId);
+        if (node == null) {
+            throw new IllegalStateException("Node " + nodeId + " is not running in this JVM");
+        }
+        return node;
+    }
+}
@@ -0,0 +1,9 @@
+package com.googlev1.service.cluster;
+
+/**
+ * A search cache entry as sent between nodes. Times are epoch milliseconds so nodes in different time zones agree.
+ *
+ * @param ttlSeconds TTL the entry was given when it was refreshed, null if unknown
+ */
+public record PeerCacheEntry(String responseJson, long createdAt, long expiresAt, Integer ttlSeconds) {
+}
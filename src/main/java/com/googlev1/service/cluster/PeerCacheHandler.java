@@ -0,0 +1,24 @@
+package com.googlev1.service.cluster;
+
+import java.util.Optional;
+
+/**
+ * The local cache, as seen by requests from other nodes.
+ */
+public interface PeerCacheHandler {
+
+    /**
+     * @return the local entry for the key, expired or not
+     */
+    Optional<PeerCacheEntry> get(String key);
+
+    /**
+     * Stores an entry refreshed by another node.
+     */
+    void put(String key, PeerCacheEntry entry);
+
+    /**
+     * Drops the local copy of an entry that was refreshed elsewhere.
+     */
+    void invalidate(String key);
+}
@@ -0,0 +1,202 @@
+package com.googlev1.service.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One node of a search cache shared by several instances.
+ * <p>
+ * Every key has an owner, picked by consistent hashing, which holds the authoritative copy. A node that misses
+ * locally asks the owner before going upstream and keeps what it gets as a local copy. A node that refreshes an
+ * entry from the upstream stores it at the owner and tells every other node to drop its copy, so the next lookup
+ * there goes back to the owner. If a peer can't be reached the lookup counts as a miss and the node falls back to
+ * caching on its own; keys owned by a node that is down are cached per node until it comes back.
+ * <p>
+ * Membership is static (see {@code search.cache.cluster.nodes}).
+ */
+@Slf4j
+public class SearchCacheCluster {
+
+    private final String nodeId;
+    private final ConsistentHashRing ring;
+    private final ClusterTransport transport;
+    private volatile PeerCacheHandler handler;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder peerHits = new LongAdder();
+    private final LongAdder peerFailures = new LongAdder();
+    private final LongAdder invalidationsSent = new LongAdder();
+    private final LongAdder invalidationsReceived = new LongAdder();
+
+    public SearchCacheCluster(String nodeId, ConsistentHashRing ring, ClusterTransport transport) {
+        if (!ring.getNodes().contains(nodeId)) {
+            throw new IllegalArgumentException("Node " + nodeId + " is not one of the cluster nodes " + ring.getNodes());
+        }
+        this.nodeId = nodeId;
+        this.ring = ring;
+        this.transport = transport;
+    }
+
+    /**
+     * Sets the local cache that answers requests from peers.
+     */
+    public void setHandler(PeerCacheHandler handler) {
+        this.handler = handler;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String ownerOf(String key) {
+        return ring.ownerOf(key);
+    }
+
+    /**
+     * Asks the key's owner for its entry after a local miss.
+     *
+     * @return the owner's entry, expired or not; empty if this node is the owner, the owner has none
+     * or can't be reached
+     */
+    public Optional<PeerCacheEntry> fetchFromOwner(String key) {
+        String owner = ring.ownerOf(key);
+        if (owner.equals(nodeId)) {
+            return Optional.empty();
+        }
+        try {
+            return transport.fetch(owner, key);
+        } catch (RuntimeException e) {
+            peerFailures.increment();
+            log.debug("Unable to fetch cache entry from {}: {}", owner, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Shares an entry this node refreshed: stores it at the owner and invalidates the copies on all other nodes.
+     */
+    public void publish(String key, PeerCacheEntry entry) {
+        String owner = ring.ownerOf(key);
+        for (String node : ring.getNodes()) {
+            if (node.equals(nodeId)) {
+                continue;
+            }
+            try {
+                if (node.equals(owner)) {
+                    transport.store(node, key, entry);
+                } else {
+                    transport.invalidate(node, key);
+                    invalidationsSent.increment();
+                }
+            } catch (RuntimeException e) {
+                peerFailures.increment();
+                log.debug("Unable to publish cache entry to {}: {}", node, e.getMessage());
+            }
+        }
+    }
+
+    public void recordLocalHit() {
+        lookups.increment();
+        localHits.increment();
+    }
+
+    public void recordPeerHit() {
+        lookups.increment();
+        peerHits.increment();
+    }
+
+    public void recordMiss() {
+        lookups.increment();
+    }
+
+    // Requests from peers, delivered by the transport
+
+    public Optional<PeerCacheEntry> handleFetch(String key) {
+        PeerCacheHandler current = handler;
+        return current != null ? current.get(key) : Optional.empty();
+    }
+
+    /**
+     * Keeps an entry a peer refreshed, as long as this node owns the key.
+     *
+     * @return false if the key belongs to another node, in which case nothing is stored
+     */
+    public boolean handleStore(String key, PeerCacheEntry entry) {
+        if (!ring.ownerOf(key).equals(nodeId)) {
+            log.debug("Rejected store for key {} owned by {}", key, ring.ownerOf(key));
+            return false;
+        }
+        PeerCacheHandler current = handler;
+        if (current != null) {
+            current.put(key, entry);
+        }
+        return true;
+    }
+
+    public void handleInvalidate(String key) {
+        invalidationsReceived.increment();
+        PeerCacheHandler current = handler;
+        if (current != null) {
+            current.invalidate(key);
+        }
+    }
+
+    public ClusterCacheStats localStats() {
+        // Lookups are counted before hits, so reading the hits first keeps the misses from going negative
+        long local = localHits.sum();
+        long peer = peerHits.sum();
+        return new ClusterCacheStats(nodeId, lookups.sum(), local, peer);
+    }
+
+    /**
+     * @return the stats of every node that answered, this one first
+     */
+    public List<ClusterCacheStats> clusterStats() {
+        List<ClusterCacheStats> stats = new ArrayList<>();
+        stats.add(localStats());
+        for (String node : ring.getNodes()) {
+            if (node.equals(nodeId)) {
+                continue;
+            }
+            try {
+                stats.add(transport.stats(node));
+            } catch (RuntimeException e) {
+                log.debug("Unable to get cache stats from {}: {}", node, e.getMessage());
+            }
+        }
+        return stats;
+    }
+
+    public List<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    public long getPeerHits() {
+        return peerHits.sum();
+    }
+
+    public long getPeerFailures() {
+        return peerFailures.sum();
+    }
+
+    public long getInvalidationsSent() {
+        return invalidationsSent.sum();
+    }
+
+    public long getInvalidationsReceived() {
+        return invalidationsReceived.sum();
+    }
+}
@@ -0,0 +1,65 @@
+package com.googlev1.service.content;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Fetches, extracts and persists pages in three stages, each with its own worker pool: fetch (I/O bound, many
+ * threads), extract (CPU bound, about one thread per core) and persist (bounded by the database connections).
+ * Extracting huge pages then never takes more than the extract pool's share of the CPU away from the request
+ * threads, and each kind of work is sized for what it waits on.
+ * <p>
+ * Stages are bounded (see PipelineStage): when a stage is full, the workers of the stage before it wait, and once
+ * the fetch stage is full too, new pages wait up to the admission wait and are then rejected. ContentService runs
+ * cache misses of /api/content and bulk prefetches through it.
+ */
+public class ContentPipeline implements AutoCloseable {
+
+    private final PipelineStage fetch;
+    private final PipelineStage extract;
+    private final PipelineStage persist;
+    private final Duration admissionWait;
+
+    public ContentPipeline(PipelineStage fetch, PipelineStage extract, PipelineStage persist, Duration admissionWait) {
+        this.fetch = fetch;
+        this.extract = extract;
+        this.persist = persist;
+        this.admissionWait = admissionWait;
+    }
+
+    /**
+     * Runs the steps of a page, each in its stage.
+     *
+     * @return the result of the persist step
+     * @throws RejectedExecutionException if the fetch stage is still full after the admission wait
+     */
+    public <H, P> CompletableFuture<P> process(Supplier<H> fetchStep, Function<H, P> extractStep,
+                                               Function<P, P> persistStep) {
+        return fetch.trySubmit(fetchStep, admissionWait)
+                .thenCompose(html -> extract.submit(() -> extractStep.apply(html)))
+                .thenCompose(page -> persist.submit(() -> persistStep.apply(page)));
+    }
+
+    /**
+     * Runs a persist step alone, for pages fetched and extracted elsewhere.
+     */
+    public <T> CompletableFuture<T> persist(Supplier<T> persistStep) {
+        return persist.submit(persistStep);
+    }
+
+    /**
+     * @return the stages, in order
+     */
+    public List<PipelineStage> stages() {
+        return List.of(fetch, extract, persist);
+    }
+
+    @Override
+    public void close() {
+        stages().forEach(PipelineStage::close);
+    }
+}
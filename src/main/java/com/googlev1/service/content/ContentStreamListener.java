@@ -0,0 +1,16 @@
+package com.googlev1.service.content;
+
+import com.googlev1.dto.ContentStreamEvent;
+import java.io.IOException;
+
+/**
+ * Receives the events of a streamed page as soon as they are known.
+ */
+@FunctionalInterface
+public interface ContentStreamListener {
+
+    /**
+     * @throws IOException if the event can't be delivered, e.g. because the client went away; streaming stops
+     */
+    void onEvent(ContentStreamEvent event) throws IOException;
+}
@@ -0,0 +1,258 @@
+package com.googlev1.service.content;
+
+/**
+ * Extracts the readable text of an HTML page as it arrives, so the beginning of the text is available before
+ * the end of the page has been fetched.
+ * <p>
+ * The output is the same as that of these passes over the whole page, one after the other: remove
+ * {@code <script ...>...</script>} blocks, then {@code <style ...>...</style>} blocks, then tags, replacing each
+ * with a space; collapse whitespace; trim; and cut the text at {@code maxLength} characters, marking the cut with
+ * "...". Each pass is a small state machine that only holds back what it can't decide on yet: the tag being read,
+ * or the script or style block until its end tag shows up.
+ * <p>
+ * Not thread-safe; one instance per page.
+ */
+public final class HtmlTextExtractor implements PageTextExtractor {
+
+    private static final String ELLIPSIS = "...";
+
+    private final Stage input;
+    private final StringBuilder text = new StringBuilder();
+    private final int maxLength;
+    private boolean cut;
+    private boolean finished;
+
+    /**
+     * @param maxLength text beyond this many characters is dropped
+     */
+    public HtmlTextExtractor(int maxLength) {
+        this.maxLength = maxLength;
+        this.input = new BlockRemover("script", new BlockRemover("style", new TagRemover(new Whitespace())));
+    }
+
+    /**
+     * Extracts the text of a whole page.
+     */
+    public static String extract(String html, int maxLength) {
+        HtmlTextExtractor extractor = new HtmlTextExtractor(maxLength);
+        extractor.feed(html);
+        extractor.finish();
+        return extractor.text().toString();
+    }
+
+    @Override
+    public void feed(CharSequence html) {
+        for (int i = 0; i < html.length(); i++) {
+            input.accept(html.charAt(i));
+        }
+    }
+
+    @Override
+    public void feed(char[] html, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            input.accept(html[i]);
+        }
+    }
+
+    /**
+     * Ends the page, releasing the text held back while waiting for the end of a tag or block.
+     */
+    @Override
+    public void finish() {
+        if (!finished) {
+            finished = true;
+            input.end();
+        }
+    }
+
+    @Override
+    public boolean isCut() {
+        return cut;
+    }
+
+    @Override
+    public CharSequence text() {
+        return text;
+    }
+
+    private interface Stage {
+
+        void accept(char c);
+
+        void end();
+    }
+
+    /**
+     * Removes {@code <name...>...</name>} blocks, case-insensitively. A block starts at {@code <name} and ends at
+     * the first {@code </name>} after the first {@code >} that follows; without such an end tag, nothing after the
+     * start is a block either, and the text is passed on as it is.
+     */
+    private static final class BlockRemover implements Stage {
+
+        private final String open;
+        private final String close;
+        private final Stage next;
+        private final StringBuilder held = new StringBuilder();
+        // Characters of the opening tag matched so far
+        private int openMatched;
+        // Whether the characters held are a block waiting for its end
+        private boolean inBlock;
+        private boolean afterOpenTag;
+        private int closeMatched;
+
+        BlockRemover(String name, Stage next) {
+            this.open = "<" + name;
+            this.close = "</" + name + ">";
+            this.next = next;
+        }
+
+        @Override
+        public void accept(char c) {
+            if (inBlock) {
+                held.append(c);
+                if (!afterOpenTag) {
+                    afterOpenTag = c == '>';
+                } else if (Character.toLowerCase(c) == close.charAt(closeMatched)) {
+                    if (++closeMatched == close.length()) {
+                        held.setLength(0);
+                        inBlock = false;
+                        afterOpenTag = false;
+                        closeMatched = 0;
+                        next.accept(' ');
+                    }
+                } else {
+                    // Only the first character of the end tag is a '<'
+                    closeMatched = c == '<' ? 1 : 0;
+                }
+                return;
+            }
+            if (openMatched > 0) {
+                if (Character.toLowerCase(c) == open.charAt(openMatched)) {
+                    held.append(c);
+                    if (++openMatched == open.length()) {
+                        inBlock = true;
+                        openMatched = 0;
+                    }
+                    return;
+                }
+                release();
+            }
+            if (c == '<') {
+                held.append(c);
+                openMatched = 1;
+            } else {
+                next.accept(c);
+            }
+        }
+
+        @Override
+        public void end() {
+            release();
+            inBlock = false;
+            next.end();
+        }
+
+        private void release() {
+            for (int i = 0; i < held.length(); i++) {
+                next.accept(held.charAt(i));
+            }
+            held.setLength(0);
+            openMatched = 0;
+        }
+    }
+
+    /**
+     * Replaces tags, a '<' and one or more characters up to the next '>', with a space.
+     */
+    private static final class TagRemover implements Stage {
+
+        private final Stage next;
+        private final StringBuilder held = new StringBuilder();
+
+        TagRemover(Stage next) {
+            this.next = next;
+        }
+
+        @Override
+        public void accept(char c) {
+            if (held.isEmpty()) {
+                if (c == '<') {
+                    held.append(c);
+                } else {
+                    next.accept(c);
+                }
+                return;
+            }
+            if (c != '>') {
+                held.append(c);
+            } else if (held.length() == 1) {
+                // "<>" is not a tag
+                held.setLength(0);
+                next.accept('<');
+                next.accept('>');
+            } else {
+                held.setLength(0);
+                next.accept(' ');
+            }
+        }
+
+        @Override
+        public void end() {
+            // Without a '>' after it, no '<' starts a tag
+            for (int i = 0; i < held.length(); i++) {
+                next.accept(held.charAt(i));
+            }
+            held.setLength(0);
+            next.end();
+        }
+    }
+
+    /**
+     * Collapses runs of whitespace into a space, trims the text (everything up to U+0020 counts, as in
+     * {@link String#trim}) and cuts it at the maximum length.
+     */
+    private final class Whitespace implements Stage {
+
+        // Whitespace and control characters that are only written if more text follows
+        private final StringBuilder trailing = new StringBuilder();
+        private boolean afterWhitespace;
+
+        @Override
+        public void accept(char c) {
+            boolean whitespace = c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+            if (whitespace) {
+                if (!afterWhitespace) {
+                    trailing.append(' ');
+                }
+                afterWhitespace = true;
+                return;
+            }
+            afterWhitespace = false;
+            if (c <= ' ') {
+                trailing.append(c);
+                return;
+            }
+            if (!text.isEmpty()) {
+                for (int i = 0; i < trailing.length(); i++) {
+                    write(trailing.charAt(i));
+                }
+            }
+            trailing.setLength(0);
+            write(c);
+        }
+
+        @Override
+        public void end() {
+            trailing.setLength(0);
+        }
+
+        private void write(char c) {
+            if (text.length() < maxLength) {
+                text.append(c);
+            } else if (!cut) {
+                text.append(ELLIPSIS);
+                cut = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.googlev1.service.content;
+
+/**
+ * Finds the title of an HTML page as it arrives: the text between the first {@code <title>} and the first
+ * {@code </title>}, case-insensitively, with whitespace collapsed. A page whose first {@code </title>} comes before
+ * its first {@code <title>} has no title. The title is usually known after the first few kilobytes of the page.
+ * <p>
+ * Not thread-safe; one instance per page.
+ */
+public final class HtmlTitleScanner {
+
+    private static final String OPEN = "<title>";
+    private static final String CLOSE = "</title>";
+
+    private final StringBuilder title = new StringBuilder();
+    private int openMatched;
+    private int closeMatched;
+    private boolean inTitle;
+    private boolean done;
+    private String result;
+
+    /**
+     * Finds the title of a whole page.
+     *
+     * @return the title, or null if the page has none
+     */
+    public static String scan(String html) {
+        HtmlTitleScanner scanner = new HtmlTitleScanner();
+        scanner.feed(html);
+        return scanner.finish();
+    }
+
+    public void feed(CharSequence html) {
+        for (int i = 0; i < html.length() && !done; i++) {
+            accept(html.charAt(i));
+        }
+    }
+
+    public void feed(char[] html, int offset, int length) {
+        for (int i = offset; i < offset + length && !done; i++) {
+            accept(html[i]);
+        }
+    }
+
+    /**
+     * @return whether the title is known, before the end of the page
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * @return the title, or null if the page has none or it isn't known yet
+     */
+    public String getTitle() {
+        return result;
+    }
+
+    /**
+     * Ends the page.
+     *
+     * @return the title, or null if the page has none
+     */
+    public String finish() {
+        done = true;
+        return result;
+    }
+
+    private void accept(char c) {
+        char lower = Character.toLowerCase(c);
+        if (inTitle) {
+            title.append(c);
+        } else {
+            openMatched = match(OPEN, openMatched, lower);
+            if (openMatched == OPEN.length()) {
+                inTitle = true;
+                return;
+            }
+        }
+        closeMatched = match(CLOSE, closeMatched, lower);
+        if (closeMatched == CLOSE.length()) {
+            if (inTitle) {
+                title.setLength(title.length() - CLOSE.length());
+                result = title.toString().replaceAll("\\s+", " ").trim();
+            }
+            done = true;
+        }
+    }
+
+    /**
+     * @return characters of the pattern matched after this one; only its first character is a '<'
+     */
+    private static int match(String pattern, int matched, char c) {
+        if (c == pattern.charAt(matched)) {
+            return matched + 1;
+        }
+        return c == '<' ? 1 : 0;
+    }
+}
@@ -0,0 +1,748 @@
+package com.googlev1.service.content;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the main content of an HTML page, its article without the navigation, headers, footers, cookie banners,
+ * ads and link lists around it, in a single pass over the page as it arrives and without building a DOM.
+ * <p>
+ * The page is cut into blocks at block-level tags: paragraphs, list items, headings, table cells and so on. As in
+ * boilerpipe, each block is judged by its words and its link density, the share of its characters inside links: a
+ * block of at least MIN_WORDS words (MIN_ARTICLE_WORDS inside {@code <article>} or {@code <main>}) that is at most a
+ * third links is content; blocks that are more links are dropped. A run of shorter blocks is kept when it leads
+ * into content and either follows content, starts with a heading or is in the article, so the headings, bylines and
+ * list items of the article stay while the captions and labels around it go. Blocks inside nav, footer, aside,
+ * form and page header elements, inside elements whose role, class or id names navigation, ads, cookie banners,
+ * sharing, comments and the like, and inside hidden elements are boilerplate. Kept blocks are separated by a blank
+ * line, and entities are decoded.
+ * <p>
+ * A page with less than MIN_MAIN_LENGTH characters of content isn't an article, and the text of all its blocks is
+ * used instead; that is the only change to the text at {@link #finish}.
+ * <p>
+ * The language ({@code <html lang>}), canonical URL ({@code <link rel="canonical">}) and publication date
+ * (article:published_time and similar meta tags, or the first {@code <time datetime>} in the article) are read
+ * along the way.
+ * <p>
+ * Not thread-safe; one instance per page.
+ */
+public final class MainContentExtractor implements PageTextExtractor {
+
+    private static final String ELLIPSIS = "...";
+    private static final String BLOCK_SEPARATOR = "\n\n";
+    private static final int MIN_WORDS = 15;
+    private static final int MIN_ARTICLE_WORDS = 8;
+    private static final int MIN_MAIN_LENGTH = 250;
+    // Characters of a tag kept for parsing; quotes are no longer honoured beyond, so a stray one can't swallow the page
+    private static final int MAX_TAG_LENGTH = 2_048;
+    private static final int MAX_DEPTH = 512;
+    private static final int MAX_ENTITY_LENGTH = 10;
+    private static final int MAX_LANG_LENGTH = 35;
+    private static final int MAX_URL_LENGTH = 2_048;
+    private static final int MAX_DATE_LENGTH = 40;
+
+    private static final Set<String> BLOCK_ELEMENTS = Set.of(
+            "address", "article", "aside", "blockquote", "body", "caption", "center", "dd", "details", "dialog",
+            "div", "dl", "dt", "fieldset", "figcaption", "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5",
+            "h6", "header", "hr", "html", "legend", "li", "main", "menu", "nav", "ol", "p", "pre", "section",
+            "summary", "table", "tbody", "td", "tfoot", "th", "thead", "tr", "ul");
+    private static final Set<String> VOID_ELEMENTS = Set.of(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param", "source", "track",
+            "wbr");
+    // Elements whose content is not text of the page; skipped up to their end tag
+    private static final Set<String> RAW_ELEMENTS = Set.of(
+            "iframe", "math", "noscript", "script", "style", "svg", "template", "textarea", "title");
+    private static final Set<String> HEADINGS = Set.of("h1", "h2", "h3", "h4", "h5", "h6");
+    private static final Set<String> BOILERPLATE_ELEMENTS = Set.of(
+            "aside", "button", "dialog", "footer", "form", "menu", "nav", "select");
+    private static final Set<String> BOILERPLATE_ROLES = Set.of(
+            "alertdialog", "banner", "complementary", "contentinfo", "dialog", "menu", "menubar", "navigation",
+            "search");
+    // Words of classes and ids, split at spaces, '-' and '_'
+    private static final Set<String> BOILERPLATE_NAMES = Set.of(
+            "ad", "ads", "advert", "advertisement", "banner", "breadcrumb", "breadcrumbs", "comment", "comments",
+            "consent", "cookie", "cookies", "footer", "gdpr", "masthead", "menu", "modal", "nav", "navbar",
+            "newsletter", "popup", "promo", "recommended", "related", "share", "sharing", "sidebar", "social",
+            "sponsored", "subscribe", "widget");
+    // A class or id naming the content too wins over one naming boilerplate, e.g. "content-with-sidebar"
+    private static final Pattern CONTENT_NAMES = Pattern.compile("article|body|content|entry|main|post|story|text");
+    private static final Map<String, String> ENTITIES = Map.ofEntries(
+            Map.entry("amp", "&"), Map.entry("lt", "<"), Map.entry("gt", ">"), Map.entry("quot", "\""),
+            Map.entry("apos", "'"), Map.entry("nbsp", " "), Map.entry("ndash", "\u2013"),
+            Map.entry("mdash", "\u2014"), Map.entry("hellip", "\u2026"), Map.entry("lsquo", "\u2018"),
+            Map.entry("rsquo", "\u2019"), Map.entry("ldquo", "\u201C"), Map.entry("rdquo", "\u201D"),
+            Map.entry("laquo", "\u00AB"), Map.entry("raquo", "\u00BB"), Map.entry("copy", "\u00A9"),
+            Map.entry("reg", "\u00AE"), Map.entry("trade", "\u2122"), Map.entry("middot", "\u00B7"),
+            Map.entry("bull", "\u2022"), Map.entry("deg", "\u00B0"), Map.entry("euro", "\u20AC"),
+            Map.entry("pound", "\u00A3"));
+    // Attributes read; the values of the others aren't copied
+    private static final Set<String> ATTRIBUTES = Set.of(
+            "aria-hidden", "class", "content", "datetime", "hidden", "href", "id", "itemprop", "lang", "name",
+            "property", "rel", "role", "style");
+    private static final int BLOCK = 1;
+    private static final int VOID = 2;
+    private static final int RAW = 4;
+    private static final int HEADING = 8;
+    private static final int BOILERPLATE = 16;
+    // The sets above by element, so each tag takes one lookup
+    private static final Map<String, Integer> ELEMENT_FLAGS = elementFlags();
+    // Meta names and properties of the publication date, best first
+    private static final List<String> PUBLISHED_KEYS = List.of(
+            "article:published_time", "datepublished", "og:published_time", "pubdate", "publishdate",
+            "dc.date.issued", "dcterms.created", "dc.date", "dcterms.date", "date", "sailthru.date",
+            "parsely-pub-date");
+
+    private enum State { TEXT, TAG_OPEN, TAG, COMMENT, RAW }
+
+    private enum Kind { CONTENT, SHORT, LINKS, BOILERPLATE }
+
+    private record Element(String name, boolean boilerplate, boolean article, boolean link, boolean heading) {
+    }
+
+    private record Block(String text, boolean heading, boolean article) {
+    }
+
+    private final int maxLength;
+
+    // Tokenizer
+    private State state = State.TEXT;
+    private final StringBuilder tag = new StringBuilder();
+    private char quote;
+    private boolean afterEquals;
+    private int commentDashes;
+    private String rawEnd;
+    private int rawMatched;
+    // "&" and what follows while reading an entity, empty otherwise
+    private final StringBuilder entity = new StringBuilder();
+    private final Map<String, String> attributes = new HashMap<>();
+
+    // Open elements, and how many of them are of each kind
+    private final List<Element> open = new ArrayList<>();
+    private int boilerplateDepth;
+    private int articleDepth;
+    private int linkDepth;
+    private int headingDepth;
+
+    // The block being read
+    private final StringBuilder block = new StringBuilder();
+    private boolean spaceBefore;
+    private int words;
+    private int chars;
+    private int linkChars;
+    private boolean blockBoilerplate;
+    private boolean blockArticle;
+    private boolean blockHeading;
+
+    // Short blocks waiting for the block after them
+    private final List<Block> run = new ArrayList<>();
+    private int runLength;
+    private boolean lastKept;
+
+    private final StringBuilder main = new StringBuilder();
+    private boolean mainCut;
+    // Every block, in case the page has no main content
+    private final StringBuilder all = new StringBuilder();
+    private boolean allCut;
+    private boolean finished;
+    private boolean fallback;
+
+    private String lang;
+    private String canonicalUrl;
+    private String published;
+    private int publishedRank = Integer.MAX_VALUE;
+
+    private static Map<String, Integer> elementFlags() {
+        Map<String, Integer> flags = new HashMap<>();
+        BLOCK_ELEMENTS.forEach(name -> flags.merge(name, BLOCK, (a, b) -> a | b));
+        VOID_ELEMENTS.forEach(name -> flags.merge(name, VOID, (a, b) -> a | b));
+        RAW_ELEMENTS.forEach(name -> flags.merge(name, RAW, (a, b) -> a | b));
+        HEADINGS.forEach(name -> flags.merge(name, HEADING, (a, b) -> a | b));
+        BOILERPLATE_ELEMENTS.forEach(name -> flags.merge(name, BOILERPLATE, (a, b) -> a | b));
+        return flags;
+    }
+
+    /**
+     * @param maxLength text beyond this many characters is dropped
+     */
+    public MainContentExtractor(int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Extracts the main content of a whole page.
+     */
+    public static MainContentExtractor extract(String html, int maxLength) {
+        MainContentExtractor extractor = new MainContentExtractor(maxLength);
+        extractor.feed(html);
+        extractor.finish();
+        return extractor;
+    }
+
+    /**
+     * Reads more of the page. Once the main content is cut at the maximum length, the rest of the page can't change
+     * the text and is skipped.
+     */
+    @Override
+    public void feed(CharSequence html) {
+        for (int i = 0; i < html.length() && !mainCut; i++) {
+            accept(html.charAt(i));
+        }
+    }
+
+    @Override
+    public void feed(char[] html, int offset, int length) {
+        for (int i = offset; i < offset + length && !mainCut; i++) {
+            accept(html[i]);
+        }
+    }
+
+    @Override
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (state == State.TEXT) {
+            flushEntity();
+        } else if (state == State.TAG_OPEN) {
+            text('<');
+        }
+        flushBlock();
+        endRun();
+        fallback = main.length() < MIN_MAIN_LENGTH && all.length() > main.length();
+    }
+
+    @Override
+    public boolean isCut() {
+        return fallback ? allCut : mainCut;
+    }
+
+    @Override
+    public CharSequence text() {
+        return fallback ? all : main;
+    }
+
+    /**
+     * @return whether the page had no main content and its text is that of all its blocks, once finished
+     */
+    public boolean isFallback() {
+        return fallback;
+    }
+
+    /**
+     * @return the language of the page, e.g. "en-US", or null
+     */
+    public String getLang() {
+        return lang;
+    }
+
+    /**
+     * @return the canonical URL of the page as written, possibly relative, or null
+     */
+    public String getCanonicalUrl() {
+        return canonicalUrl;
+    }
+
+    /**
+     * @return when the page was published, an ISO-8601 date or date-time as written, or null
+     */
+    public String getPublished() {
+        return published;
+    }
+
+    private void accept(char c) {
+        switch (state) {
+            case TEXT -> acceptText(c);
+            case TAG_OPEN -> {
+                if (Character.isLetter(c) || c == '/' || c == '!' || c == '?') {
+                    state = State.TAG;
+                    acceptTag(c);
+                } else {
+                    // Not a tag, as in "a < b"
+                    state = State.TEXT;
+                    text('<');
+                    acceptText(c);
+                }
+            }
+            case TAG -> acceptTag(c);
+            case COMMENT -> {
+                if (c == '>' && commentDashes >= 2) {
+                    state = State.TEXT;
+                }
+                commentDashes = c == '-' ? commentDashes + 1 : 0;
+            }
+            case RAW -> {
+                if (Character.toLowerCase(c) == rawEnd.charAt(rawMatched)) {
+                    if (++rawMatched == rawEnd.length()) {
+                        // Read the rest of the end tag as a tag
+                        state = State.TAG;
+                        tag.setLength(0);
+                        tag.append(rawEnd, 1, rawEnd.length());
+                    }
+                } else {
+                    rawMatched = c == '<' ? 1 : 0;
+                }
+            }
+        }
+    }
+
+    private void acceptText(char c) {
+        if (!entity.isEmpty()) {
+            if (c == ';') {
+                decodeEntity();
+                return;
+            }
+            if ((Character.isLetterOrDigit(c) || c == '#') && entity.length() < MAX_ENTITY_LENGTH) {
+                entity.append(c);
+                return;
+            }
+            flushEntity();
+        }
+        if (c == '<') {
+            state = State.TAG_OPEN;
+            tag.setLength(0);
+            quote = 0;
+            afterEquals = false;
+        } else if (c == '&') {
+            entity.append(c);
+        } else {
+            text(c);
+        }
+    }
+
+    private void acceptTag(char c) {
+        if (tag.length() >= MAX_TAG_LENGTH) {
+            if (c == '>') {
+                endTag();
+            }
+            return;
+        }
+        if (quote != 0) {
+            if (c == quote) {
+                quote = 0;
+            }
+            tag.append(c);
+            return;
+        }
+        if (c == '>') {
+            endTag();
+            return;
+        }
+        if ((c == '"' || c == '\'') && afterEquals) {
+            quote = c;
+        }
+        if (c == '=') {
+            afterEquals = true;
+        } else if (!Character.isWhitespace(c)) {
+            afterEquals = false;
+        }
+        tag.append(c);
+        if (tag.length() == 3 && tag.charAt(0) == '!' && tag.charAt(1) == '-' && tag.charAt(2) == '-') {
+            state = State.COMMENT;
+            commentDashes = 0;
+        }
+    }
+
+    private void endTag() {
+        state = State.TEXT;
+        if (tag.isEmpty() || tag.charAt(0) == '!' || tag.charAt(0) == '?') {
+            // Doctype or processing instruction
+            return;
+        }
+        boolean closing = tag.charAt(0) == '/';
+        int start = closing ? 1 : 0;
+        int end = start;
+        while (end < tag.length() && !Character.isWhitespace(tag.charAt(end)) && tag.charAt(end) != '/') {
+            end++;
+        }
+        String name = tag.substring(start, end).toLowerCase(Locale.ROOT);
+        if (name.isEmpty()) {
+            return;
+        }
+        if (closing) {
+            closeElement(name);
+        } else {
+            boolean selfClosing = tag.charAt(tag.length() - 1) == '/';
+            parseAttributes(end, name.equals("link"));
+            openElement(name, selfClosing);
+        }
+    }
+
+    private void openElement(String name, boolean selfClosing) {
+        int flags = ELEMENT_FLAGS.getOrDefault(name, 0);
+        if ((flags & RAW) != 0) {
+            // Only foreign elements close themselves with "/>"
+            if (!selfClosing || !(name.equals("svg") || name.equals("math"))) {
+                state = State.RAW;
+                rawEnd = "</" + name;
+                rawMatched = 0;
+            }
+            return;
+        }
+        readMetadata(name);
+        if ((flags & BLOCK) != 0) {
+            flushBlock();
+        } else if (name.equals("br")) {
+            text(' ');
+        }
+        if ((flags & VOID) != 0 || selfClosing) {
+            return;
+        }
+        // Paragraphs and list items end where the next one starts
+        if ((name.equals("p") || name.equals("li")) && !open.isEmpty()
+                && open.get(open.size() - 1).name().equals(name)) {
+            pop();
+        }
+        if (open.size() >= MAX_DEPTH) {
+            return;
+        }
+        String role = attribute("role");
+        boolean article = name.equals("article") || name.equals("main") || role.equals("main")
+                || role.equals("article") || attribute("itemprop").equalsIgnoreCase("articleBody");
+        boolean boilerplate = !article && ((flags & BOILERPLATE) != 0 || isBoilerplate(name, role));
+        Element element = new Element(name, boilerplate, article, name.equals("a"), (flags & HEADING) != 0);
+        open.add(element);
+        boilerplateDepth += element.boilerplate() ? 1 : 0;
+        articleDepth += element.article() ? 1 : 0;
+        linkDepth += element.link() ? 1 : 0;
+        headingDepth += element.heading() ? 1 : 0;
+    }
+
+    private boolean isBoilerplate(String name, String role) {
+        if (name.equals("header") && articleDepth == 0 || BOILERPLATE_ROLES.contains(role)) {
+            return true;
+        }
+        if (attributes.containsKey("hidden") || attribute("aria-hidden").equalsIgnoreCase("true")
+                || attribute("style").replace(" ", "").toLowerCase(Locale.ROOT).contains("display:none")) {
+            return true;
+        }
+        if (name.equals("html") || name.equals("body")) {
+            // Their classes describe the page, e.g. "has-sidebar"
+            return false;
+        }
+        String names = (attribute("class") + " " + attribute("id")).toLowerCase(Locale.ROOT);
+        return namesBoilerplate(names) && !CONTENT_NAMES.matcher(names).find();
+    }
+
+    private static boolean namesBoilerplate(String names) {
+        int start = 0;
+        for (int i = 0; i <= names.length(); i++) {
+            if (i == names.length() || Character.isWhitespace(names.charAt(i)) || names.charAt(i) == '-'
+                    || names.charAt(i) == '_') {
+                if (i > start && BOILERPLATE_NAMES.contains(names.substring(start, i))) {
+                    return true;
+                }
+                start = i + 1;
+            }
+        }
+        return false;
+    }
+
+    private void closeElement(String name) {
+        if ((ELEMENT_FLAGS.getOrDefault(name, 0) & BLOCK) != 0) {
+            flushBlock();
+        }
+        // Closes the elements left open inside it; an end tag without a start tag is ignored
+        for (int i = open.size() - 1; i >= 0; i--) {
+            if (open.get(i).name().equals(name)) {
+                while (open.size() > i) {
+                    pop();
+                }
+                return;
+            }
+        }
+    }
+
+    private void pop() {
+        Element element = open.remove(open.size() - 1);
+        boilerplateDepth -= element.boilerplate() ? 1 : 0;
+        articleDepth -= element.article() ? 1 : 0;
+        linkDepth -= element.link() ? 1 : 0;
+        headingDepth -= element.heading() ? 1 : 0;
+    }
+
+    /**
+     * Reads the attributes of the tag from the given index, those in ATTRIBUTES only, and href only if asked.
+     */
+    private void parseAttributes(int from, boolean href) {
+        attributes.clear();
+        int i = from;
+        int length = tag.length();
+        while (i < length) {
+            while (i < length && (Character.isWhitespace(tag.charAt(i)) || tag.charAt(i) == '/')) {
+                i++;
+            }
+            int nameStart = i;
+            while (i < length && !Character.isWhitespace(tag.charAt(i)) && tag.charAt(i) != '='
+                    && tag.charAt(i) != '/') {
+                i++;
+            }
+            if (i == nameStart) {
+                i++;
+                continue;
+            }
+            String name = tag.substring(nameStart, i).toLowerCase(Locale.ROOT);
+            boolean read = ATTRIBUTES.contains(name) && (href || !name.equals("href"));
+            while (i < length && Character.isWhitespace(tag.charAt(i))) {
+                i++;
+            }
+            String value = "";
+            if (i < length && tag.charAt(i) == '=') {
+                i++;
+                while (i < length && Character.isWhitespace(tag.charAt(i))) {
+                    i++;
+                }
+                if (i < length && (tag.charAt(i) == '"' || tag.charAt(i) == '\'')) {
+                    char q = tag.charAt(i++);
+                    int valueStart = i;
+                    while (i < length && tag.charAt(i) != q) {
+                        i++;
+                    }
+                    value = read ? tag.substring(valueStart, i) : "";
+                    i++;
+                } else {
+                    int valueStart = i;
+                    while (i < length && !Character.isWhitespace(tag.charAt(i))) {
+                        i++;
+                    }
+                    value = read ? tag.substring(valueStart, i) : "";
+                }
+            }
+            if (read) {
+                attributes.putIfAbsent(name, value);
+            }
+        }
+    }
+
+    private String attribute(String name) {
+        return attributes.getOrDefault(name, "");
+    }
+
+    private void readMetadata(String name) {
+        switch (name) {
+            case "html" -> {
+                String value = attribute("lang").trim();
+                if (lang == null && value.length() <= MAX_LANG_LENGTH
+                        && value.matches("[A-Za-z]{2,3}(-[A-Za-z0-9]{1,8})*")) {
+                    lang = value;
+                }
+            }
+            case "link" -> {
+                String href = attribute("href").trim();
+                if (canonicalUrl == null && !href.isEmpty() && href.length() <= MAX_URL_LENGTH
+                        && Arrays.asList(attribute("rel").toLowerCase(Locale.ROOT).split("\\s+"))
+                                .contains("canonical")) {
+                    canonicalUrl = href;
+                }
+            }
+            case "meta" -> {
+                for (String key : new String[] {"property", "name", "itemprop"}) {
+                    int rank = PUBLISHED_KEYS.indexOf(attribute(key).toLowerCase(Locale.ROOT));
+                    if (rank >= 0) {
+                        publishedAt(attribute("content"), rank);
+                    }
+                }
+            }
+            case "time" -> {
+                if (articleDepth > 0 || attribute("itemprop").equalsIgnoreCase("datePublished")) {
+                    publishedAt(attribute("datetime"), PUBLISHED_KEYS.size());
+                }
+            }
+            default -> {
+                if (attribute("itemprop").equalsIgnoreCase("datePublished")) {
+                    publishedAt(attribute("content"), PUBLISHED_KEYS.indexOf("datepublished"));
+                }
+            }
+        }
+    }
+
+    private void publishedAt(String value, int rank) {
+        String date = value.trim();
+        if (rank < publishedRank && !date.isEmpty() && date.length() <= MAX_DATE_LENGTH && isIsoDate(date)) {
+            published = date;
+            publishedRank = rank;
+        }
+    }
+
+    private static boolean isIsoDate(String value) {
+        try {
+            OffsetDateTime.parse(value);
+            return true;
+        } catch (DateTimeParseException e) {
+            // Try without an offset
+        }
+        try {
+            LocalDateTime.parse(value);
+            return true;
+        } catch (DateTimeParseException e) {
+            // Try a date alone
+        }
+        try {
+            LocalDate.parse(value);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private void decodeEntity() {
+        String name = entity.substring(1);
+        String decoded = null;
+        if (name.startsWith("#")) {
+            try {
+                int codePoint = name.length() > 1 && (name.charAt(1) == 'x' || name.charAt(1) == 'X')
+                        ? Integer.parseInt(name.substring(2), 16)
+                        : Integer.parseInt(name.substring(1));
+                if (Character.isValidCodePoint(codePoint) && codePoint != 0) {
+                    decoded = new String(Character.toChars(codePoint));
+                }
+            } catch (NumberFormatException e) {
+                // Not a number; kept as written
+            }
+        } else {
+            decoded = ENTITIES.get(name);
+        }
+        if (decoded == null) {
+            entity.append(';');
+            flushEntity();
+            return;
+        }
+        entity.setLength(0);
+        for (int i = 0; i < decoded.length(); i++) {
+            text(decoded.charAt(i));
+        }
+    }
+
+    private void flushEntity() {
+        for (int i = 0; i < entity.length(); i++) {
+            text(entity.charAt(i));
+        }
+        entity.setLength(0);
+    }
+
+    private void text(char c) {
+        if (c <= ' ' || c >= '\u0080' && (c == '\u00A0' || Character.isWhitespace(c))) {
+            spaceBefore = block.length() > 0;
+            return;
+        }
+        if (block.isEmpty()) {
+            blockBoilerplate = boilerplateDepth > 0;
+            blockArticle = articleDepth > 0;
+            blockHeading = headingDepth > 0;
+            words = 1;
+        } else if (spaceBefore) {
+            if (block.length() <= maxLength) {
+                block.append(' ');
+            }
+            words++;
+        }
+        spaceBefore = false;
+        if (block.length() <= maxLength) {
+            block.append(c);
+        }
+        chars++;
+        if (linkDepth > 0) {
+            linkChars++;
+        }
+    }
+
+    private void flushBlock() {
+        if (block.isEmpty()) {
+            return;
+        }
+        String text = block.toString();
+        block.setLength(0);
+        spaceBefore = false;
+        allCut = write(all, text, allCut);
+
+        Kind kind;
+        if (blockBoilerplate) {
+            kind = Kind.BOILERPLATE;
+        } else if (linkChars * 3 > chars) {
+            // More than a third of the block is links
+            kind = Kind.LINKS;
+        } else {
+            kind = words >= (blockArticle ? MIN_ARTICLE_WORDS : MIN_WORDS) ? Kind.CONTENT : Kind.SHORT;
+        }
+        words = 0;
+        chars = 0;
+        linkChars = 0;
+        switch (kind) {
+            case SHORT -> {
+                if (runLength <= maxLength) {
+                    run.add(new Block(text, blockHeading, blockArticle));
+                    runLength += text.length();
+                }
+            }
+            case CONTENT -> {
+                if (!run.isEmpty() && (lastKept || run.get(0).heading() || inArticle(run))) {
+                    run.forEach(shortBlock -> keep(shortBlock.text()));
+                }
+                clearRun();
+                keep(text);
+                lastKept = true;
+            }
+            case LINKS -> {
+                // Dropped, like a "Source: ..." line between a heading and its text, without ending the run
+            }
+            case BOILERPLATE -> {
+                endRun();
+                lastKept = false;
+            }
+        }
+    }
+
+    /**
+     * Keeps the short blocks after the last content block only if they end the article.
+     */
+    private void endRun() {
+        if (lastKept && !run.isEmpty() && inArticle(run)) {
+            run.forEach(shortBlock -> keep(shortBlock.text()));
+        }
+        clearRun();
+    }
+
+    private static boolean inArticle(List<Block> blocks) {
+        return blocks.stream().allMatch(Block::article);
+    }
+
+    private void clearRun() {
+        run.clear();
+        runLength = 0;
+    }
+
+    private void keep(String text) {
+        mainCut = write(main, text, mainCut);
+    }
+
+    /**
+     * Appends a block to a text, after a blank line, cutting the text at the maximum length.
+     *
+     * @return whether the text is cut
+     */
+    private boolean write(StringBuilder out, String text, boolean cut) {
+        if (cut) {
+            return true;
+        }
+        if (!out.isEmpty()) {
+            text = BLOCK_SEPARATOR + text;
+        }
+        int room = maxLength - out.length();
+        if (text.length() <= room) {
+            out.append(text);
+            return false;
+        }
+        out.append(text, 0, Math.max(room, 0)).append(ELLIPSIS);
+        return true;
+    }
+}
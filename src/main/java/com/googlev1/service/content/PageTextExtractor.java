@@ -0,0 +1,27 @@
+package com.googlev1.service.content;
+
+/**
+ * Extracts the text of an HTML page as it arrives, fed one piece at a time, so the beginning of the text is
+ * available before the end of the page has been fetched. Not thread-safe; one instance per page.
+ */
+public interface PageTextExtractor {
+
+    void feed(CharSequence html);
+
+    void feed(char[] html, int offset, int length);
+
+    /**
+     * Ends the page. A text of a few hundred characters at most may be replaced here; a longer one is final.
+     */
+    void finish();
+
+    /**
+     * @return whether the text was cut at the maximum length, after which the rest of the page can't change it
+     */
+    boolean isCut();
+
+    /**
+     * @return the text extracted so far; it only grows, until {@link #finish}
+     */
+    CharSequence text();
+}
@@ -0,0 +1,183 @@
+package com.googlev1.service.content;
+
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * One stage of the ContentPipeline: a fixed number of worker threads and a bounded queue of work waiting for
+ * them.
+ * <p>
+ * At most {@code threads + queueCapacity} tasks are in the stage at once. Work handed over by the previous stage
+ * blocks its worker while this stage is full, so a slow stage holds back the ones before it instead of piling up
+ * work in memory. Work entering the pipeline waits a bounded time for room and is rejected after that.
+ */
+public class PipelineStage implements AutoCloseable {
+
+    private final String name;
+    private final int threads;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+    // Taken for each task from submission until it completes
+    private final Semaphore slots;
+    private final Timer waitTimer;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param waitTimer records how long each task waited in the queue
+     */
+    public PipelineStage(String name, int threads, int queueCapacity, Timer waitTimer) {
+        if (threads < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Invalid settings for pipeline stage " + name);
+        }
+        this.name = name;
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.slots = new Semaphore(threads + queueCapacity);
+        this.waitTimer = waitTimer;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "content-" + name + "-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Runs the work in this stage, blocking the calling thread while the stage is full.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        return run(work);
+    }
+
+    /**
+     * Runs the work in this stage, waiting at most {@code wait} for room.
+     *
+     * @throws RejectedExecutionException if the stage is still full after waiting
+     */
+    public <T> CompletableFuture<T> trySubmit(Supplier<T> work, Duration wait) {
+        boolean acquired;
+        try {
+            acquired = slots.tryAcquire(wait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Content " + name + " stage is full");
+        }
+        return run(work);
+    }
+
+    private <T> CompletableFuture<T> run(Supplier<T> work) {
+        Task<T> task = new Task<>(work);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Shut down
+            slots.release();
+            rejected.incrementAndGet();
+            throw e;
+        }
+        return task.result;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return tasks waiting for a worker
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return tasks being worked on
+     */
+    public int getActive() {
+        return executor.getActiveCount();
+    }
+
+    public long getCompleted() {
+        return executor.getCompletedTaskCount();
+    }
+
+    /**
+     * @return work turned away because the stage was full, or shut down
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Stops the workers. Work still waiting in the queue fails with a RejectedExecutionException, so callers
+     * waiting for it don't hang; work being run is interrupted.
+     */
+    @Override
+    public void close() {
+        for (Runnable dropped : executor.shutdownNow()) {
+            if (dropped instanceof Task<?> task) {
+                task.drop(new RejectedExecutionException("Content " + name + " stage was shut down"));
+            }
+        }
+    }
+
+    /**
+     * Work queued in the stage, with the future that reports its outcome.
+     */
+    private final class Task<T> implements Runnable {
+
+        private final Supplier<T> work;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final long queuedAt = System.nanoTime();
+
+        private Task(Supplier<T> work) {
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+            try {
+                result.complete(work.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                slots.release();
+            }
+        }
+
+        private void drop(RejectedExecutionException e) {
+            slots.release();
+            result.completeExceptionally(e);
+        }
+    }
+}
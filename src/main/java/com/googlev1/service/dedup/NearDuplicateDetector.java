@@ -0,0 +1,166 @@
+package com.googlev1.service.dedup;
+
+import com.googlev1.dto.search.SearchResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds mirrors and syndicated copies among search results and extracted pages, by the SimHash fingerprints
+ * of their summaries and bodies.
+ * <p>
+ * TavilyService collapses the near-duplicate results of each response into the best ranked one. Every body
+ * extracted by ContentService is remembered by URL; before fetching a page again, it asks for the URLs whose
+ * body is a near-duplicate of the page's last body, and answers with the cached body of one of them instead.
+ * Summaries are not used for that: two short snippets can match while the pages behind them differ.
+ */
+public class NearDuplicateDetector {
+
+    private final int maxDistance;
+    private final int minTokens;
+    private final SimHashIndex bodies;
+
+    private final AtomicLong resultsSeen = new AtomicLong();
+    private final AtomicLong resultsCollapsed = new AtomicLong();
+    private final AtomicLong collapsedBytes = new AtomicLong();
+    private final AtomicLong bodiesSeen = new AtomicLong();
+    private final AtomicLong duplicateBodies = new AtomicLong();
+    private final AtomicLong contentReuses = new AtomicLong();
+    private final AtomicLong reusedBytes = new AtomicLong();
+
+    /**
+     * @param maxDistance fingerprints at most this many bits apart are near-duplicates
+     * @param minTokens texts with fewer words are never treated as duplicates
+     * @param maxEntries bodies remembered
+     */
+    public NearDuplicateDetector(int maxDistance, int minTokens, int maxEntries) {
+        this.maxDistance = maxDistance;
+        this.minTokens = minTokens;
+        this.bodies = new SimHashIndex(maxDistance, maxEntries);
+    }
+
+    /**
+     * Collapses near-duplicate results, keeping the first (best ranked) of each group with the URLs of the
+     * others in its duplicateUrls.
+     *
+     * @return the results without duplicates, in their original order
+     */
+    public List<SearchResult> collapse(List<SearchResult> results) {
+        List<SearchResult> kept = new ArrayList<>(results.size());
+        List<Long> keptFingerprints = new ArrayList<>(results.size());
+        for (SearchResult result : results) {
+            resultsSeen.incrementAndGet();
+            OptionalLong fingerprint = SimHash.fingerprint(result.getSummary(), minTokens);
+            if (fingerprint.isEmpty()) {
+                kept.add(result);
+                keptFingerprints.add(null);
+                continue;
+            }
+            SearchResult original = null;
+            for (int i = 0; i < kept.size() && original == null; i++) {
+                Long other = keptFingerprints.get(i);
+                if (other != null && SimHash.distance(other, fingerprint.getAsLong()) <= maxDistance) {
+                    original = kept.get(i);
+                }
+            }
+            if (original == null) {
+                kept.add(result);
+                keptFingerprints.add(fingerprint.getAsLong());
+                continue;
+            }
+            if (original.getDuplicateUrls() == null) {
+                original.setDuplicateUrls(new ArrayList<>());
+            }
+            original.getDuplicateUrls().add(result.getUrl());
+            resultsCollapsed.incrementAndGet();
+            collapsedBytes.addAndGet(utf8Length(result.getTitle()) + utf8Length(result.getUrl())
+                    + utf8Length(result.getSummary()) + utf8Length(result.getContent()));
+        }
+        return kept;
+    }
+
+    /**
+     * @return URLs whose body is a near-duplicate of the body last extracted from the given URL, nearest first;
+     * empty if no body of that URL is known
+     */
+    public List<String> duplicatesOf(String url) {
+        OptionalLong fingerprint = bodies.get(url);
+        return fingerprint.isPresent() ? bodies.near(fingerprint.getAsLong(), url) : List.of();
+    }
+
+    /**
+     * Remembers the body extracted from a page.
+     *
+     * @return whether it is a near-duplicate of a body extracted from another URL
+     */
+    public boolean registerBody(String url, String body) {
+        bodiesSeen.incrementAndGet();
+        OptionalLong fingerprint = SimHash.fingerprint(body, minTokens);
+        if (fingerprint.isEmpty()) {
+            return false;
+        }
+        boolean duplicate = !bodies.near(fingerprint.getAsLong(), url).isEmpty();
+        if (duplicate) {
+            duplicateBodies.incrementAndGet();
+        }
+        bodies.put(url, fingerprint.getAsLong());
+        return duplicate;
+    }
+
+    /**
+     * Records a page answered with the cached body of a near-duplicate instead of being fetched.
+     */
+    public void recordContentReuse(String body) {
+        contentReuses.incrementAndGet();
+        reusedBytes.addAndGet(utf8Length(body));
+    }
+
+    /**
+     * @return share of search results collapsed into a near-duplicate, 0 before the first result
+     */
+    public double getDuplicateRate() {
+        long seen = resultsSeen.get();
+        return seen == 0 ? 0 : (double) resultsCollapsed.get() / seen;
+    }
+
+    public long getResultsSeen() {
+        return resultsSeen.get();
+    }
+
+    public long getResultsCollapsed() {
+        return resultsCollapsed.get();
+    }
+
+    /**
+     * @return bytes of collapsed results not sent to clients or cached
+     */
+    public long getCollapsedBytes() {
+        return collapsedBytes.get();
+    }
+
+    public long getBodiesSeen() {
+        return bodiesSeen.get();
+    }
+
+    public long getDuplicateBodies() {
+        return duplicateBodies.get();
+    }
+
+    public long getContentReuses() {
+        return contentReuses.get();
+    }
+
+    /**
+     * @return bytes of extracted text reused from near-duplicates instead of being fetched and extracted again
+     */
+    public long getReusedBytes() {
+        return reusedBytes.get();
+    }
+
+    private static long utf8Length(String text) {
+        return text == null ? 0 : text.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,70 @@
+package com.googlev1.service.dedup;
+
+import com.googlev1.service.SavedItemSearchIndex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * 64-bit SimHash fingerprints of text.
+ * Features are the words and word pairs of the text (tokenized like the search indexes), so texts that share
+ * most of their wording get fingerprints a few bits apart while unrelated texts differ in about half the bits.
+ */
+public final class SimHash {
+
+    private SimHash() {
+    }
+
+    /**
+     * @return the fingerprint, or empty if the text has fewer than {@code minTokens} words
+     * (short texts collide too easily to be compared)
+     */
+    public static OptionalLong fingerprint(String text, int minTokens) {
+        List<String> tokens = SavedItemSearchIndex.tokenize(text);
+        if (tokens.isEmpty() || tokens.size() < minTokens) {
+            return OptionalLong.empty();
+        }
+        int[] votes = new int[64];
+        for (int i = 0; i < tokens.size(); i++) {
+            vote(votes, hash(tokens.get(i)));
+            if (i > 0) {
+                vote(votes, hash(tokens.get(i - 1) + ' ' + tokens.get(i)));
+            }
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (votes[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return OptionalLong.of(fingerprint);
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private static void vote(int[] votes, long hash) {
+        for (int bit = 0; bit < 64; bit++) {
+            votes[bit] += ((hash >>> bit) & 1) != 0 ? 1 : -1;
+        }
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mix so every input bit affects every output bit.
+     */
+    static long hash(String feature) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : feature.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,114 @@
+package com.googlev1.service.dedup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+
+/**
+ * SimHash fingerprints by key, with a banded table to find the keys within {@code maxDistance} bits of a
+ * fingerprint. The 64 bits are cut into maxDistance + 1 bands; two fingerprints that differ in at most
+ * maxDistance bits agree exactly on at least one band, so only keys sharing a band value are compared.
+ * Holds at most {@code maxEntries} keys, dropping the oldest. Thread-safe.
+ */
+final class SimHashIndex {
+
+    private final int maxDistance;
+    private final int maxEntries;
+    private final int bandBits;
+    private final LinkedHashMap<String, Long> fingerprints = new LinkedHashMap<>();
+    // One table per band: band value -> keys
+    private final List<Map<Long, Set<String>>> bands = new ArrayList<>();
+
+    SimHashIndex(int maxDistance, int maxEntries) {
+        if (maxDistance < 0 || maxDistance > 7) {
+            throw new IllegalArgumentException("maxDistance must be between 0 and 7: " + maxDistance);
+        }
+        this.maxDistance = maxDistance;
+        this.maxEntries = maxEntries;
+        this.bandBits = 64 / (maxDistance + 1);
+        for (int band = 0; band <= maxDistance; band++) {
+            bands.add(new HashMap<>());
+        }
+    }
+
+    synchronized void put(String key, long fingerprint) {
+        remove(key);
+        fingerprints.put(key, fingerprint);
+        for (int band = 0; band < bands.size(); band++) {
+            bands.get(band).computeIfAbsent(bandValue(fingerprint, band), v -> new LinkedHashSet<>()).add(key);
+        }
+        Iterator<String> eldest = fingerprints.keySet().iterator();
+        while (fingerprints.size() > maxEntries) {
+            String evicted = eldest.next();
+            long evictedFingerprint = fingerprints.get(evicted);
+            eldest.remove();
+            removeFromBands(evicted, evictedFingerprint);
+        }
+    }
+
+    synchronized OptionalLong get(String key) {
+        Long fingerprint = fingerprints.get(key);
+        return fingerprint != null ? OptionalLong.of(fingerprint) : OptionalLong.empty();
+    }
+
+    /**
+     * @return keys other than {@code excludedKey} within maxDistance bits of the fingerprint, nearest first
+     */
+    synchronized List<String> near(long fingerprint, String excludedKey) {
+        Set<String> candidates = new LinkedHashSet<>();
+        for (int band = 0; band < bands.size(); band++) {
+            Set<String> keys = bands.get(band).get(bandValue(fingerprint, band));
+            if (keys != null) {
+                candidates.addAll(keys);
+            }
+        }
+        candidates.remove(excludedKey);
+        List<String> near = new ArrayList<>();
+        for (String candidate : candidates) {
+            if (SimHash.distance(fingerprints.get(candidate), fingerprint) <= maxDistance) {
+                near.add(candidate);
+            }
+        }
+        near.sort((a, b) -> Integer.compare(SimHash.distance(fingerprints.get(a), fingerprint),
+                SimHash.distance(fingerprints.get(b), fingerprint)));
+        return near;
+    }
+
+    synchronized int size() {
+        return fingerprints.size();
+    }
+
+    private void remove(String key) {
+        Long previous = fingerprints.remove(key);
+        if (previous != null) {
+            removeFromBands(key, previous);
+        }
+    }
+
+    private void removeFromBands(String key, long fingerprint) {
+        for (int band = 0; band < bands.size(); band++) {
+            Map<Long, Set<String>> table = bands.get(band);
+            long value = bandValue(fingerprint, band);
+            Set<String> keys = table.get(value);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                table.remove(value);
+            }
+        }
+    }
+
+    /**
+     * @return the bits of the band; the last band also takes the bits left over by the division
+     */
+    private long bandValue(long fingerprint, int band) {
+        int shift = band * bandBits;
+        int bits = band == bands.size() - 1 ? 64 - shift : bandBits;
+        long mask = bits == 64 ? -1L : (1L << bits) - 1;
+        return (fingerprint >>> shift) & mask;
+    }
+}
@@ -0,0 +1,93 @@
+package com.googlev1.service.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A group of documents with its own postings. Documents are only appended, and only until the segment is
+ * sealed; replaced or evicted documents are marked deleted and dropped when the segment is merged.
+ * Not thread-safe: LocalSearchIndex guards it with its lock.
+ */
+final class IndexSegment {
+
+    static final class Postings {
+        int[] docs = new int[4];
+        float[] weights = new float[4];
+        int size;
+
+        void add(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+
+        void trim() {
+            docs = Arrays.copyOf(docs, size);
+            weights = Arrays.copyOf(weights, size);
+        }
+    }
+
+    private final List<IndexedDocument> documents = new ArrayList<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+    private boolean sealed;
+
+    int add(IndexedDocument document) {
+        if (sealed) {
+            throw new IllegalStateException("Segment is sealed");
+        }
+        int doc = documents.size();
+        documents.add(document);
+        String[] terms = document.terms();
+        float[] weights = document.weights();
+        for (int i = 0; i < terms.length; i++) {
+            postings.computeIfAbsent(terms[i], t -> new Postings()).add(doc, weights[i]);
+        }
+        return doc;
+    }
+
+    void seal() {
+        sealed = true;
+        postings.values().forEach(Postings::trim);
+    }
+
+    void delete(int doc) {
+        if (!deleted.get(doc)) {
+            deleted.set(doc);
+            deletedCount++;
+        }
+    }
+
+    boolean isDeleted(int doc) {
+        return deleted.get(doc);
+    }
+
+    Postings postings(String term) {
+        return postings.get(term);
+    }
+
+    IndexedDocument document(int doc) {
+        return documents.get(doc);
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    int liveCount() {
+        return documents.size() - deletedCount;
+    }
+
+    int deletedCount() {
+        return deletedCount;
+    }
+}
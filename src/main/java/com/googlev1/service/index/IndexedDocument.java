@@ -0,0 +1,75 @@
+package com.googlev1.service.index;
+
+/**
+ * One URL in the LocalSearchIndex: the stored fields needed to answer a search, and its weighted terms.
+ * Body terms are also kept on their own, so a refresh of the search result fields keeps the body.
+ * Immutable; compared by identity.
+ */
+public final class IndexedDocument {
+
+    private final String url;
+    private final String title;
+    private final String summary;
+    private final String[] terms;
+    private final float[] weights;
+    private final float length;
+    private final String[] bodyTerms;
+    private final float[] bodyWeights;
+    private final long indexedAt;
+
+    IndexedDocument(String url, String title, String summary, String[] terms, float[] weights,
+                    String[] bodyTerms, float[] bodyWeights, long indexedAt) {
+        this.url = url;
+        this.title = title;
+        this.summary = summary;
+        this.terms = terms;
+        this.weights = weights;
+        this.bodyTerms = bodyTerms;
+        this.bodyWeights = bodyWeights;
+        this.indexedAt = indexedAt;
+        float total = 0;
+        for (float weight : weights) {
+            total += weight;
+        }
+        this.length = total;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    /**
+     * @return epoch millis of the last time the upstream or the content endpoint described this URL
+     */
+    public long getIndexedAt() {
+        return indexedAt;
+    }
+
+    String[] terms() {
+        return terms;
+    }
+
+    float[] weights() {
+        return weights;
+    }
+
+    float length() {
+        return length;
+    }
+
+    String[] bodyTerms() {
+        return bodyTerms;
+    }
+
+    float[] bodyWeights() {
+        return bodyWeights;
+    }
+}
@@ -0,0 +1,519 @@
+package com.googlev1.service.index;
+
+import com.googlev1.dto.search.SearchResult;
+import com.googlev1.service.SavedItemSearchIndex;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the pages the upstream returned and the pages the content endpoint extracted,
+ * so searches can be answered without buying the same results again once the search cache has expired them.
+ * <p>
+ * There is one document per URL: a page seen in many result lists is indexed once, and its latest title and
+ * summary replace the previous ones. Titles, URLs and summaries are weighted as in SavedItemSearchIndex; an
+ * extracted body adds its most frequent terms at a lower weight, and is kept when the result fields are
+ * refreshed. Documents are scored with BM25.
+ * <p>
+ * New documents go to an in-memory buffer that is sealed into a segment every {@code flushDocuments} documents.
+ * A background thread merges segments of similar size once {@code mergeFactor} of them pile up, and rewrites
+ * segments that are mostly deleted. Replacing or evicting a document only marks it deleted, so writers never
+ * wait for a merge; a merge builds its segment without the lock and only swaps it in under it. Beyond
+ * {@code maxDocuments} the least recently indexed URLs are evicted.
+ */
+@Slf4j
+public class LocalSearchIndex implements AutoCloseable {
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float URL_WEIGHT = 1.5f;
+    private static final float SUMMARY_WEIGHT = 1.0f;
+    private static final float BODY_WEIGHT = 0.5f;
+    private static final int CONTENT_SUMMARY_LENGTH = 300;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    /**
+     * A matching document and its score.
+     *
+     * @param matchedTerms number of distinct query terms the document contains
+     */
+    public record Hit(IndexedDocument document, double score, int matchedTerms) {
+    }
+
+    private record DocRef(IndexSegment segment, int doc) {
+    }
+
+    private final int flushDocuments;
+    private final int mergeFactor;
+    private final int maxDocuments;
+    private final int bodyTerms;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Sealed segments; the buffer is searched too but not listed here
+    private final List<IndexSegment> segments = new ArrayList<>();
+    private IndexSegment buffer = new IndexSegment();
+    // URL -> where its current version lives, least recently indexed first
+    private final LinkedHashMap<String, DocRef> live = new LinkedHashMap<>();
+    private double totalLength;
+
+    private final ExecutorService merger = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index-merge");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean mergeScheduled = new AtomicBoolean();
+
+    private final AtomicLong indexedDocuments = new AtomicLong();
+    private final AtomicLong indexNanos = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong queryNanos = new AtomicLong();
+    private final AtomicLong merges = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param flushDocuments documents buffered before they are sealed into a segment
+     * @param mergeFactor number of similar-sized segments merged at once
+     * @param maxDocuments URLs kept before the least recently indexed ones are evicted
+     * @param bodyTerms most frequent body terms indexed per page
+     */
+    public LocalSearchIndex(int flushDocuments, int mergeFactor, int maxDocuments, int bodyTerms) {
+        if (flushDocuments < 1 || mergeFactor < 2 || maxDocuments < 1 || bodyTerms < 0) {
+            throw new IllegalArgumentException("Invalid index settings");
+        }
+        this.flushDocuments = flushDocuments;
+        this.mergeFactor = mergeFactor;
+        this.maxDocuments = maxDocuments;
+        this.bodyTerms = bodyTerms;
+    }
+
+    /**
+     * Indexes the results of an upstream search, keeping the body of pages that were already extracted.
+     */
+    public void indexResults(List<SearchResult> results, long nowMillis) {
+        if (results == null || results.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<IndexedDocument> documents = new ArrayList<>(results.size());
+        for (SearchResult result : results) {
+            if (result.getUrl() == null || result.getUrl().isBlank()) {
+                continue;
+            }
+            Map<String, Float> fields = new HashMap<>();
+            addField(fields, result.getTitle(), TITLE_WEIGHT);
+            addField(fields, result.getUrl(), URL_WEIGHT);
+            addField(fields, result.getSummary(), SUMMARY_WEIGHT);
+            documents.add(document(result.getUrl(), result.getTitle(), result.getSummary(), fields,
+                    null, null, nowMillis));
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (IndexedDocument document : documents) {
+                DocRef previous = live.get(document.getUrl());
+                if (previous != null && previous.segment().document(previous.doc()).bodyTerms().length > 0) {
+                    IndexedDocument body = previous.segment().document(previous.doc());
+                    document = withBody(document, body.bodyTerms(), body.bodyWeights(), nowMillis);
+                }
+                addLocked(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        recordIndexing(documents.size(), start);
+    }
+
+    /**
+     * Indexes the extracted body of a page. Title and summary come from its search result if it was
+     * already indexed, otherwise from the extracted title and the start of the body.
+     */
+    public void indexContent(String url, String title, String body, long nowMillis) {
+        if (url == null || url.isBlank()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Map<String, Float> bodyCounts = new HashMap<>();
+        for (String token : SavedItemSearchIndex.tokenize(body)) {
+            bodyCounts.merge(token, 1f, Float::sum);
+        }
+        // Keep the most frequent terms, damped so a long page doesn't drown its title
+        List<Map.Entry<String, Float>> top = bodyCounts.entrySet().stream()
+                .sorted(Map.Entry.<String, Float>comparingByValue().reversed())
+                .limit(bodyTerms)
+                .toList();
+        String[] terms = new String[top.size()];
+        float[] weights = new float[top.size()];
+        for (int i = 0; i < top.size(); i++) {
+            terms[i] = top.get(i).getKey();
+            weights[i] = BODY_WEIGHT * (1 + (float) Math.log(top.get(i).getValue()));
+        }
+
+        lock.writeLock().lock();
+        try {
+            DocRef previous = live.get(url);
+            IndexedDocument document;
+            if (previous != null) {
+                document = withBody(previous.segment().document(previous.doc()), terms, weights, nowMillis);
+            } else {
+                Map<String, Float> fields = new HashMap<>();
+                addField(fields, title, TITLE_WEIGHT);
+                addField(fields, url, URL_WEIGHT);
+                String summary = body == null ? "" : body.length() > CONTENT_SUMMARY_LENGTH
+                        ? body.substring(0, CONTENT_SUMMARY_LENGTH) + "..." : body;
+                document = document(url, title, summary, fields, terms, weights, nowMillis);
+            }
+            addLocked(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        recordIndexing(1, start);
+    }
+
+    /**
+     * Returns the best matching documents, highest score first.
+     *
+     * @param minIndexedAt documents indexed before this (epoch millis) are skipped
+     * @param requireAllTerms whether only documents containing every query term are returned
+     */
+    public List<Hit> search(String query, int limit, long minIndexedAt, boolean requireAllTerms) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(SavedItemSearchIndex.tokenize(query)));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            int docCount = live.size();
+            if (docCount == 0) {
+                return List.of();
+            }
+            double avgLength = totalLength / docCount;
+            List<IndexSegment> searched = new ArrayList<>(segments);
+            searched.add(buffer);
+            // Document frequencies include deleted documents until their segment is merged, as in Lucene:
+            // it saves a pass over the postings and barely moves the scores
+            double[] idf = new double[queryTerms.size()];
+            for (int t = 0; t < queryTerms.size(); t++) {
+                int df = 0;
+                for (IndexSegment segment : searched) {
+                    IndexSegment.Postings postings = segment.postings(queryTerms.get(t));
+                    df += postings != null ? postings.size : 0;
+                }
+                if (df == 0 && requireAllTerms) {
+                    return List.of();
+                }
+                df = Math.min(df, docCount);
+                idf[t] = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+            }
+
+            PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+            for (IndexSegment segment : searched) {
+                // Dense accumulators by document number; cheaper than a map once a term is common
+                double[] scores = null;
+                int[] matched = null;
+                for (int t = 0; t < queryTerms.size(); t++) {
+                    IndexSegment.Postings postings = segment.postings(queryTerms.get(t));
+                    if (postings == null) {
+                        continue;
+                    }
+                    if (scores == null) {
+                        scores = new double[segment.size()];
+                        matched = new int[segment.size()];
+                    }
+                    for (int i = 0; i < postings.size; i++) {
+                        int doc = postings.docs[i];
+                        double tf = postings.weights[i];
+                        double length = segment.document(doc).length();
+                        scores[doc] += idf[t] * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+                        matched[doc]++;
+                    }
+                }
+                if (scores == null) {
+                    continue;
+                }
+                int required = requireAllTerms ? queryTerms.size() : 1;
+                for (int doc = 0; doc < scores.length; doc++) {
+                    if (matched[doc] < required || segment.isDeleted(doc)
+                            || segment.document(doc).getIndexedAt() < minIndexedAt) {
+                        continue;
+                    }
+                    top.offer(new Hit(segment.document(doc), scores[doc], matched[doc]));
+                    if (top.size() > limit) {
+                        top.poll();
+                    }
+                }
+            }
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(Comparator.comparingDouble(Hit::score).reversed());
+            return ranked;
+        } finally {
+            lock.readLock().unlock();
+            queries.incrementAndGet();
+            queryNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the matches of a query if the index covers it well enough to answer without the upstream: at
+     * least {@code minResults} documents indexed since {@code minIndexedAt} contain every query term, or
+     * {@code limit} documents if that is fewer.
+     *
+     * @return the best matches, highest score first, or empty if the index doesn't cover the query
+     */
+    public Optional<List<Hit>> searchCovered(String query, int limit, int minResults, long minIndexedAt) {
+        List<Hit> hits = search(query, limit, minIndexedAt, true);
+        if (hits.size() < Math.min(minResults, limit)) {
+            return Optional.empty();
+        }
+        return Optional.of(hits);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return sealed segments, plus the buffer if it holds documents
+     */
+    public int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size() + (buffer.size() > 0 ? 1 : 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getIndexedDocuments() {
+        return indexedDocuments.get();
+    }
+
+    public double getIndexSeconds() {
+        return indexNanos.get() / 1e9;
+    }
+
+    public long getQueryCount() {
+        return queries.get();
+    }
+
+    public double getQuerySeconds() {
+        return queryNanos.get() / 1e9;
+    }
+
+    public long getMergeCount() {
+        return merges.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public void close() {
+        merger.shutdownNow();
+    }
+
+    private void addLocked(IndexedDocument document) {
+        DocRef previous = live.remove(document.getUrl());
+        if (previous != null) {
+            deleteLocked(previous);
+        }
+        int doc = buffer.add(document);
+        live.put(document.getUrl(), new DocRef(buffer, doc));
+        totalLength += document.length();
+
+        Iterator<DocRef> eldest = live.values().iterator();
+        while (live.size() > maxDocuments) {
+            DocRef evicted = eldest.next();
+            eldest.remove();
+            deleteLocked(evicted);
+            evictions.incrementAndGet();
+        }
+
+        if (buffer.size() >= flushDocuments) {
+            buffer.seal();
+            segments.add(buffer);
+            buffer = new IndexSegment();
+            scheduleMerge();
+        }
+    }
+
+    private void deleteLocked(DocRef ref) {
+        ref.segment().delete(ref.doc());
+        totalLength -= ref.segment().document(ref.doc()).length();
+    }
+
+    private void scheduleMerge() {
+        if (mergeScheduled.compareAndSet(false, true)) {
+            try {
+                merger.execute(this::mergeSegments);
+            } catch (RejectedExecutionException e) {
+                // Closed
+                mergeScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Merges until no tier holds {@code mergeFactor} segments and no segment is mostly deleted.
+     */
+    private void mergeSegments() {
+        try {
+            List<IndexSegment> candidates;
+            while (!(candidates = pickMerge()).isEmpty()) {
+                merge(candidates);
+            }
+        } catch (RuntimeException e) {
+            log.error("Search index merge failed", e);
+        } finally {
+            mergeScheduled.set(false);
+        }
+    }
+
+    private List<IndexSegment> pickMerge() {
+        lock.readLock().lock();
+        try {
+            for (IndexSegment segment : segments) {
+                if (segment.deletedCount() > 0 && segment.deletedCount() * 2 >= segment.size()) {
+                    return List.of(segment);
+                }
+            }
+            // Tier 0 holds segments up to mergeFactor x flushDocuments live documents, tier 1 up to mergeFactor^2 x ...
+            Map<Integer, List<IndexSegment>> tiers = new HashMap<>();
+            for (IndexSegment segment : segments) {
+                int tier = (int) (Math.log(Math.max(1.0, (double) segment.liveCount() / flushDocuments))
+                        / Math.log(mergeFactor));
+                List<IndexSegment> tierSegments = tiers.computeIfAbsent(tier, t -> new ArrayList<>());
+                tierSegments.add(segment);
+                if (tierSegments.size() == mergeFactor) {
+                    return List.copyOf(tierSegments);
+                }
+            }
+            return List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void merge(List<IndexSegment> candidates) {
+        // Sealed segments never gain documents, so only their deletions need the lock
+        List<DocRef> sources = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (IndexSegment segment : candidates) {
+                for (int doc = 0; doc < segment.size(); doc++) {
+                    if (!segment.isDeleted(doc)) {
+                        sources.add(new DocRef(segment, doc));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        IndexSegment merged = new IndexSegment();
+        for (DocRef source : sources) {
+            merged.add(source.segment().document(source.doc()));
+        }
+        merged.seal();
+
+        lock.writeLock().lock();
+        try {
+            for (int doc = 0; doc < sources.size(); doc++) {
+                DocRef source = sources.get(doc);
+                String url = source.segment().document(source.doc()).getUrl();
+                if (source.equals(live.get(url))) {
+                    // Keeps the URL's position in the eviction order
+                    live.put(url, new DocRef(merged, doc));
+                } else {
+                    // Replaced or evicted while the merge ran; already subtracted from the total length
+                    merged.delete(doc);
+                }
+            }
+            segments.removeAll(candidates);
+            if (merged.liveCount() > 0) {
+                segments.add(merged);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        merges.incrementAndGet();
+        log.debug("Merged {} index segments into one of {} documents", candidates.size(), merged.liveCount());
+    }
+
+    private void recordIndexing(int documents, long startNanos) {
+        indexedDocuments.addAndGet(documents);
+        indexNanos.addAndGet(System.nanoTime() - startNanos);
+    }
+
+    private static void addField(Map<String, Float> terms, String text, float weight) {
+        for (String token : SavedItemSearchIndex.tokenize(text)) {
+            terms.merge(token, weight, Float::sum);
+        }
+    }
+
+    private static IndexedDocument document(String url, String title, String summary, Map<String, Float> fields,
+                                            String[] bodyTerms, float[] bodyWeights, long indexedAt) {
+        Map<String, Float> terms = new HashMap<>(fields);
+        if (bodyTerms != null) {
+            for (int i = 0; i < bodyTerms.length; i++) {
+                terms.merge(bodyTerms[i], bodyWeights[i], Float::sum);
+            }
+        }
+        String[] termArray = new String[terms.size()];
+        float[] weightArray = new float[terms.size()];
+        int i = 0;
+        for (Map.Entry<String, Float> term : terms.entrySet()) {
+            termArray[i] = term.getKey();
+            weightArray[i++] = term.getValue();
+        }
+        return new IndexedDocument(url, title, summary, termArray, weightArray,
+                bodyTerms != null ? bodyTerms : new String[0], bodyWeights != null ? bodyWeights : new float[0],
+                indexedAt);
+    }
+
+    /**
+     * @return the document with its body terms replaced
+     */
+    private static IndexedDocument withBody(IndexedDocument document, String[] bodyTerms, float[] bodyWeights,
+                                            long indexedAt) {
+        // Strip the old body weights from the combined terms to get the fields back
+        Map<String, Float> fields = new HashMap<>();
+        for (int i = 0; i < document.terms().length; i++) {
+            fields.put(document.terms()[i], document.weights()[i]);
+        }
+        for (int i = 0; i < document.bodyTerms().length; i++) {
+            String term = document.bodyTerms()[i];
+            float remaining = fields.get(term) - document.bodyWeights()[i];
+            if (remaining <= 1e-6f) {
+                fields.remove(term);
+            } else {
+                fields.put(term, remaining);
+            }
+        }
+        return document(document.getUrl(), document.getTitle(), document.getSummary(), fields,
+                bodyTerms, bodyWeights, indexedAt);
+    }
+}
@@ -0,0 +1,97 @@
+package com.googlev1.service.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AIMD concurrency limiter for an upstream dependency.
+ * <p>
+ * At most {@code limit} calls may be in flight. Each call that completes fast while the limiter is
+ * saturated raises the limit by {@code 1/limit} (about +1 per round trip of a full window); each
+ * failure, timeout or slow call multiplies it by {@code backoffRatio}. Calls beyond the limit are
+ * rejected immediately instead of queueing on a degraded upstream.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long slowCallNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, Duration slowCallThreshold) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+    }
+
+    /**
+     * @return true if the caller got a slot and must later call {@link #onSuccess}, {@link #onDropped}
+     *         or {@link #onIgnored}; false if the limit is reached
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases the slot for a call that completed; slow calls count as drops.
+     */
+    public void onSuccess(long durationNanos) {
+        if (durationNanos >= slowCallNanos) {
+            onDropped();
+            return;
+        }
+        int inFlightBefore = inFlight.getAndDecrement();
+        // Only grow when the limit was actually the constraint, otherwise it would drift up while idle
+        if (inFlightBefore * 2 >= (int) limit) {
+            synchronized (this) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        }
+    }
+
+    /**
+     * Releases the slot for a call that failed or timed out and backs off the limit.
+     */
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        }
+    }
+
+    /**
+     * Releases the slot without touching the limit (the call never reached the upstream).
+     */
+    public void onIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
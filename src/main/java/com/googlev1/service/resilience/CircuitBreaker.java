@@ -0,0 +1,202 @@
+package com.googlev1.service.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker guarding an upstream dependency.
+ * <p>
+ * CLOSED: calls flow; the outcome of the last {@code windowSize} calls is recorded and the breaker
+ * opens when the failure rate or the slow-call rate crosses its threshold (after {@code minimumCalls}).
+ * OPEN: calls are rejected immediately until {@code openDuration} has passed.
+ * HALF_OPEN: a few trial calls are let through; if they all succeed the breaker closes, otherwise it re-opens.
+ * <p>
+ * Methods are synchronized: they run once per upstream call, which is orders of magnitude
+ * more expensive than an uncontended lock.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallDurationNanos;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoClock;
+
+    // Ring buffer of recent outcomes
+    private final boolean[] failures;
+    private final boolean[] slowCalls;
+    private int position;
+    private int recorded;
+    private int failureCount;
+    private int slowCount;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int halfOpenPermitsIssued;
+    private int halfOpenSuccesses;
+    private long transitionCount;
+    private LocalDateTime lastTransition;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          double slowCallRateThreshold, Duration slowCallDuration, Duration openDuration,
+                          int halfOpenCalls) {
+        this(name, windowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold, slowCallDuration,
+                openDuration, halfOpenCalls, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock source of {@link System#nanoTime}-like readings that times the open period
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          double slowCallRateThreshold, Duration slowCallDuration, Duration openDuration,
+                          int halfOpenCalls, LongSupplier nanoClock) {
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallDurationNanos = slowCallDuration.toNanos();
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.failures = new boolean[windowSize];
+        this.slowCalls = new boolean[windowSize];
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Asks whether a call may go upstream. Every granted permission must be followed by exactly one
+     * of {@link #onSuccess}, {@link #onError} or {@link #releasePermission}.
+     *
+     * @return true if the call may proceed, false if it should fail fast
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAtNanos < openDurationNanos) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermitsIssued >= halfOpenCalls) {
+                return false;
+            }
+            halfOpenPermitsIssued++;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a permission that was granted but not used (e.g. the call was rejected by another limiter).
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenPermitsIssued > 0) {
+            halfOpenPermitsIssued--;
+        }
+    }
+
+    public synchronized void onSuccess(long durationNanos) {
+        boolean slow = durationNanos >= slowCallDurationNanos;
+        if (state == State.HALF_OPEN) {
+            if (slow) {
+                transitionTo(State.OPEN);
+            } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        record(false, slow);
+    }
+
+    public synchronized void onError(long durationNanos) {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+            return;
+        }
+        record(true, durationNanos >= slowCallDurationNanos);
+    }
+
+    public synchronized State getState() {
+        // Report HALF_OPEN as soon as the open period is over, even before the next call arrives
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAtNanos >= openDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0 : 100.0 * failureCount / recorded;
+    }
+
+    public synchronized double getSlowCallRate() {
+        return recorded == 0 ? 0 : 100.0 * slowCount / recorded;
+    }
+
+    public synchronized long getTransitionCount() {
+        return transitionCount;
+    }
+
+    public synchronized LocalDateTime getLastTransition() {
+        return lastTransition;
+    }
+
+    private void record(boolean failure, boolean slow) {
+        if (recorded == windowSize) {
+            if (failures[position]) {
+                failureCount--;
+            }
+            if (slowCalls[position]) {
+                slowCount--;
+            }
+        } else {
+            recorded++;
+        }
+        failures[position] = failure;
+        slowCalls[position] = slow;
+        if (failure) {
+            failureCount++;
+        }
+        if (slow) {
+            slowCount++;
+        }
+        position = (position + 1) % windowSize;
+
+        if (state == State.CLOSED && recorded >= minimumCalls
+                && (getFailureRate() >= failureRateThreshold || getSlowCallRate() >= slowCallRateThreshold)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State next) {
+        log.warn("Circuit breaker '{}' {} -> {} (failureRate={}%, slowCallRate={}%)",
+                name, state, next, Math.round(getFailureRate()), Math.round(getSlowCallRate()));
+        state = next;
+        transitionCount++;
+        lastTransition = LocalDateTime.now();
+        if (next == State.OPEN) {
+            openedAtNanos = nanoClock.getAsLong();
+        }
+        if (next == State.HALF_OPEN) {
+            halfOpenPermitsIssued = 0;
+            halfOpenSuccesses = 0;
+        }
+        if (next == State.CLOSED) {
+            // Start from a clean window so the failures that opened the breaker don't re-open it
+            position = 0;
+            recorded = 0;
+            failureCount = 0;
+            slowCount = 0;
+        }
+    }
+}
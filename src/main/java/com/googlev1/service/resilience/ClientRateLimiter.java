@@ -0,0 +1,60 @@
+package com.googlev1.service.resilience;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets, so a single client can't use up the shared upstream budget.
+ * Buckets live in a {@link ConcurrentHashMap}, so clients never contend on a common lock;
+ * buckets that have refilled completely are dropped periodically.
+ */
+public class ClientRateLimiter {
+
+    private final double tokensPerSecond;
+    private final int capacity;
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public ClientRateLimiter(double tokensPerSecond, int capacity) {
+        this.tokensPerSecond = tokensPerSecond;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param clientKey identifies the client (e.g. its address)
+     * @return true if the request is allowed
+     */
+    public boolean tryAcquire(String clientKey) {
+        TokenBucket bucket = buckets.computeIfAbsent(clientKey, key -> new TokenBucket(tokensPerSecond, capacity));
+        if (bucket.tryConsume()) {
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return seconds the client should wait before retrying, at least 1
+     */
+    public long retryAfterSeconds(String clientKey) {
+        TokenBucket bucket = buckets.get(clientKey);
+        long nanos = bucket == null ? 0 : bucket.nanosUntilNextToken();
+        return Math.max(1, (nanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void evictIdleClients() {
+        buckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    public int getTrackedClients() {
+        return buckets.size();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,131 @@
+package com.googlev1.service.resilience;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when a second (hedge) request should be sent to an upstream whose first request is slow.
+ * <p>
+ * The hedge delay is a percentile of recently observed latencies, so only the slowest few percent of
+ * calls are hedged. Hedges are further capped by a token budget: every upstream request earns
+ * {@code maxHedgeRatio} tokens and every hedge spends one, so hedging can never add more than that
+ * fraction of extra upstream volume, even when the upstream slows down as a whole.
+ */
+public class HedgingPolicy {
+
+    private static final int SAMPLE_SIZE = 512;
+    private static final int MIN_SAMPLES = 20;
+    private static final int REFRESH_EVERY = 32;
+    private static final double MAX_TOKENS = 10;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double maxHedgeRatio;
+
+    // Ring buffer of recent successful call latencies
+    private final long[] samples = new long[SAMPLE_SIZE];
+    private int position;
+    private int count;
+    private int recordsSinceRefresh;
+    private volatile long percentileNanos = -1;
+
+    private double tokens;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedgesSent = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    public HedgingPolicy(boolean enabled, double percentile, Duration minDelay, double maxHedgeRatio) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxHedgeRatio = maxHedgeRatio;
+    }
+
+    /**
+     * Called once per upstream request, before it is sent.
+     *
+     * @param remaining time left before the request's deadline
+     * @return the delay after which a hedge may be sent, or empty if this request should not be hedged
+     */
+    public synchronized Optional<Duration> hedgeDelay(Duration remaining) {
+        requests.incrementAndGet();
+        tokens = Math.min(MAX_TOKENS, tokens + maxHedgeRatio);
+        if (!enabled || percentileNanos < 0) {
+            return Optional.empty();
+        }
+        long delay = Math.max(minDelayNanos, percentileNanos);
+        // A hedge that can't finish before the deadline would only add load
+        if (delay >= remaining.toNanos()) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofNanos(delay));
+    }
+
+    /**
+     * Checks for a hedge token without spending it, so a caller can skip taking other permits for a hedge
+     * that {@link #tryStartHedge} would refuse anyway.
+     */
+    public synchronized boolean canHedge() {
+        return tokens >= 1;
+    }
+
+    /**
+     * Spends a token when the hedge delay has passed without an answer.
+     *
+     * @return true if the hedge should be sent
+     */
+    public synchronized boolean tryStartHedge() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        hedgesSent.incrementAndGet();
+        return true;
+    }
+
+    public void onHedgeWin() {
+        hedgeWins.incrementAndGet();
+    }
+
+    /**
+     * Records the latency of a successful upstream call.
+     */
+    public synchronized void recordLatency(long durationNanos) {
+        samples[position] = durationNanos;
+        position = (position + 1) % SAMPLE_SIZE;
+        if (count < SAMPLE_SIZE) {
+            count++;
+        }
+        recordsSinceRefresh++;
+        if (count >= MIN_SAMPLES && (percentileNanos < 0 || recordsSinceRefresh >= REFRESH_EVERY)) {
+            recordsSinceRefresh = 0;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            percentileNanos = sorted[Math.max(0, Math.min(index, count - 1))];
+        }
+    }
+
+    /**
+     * @return the current latency percentile in milliseconds, or -1 until enough calls were observed
+     */
+    public long getPercentileMillis() {
+        long nanos = percentileNanos;
+        return nanos < 0 ? -1 : Duration.ofNanos(nanos).toMillis();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getHedgesSent() {
+        return hedgesSent.get();
+    }
+
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+}
@@ -0,0 +1,79 @@
+package com.googlev1.service.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket.
+ * <p>
+ * Implemented as a generic cell rate algorithm: instead of a token count and a refill timestamp, the
+ * only state is the "theoretical arrival time" at which the bucket would be full again, so a take is
+ * a single compare-and-set on one {@link AtomicLong} and nothing needs a refill thread.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param tokensPerSecond refill rate
+     * @param capacity maximum burst size
+     */
+    public TokenBucket(double tokensPerSecond, int capacity) {
+        this(tokensPerSecond, capacity, System::nanoTime);
+    }
+
+    /**
+     * @param tokensPerSecond refill rate
+     * @param capacity maximum burst size
+     * @param nanoClock monotonic time in nanoseconds, {@link System#nanoTime} outside tests
+     */
+    public TokenBucket(double tokensPerSecond, int capacity, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / tokensPerSecond));
+        this.burstNanos = intervalNanos * Math.max(1, capacity);
+        this.fullAt = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * @return true if a token was taken, false if the bucket is empty
+     */
+    public boolean tryConsume() {
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return number of whole tokens currently available
+     */
+    public long getAvailableTokens() {
+        long debt = Math.max(0, fullAt.get() - nanoClock.getAsLong());
+        return (burstNanos - debt) / intervalNanos;
+    }
+
+    /**
+     * @return nanoseconds until the next token becomes available, 0 if one is available now
+     */
+    public long nanosUntilNextToken() {
+        long wait = fullAt.get() + intervalNanos - burstNanos - nanoClock.getAsLong();
+        return Math.max(0, wait);
+    }
+
+    /**
+     * A full bucket carries no state: dropping it and creating a new one later is indistinguishable.
+     */
+    public boolean isFull() {
+        return fullAt.get() - nanoClock.getAsLong() <= 0;
+    }
+}
@@ -0,0 +1,94 @@
+package com.googlev1.service.resilience;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Budget for paid upstream calls: a global token bucket that smooths spikes, plus a daily request quota.
+ * <p>
+ * The quota state (day and count) is packed into one {@link AtomicLong}, so both checks are lock-free and
+ * the count resets on its own at midnight (UTC).
+ */
+public class UpstreamBudget {
+
+    private final TokenBucket bucket;
+    private final long dailyLimit;
+    private final Clock clock;
+
+    // epochDay in the high 32 bits, requests used that day in the low 32 bits
+    private final AtomicLong quota = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong quotaExhausted = new AtomicLong();
+
+    /**
+     * @param requestsPerSecond sustained upstream request rate
+     * @param burst how many requests may be sent at once after a quiet period
+     * @param dailyLimit maximum upstream requests per day, 0 for no limit
+     */
+    public UpstreamBudget(double requestsPerSecond, int burst, long dailyLimit) {
+        this(requestsPerSecond, burst, dailyLimit, System::nanoTime, Clock.systemUTC());
+    }
+
+    /**
+     * @param nanoClock time source of the token bucket
+     * @param clock clock whose UTC date is the quota day
+     */
+    public UpstreamBudget(double requestsPerSecond, int burst, long dailyLimit, LongSupplier nanoClock,
+                          Clock clock) {
+        this.bucket = new TokenBucket(requestsPerSecond, burst, nanoClock);
+        this.dailyLimit = dailyLimit;
+        this.clock = clock.withZone(ZoneOffset.UTC);
+    }
+
+    /**
+     * @return true if an upstream request may be sent now
+     */
+    public boolean tryAcquire() {
+        if (!bucket.tryConsume()) {
+            rateLimited.incrementAndGet();
+            return false;
+        }
+        if (dailyLimit <= 0) {
+            return true;
+        }
+        long today = LocalDate.now(clock).toEpochDay();
+        while (true) {
+            long current = quota.get();
+            long used = (current >>> 32) == today ? current & 0xffffffffL : 0;
+            if (used >= dailyLimit) {
+                quotaExhausted.incrementAndGet();
+                return false;
+            }
+            if (quota.compareAndSet(current, today << 32 | (used + 1))) {
+                return true;
+            }
+        }
+    }
+
+    public long getAvailableTokens() {
+        return bucket.getAvailableTokens();
+    }
+
+    /**
+     * @return upstream requests left today, or -1 if there is no daily limit
+     */
+    public long getRemainingQuota() {
+        if (dailyLimit <= 0) {
+            return -1;
+        }
+        long current = quota.get();
+        long used = (current >>> 32) == LocalDate.now(clock).toEpochDay() ? current & 0xffffffffL : 0;
+        return Math.max(0, dailyLimit - used);
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimited.get();
+    }
+
+    public long getQuotaExhaustedCount() {
+        return quotaExhausted.get();
+    }
+}
@@ -0,0 +1,462 @@
+package com.googlev1.service.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded key-value store for cache data that survives restarts.
+ * <p>
+ * Records are appended to a log split into fixed-size segment files, each memory-mapped; an in-memory hash index
+ * maps every key to the position of its latest record. Reads copy the value straight out of the mapping without
+ * taking a lock or making a system call. Writes (puts, deletions and compaction) are serialized by one lock.
+ * On startup the segments are scanned in order to rebuild the index; a record with a bad checksum ends its segment.
+ * <p>
+ * Overwritten and deleted records stay in their segment until it is compacted: {@link #compact()} copies the live
+ * records of sealed segments whose garbage exceeds the threshold into the active segment and deletes the file.
+ * <p>
+ * Writes land in the page cache, which outlives the process; segments are forced to disk when they are sealed and
+ * on {@link #flush()} and {@link #close()}, so a machine crash can lose only recent writes.
+ */
+@Slf4j
+public class SegmentedLogStore implements Closeable {
+
+    // crc (4), key length (4), value length (4, -1 for a deletion), written at (8), expires at (8)
+    private static final int HEADER_BYTES = 28;
+    private static final int TOMBSTONE = -1;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final double compactionThreshold;
+    private final FileChannel lockChannel;
+    private final FileLock directoryLock;
+
+    private final ConcurrentMap<String, Location> index = new ConcurrentHashMap<>();
+    private final NavigableMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private Segment active; // guarded by writeLock
+
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong reclaimedBytes = new AtomicLong();
+
+    /**
+     * A stored value with the timestamps it was written with (epoch milliseconds).
+     */
+    public record Entry(byte[] value, long writtenAt, long expiresAt) {
+    }
+
+    private record Location(Segment segment, int offset, int length, int valueOffset, int valueLength,
+                            long writtenAt, long expiresAt) {
+    }
+
+    /**
+     * Opens the store in {@code directory}, creating it if needed, and rebuilds the index from existing segments.
+     *
+     * @param segmentBytes size of each segment file; also the largest record that can be stored
+     * @param compactionThreshold fraction of a segment's bytes that must be garbage before it is compacted
+     */
+    public SegmentedLogStore(Path directory, int segmentBytes, double compactionThreshold) throws IOException {
+        if (segmentBytes <= HEADER_BYTES) {
+            throw new IllegalArgumentException("Segment size must be larger than " + HEADER_BYTES + " bytes");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.compactionThreshold = compactionThreshold;
+
+        Files.createDirectories(directory);
+        this.lockChannel = FileChannel.open(directory.resolve(".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.directoryLock = lockChannel.tryLock();
+        if (directoryLock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Cache store " + directory + " is in use by another process");
+        }
+
+        long start = System.nanoTime();
+        for (int id : existingSegmentIds()) {
+            Segment segment = openSegment(id);
+            segments.put(id, segment);
+            recover(segment);
+        }
+        active = segments.isEmpty() ? openSegment(1) : segments.lastEntry().getValue();
+        segments.putIfAbsent(active.id, active);
+        log.info("Opened cache store {}: {} entries in {} segments ({} ms)", directory.toAbsolutePath(),
+                index.size(), segments.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * @return the latest value for the key, whether or not it has expired
+     */
+    public Optional<Entry> get(String key) {
+        Location location = index.get(key);
+        if (location == null) {
+            return Optional.empty();
+        }
+        byte[] value = new byte[location.valueLength()];
+        location.segment().buffer.get(location.valueOffset(), value);
+        return Optional.of(new Entry(value, location.writtenAt(), location.expiresAt()));
+    }
+
+    /**
+     * Stores a value, replacing any previous one for the key.
+     *
+     * @throws IllegalArgumentException if the key is empty or the record doesn't fit in a segment
+     */
+    public void put(String key, byte[] value, long writtenAt, long expiresAt) {
+        if (key.isEmpty()) {
+            // A zero key length marks the end of a segment on recovery; the records after it would be lost
+            throw new IllegalArgumentException("Cache store keys must not be empty");
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        writeLock.lock();
+        try {
+            Location location = append(keyBytes, value, writtenAt, expiresAt);
+            setLocation(key, location);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return true if the key was present
+     */
+    public boolean remove(String key) {
+        return remove(key, null);
+    }
+
+    /**
+     * Deletes the key's entry if it is still the one at the expected location, or whatever it is if that is null.
+     *
+     * @return true if an entry was deleted
+     */
+    private boolean remove(String key, Location expected) {
+        writeLock.lock();
+        try {
+            Location previous = index.get(key);
+            if (previous == null || expected != null && previous != expected) {
+                return false;
+            }
+            append(key.getBytes(StandardCharsets.UTF_8), null, System.currentTimeMillis(), 0);
+            removeLocation(key, previous);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes every entry that expired before the cutoff. Works from the index; no values are read.
+     * An entry written again since it was found expired is kept.
+     *
+     * @return the number of entries deleted
+     */
+    public int removeExpiredBefore(long cutoffMillis) {
+        int removed = 0;
+        for (Map.Entry<String, Location> entry : index.entrySet()) {
+            Location location = entry.getValue();
+            if (location.expiresAt() < cutoffMillis && remove(entry.getKey(), location)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Rewrites sealed segments whose share of garbage has reached the compaction threshold.
+     *
+     * @return the number of segments compacted
+     */
+    public int compact() {
+        writeLock.lock();
+        try {
+            int compacted = 0;
+            for (Segment segment : List.copyOf(segments.values())) {
+                if (segment == active) {
+                    continue;
+                }
+                long garbage = segment.writePosition - segment.liveBytes.get();
+                if (segment.writePosition == 0 || (double) garbage / segment.writePosition >= compactionThreshold) {
+                    rewrite(segment);
+                    compacted++;
+                }
+            }
+            return compacted;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cache store compaction failed: " + e.getMessage(), e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Forces the active segment to disk.
+     */
+    public void flush() {
+        writeLock.lock();
+        try {
+            active.buffer.force();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.buffer.force();
+                segment.channel.close();
+            }
+            directoryLock.release();
+            lockChannel.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * @return bytes taken by the latest record of each key
+     */
+    public long getLiveBytes() {
+        return segments.values().stream().mapToLong(segment -> segment.liveBytes.get()).sum();
+    }
+
+    /**
+     * @return bytes written to all segments, garbage included
+     */
+    public long getWrittenBytes() {
+        return segments.values().stream().mapToLong(segment -> segment.writePosition).sum();
+    }
+
+    public long getCompactionCount() {
+        return compactions.get();
+    }
+
+    public long getReclaimedBytes() {
+        return reclaimedBytes.get();
+    }
+
+    // Must hold writeLock
+    private Location append(byte[] keyBytes, byte[] value, long writtenAt, long expiresAt) {
+        int valueLength = value == null ? TOMBSTONE : value.length;
+        long length = (long) HEADER_BYTES + keyBytes.length + Math.max(0, valueLength);
+        if (length > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + length + " bytes exceeds the segment size of "
+                    + segmentBytes + " bytes");
+        }
+        if (active.buffer.capacity() - active.writePosition < length) {
+            roll();
+        }
+
+        MappedByteBuffer buffer = active.buffer;
+        int offset = active.writePosition;
+        buffer.putInt(offset + 4, keyBytes.length);
+        buffer.putInt(offset + 8, valueLength);
+        buffer.putLong(offset + 12, writtenAt);
+        buffer.putLong(offset + 20, expiresAt);
+        buffer.put(offset + HEADER_BYTES, keyBytes);
+        if (value != null) {
+            buffer.put(offset + HEADER_BYTES + keyBytes.length, value);
+        }
+        buffer.putInt(offset, checksum(buffer, offset, (int) length));
+        active.writePosition = offset + (int) length;
+
+        return new Location(active, offset, (int) length, offset + HEADER_BYTES + keyBytes.length,
+                Math.max(0, valueLength), writtenAt, expiresAt);
+    }
+
+    // Must hold writeLock
+    private void roll() {
+        active.buffer.force();
+        try {
+            Segment next = openSegment(active.id + 1);
+            segments.put(next.id, next);
+            active = next;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create cache store segment: " + e.getMessage(), e);
+        }
+    }
+
+    private void setLocation(String key, Location location) {
+        location.segment().liveBytes.addAndGet(location.length());
+        Location previous = index.put(key, location);
+        if (previous != null) {
+            previous.segment().liveBytes.addAndGet(-previous.length());
+        }
+    }
+
+    private void removeLocation(String key, Location previous) {
+        if (index.remove(key, previous)) {
+            previous.segment().liveBytes.addAndGet(-previous.length());
+        }
+    }
+
+    /**
+     * Copies the segment's live records, and deletions that may still shadow a record in an older segment,
+     * to the active segment, then deletes the segment file. Must hold writeLock.
+     */
+    private void rewrite(Segment segment) throws IOException {
+        boolean olderSegmentExists = segments.firstKey() < segment.id;
+        MappedByteBuffer buffer = segment.buffer;
+        long copied = 0;
+        int offset = 0;
+        while (offset < segment.writePosition) {
+            int keyLength = buffer.getInt(offset + 4);
+            int valueLength = buffer.getInt(offset + 8);
+            int length = HEADER_BYTES + keyLength + Math.max(0, valueLength);
+            String key = readKey(buffer, offset, keyLength);
+
+            if (valueLength == TOMBSTONE) {
+                if (olderSegmentExists && !index.containsKey(key)) {
+                    append(key.getBytes(StandardCharsets.UTF_8), null, buffer.getLong(offset + 12), 0);
+                    copied += length;
+                }
+            } else {
+                Location current = index.get(key);
+                if (current != null && current.segment() == segment && current.offset() == offset) {
+                    byte[] value = new byte[valueLength];
+                    buffer.get(current.valueOffset(), value);
+                    setLocation(key, append(key.getBytes(StandardCharsets.UTF_8), value,
+                            current.writtenAt(), current.expiresAt()));
+                    copied += length;
+                }
+            }
+            offset += length;
+        }
+
+        // Readers still holding a location in this segment keep reading through the mapping,
+        // which stays valid after the channel is closed and the file deleted
+        segments.remove(segment.id);
+        segment.channel.close();
+        Files.deleteIfExists(segment.path);
+        compactions.incrementAndGet();
+        reclaimedBytes.addAndGet(segment.writePosition - copied);
+        log.debug("Compacted cache store segment {}: kept {} of {} bytes", segment.path.getFileName(),
+                copied, segment.writePosition);
+    }
+
+    /**
+     * Replays a segment into the index and finds its end: the first empty or corrupt record.
+     */
+    private void recover(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int capacity = buffer.capacity();
+        int offset = 0;
+        while (capacity - offset >= HEADER_BYTES) {
+            int keyLength = buffer.getInt(offset + 4);
+            int valueLength = buffer.getInt(offset + 8);
+            if (keyLength <= 0 || valueLength < TOMBSTONE) {
+                break;
+            }
+            long length = (long) HEADER_BYTES + keyLength + Math.max(0, valueLength);
+            if (length > capacity - offset || buffer.getInt(offset) != checksum(buffer, offset, (int) length)) {
+                log.warn("Cache store segment {} ends with a corrupt record at offset {}; ignoring the rest",
+                        segment.path.getFileName(), offset);
+                break;
+            }
+
+            String key = readKey(buffer, offset, keyLength);
+            if (valueLength == TOMBSTONE) {
+                Location previous = index.get(key);
+                if (previous != null) {
+                    removeLocation(key, previous);
+                }
+            } else {
+                setLocation(key, new Location(segment, offset, (int) length, offset + HEADER_BYTES + keyLength,
+                        valueLength, buffer.getLong(offset + 12), buffer.getLong(offset + 20)));
+            }
+            offset += (int) length;
+        }
+        segment.writePosition = offset;
+    }
+
+    private Segment openSegment(int id) throws IOException {
+        Path path = directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Existing segments keep the size they were created with; mapping a new file extends it (sparsely)
+        long size = channel.size() > 0 ? Math.min(channel.size(), Integer.MAX_VALUE) : segmentBytes;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        return new Segment(id, path, channel, buffer);
+    }
+
+    private List<Integer> existingSegmentIds() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            ids.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                                    name.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException e) {
+                            log.warn("Ignoring unexpected file {} in cache store {}", name, directory);
+                        }
+                    });
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private static String readKey(ByteBuffer buffer, int offset, int keyLength) {
+        byte[] keyBytes = new byte[keyLength];
+        buffer.get(offset + HEADER_BYTES, keyBytes);
+        return new String(keyBytes, StandardCharsets.UTF_8);
+    }
+
+    // Covers everything after the checksum field
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset + 4, length - 4));
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+        final int id;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final AtomicLong liveBytes = new AtomicLong();
+        // Written under writeLock; readers only follow locations published through the index
+        volatile int writePosition;
+
+        Segment(int id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.googlev1.service.tavily;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.googlev1.dto.search.SearchResult;
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental parser for the body of a Tavily search response.
+ * <p>
+ * The body is fed buffer by buffer as it arrives, straight from the network buffers, to Jackson's non-blocking
+ * parser, and the fields of each result are copied into a SearchResult as their tokens come by. Neither the body
+ * nor a tree of it is ever built. Only {@code title}, {@code url}, {@code content} and, if requested,
+ * {@code raw_content} are read; everything else is skipped without creating strings.
+ * <p>
+ * Not thread-safe; one instance per response. A malformed body doesn't fail {@link #feed}, so the transfer is
+ * not mistaken for an upstream error; {@link #finish} reports it.
+ */
+public final class TavilyResponseParser {
+
+    private enum State { ROOT_START, ROOT, RESULTS, RESULT, DONE }
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final boolean includeRawContent;
+    private final List<SearchResult> results = new ArrayList<>();
+
+    private State state = State.ROOT_START;
+    // Containers left to close in the value being skipped
+    private int skipping;
+    // Field of the root object or of the current result whose value comes next
+    private String field;
+    private SearchResult.SearchResultBuilder current;
+    private IOException failure;
+
+    /**
+     * @param includeRawContent whether to read {@code raw_content} into the results' content
+     */
+    public TavilyResponseParser(JsonFactory jsonFactory, boolean includeRawContent) {
+        try {
+            this.parser = jsonFactory.createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create JSON parser", e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        this.includeRawContent = includeRawContent;
+    }
+
+    /**
+     * Parses the next part of the body. Does not release the buffer.
+     */
+    public void feed(DataBuffer buffer) {
+        if (failure != null) {
+            return;
+        }
+        try (DataBuffer.ByteBufferIterator buffers = buffer.readableByteBuffers()) {
+            while (buffers.hasNext()) {
+                feeder.feedInput(buffers.next());
+                drain();
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Ends the body.
+     *
+     * @return the results, in the order Tavily ranked them
+     * @throws IOException if the body is empty or not valid JSON
+     */
+    public List<SearchResult> finish() throws IOException {
+        if (failure == null) {
+            feeder.endOfInput();
+            try {
+                drain();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure == null && state == State.ROOT_START) {
+            failure = new IOException("Empty response body");
+        }
+        parser.close();
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            handle(token);
+        }
+    }
+
+    private void handle(JsonToken token) throws IOException {
+        if (skipping > 0) {
+            if (token.isStructStart()) {
+                skipping++;
+            } else if (token.isStructEnd()) {
+                skipping--;
+            }
+            return;
+        }
+        switch (state) {
+            case ROOT_START -> {
+                if (token == JsonToken.START_OBJECT) {
+                    state = State.ROOT;
+                } else {
+                    skip(token);
+                    state = State.DONE;
+                }
+            }
+            case ROOT -> {
+                if (token == JsonToken.FIELD_NAME) {
+                    field = parser.currentName();
+                } else if (token == JsonToken.END_OBJECT) {
+                    state = State.DONE;
+                } else if ("results".equals(field) && token == JsonToken.START_ARRAY) {
+                    state = State.RESULTS;
+                } else {
+                    skip(token);
+                }
+            }
+            case RESULTS -> {
+                if (token == JsonToken.START_OBJECT) {
+                    current = SearchResult.builder().title("").url("").summary("").content("");
+                    state = State.RESULT;
+                } else if (token == JsonToken.END_ARRAY) {
+                    state = State.ROOT;
+                } else {
+                    skip(token);
+                }
+            }
+            case RESULT -> {
+                if (token == JsonToken.FIELD_NAME) {
+                    field = parser.currentName();
+                } else if (token == JsonToken.END_OBJECT) {
+                    results.add(current.build());
+                    current = null;
+                    state = State.RESULTS;
+                } else if (token.isScalarValue() && isRead(field)) {
+                    String text = token == JsonToken.VALUE_NULL ? "" : parser.getText();
+                    switch (field) {
+                        case "title" -> current.title(text);
+                        case "url" -> current.url(text);
+                        case "content" -> current.summary(text);
+                        default -> current.content(text);
+                    }
+                } else {
+                    skip(token);
+                }
+            }
+            case DONE -> skip(token);
+        }
+    }
+
+    private boolean isRead(String field) {
+        return switch (field) {
+            case "title", "url", "content" -> true;
+            case "raw_content" -> includeRawContent;
+            default -> false;
+        };
+    }
+
+    /**
+     * Skips a value; a container is skipped along with everything in it.
+     */
+    private void skip(JsonToken token) {
+        if (token.isStructStart()) {
+            skipping = 1;
+        }
+    }
+}
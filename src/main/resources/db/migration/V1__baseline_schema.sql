@@ -0,0 +1,73 @@
+-- Baseline schema for the prod (MySQL) profile.
+-- Mirrors the JPA entities; Hibernate runs with ddl-auto=validate on top of it.
+-- Written in the MySQL dialect that H2 also accepts in MODE=MySQL, so the h2mysql profile can run it locally.
+
+CREATE TABLE search_cache (
+    id            BIGINT       NOT NULL AUTO_INCREMENT,
+    query         VARCHAR(255) NOT NULL,
+    search_type   VARCHAR(255) NOT NULL,
+    -- MEDIUMTEXT: a full response can exceed TEXT's 64 KB limit on MySQL
+    response_json MEDIUMTEXT   NOT NULL,
+    created_at    DATETIME(6)  NOT NULL,
+    expires_at    DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_search_cache_query_type UNIQUE (query, search_type)
+);
+-- Hourly eviction deletes by expires_at
+CREATE INDEX idx_search_cache_expires_at ON search_cache (expires_at);
+
+CREATE TABLE search_history (
+    id            BIGINT       NOT NULL AUTO_INCREMENT,
+    query         VARCHAR(255) NOT NULL,
+    search_type   VARCHAR(255),
+    results_count INT,
+    searched_at   DATETIME(6),
+    PRIMARY KEY (id)
+);
+-- Recent history is read newest first
+CREATE INDEX idx_search_history_searched_at ON search_history (searched_at);
+
+CREATE TABLE content_cache (
+    id         BIGINT        NOT NULL AUTO_INCREMENT,
+    url        VARCHAR(2048) NOT NULL,
+    title      VARCHAR(512),
+    -- @Lob column: LONGTEXT on MySQL; H2 reads LONGTEXT as VARCHAR, so h2mysql uses CLOB (placeholder)
+    body       ${lob_text_type} NOT NULL,
+    word_count INT           NOT NULL,
+    fetched_at DATETIME(6)   NOT NULL,
+    PRIMARY KEY (id)
+);
+-- InnoDB keys are limited to 3072 bytes (768 utf8mb4 characters), so on MySQL only a prefix of the
+-- 2048-character URL is indexed (placeholder "(768)"); URLs sharing their first 768 characters are
+-- treated as duplicates. H2 has no prefix indexes, so the h2mysql profile sets the placeholder to empty.
+CREATE UNIQUE INDEX uk_content_cache_url ON content_cache (url${content_url_key_prefix});
+-- Stale entry eviction deletes by fetched_at
+CREATE INDEX idx_content_cache_fetched_at ON content_cache (fetched_at);
+
+CREATE TABLE saved_items (
+    id         BIGINT        NOT NULL AUTO_INCREMENT,
+    title      VARCHAR(255)  NOT NULL,
+    url        VARCHAR(255)  NOT NULL,
+    summary    VARCHAR(1000),
+    notes      VARCHAR(2000),
+    saved_date DATETIME(6)   NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_saved_items_url UNIQUE (url)
+);
+-- Keyset pagination orders by (saved_date, id)
+CREATE INDEX idx_saved_items_saved_date ON saved_items (saved_date, id);
+
+CREATE TABLE user_preference (
+    id                 BIGINT       NOT NULL AUTO_INCREMENT,
+    default_query      VARCHAR(255),
+    default_type       VARCHAR(255),
+    theme              VARCHAR(255),
+    show_advanced_tips BIT,
+    updated_at         TIMESTAMP    DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_user_preference_updated_at ON user_preference (updated_at);
+
+-- Default preferences (data.sql does this for the in-memory dev database)
+INSERT INTO user_preference (default_query, default_type, theme, show_advanced_tips, updated_at)
+VALUES ('latest news', 'general', 'light', TRUE, CURRENT_TIMESTAMP);
@@ -0,0 +1,2 @@
+-- Per-entry TTL of search cache entries (see AdaptiveTtlPolicy); null for entries cached before
+ALTER TABLE search_cache ADD COLUMN ttl_seconds INT;
@@ -0,0 +1,4 @@
+-- Search options that are part of the cache key (see SearchOptions); entries cached before were basic searches
+ALTER TABLE search_cache ADD COLUMN search_options VARCHAR(32) NOT NULL DEFAULT 'basic';
+ALTER TABLE search_cache DROP CONSTRAINT uk_search_cache_query_type;
+ALTER TABLE search_cache ADD CONSTRAINT uk_search_cache_query_type_options UNIQUE (query, search_type, search_options);
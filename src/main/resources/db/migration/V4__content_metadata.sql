@@ -0,0 +1,4 @@
+-- Page metadata read along with the main content (see MainContentExtractor); null for pages extracted before
+ALTER TABLE content_cache ADD COLUMN lang VARCHAR(35);
+ALTER TABLE content_cache ADD COLUMN canonical_url VARCHAR(2048);
+ALTER TABLE content_cache ADD COLUMN published_at VARCHAR(40);
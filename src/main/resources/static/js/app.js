@@ -48,9 +48,6 @@ async function initializeApp() {
     // Check API status
     checkApiStatus();
     
-    // Load saved URLs for quick checking
-    await loadSavedUrls();
-    
     // Setup event listeners
     setupEventListeners();
     
@@ -150,7 +147,7 @@ async function handleSearch(e) {
         const response = await fetch(API.search, {
             method: 'POST',
             headers: { 'Content-Type': 'application/json' },
-            body: JSON.stringify({ query, searchType })
+            body: JSON.stringify({ query, searchType, includeSavedStatus: true })
         });
         
         if (!response.ok) {
@@ -160,6 +157,9 @@ async function handleSearch(e) {
         const data = await response.json();
         currentResults = data.results || [];
         
+        // Results come back annotated with saved status, no need to load every saved item
+        currentResults.filter(result => result.saved).forEach(result => savedUrls.add(result.url));
+        
         // Save to history
         await saveToHistory(query, searchType, currentResults.length);
         
@@ -356,16 +356,6 @@ function formatContent(text) {
 // Save Functionality
 // ============================================
 
-async function loadSavedUrls() {
-    try {
-        const response = await fetch(API.savedItems);
-        const items = await response.json();
-        savedUrls = new Set(items.map(item => item.url));
-    } catch (error) {
-        console.error('Error loading saved items:', error);
-    }
-}
-
 async function saveResult(result, buttonElement = null) {
     try {
         // Use content as fallback for summary (Tavily API returns content field)
@@ -7,6 +7,7 @@
 const API_BASE = '/api';
 const PREFERENCES_ENDPOINT = `${API_BASE}/preferences/search`;
 const NAVIGATION_ENDPOINT = `${API_BASE}/navigation`;
+const PREFERENCES_STREAM_ENDPOINT = `${API_BASE}/preferences/stream`;
 
 // Load saved theme from localStorage immediately (before page renders)
 const savedTheme = localStorage.getItem('theme');
@@ -27,6 +28,9 @@ document.addEventListener('DOMContentLoaded', async () => {
     // Load and apply preferences on ALL pages
     await loadPreferences();
 
+    // Keep preferences in sync with changes made in other tabs
+    subscribeToPreferenceChanges();
+
     // Setup preferences panel on all pages
     setupPreferencesPanel();
 
@@ -200,6 +204,37 @@ async function loadPreferences() {
     }
 }
 
+/**
+ * Listen for preference changes pushed by the server instead of polling.
+ * Only the theme and the preferences panel are refreshed, so a query being typed is never overwritten.
+ */
+function subscribeToPreferenceChanges() {
+    if (!window.EventSource) {
+        return;
+    }
+
+    const source = new EventSource(PREFERENCES_STREAM_ENDPOINT);
+    source.addEventListener('preferences', (event) => {
+        const prefs = JSON.parse(event.data);
+        if (prefs.theme === 'dark') {
+            document.body.classList.add('dark-theme');
+        } else {
+            document.body.classList.remove('dark-theme');
+        }
+        localStorage.setItem('theme', prefs.theme || 'light');
+
+        const themePref = document.getElementById('themePref');
+        if (themePref && prefs.theme) {
+            themePref.value = prefs.theme;
+        }
+
+        const tipsCheckbox = document.getElementById('tipsCheckbox');
+        if (tipsCheckbox && prefs.showAdvancedTips !== undefined) {
+            tipsCheckbox.checked = prefs.showAdvancedTips;
+        }
+    });
+}
+
 /**
  * Apply preferences to the UI
  */
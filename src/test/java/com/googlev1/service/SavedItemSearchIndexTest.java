@@ -0,0 +1,79 @@
+package com.googlev1.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SavedItemSearchIndexTest {
+
+    private final SavedItemSearchIndex index = new SavedItemSearchIndex();
+
+    @Test
+    void matchInTitleOutranksNotesUrlAndSummary() {
+        // Every item holds the same four words, so only the field holding "kayak" differs
+        index.index(1L, "alpha", "beta", "kayak", "gamma");
+        index.index(2L, "alpha", "kayak", "beta", "gamma");
+        index.index(3L, "kayak", "alpha", "beta", "gamma");
+        index.index(4L, "alpha", "beta", "gamma", "kayak");
+
+        assertThat(index.search("kayak", 10)).containsExactly(3L, 4L, 2L, 1L);
+    }
+
+    @Test
+    void lastQueryTermAlsoMatchesAsPrefix() {
+        index.index(1L, "River restoration", null, null, null);
+        index.index(2L, "River trips", null, null, null);
+        index.index(3L, "Resto", null, null, null);
+
+        // An exact match scores above a prefix expansion
+        assertThat(index.search("resto", 10)).containsExactly(3L, 1L);
+        // Only the last term is expanded
+        assertThat(index.search("resto river", 10)).containsExactlyInAnyOrder(3L, 1L, 2L);
+        assertThat(index.search("restorat trip", 10)).containsExactly(2L);
+        assertThat(index.search("rive", 10)).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void reindexingReplacesPreviousVersion() {
+        index.index(1L, "Kayak guide", null, null, null);
+        index.index(1L, "Canoe guide", null, null, "bring a paddle");
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("kayak", 10)).isEmpty();
+        assertThat(index.search("canoe", 10)).containsExactly(1L);
+        assertThat(index.search("paddle", 10)).containsExactly(1L);
+    }
+
+    @Test
+    void removedItemIsNoLongerFound() {
+        index.index(1L, "Kayak guide", null, null, null);
+        index.index(2L, "Kayak shop", null, null, null);
+
+        index.remove(1L);
+        index.remove(42L);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("kayak", 10)).containsExactly(2L);
+        assertThat(index.search("guide", 10)).isEmpty();
+    }
+
+    @Test
+    void ignoresStopWordsSingleCharactersAndCase() {
+        index.index(1L, "The KAYAK of a river", null, null, null);
+
+        assertThat(index.search("the of a", 10)).isEmpty();
+        assertThat(index.search("Kayak", 10)).containsExactly(1L);
+        assertThat(SavedItemSearchIndex.tokenize("The x KAYAK, https://www.river.com"))
+                .containsExactly("kayak", "river");
+    }
+
+    @Test
+    void returnsAtMostLimitBestFirst() {
+        index.index(1L, "kayak", null, "kayak", null);
+        index.index(2L, "kayak", null, null, null);
+        index.index(3L, null, null, "kayak", null);
+
+        assertThat(index.search("kayak", 2)).containsExactly(1L, 2L);
+        assertThat(index.search("kayak", 0)).isEmpty();
+    }
+}
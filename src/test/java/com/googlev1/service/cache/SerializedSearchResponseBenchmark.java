@@ -0,0 +1,82 @@
+package com.googlev1.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.googlev1.dto.search.SearchResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+
+/**
+ * Compares the two ways a cache hit is answered: reading the cached JSON into a SearchResponse and writing it
+ * out again, as on the first hit of an entry, and writing the SerializedSearchResponse held since then. Reports
+ * the time and the bytes allocated per hit, measured with the thread's allocation counter, for responses of 1,
+ * 5 and 20 results.
+ * <p>
+ * Not part of the regular build; run with {@code mvn test -Dtest=SerializedSearchResponseBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SerializedSearchResponseBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int HITS = 100_000;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void compareHitPaths() throws IOException {
+        for (int resultCount : new int[] {1, 5, 20}) {
+            SearchResponse response = SerializedSearchResponseTest.response(resultCount);
+            response.setMaxResults(resultCount);
+            String json = objectMapper.writeValueAsString(response);
+            SerializedSearchResponse serialized = SerializedSearchResponse.of(objectMapper, response).orElseThrow();
+            // Sized once, as the servlet's response buffer is
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length() * 2);
+
+            Hit deserialize = () -> {
+                SearchResponse cached = objectMapper.readValue(json, SearchResponse.class);
+                cached.setFromCache(true);
+                cached.setTimestamp(LocalDateTime.now());
+                out.reset();
+                objectMapper.writeValue(out, cached);
+            };
+            Hit write = () -> {
+                out.reset();
+                serialized.writeTo(out, LocalDateTime.now());
+            };
+
+            System.out.printf("%2d results, %6d bytes: %s; %s%n", resultCount, json.length(),
+                    measure("read and write", deserialize), measure("serialized", write));
+        }
+    }
+
+    private String measure(String name, Hit hit) throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            hit.run();
+        }
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < HITS; i++) {
+            hit.run();
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        return String.format("%s %6.2f us, %6d B per hit", name, nanos / 1e3 / HITS, allocated / HITS);
+    }
+
+    @FunctionalInterface
+    private interface Hit {
+
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,148 @@
+package com.googlev1.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.googlev1.dto.search.SearchResponse;
+import com.googlev1.dto.search.SearchResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SerializedSearchResponseTest {
+
+    // Configured as Spring Boot configures the application's object mapper
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Test
+    void writesSameBytesAsObjectMapperForEveryFractionWidth() throws IOException {
+        SearchResponse response = response(3);
+        SerializedSearchResponse serialized = SerializedSearchResponse.of(objectMapper, response).orElseThrow();
+
+        for (LocalDateTime timestamp : List.of(
+                LocalDateTime.of(2024, 5, 14, 9, 7, 3),
+                LocalDateTime.of(2024, 5, 14, 9, 7, 3, 120_000_000),
+                LocalDateTime.of(2024, 5, 14, 9, 7, 3, 123_000_000),
+                LocalDateTime.of(2024, 5, 14, 9, 7, 3, 123_450_000),
+                LocalDateTime.of(2024, 5, 14, 9, 7, 3, 123_456_000),
+                LocalDateTime.of(2024, 5, 14, 9, 7, 3, 123_456_780),
+                LocalDateTime.of(2024, 5, 14, 9, 7, 3, 123_456_789),
+                LocalDateTime.of(2024, 5, 14, 9, 7, 3, 1),
+                LocalDateTime.of(2024, 12, 31, 23, 59, 59, 999_999_999))) {
+            assertSameBytes(serialized, response, timestamp);
+        }
+    }
+
+    @Test
+    void writesZeroSecondsAndSmallFieldsWithLeadingZeros() throws IOException {
+        SearchResponse response = response(1);
+        SerializedSearchResponse serialized = SerializedSearchResponse.of(objectMapper, response).orElseThrow();
+
+        assertSameBytes(serialized, response, LocalDateTime.of(2024, 1, 2, 3, 4));
+        assertSameBytes(serialized, response, LocalDateTime.of(2024, 1, 1, 0, 0));
+        assertSameBytes(serialized, response, LocalDateTime.of(12, 1, 1, 0, 0, 0, 10));
+        assertThat(write(serialized, LocalDateTime.of(2024, 1, 2, 3, 4)))
+                .contains("\"timestamp\":\"2024-01-02T03:04:00\"");
+    }
+
+    @Test
+    void fallsBackToFormatterOutsideFourDigitYears() throws IOException {
+        SearchResponse response = response(1);
+        SerializedSearchResponse serialized = SerializedSearchResponse.of(objectMapper, response).orElseThrow();
+
+        assertSameBytes(serialized, response, LocalDateTime.of(10_000, 1, 1, 0, 0, 0, 500_000_000));
+        assertSameBytes(serialized, response, LocalDateTime.of(-1, 6, 1, 12, 0));
+    }
+
+    @Test
+    void splitsAroundTimestampFieldOnly() throws IOException {
+        // A result quoting a timestamp field: escaped in the output, so it can't be mistaken for the field
+        SearchResponse response = response(2);
+        response.getResults().get(0).setContent("{\"timestamp\":\"0001-01-01T00:00:00.000000001\"}");
+        response.getResults().get(1).setTitle("\"timestamp\":");
+        LocalDateTime timestamp = LocalDateTime.of(2024, 5, 14, 9, 7, 3, 5_000_000);
+        SerializedSearchResponse serialized = SerializedSearchResponse.of(objectMapper, response).orElseThrow();
+
+        assertSameBytes(serialized, response, timestamp);
+        // Only the response's own timestamp is left out of the bytes held
+        int timestampLength = "\"2024-05-14T09:07:03.005\"".length();
+        assertThat(serialized.size()).isEqualTo(json(response, timestamp).length - timestampLength);
+    }
+
+    @Test
+    void keepsResponseTimestampAndCacheMetadata() throws IOException {
+        SearchResponse response = response(4);
+        LocalDateTime timestamp = LocalDateTime.of(2024, 5, 14, 9, 7, 3);
+        response.setTimestamp(timestamp);
+        response.setCachedAt(timestamp.minusMinutes(5));
+        response.setExpiresAt(timestamp.plusMinutes(55));
+
+        SerializedSearchResponse serialized = SerializedSearchResponse.of(objectMapper, response).orElseThrow();
+
+        assertThat(response.getTimestamp()).isEqualTo(timestamp);
+        assertThat(serialized.getResultCount()).isEqualTo(4);
+        assertThat(serialized.getMaxResults()).isEqualTo(5);
+        assertThat(serialized.getCachedAt()).isEqualTo(timestamp.minusMinutes(5));
+        assertThat(serialized.getExpiresAt()).isEqualTo(timestamp.plusMinutes(55));
+    }
+
+    @Test
+    void refusesObjectMapperWritingNumericTimestamps() throws IOException {
+        // Jackson's own default, which Spring Boot turns off
+        ObjectMapper numeric = Jackson2ObjectMapperBuilder.json().build();
+
+        assertThat(SerializedSearchResponse.of(numeric, response(1))).isEmpty();
+    }
+
+    private void assertSameBytes(SerializedSearchResponse serialized, SearchResponse response,
+                                 LocalDateTime timestamp) throws IOException {
+        assertThat(write(serialized, timestamp).getBytes(StandardCharsets.UTF_8))
+                .as("response with timestamp %s", timestamp)
+                .isEqualTo(json(response, timestamp));
+    }
+
+    private static String write(SerializedSearchResponse serialized, LocalDateTime timestamp) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serialized.writeTo(out, timestamp);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private byte[] json(SearchResponse response, LocalDateTime timestamp) throws IOException {
+        LocalDateTime previous = response.getTimestamp();
+        response.setTimestamp(timestamp);
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } finally {
+            response.setTimestamp(previous);
+        }
+    }
+
+    static SearchResponse response(int resultCount) {
+        List<SearchResult> results = new ArrayList<>();
+        for (int i = 0; i < resultCount; i++) {
+            results.add(SearchResult.builder()
+                    .title("Kayak trip " + i + " – Ardèche")
+                    .url("https://example.com/trips/" + i)
+                    .summary("Day " + i + " on the river")
+                    .content("Paddle from Vallon-Pont-d'Arc, \"the\" gorge, through rapids\nand under the arch.")
+                    .build());
+        }
+        return SearchResponse.builder()
+                .query("kayak ardèche")
+                .searchType("web")
+                .results(results)
+                .resultCount(resultCount)
+                .maxResults(5)
+                .fromCache(true)
+                .build();
+    }
+}
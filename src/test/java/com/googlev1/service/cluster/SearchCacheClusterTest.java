@@ -0,0 +1,191 @@
+package com.googlev1.service.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchCacheClusterTest {
+
+    private static final List<String> NODE_IDS = List.of("cluster-test-a", "cluster-test-b", "cluster-test-c");
+    private static final PeerCacheEntry ENTRY = new PeerCacheEntry("{\"query\":\"kayak\"}", 1_000, 61_000, 60);
+
+    private final ConsistentHashRing ring = new ConsistentHashRing(NODE_IDS, 64);
+    private final List<LoopbackClusterTransport> transports = new ArrayList<>();
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void startNodes() {
+        for (String nodeId : NODE_IDS) {
+            nodes.put(nodeId, start(nodeId));
+        }
+    }
+
+    @AfterEach
+    void stopNodes() {
+        transports.forEach(LoopbackClusterTransport::close);
+    }
+
+    @Test
+    void everyNodeAgreesOnTheOwner() {
+        for (int i = 0; i < 100; i++) {
+            String key = "key-" + i;
+            String owner = ring.ownerOf(key);
+            assertThat(NODE_IDS).contains(owner);
+            nodes.values().forEach(node -> assertThat(node.cluster.ownerOf(key)).isEqualTo(owner));
+        }
+        // Every node owns some of the keys
+        for (String nodeId : NODE_IDS) {
+            assertThat(keyOwnedBy(nodeId)).isNotNull();
+        }
+    }
+
+    @Test
+    void missFetchesOwnersEntry() {
+        String key = keyOwnedBy("cluster-test-a");
+        node("cluster-test-a").entries.put(key, ENTRY);
+
+        assertThat(node("cluster-test-b").cluster.fetchFromOwner(key)).contains(ENTRY);
+        // The owner doesn't ask anyone
+        assertThat(node("cluster-test-a").cluster.fetchFromOwner(key)).isEmpty();
+        // Only the owner is asked, not the other nodes holding a copy
+        String otherKey = keyOwnedBy("cluster-test-c");
+        node("cluster-test-a").entries.put(otherKey, ENTRY);
+        assertThat(node("cluster-test-b").cluster.fetchFromOwner(otherKey)).isEmpty();
+        assertThat(node("cluster-test-b").cluster.getPeerFailures()).isZero();
+    }
+
+    @Test
+    void publishStoresAtOwnerAndInvalidatesOtherCopies() {
+        String key = keyOwnedBy("cluster-test-b");
+        node("cluster-test-c").entries.put(key, new PeerCacheEntry("{}", 0, 1, 1));
+
+        node("cluster-test-a").cluster.publish(key, ENTRY);
+
+        assertThat(node("cluster-test-b").entries).containsEntry(key, ENTRY);
+        assertThat(node("cluster-test-c").entries).doesNotContainKey(key);
+        assertThat(node("cluster-test-c").invalidated).containsExactly(key);
+        // The publisher keeps its own copy, and the owner's isn't invalidated
+        assertThat(node("cluster-test-a").invalidated).isEmpty();
+        assertThat(node("cluster-test-b").invalidated).isEmpty();
+        assertThat(node("cluster-test-a").cluster.getInvalidationsSent()).isEqualTo(1);
+        assertThat(node("cluster-test-c").cluster.getInvalidationsReceived()).isEqualTo(1);
+
+        assertThat(node("cluster-test-c").cluster.fetchFromOwner(key)).contains(ENTRY);
+    }
+
+    @Test
+    void ownerOnlyInvalidatesWhenItPublishes() {
+        String key = keyOwnedBy("cluster-test-a");
+
+        node("cluster-test-a").cluster.publish(key, ENTRY);
+
+        assertThat(node("cluster-test-b").invalidated).containsExactly(key);
+        assertThat(node("cluster-test-c").invalidated).containsExactly(key);
+        assertThat(node("cluster-test-b").entries).isEmpty();
+        assertThat(node("cluster-test-c").entries).isEmpty();
+    }
+
+    @Test
+    void rejectsStoreForKeyOwnedElsewhere() {
+        String key = keyOwnedBy("cluster-test-a");
+
+        assertThat(node("cluster-test-b").cluster.handleStore(key, ENTRY)).isFalse();
+        assertThat(node("cluster-test-b").entries).isEmpty();
+
+        assertThat(node("cluster-test-a").cluster.handleStore(key, ENTRY)).isTrue();
+        assertThat(node("cluster-test-a").entries).containsEntry(key, ENTRY);
+    }
+
+    @Test
+    void unreachablePeerCountsAsFailure() {
+        String key = keyOwnedBy("cluster-test-c");
+        node("cluster-test-c").entries.put(key, ENTRY);
+        transports.get(NODE_IDS.indexOf("cluster-test-c")).close();
+
+        assertThat(node("cluster-test-a").cluster.fetchFromOwner(key)).isEmpty();
+        assertThat(node("cluster-test-a").cluster.getPeerFailures()).isEqualTo(1);
+
+        // The other peers still get their invalidation
+        node("cluster-test-a").cluster.publish(key, ENTRY);
+        assertThat(node("cluster-test-b").invalidated).containsExactly(key);
+        assertThat(node("cluster-test-a").cluster.getPeerFailures()).isEqualTo(2);
+    }
+
+    @Test
+    void collectsStatsOfEveryNode() {
+        node("cluster-test-a").cluster.recordLocalHit();
+        node("cluster-test-b").cluster.recordPeerHit();
+        node("cluster-test-b").cluster.recordMiss();
+
+        List<ClusterCacheStats> stats = node("cluster-test-a").cluster.clusterStats();
+
+        assertThat(stats).extracting(ClusterCacheStats::nodeId).containsExactlyElementsOf(NODE_IDS);
+        assertThat(stats.get(0).localHits()).isEqualTo(1);
+        assertThat(stats.get(1).peerHits()).isEqualTo(1);
+        assertThat(stats.get(1).misses()).isEqualTo(1);
+        assertThat(stats.get(2).lookups()).isZero();
+    }
+
+    private Node start(String nodeId) {
+        LoopbackClusterTransport transport = new LoopbackClusterTransport();
+        transports.add(transport);
+        // Each node builds its own ring from the configured members
+        SearchCacheCluster cluster = new SearchCacheCluster(nodeId, new ConsistentHashRing(NODE_IDS, 64), transport);
+        Node node = new Node(cluster);
+        cluster.setHandler(node);
+        transport.bind(cluster);
+        return node;
+    }
+
+    private Node node(String nodeId) {
+        return nodes.get(nodeId);
+    }
+
+    private String keyOwnedBy(String nodeId) {
+        for (int i = 0; i < 1000; i++) {
+            String key = "search\nbasic|5\nquery " + i;
+            if (ring.ownerOf(key).equals(nodeId)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A node's local cache, kept in a map.
+     */
+    private static final class Node implements PeerCacheHandler {
+
+        final SearchCacheCluster cluster;
+        final Map<String, PeerCacheEntry> entries = new ConcurrentHashMap<>();
+        final List<String> invalidated = new ArrayList<>();
+
+        Node(SearchCacheCluster cluster) {
+            this.cluster = cluster;
+        }
+
+        @Override
+        public Optional<PeerCacheEntry> get(String key) {
+            return Optional.ofNullable(entries.get(key));
+        }
+
+        @Override
+        public void put(String key, PeerCacheEntry entry) {
+            entries.put(key, entry);
+        }
+
+        @Override
+        public void invalidate(String key) {
+            invalidated.add(key);
+            entries.remove(key);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.googlev1.service.content;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Compares the text extractors on a corpus of pages: how much text each keeps, and how fast it is.
+ * The corpus is the test fixtures plus generated news pages in three layouts (semantic elements, class names
+ * only, bare divs), and the .html files of {@code -Dbenchmark.corpus=<dir>} if given, e.g. saved real pages.
+ * <p>
+ * Not part of the regular build; run with {@code mvn test -Dtest=ContentExtractionBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ContentExtractionBenchmark {
+
+    private static final int MAX_LENGTH = 200_000;
+    private static final int GENERATED_PAGES = 60;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void compareExtractors() throws IOException {
+        List<String> pages = corpus();
+        long htmlBytes = pages.stream().mapToLong(page -> page.getBytes(StandardCharsets.UTF_8).length).sum();
+
+        long regexBytes = 0;
+        long allTextBytes = 0;
+        long mainBytes = 0;
+        int fallbacks = 0;
+        int lang = 0;
+        int canonical = 0;
+        int published = 0;
+        for (String page : pages) {
+            regexBytes += utf8Length(regexText(page));
+            allTextBytes += utf8Length(HtmlTextExtractor.extract(page, MAX_LENGTH));
+            MainContentExtractor main = MainContentExtractor.extract(page, MAX_LENGTH);
+            mainBytes += utf8Length(main.text().toString());
+            fallbacks += main.isFallback() ? 1 : 0;
+            lang += main.getLang() != null ? 1 : 0;
+            canonical += main.getCanonicalUrl() != null ? 1 : 0;
+            published += main.getPublished() != null ? 1 : 0;
+        }
+        System.out.printf("%d pages, %.1f MB of HTML; main content fell back on %d, found lang on %d, "
+                + "canonical URL on %d, publication date on %d%n", pages.size(), htmlBytes / 1e6, fallbacks, lang,
+                canonical, published);
+        System.out.printf("text bytes: regex %d, all text %d, main content %d (%.0f%% of all text)%n",
+                regexBytes, allTextBytes, mainBytes, 100.0 * mainBytes / allTextBytes);
+
+        time("regex", pages, htmlBytes, page -> regexText(page).length());
+        time("all text", pages, htmlBytes, page -> HtmlTextExtractor.extract(page, MAX_LENGTH).length()
+                + String.valueOf(HtmlTitleScanner.scan(page)).length());
+        time("main", pages, htmlBytes, page -> MainContentExtractor.extract(page, MAX_LENGTH).text().length()
+                + String.valueOf(HtmlTitleScanner.scan(page)).length());
+    }
+
+    private static void time(String name, List<String> pages, long htmlBytes, ToIntFunction<String> extractor) {
+        long best = Long.MAX_VALUE;
+        int sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (String page : pages) {
+                sink += extractor.applyAsInt(page);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-9s %7.1f ms for the corpus, %5.1f ms/MB (%d)%n", name, best / 1e6,
+                best / 1e6 / (htmlBytes / 1e6), sink);
+    }
+
+    private static String regexText(String html) {
+        return HtmlTextExtractorTest.regexText(html, MAX_LENGTH);
+    }
+
+    private static List<String> corpus() throws IOException {
+        List<String> pages = new ArrayList<>();
+        for (String fixture : new String[] {"semantic-article.html", "class-hints.html", "short-page.html"}) {
+            pages.add(MainContentExtractorTest.fixture(fixture));
+        }
+        Random random = new Random(50);
+        for (int i = 0; i < GENERATED_PAGES; i++) {
+            pages.add(newsPage(random, i, i % 3));
+        }
+        String directory = System.getProperty("benchmark.corpus");
+        if (directory != null) {
+            try (Stream<Path> files = Files.list(Path.of(directory))) {
+                for (Path file : files.filter(file -> file.toString().endsWith(".html")).sorted().toList()) {
+                    pages.add(Files.readString(file));
+                }
+            }
+        }
+        return pages;
+    }
+
+    // Generated pages: an article among the usual cookie banner, navigation, ads, share links, related links,
+    // comments, newsletter box and footer
+
+    private static final String[] WORDS = ("the of and to in a is that for on with as was by at from it an be are "
+            + "this which or has had its were but not have they their been more said will would about after over "
+            + "new than year city market report data government people could into first two also when there last "
+            + "other between since while during under state study public").split(" ");
+
+    private static String newsPage(Random random, int number, int layout) {
+        StringBuilder body = new StringBuilder();
+        body.append("<h1>").append(words(random, 8)).append("</h1>");
+        body.append("<p class=\"byline\">By Jane Writer &middot; <time datetime=\"2024-05-")
+                .append(String.format("%02d", 1 + number % 28)).append("T08:30:00Z\">May</time></p>");
+        int paragraphs = 5 + random.nextInt(14);
+        for (int k = 0; k < paragraphs; k++) {
+            body.append("<p>").append(paragraph(random)).append(" &amp; ").append(sentence(random)).append("</p>");
+            if (k == 2) {
+                body.append("<div class=\"ad-slot\"><span>Advertisement</span><script>var ad=2;</script></div>");
+            }
+            if (k == 4) {
+                body.append("<h2>").append(words(random, 5)).append("</h2><ul>");
+                for (int item = 0; item < 4; item++) {
+                    body.append("<li>").append(sentence(random)).append("</li>");
+                }
+                body.append("</ul>");
+            }
+            if (k == 6) {
+                body.append("<figure><img src=\"x.jpg\"><figcaption>").append(sentence(random))
+                        .append("</figcaption></figure>");
+            }
+        }
+        String article = body.toString();
+        String share = "<div class=\"share-buttons\"><a href=\"#\">Facebook</a> <a href=\"#\">Twitter</a></div>";
+        StringBuilder comments = new StringBuilder("<section id=\"comments\"><h3>Comments</h3>");
+        for (int k = 2 + random.nextInt(7); k > 0; k--) {
+            comments.append("<div class=\"comment\"><p>").append(paragraph(random)).append("</p></div>");
+        }
+        comments.append("</section>");
+
+        String main = switch (layout) {
+            case 0 -> "<main><article>" + article + share + "</article><aside class=\"related\"><h3>Related</h3>"
+                    + links(random, 6) + "</aside>" + comments + "</main>";
+            case 1 -> "<div class=\"container\"><div class=\"story-body\">" + article + share
+                    + "</div><div class=\"sidebar\">" + links(random, 10) + "<div class=\"widget\"><p>"
+                    + paragraph(random) + "</p></div></div>" + comments + "</div>";
+            default -> "<div><div>" + article.replace("<p", "<div").replace("</p>", "</div>") + "</div><div>"
+                    + links(random, 10) + "</div><div><div>" + paragraph(random) + "</div></div></div>";
+        };
+        return "<!DOCTYPE html><html lang=\"en-GB\"><head><meta charset=\"utf-8\"><title>" + words(random, 6)
+                + "</title><link rel=\"canonical\" href=\"https://news.example.com/story/" + number + "\">"
+                + "<meta property=\"article:published_time\" content=\"2024-05-01T08:30:00Z\">"
+                + "<style>body{font:14px sans-serif}</style><script>window.dataLayer=[];</script></head>"
+                + "<body><div id=\"cookie-banner\"><p>We use cookies to improve your experience and show "
+                + "personalised ads. By continuing to browse you agree to our use of cookies.</p>"
+                + "<button>Accept</button></div><header class=\"masthead\"><a href=\"/\">Daily Example</a>"
+                + "<nav>" + links(random, 8 + random.nextInt(13)) + "</nav></header>" + main
+                + "<div class=\"newsletter\"><p>Sign up for our daily newsletter and get the most important "
+                + "stories of the day delivered to your inbox.</p></div><footer>" + links(random, 15)
+                + "<p>&copy; 2024 Daily Example Media Group. All rights reserved.</p></footer>"
+                + "<script>track();</script></body></html>";
+    }
+
+    private static String links(Random random, int count) {
+        StringBuilder list = new StringBuilder("<ul>");
+        for (int i = 0; i < count; i++) {
+            list.append("<li><a href=\"/s/").append(i).append("\">").append(words(random, 1 + random.nextInt(3)))
+                    .append("</a></li>");
+        }
+        return list.append("</ul>").toString();
+    }
+
+    private static String paragraph(Random random) {
+        StringBuilder paragraph = new StringBuilder(sentence(random));
+        for (int k = 1 + random.nextInt(5); k > 0; k--) {
+            paragraph.append(' ').append(sentence(random));
+        }
+        return paragraph.toString();
+    }
+
+    private static String sentence(Random random) {
+        String words = words(random, 8 + random.nextInt(21));
+        return Character.toUpperCase(words.charAt(0)) + words.substring(1) + ".";
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder words = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        for (int i = 1; i < count; i++) {
+            words.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return words.toString();
+    }
+
+    private static int utf8Length(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,151 @@
+package com.googlev1.service.content;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HtmlTextExtractorTest {
+
+    private static final int MAX_LENGTH = 200_000;
+    // Pieces the random pages are made of: the tags the extractor looks for, split and in other cases, and the
+    // whitespace the regex collapses or doesn't
+    private static final String[] ATOMS = {
+            "<", ">", "</", "script", "SCRIPT", "style", "StYlE", "<script>", "</script>", "<style>", "</style>",
+            "<script", "</scr", "ipt>", "<!--", "-->", "<p>", "<>", "<<", ">>", "/", "<div class=\"x\">",
+            "<a title='>'>", " ", "  ", "\n", "\t", "\r\n", "\u000B", "\u0001", " ", "a", "b c", "é", "text"};
+
+    @Test
+    void removesScriptsStylesAndTagsAndCollapsesWhitespace() {
+        String html = "<html><head><title>T</title><style>p { color: red }</style></head>\n<body>"
+                + "<p>One\ttwo</p><SCRIPT type=\"text/javascript\">if (a < b) { x(); }</SCRIPT>  <p>three</p></body>";
+
+        assertThat(HtmlTextExtractor.extract(html, MAX_LENGTH)).isEqualTo("T One two three");
+    }
+
+    @Test
+    void unterminatedBlocksAndTagsMatchRegex() {
+        String[] pages = {
+                // A script or style without an end tag is left in, tags and all
+                "<p>before</p><script>var x = 1; <b>bold</b>",
+                "before<style>p { color: red }",
+                // The block starts only at the first '>' after "<script"; without one, nothing is removed
+                "before<script type=\"x\"",
+                "before<script",
+                "a<script>x</scrip",
+                "a<script>x</script",
+                // The end tag is looked for after the first '>', even inside an attribute
+                "a<script data-x=\">\">x</script>b",
+                // A block in a block: the first end tag ends the outer one
+                "a<script><script>x</script>b</script>c",
+                "a<style><script>x</style>b</script>c",
+                // Tags left open, or closed by a later '>'
+                "text <a href=\"x\"",
+                "text <",
+                "a < b and c > d",
+                "<<p>>",
+                // Comments are tags to the regex, ended by the first '>'
+                "a<!-- <p> -->b",
+                "a<!-- no end",
+                "",
+                "   ",
+                "<p>   </p>"};
+        for (String html : pages) {
+            assertSameInAnySplit(html, MAX_LENGTH);
+        }
+    }
+
+    @Test
+    void cutAtMaximumLengthMatchesRegex() {
+        String html = "<p>one two</p>  <p>three four</p><script>x</script> five";
+        for (int maxLength = 1; maxLength <= 30; maxLength++) {
+            assertSameInAnySplit(html, maxLength);
+        }
+    }
+
+    @Test
+    void fixturesMatchRegexWhenFedInPieces() throws IOException {
+        for (String name : new String[] {"semantic-article.html", "class-hints.html", "short-page.html"}) {
+            String html = MainContentExtractorTest.fixture(name);
+            for (int size : new int[] {1, 2, 3, 7, 64, 8192}) {
+                assertThat(extractInPieces(html, size, MAX_LENGTH)).as("%s in pieces of %d", name, size)
+                        .isEqualTo(regexText(html, MAX_LENGTH));
+            }
+        }
+    }
+
+    @Test
+    void randomPagesMatchRegexWhenFedInRandomPieces() {
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            StringBuilder page = new StringBuilder();
+            for (int atoms = random.nextInt(40); atoms > 0; atoms--) {
+                page.append(ATOMS[random.nextInt(ATOMS.length)]);
+            }
+            String html = page.toString();
+            int maxLength = 1 + random.nextInt(60);
+
+            HtmlTextExtractor extractor = new HtmlTextExtractor(maxLength);
+            char[] chars = html.toCharArray();
+            for (int start = 0; start < chars.length; ) {
+                int length = Math.min(chars.length - start, 1 + random.nextInt(8));
+                extractor.feed(chars, start, length);
+                start += length;
+            }
+            extractor.finish();
+
+            assertThat(extractor.text().toString()).as("%s cut at %d", html, maxLength)
+                    .isEqualTo(regexText(html, maxLength));
+        }
+    }
+
+    @Test
+    void finishIsIdempotentAndFlagsCut() {
+        HtmlTextExtractor extractor = new HtmlTextExtractor(5);
+        extractor.feed("<p>abcdefgh</p><script>");
+        extractor.finish();
+        extractor.finish();
+
+        assertThat(extractor.isCut()).isTrue();
+        assertThat(extractor.text().toString()).isEqualTo("abcde...");
+    }
+
+    /**
+     * Checks the text of the page, fed whole, in two pieces split at every position, and one character at a time.
+     */
+    private static void assertSameInAnySplit(String html, int maxLength) {
+        String expected = regexText(html, maxLength);
+        assertThat(HtmlTextExtractor.extract(html, maxLength)).as("%s", html).isEqualTo(expected);
+        for (int split = 0; split <= html.length(); split++) {
+            HtmlTextExtractor extractor = new HtmlTextExtractor(maxLength);
+            extractor.feed(html.substring(0, split));
+            extractor.feed(html.substring(split));
+            extractor.finish();
+            assertThat(extractor.text().toString()).as("%s split at %d", html, split).isEqualTo(expected);
+        }
+        assertThat(extractInPieces(html, 1, maxLength)).as("%s one character at a time", html).isEqualTo(expected);
+    }
+
+    private static String extractInPieces(String html, int size, int maxLength) {
+        HtmlTextExtractor extractor = new HtmlTextExtractor(maxLength);
+        for (int start = 0; start < html.length(); start += size) {
+            extractor.feed(html.subSequence(start, Math.min(html.length(), start + size)));
+        }
+        extractor.finish();
+        return extractor.text().toString();
+    }
+
+    /**
+     * The extraction ContentService used before HtmlTextExtractor, which the extractor must match.
+     */
+    static String regexText(String html, int maxLength) {
+        String text = html.replaceAll("(?is)<script.*?>.*?</script>", " ")
+                .replaceAll("(?is)<style.*?>.*?</style>", " ")
+                .replaceAll("(?is)<[^>]+>", " ")
+                .replaceAll("\\s+", " ")
+                .trim();
+        return text.length() > maxLength ? text.substring(0, maxLength) + "..." : text;
+    }
+}
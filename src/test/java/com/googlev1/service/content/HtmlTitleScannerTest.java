@@ -0,0 +1,66 @@
+package com.googlev1.service.content;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HtmlTitleScannerTest {
+
+    @Test
+    void findsTitleBeforeEndOfPage() {
+        HtmlTitleScanner scanner = new HtmlTitleScanner();
+        scanner.feed("<html><head><TITLE> River \n restoration\t</TI");
+        assertThat(scanner.isDone()).isFalse();
+        assertThat(scanner.getTitle()).isNull();
+
+        scanner.feed("tle><body>");
+        assertThat(scanner.isDone()).isTrue();
+        assertThat(scanner.getTitle()).isEqualTo("River restoration");
+    }
+
+    @Test
+    void edgeCasesMatchRegexInAnySplit() {
+        String[] pages = {
+                "<title>Plain</title>",
+                "<TiTlE>Mixed case</tItLe>",
+                // Only the first <title> and the first </title> count
+                "<title>one</title><title>two</title>",
+                "<title>a<title>b</title>",
+                // An end tag before the start tag means no title
+                "</title><title>late</title>",
+                // Unterminated, or with attributes the scanner doesn't look past
+                "<title>never closed",
+                "<title lang=\"en\">attributes</title>",
+                "<title></title>",
+                "<title>  </title>",
+                "<<title>>x<</title>>",
+                "<titl",
+                "",
+                "no title at all"};
+        for (String html : pages) {
+            String expected = regexTitle(html);
+            assertThat(HtmlTitleScanner.scan(html)).as("%s", html).isEqualTo(expected);
+            for (int split = 0; split <= html.length(); split++) {
+                HtmlTitleScanner scanner = new HtmlTitleScanner();
+                scanner.feed(html.substring(0, split));
+                scanner.feed(html.substring(split));
+                assertThat(scanner.finish()).as("%s split at %d", html, split).isEqualTo(expected);
+            }
+        }
+    }
+
+    /**
+     * The title lookup ContentService used before HtmlTitleScanner, which the scanner must match.
+     */
+    private static String regexTitle(String html) {
+        String lower = html.toLowerCase(Locale.ROOT);
+        int start = lower.indexOf("<title>");
+        int end = lower.indexOf("</title>");
+        if (start >= 0 && end > start) {
+            return html.substring(start + "<title>".length(), end).replaceAll("\\s+", " ").trim();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,147 @@
+package com.googlev1.service.content;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MainContentExtractorTest {
+
+    private static final int MAX_LENGTH = 200_000;
+    private static final String PARAGRAPH = "The survey counted more than four hundred nests along a stretch of "
+            + "river that had been cut off from the sea for over a century until the weirs were removed.";
+
+    @Test
+    void keepsArticleAndDropsBoilerplateAroundIt() throws IOException {
+        MainContentExtractor extractor = MainContentExtractor.extract(fixture("semantic-article.html"), MAX_LENGTH);
+        String text = extractor.text().toString();
+
+        assertThat(extractor.isFallback()).isFalse();
+        assertThat(text).startsWith("River restoration brings salmon back to the valley\n\n");
+        assertThat(text).contains("By Jane Writer · 14 May 2024",
+                "since the industrial era & its dams.",
+                "\n\nWhat changed\n\n",
+                "\n\nThree weirs removed between 2014 and 2016\n\n");
+        assertThat(text).endsWith("on their way upstream to the spawning beds.");
+        // Cookie banner, navigation, share links, related links, newsletter, footer, styles and scripts
+        assertThat(text).doesNotContain("cookies", "Sport", "Facebook", "Related stories", "Beavers",
+                "newsletter", "Privacy policy", "All rights reserved", "font:", "dataLayer", "track()");
+    }
+
+    @Test
+    void usesClassAndIdNamesWithoutSemanticElements() throws IOException {
+        MainContentExtractor extractor = MainContentExtractor.extract(fixture("class-hints.html"), MAX_LENGTH);
+        String text = extractor.text().toString();
+
+        assertThat(extractor.isFallback()).isFalse();
+        assertThat(text).startsWith("Le marché couvert rouvre ses portes après deux ans de travaux\n\n");
+        assertThat(text).contains("sa charpente restaurée et ses quarante étals.");
+        assertThat(text).endsWith("au cœur de la ville.");
+        // Menu, sidebar widget and comments
+        assertThat(text).doesNotContain("Accueil", "Abonnez-vous", "Enfin");
+    }
+
+    @Test
+    void fallsBackToAllTextBelowMinimumMainLength() throws IOException {
+        MainContentExtractor extractor = MainContentExtractor.extract(fixture("short-page.html"), MAX_LENGTH);
+
+        assertThat(extractor.isFallback()).isTrue();
+        assertThat(extractor.text().toString())
+                .isEqualTo("Home Shop\n\nContact us\n\nCall us on 01234 567890.\n\nOpen Monday to Friday.");
+    }
+
+    @Test
+    void fallbackDependsOnLengthOfMainContent() {
+        String nav = "<nav><a href=\"/\">Home</a> <a href=\"/news\">News</a></nav>";
+        // One paragraph is content but short of 250 characters; two are enough
+        MainContentExtractor one = MainContentExtractor.extract(
+                "<body>" + nav + "<p>" + PARAGRAPH + "</p></body>", MAX_LENGTH);
+        MainContentExtractor two = MainContentExtractor.extract(
+                "<body>" + nav + "<p>" + PARAGRAPH + "</p><p>" + PARAGRAPH + "</p></body>", MAX_LENGTH);
+
+        assertThat(PARAGRAPH.length()).isLessThan(250);
+        assertThat(one.isFallback()).isTrue();
+        assertThat(one.text().toString()).isEqualTo("Home News\n\n" + PARAGRAPH);
+        assertThat(two.isFallback()).isFalse();
+        assertThat(two.text().toString()).isEqualTo(PARAGRAPH + "\n\n" + PARAGRAPH);
+    }
+
+    @Test
+    void dropsLinkListsBetweenParagraphs() {
+        String html = "<body><p>" + PARAGRAPH + "</p><ul><li><a href=\"/1\">First related story</a></li>"
+                + "<li><a href=\"/2\">Second related story</a></li></ul><p>" + PARAGRAPH + "</p></body>";
+
+        assertThat(MainContentExtractor.extract(html, MAX_LENGTH).text().toString())
+                .isEqualTo(PARAGRAPH + "\n\n" + PARAGRAPH);
+    }
+
+    @Test
+    void readsLanguageCanonicalUrlAndPublicationDate() throws IOException {
+        MainContentExtractor semantic = MainContentExtractor.extract(fixture("semantic-article.html"), MAX_LENGTH);
+        assertThat(semantic.getLang()).isEqualTo("en-GB");
+        assertThat(semantic.getCanonicalUrl()).isEqualTo("https://news.example.com/environment/river-restoration");
+        assertThat(semantic.getPublished()).isEqualTo("2024-05-14T08:30:00Z");
+
+        MainContentExtractor classes = MainContentExtractor.extract(fixture("class-hints.html"), MAX_LENGTH);
+        assertThat(classes.getLang()).isEqualTo("fr");
+        assertThat(classes.getCanonicalUrl()).isNull();
+        assertThat(classes.getPublished()).isEqualTo("2023-11-02");
+
+        MainContentExtractor bare = MainContentExtractor.extract(fixture("short-page.html"), MAX_LENGTH);
+        assertThat(bare.getLang()).isNull();
+        assertThat(bare.getCanonicalUrl()).isNull();
+        assertThat(bare.getPublished()).isNull();
+    }
+
+    @Test
+    void takesPublicationDateFromTimeElementWithoutMetaTags() {
+        String html = "<html><body><article><p>Posted <time datetime=\"2022-03-01T10:00:00+01:00\">1 March</time>"
+                + "</p><p>" + PARAGRAPH + "</p><p>" + PARAGRAPH + "</p></article></body></html>";
+
+        assertThat(MainContentExtractor.extract(html, MAX_LENGTH).getPublished())
+                .isEqualTo("2022-03-01T10:00:00+01:00");
+    }
+
+    @Test
+    void sameResultWhenFedInPieces() throws IOException {
+        for (String name : new String[] {"semantic-article.html", "class-hints.html", "short-page.html"}) {
+            String html = fixture(name);
+            MainContentExtractor whole = MainContentExtractor.extract(html, MAX_LENGTH);
+            for (int size : new int[] {1, 2, 3, 7, 64}) {
+                MainContentExtractor pieces = new MainContentExtractor(MAX_LENGTH);
+                for (int start = 0; start < html.length(); start += size) {
+                    pieces.feed(html.subSequence(start, Math.min(html.length(), start + size)));
+                }
+                pieces.finish();
+
+                assertThat(pieces.text().toString()).as("%s in pieces of %d", name, size)
+                        .isEqualTo(whole.text().toString());
+                assertThat(pieces.getPublished()).isEqualTo(whole.getPublished());
+                assertThat(pieces.getCanonicalUrl()).isEqualTo(whole.getCanonicalUrl());
+            }
+        }
+    }
+
+    @Test
+    void cutsTextAtMaximumLength() throws IOException {
+        MainContentExtractor extractor = MainContentExtractor.extract(fixture("semantic-article.html"), 100);
+
+        assertThat(extractor.isCut()).isTrue();
+        assertThat(extractor.text().toString())
+                .startsWith("River restoration brings salmon back to the valley")
+                .endsWith("...")
+                .hasSize(103);
+    }
+
+    static String fixture(String name) throws IOException {
+        try (InputStream in = MainContentExtractorTest.class.getResourceAsStream("/content/" + name)) {
+            if (in == null) {
+                throw new IOException("Missing test fixture " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
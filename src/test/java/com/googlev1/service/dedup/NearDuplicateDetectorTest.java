@@ -0,0 +1,108 @@
+package com.googlev1.service.dedup;
+
+import com.googlev1.dto.search.SearchResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.googlev1.service.dedup.SimHashTest.BASE;
+import static com.googlev1.service.dedup.SimHashTest.EIGHT_BITS;
+import static com.googlev1.service.dedup.SimHashTest.FOUR_BITS;
+import static com.googlev1.service.dedup.SimHashTest.THREE_BITS;
+import static com.googlev1.service.dedup.SimHashTest.TWO_BITS;
+import static com.googlev1.service.dedup.SimHashTest.UNRELATED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NearDuplicateDetectorTest {
+
+    // Eleven words once "the", "at", "a" and "and" are dropped
+    private static final String ELEVEN_WORDS =
+            "The kayak left the bridge at dawn, passed a village, two rapids, one gorge and landed";
+    private static final String TWELVE_WORDS = ELEVEN_WORDS + " safely";
+
+    @Test
+    void collapsesIntoBestRankedResult() {
+        NearDuplicateDetector detector = new NearDuplicateDetector(3, 12, 100);
+
+        List<SearchResult> kept = detector.collapse(List.of(
+                result("https://a.example.com", BASE),
+                result("https://b.example.com", UNRELATED),
+                result("https://mirror.example.com", TWO_BITS),
+                result("https://syndicated.example.com", THREE_BITS)));
+
+        assertThat(kept).extracting(SearchResult::getUrl)
+                .containsExactly("https://a.example.com", "https://b.example.com");
+        assertThat(kept.get(0).getDuplicateUrls())
+                .containsExactly("https://mirror.example.com", "https://syndicated.example.com");
+        assertThat(kept.get(1).getDuplicateUrls()).isNull();
+        assertThat(detector.getResultsSeen()).isEqualTo(4);
+        assertThat(detector.getResultsCollapsed()).isEqualTo(2);
+        assertThat(detector.getDuplicateRate()).isEqualTo(0.5);
+        assertThat(detector.getCollapsedBytes()).isPositive();
+    }
+
+    @Test
+    void collapsesUpToMaxDistanceInclusive() {
+        NearDuplicateDetector detector = new NearDuplicateDetector(3, 12, 100);
+
+        assertThat(detector.collapse(List.of(result("https://a.example.com", BASE),
+                result("https://b.example.com", THREE_BITS)))).hasSize(1);
+        assertThat(detector.collapse(List.of(result("https://a.example.com", BASE),
+                result("https://b.example.com", FOUR_BITS)))).hasSize(2);
+    }
+
+    @Test
+    void neverCollapsesSummariesBelowMinTokens() {
+        NearDuplicateDetector detector = new NearDuplicateDetector(3, 12, 100);
+
+        assertThat(detector.collapse(List.of(result("https://a.example.com", ELEVEN_WORDS),
+                result("https://b.example.com", ELEVEN_WORDS), result("https://c.example.com", null))))
+                .hasSize(3);
+        assertThat(detector.collapse(List.of(result("https://a.example.com", TWELVE_WORDS),
+                result("https://b.example.com", TWELVE_WORDS)))).hasSize(1);
+    }
+
+    @Test
+    void findsUrlsWithNearDuplicateBodiesNearestFirst() {
+        NearDuplicateDetector detector = new NearDuplicateDetector(4, 12, 100);
+
+        assertThat(detector.registerBody("https://a.example.com", BASE)).isFalse();
+        assertThat(detector.registerBody("https://far.example.com", EIGHT_BITS)).isFalse();
+        assertThat(detector.registerBody("https://four.example.com", FOUR_BITS)).isTrue();
+        assertThat(detector.registerBody("https://two.example.com", TWO_BITS)).isTrue();
+        assertThat(detector.registerBody("https://other.example.com", UNRELATED)).isFalse();
+
+        assertThat(detector.duplicatesOf("https://a.example.com"))
+                .containsExactly("https://two.example.com", "https://four.example.com");
+        assertThat(detector.duplicatesOf("https://other.example.com")).isEmpty();
+        assertThat(detector.duplicatesOf("https://unknown.example.com")).isEmpty();
+        assertThat(detector.getBodiesSeen()).isEqualTo(5);
+        assertThat(detector.getDuplicateBodies()).isEqualTo(2);
+    }
+
+    @Test
+    void shortBodiesAreNotRemembered() {
+        NearDuplicateDetector detector = new NearDuplicateDetector(3, 12, 100);
+
+        assertThat(detector.registerBody("https://a.example.com", ELEVEN_WORDS)).isFalse();
+        assertThat(detector.registerBody("https://b.example.com", ELEVEN_WORDS)).isFalse();
+
+        assertThat(detector.duplicatesOf("https://a.example.com")).isEmpty();
+        assertThat(detector.getBodiesSeen()).isEqualTo(2);
+    }
+
+    @Test
+    void newBodyOfUrlReplacesItsPreviousOne() {
+        NearDuplicateDetector detector = new NearDuplicateDetector(3, 12, 100);
+        detector.registerBody("https://a.example.com", BASE);
+        detector.registerBody("https://b.example.com", TWO_BITS);
+
+        detector.registerBody("https://b.example.com", UNRELATED);
+
+        assertThat(detector.duplicatesOf("https://a.example.com")).isEmpty();
+    }
+
+    private static SearchResult result(String url, String summary) {
+        return SearchResult.builder().title("Title").url(url).summary(summary).content("").build();
+    }
+}
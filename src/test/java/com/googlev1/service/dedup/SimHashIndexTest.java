@@ -0,0 +1,93 @@
+package com.googlev1.service.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SimHashIndexTest {
+
+    private static final long FINGERPRINT = 0x5a5a_3c3c_0ff0_c3c3L;
+
+    @Test
+    void findsFingerprintsDifferingInEveryBandButOne() {
+        // Distance 3: four bands of 16 bits
+        SimHashIndex index = new SimHashIndex(3, 100);
+        index.put("three-bands", flip(FINGERPRINT, 0, 16, 32));
+        index.put("one-band", flip(FINGERPRINT, 1, 2, 3));
+        index.put("all-bands", flip(FINGERPRINT, 0, 16, 32, 48));
+        index.put("too-far-one-band", flip(FINGERPRINT, 4, 5, 6, 7));
+
+        assertThat(index.near(FINGERPRINT, null)).containsExactlyInAnyOrder("three-bands", "one-band");
+    }
+
+    @Test
+    void lastBandTakesLeftoverBits() {
+        // Distance 4: five bands, 12 bits each and 16 in the last (bits 48 to 63)
+        SimHashIndex index = new SimHashIndex(4, 100);
+        index.put("first-four", flip(FINGERPRINT, 0, 12, 24, 36));
+        index.put("last-four", flip(FINGERPRINT, 12, 24, 36, 63));
+        index.put("all-five", flip(FINGERPRINT, 0, 12, 24, 36, 60));
+
+        assertThat(index.near(FINGERPRINT, null)).containsExactlyInAnyOrder("first-four", "last-four");
+    }
+
+    @Test
+    void zeroDistanceMatchesOnlySameFingerprint() {
+        SimHashIndex index = new SimHashIndex(0, 100);
+        index.put("same", FINGERPRINT);
+        index.put("one-bit", flip(FINGERPRINT, 63));
+
+        assertThat(index.near(FINGERPRINT, null)).containsExactly("same");
+    }
+
+    @Test
+    void nearestFirstWithoutExcludedKey() {
+        SimHashIndex index = new SimHashIndex(5, 100);
+        index.put("self", FINGERPRINT);
+        index.put("five", flip(FINGERPRINT, 0, 1, 2, 3, 4));
+        index.put("one", flip(FINGERPRINT, 40));
+        index.put("three", flip(FINGERPRINT, 10, 20, 30));
+
+        assertThat(index.near(FINGERPRINT, "self")).containsExactly("one", "three", "five");
+    }
+
+    @Test
+    void evictsOldestBeyondMaxEntries() {
+        SimHashIndex index = new SimHashIndex(3, 2);
+        index.put("a", FINGERPRINT);
+        index.put("b", flip(FINGERPRINT, 1));
+        // Putting a key again makes it the newest
+        index.put("a", FINGERPRINT);
+        index.put("c", flip(FINGERPRINT, 2));
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.get("b")).isEmpty();
+        assertThat(index.get("a")).hasValue(FINGERPRINT);
+        assertThat(index.near(FINGERPRINT, null)).containsExactly("a", "c");
+    }
+
+    @Test
+    void replacedFingerprintIsNoLongerFound() {
+        SimHashIndex index = new SimHashIndex(3, 100);
+        index.put("a", FINGERPRINT);
+        index.put("a", ~FINGERPRINT);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.near(FINGERPRINT, null)).isEmpty();
+        assertThat(index.near(~FINGERPRINT, null)).containsExactly("a");
+    }
+
+    @Test
+    void rejectsDistanceWithoutEnoughBandBits() {
+        assertThatThrownBy(() -> new SimHashIndex(8, 100)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SimHashIndex(-1, 100)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long flip(long fingerprint, int... bits) {
+        for (int bit : bits) {
+            fingerprint ^= 1L << bit;
+        }
+        return fingerprint;
+    }
+}
@@ -0,0 +1,63 @@
+package com.googlev1.service.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimHashTest {
+
+    static final String BASE = "Paddlers descending the Ardeche gorges start at Vallon Pont d'Arc and pass under the "
+            + "natural stone arch before the river narrows between limestone cliffs. The full descent covers thirty "
+            + "two kilometres and takes most paddlers two days, with a night at the Gaud or Gournier bivouac, which "
+            + "must be booked online weeks ahead during the summer season.";
+    // Rewordings of BASE, by their distance to it
+    static final String TWO_BITS = BASE.replace("thirty two", "thirty");
+    static final String THREE_BITS = BASE.replace("Paddlers", "Canoeists");
+    static final String FOUR_BITS = BASE.replace("summer", "holiday");
+    static final String FIVE_BITS = BASE.replace("limestone", "granite").replace("summer", "winter");
+    static final String EIGHT_BITS = BASE.replace("online weeks ahead", "by phone");
+    static final String UNRELATED = "Bivouacs at Gaud and Gournier are the only places where camping is allowed "
+            + "inside the nature reserve, and rangers check bookings every evening during the season from April "
+            + "to September.";
+
+    @Test
+    void sameWordingGivesSameFingerprint() {
+        assertThat(fingerprint(BASE)).isEqualTo(fingerprint(BASE));
+        // Case, punctuation and stop words are not features
+        assertThat(fingerprint(BASE.replace(" the ", " a ").replace(",", "").toUpperCase()))
+                .isEqualTo(fingerprint(BASE));
+    }
+
+    @Test
+    void smallEditsMoveFewBitsAndOtherTextsAboutHalf() {
+        assertThat(SimHash.distance(fingerprint(BASE), fingerprint(TWO_BITS))).isEqualTo(2);
+        assertThat(SimHash.distance(fingerprint(BASE), fingerprint(THREE_BITS))).isEqualTo(3);
+        assertThat(SimHash.distance(fingerprint(BASE), fingerprint(FOUR_BITS))).isEqualTo(4);
+        assertThat(SimHash.distance(fingerprint(BASE), fingerprint(FIVE_BITS))).isEqualTo(5);
+        assertThat(SimHash.distance(fingerprint(BASE), fingerprint(EIGHT_BITS))).isEqualTo(8);
+        assertThat(SimHash.distance(fingerprint(BASE), fingerprint(UNRELATED))).isBetween(20, 44);
+    }
+
+    @Test
+    void textsBelowMinTokensHaveNoFingerprint() {
+        // Eleven words once "the", "at" and "a" are dropped
+        String text = "The kayak left the bridge at dawn, passed a village, two rapids, one gorge and landed";
+
+        assertThat(SimHash.fingerprint(text, 12)).isEmpty();
+        assertThat(SimHash.fingerprint(text, 11)).isPresent();
+        assertThat(SimHash.fingerprint("the a of", 0)).isEmpty();
+        assertThat(SimHash.fingerprint(null, 0)).isEmpty();
+    }
+
+    @Test
+    void distanceCountsDifferentBits() {
+        assertThat(SimHash.distance(0L, 0L)).isZero();
+        assertThat(SimHash.distance(0L, -1L)).isEqualTo(64);
+        assertThat(SimHash.distance(0b1011L, 0b0110L)).isEqualTo(3);
+        assertThat(SimHash.distance(Long.MIN_VALUE, 0L)).isEqualTo(1);
+    }
+
+    private static long fingerprint(String text) {
+        return SimHash.fingerprint(text, 12).getAsLong();
+    }
+}
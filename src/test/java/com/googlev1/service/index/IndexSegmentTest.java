@@ -0,0 +1,58 @@
+package com.googlev1.service.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IndexSegmentTest {
+
+    @Test
+    void postingsListDocumentsWithTheirWeights() {
+        IndexSegment segment = new IndexSegment();
+        for (int i = 0; i < 6; i++) {
+            assertThat(segment.add(document("u" + i, new String[] {"shared", "own" + i}, new float[] {i, 1})))
+                    .isEqualTo(i);
+        }
+        segment.seal();
+
+        IndexSegment.Postings shared = segment.postings("shared");
+        assertThat(shared.size).isEqualTo(6);
+        assertThat(shared.docs).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(shared.weights).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(segment.postings("own3").docs).containsExactly(3);
+        assertThat(segment.postings("missing")).isNull();
+    }
+
+    @Test
+    void deletionOnlyMarksDocument() {
+        IndexSegment segment = new IndexSegment();
+        segment.add(document("a", new String[] {"x"}, new float[] {1}));
+        segment.add(document("b", new String[] {"x"}, new float[] {1}));
+
+        segment.delete(0);
+        segment.delete(0);
+
+        assertThat(segment.isDeleted(0)).isTrue();
+        assertThat(segment.isDeleted(1)).isFalse();
+        assertThat(segment.deletedCount()).isEqualTo(1);
+        assertThat(segment.liveCount()).isEqualTo(1);
+        // The document and its postings stay until the segment is merged away
+        assertThat(segment.size()).isEqualTo(2);
+        assertThat(segment.document(0).getUrl()).isEqualTo("a");
+        assertThat(segment.postings("x").size).isEqualTo(2);
+    }
+
+    @Test
+    void sealedSegmentRejectsDocuments() {
+        IndexSegment segment = new IndexSegment();
+        segment.seal();
+
+        assertThatThrownBy(() -> segment.add(document("a", new String[] {"x"}, new float[] {1})))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static IndexedDocument document(String url, String[] terms, float[] weights) {
+        return new IndexedDocument(url, url, "", terms, weights, new String[0], new float[0], 0);
+    }
+}
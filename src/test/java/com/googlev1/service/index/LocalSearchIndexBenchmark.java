@@ -0,0 +1,154 @@
+package com.googlev1.service.index;
+
+import com.googlev1.dto.search.SearchResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the local search index at the sizes it runs at: indexing throughput, for search results arriving ten
+ * at a time and a share of them followed by their extracted body, then the latency of one to three term
+ * queries (p50, p99 and max). Documents use a vocabulary with Zipf-distributed word frequencies, so common
+ * terms have long posting lists as they do in real results. Settings are the defaults of application.properties.
+ * <p>
+ * Not part of the regular build; run with {@code mvn test -Dtest=LocalSearchIndexBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LocalSearchIndexBenchmark {
+
+    private static final int FLUSH_DOCUMENTS = 256;
+    private static final int MERGE_FACTOR = 8;
+    private static final int MAX_DOCUMENTS = 50_000;
+    private static final int BODY_TERMS = 64;
+
+    private static final int VOCABULARY = 20_000;
+    private static final int RESULTS_PER_RESPONSE = 10;
+    // One result in four has its page extracted afterwards
+    private static final int BODY_EVERY = 4;
+    private static final int QUERIES = 5_000;
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final String[] vocabulary = vocabulary();
+    private final double[] cumulative = zipf();
+
+    @Test
+    void indexAndQuery() {
+        for (int documents : new int[] {10_000, MAX_DOCUMENTS}) {
+            Random random = new Random(42);
+            try (LocalSearchIndex index = new LocalSearchIndex(FLUSH_DOCUMENTS, MERGE_FACTOR, MAX_DOCUMENTS,
+                    BODY_TERMS)) {
+                List<List<SearchResult>> responses = new ArrayList<>();
+                List<String> bodies = new ArrayList<>();
+                for (int i = 0; i < documents; i += RESULTS_PER_RESPONSE) {
+                    List<SearchResult> response = new ArrayList<>();
+                    for (int k = i; k < i + RESULTS_PER_RESPONSE; k++) {
+                        response.add(SearchResult.builder()
+                                .title(words(random, 8))
+                                .url("https://site" + k % 997 + ".example.com/page/" + k)
+                                .summary(words(random, 40))
+                                .content("")
+                                .build());
+                        bodies.add(k % BODY_EVERY == 0 ? words(random, 600) : null);
+                    }
+                    responses.add(response);
+                }
+
+                long start = System.nanoTime();
+                int bodyCount = 0;
+                for (int r = 0; r < responses.size(); r++) {
+                    List<SearchResult> response = responses.get(r);
+                    index.indexResults(response, NOW + r);
+                    for (int k = 0; k < response.size(); k++) {
+                        String body = bodies.get(r * RESULTS_PER_RESPONSE + k);
+                        if (body != null) {
+                            index.indexContent(response.get(k).getUrl(), response.get(k).getTitle(), body, NOW + r);
+                            bodyCount++;
+                        }
+                    }
+                }
+                long indexNanos = System.nanoTime() - start;
+                System.out.printf("%d documents, %d bodies: indexed in %.0f ms, %.0f documents/s, "
+                                + "%d segments, %d merges%n", documents, bodyCount, indexNanos / 1e6,
+                        (documents + bodyCount) / (indexNanos / 1e9), index.getSegmentCount(),
+                        index.getMergeCount());
+
+                for (int terms = 1; terms <= 3; terms++) {
+                    query(index, random, terms);
+                }
+            }
+        }
+    }
+
+    private void query(LocalSearchIndex index, Random random, int terms) {
+        String[] queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = words(random, terms);
+        }
+        // Warm up on the same mix
+        int hits = 0;
+        for (int i = 0; i < QUERIES / 4; i++) {
+            hits += index.search(queries[i], 10, 0, false).size();
+        }
+        long[] nanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long start = System.nanoTime();
+            hits += index.search(queries[i], 10, 0, false).size();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("  %d-term queries: p50 %6.1f us, p99 %7.1f us, max %8.1f us (%d hits)%n", terms,
+                nanos[QUERIES / 2] / 1e3, nanos[QUERIES * 99 / 100] / 1e3, nanos[QUERIES - 1] / 1e3, hits);
+    }
+
+    private String words(Random random, int count) {
+        StringBuilder words = new StringBuilder(word(random));
+        for (int i = 1; i < count; i++) {
+            words.append(' ').append(word(random));
+        }
+        return words.toString();
+    }
+
+    private String word(Random random) {
+        int at = Arrays.binarySearch(cumulative, random.nextDouble());
+        return vocabulary[Math.min(VOCABULARY - 1, at < 0 ? -at - 1 : at)];
+    }
+
+    /**
+     * Pronounceable made-up words, so none of them is a stop word.
+     */
+    private static String[] vocabulary() {
+        String consonants = "bcdfghklmnprstvz";
+        String vowels = "aeiou";
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int n = i + 1; n > 0; n /= consonants.length() * vowels.length()) {
+                int syllable = n % (consonants.length() * vowels.length());
+                word.append(consonants.charAt(syllable % consonants.length()))
+                        .append(vowels.charAt(syllable / consonants.length()));
+            }
+            words[i] = word.append('x').toString();
+        }
+        return words;
+    }
+
+    /**
+     * @return the cumulative probabilities of the words, the word of rank r being drawn with weight 1 / r
+     */
+    private static double[] zipf() {
+        double[] cumulative = new double[VOCABULARY];
+        double sum = 0;
+        for (int rank = 1; rank <= VOCABULARY; rank++) {
+            sum += 1.0 / rank;
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < VOCABULARY; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+}
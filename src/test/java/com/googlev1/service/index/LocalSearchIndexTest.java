@@ -0,0 +1,144 @@
+package com.googlev1.service.index;
+
+import com.googlev1.dto.search.SearchResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalSearchIndexTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private LocalSearchIndex index;
+
+    @AfterEach
+    void close() {
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    @Test
+    void reindexingUrlMarksPreviousVersionDeleted() {
+        index = new LocalSearchIndex(2, 8, 100, 16);
+        index.indexResults(List.of(result("a", "salmon river"), result("b", "salmon estuary")), NOW);
+        index.indexResults(List.of(result("a", "beaver dam")), NOW + 1);
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(urls(index.search("salmon", 10, 0, false))).containsExactly("https://example.com/b");
+        List<LocalSearchIndex.Hit> beaver = index.search("beaver", 10, 0, false);
+        assertThat(urls(beaver)).containsExactly("https://example.com/a");
+        assertThat(beaver.get(0).document().getIndexedAt()).isEqualTo(NOW + 1);
+    }
+
+    @Test
+    void refreshedResultKeepsExtractedBody() {
+        index = new LocalSearchIndex(4, 8, 100, 16);
+        index.indexContent("https://example.com/a", "Rivers", "Otters returned to the valley. Otters everywhere.", NOW);
+        index.indexResults(List.of(result("a", "river restoration")), NOW + 1);
+
+        List<LocalSearchIndex.Hit> hits = index.search("otters", 10, 0, false);
+        assertThat(urls(hits)).containsExactly("https://example.com/a");
+        assertThat(hits.get(0).document().getTitle()).isEqualTo("river restoration");
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsLeastRecentlyIndexedUrlsPastMaxDocuments() {
+        index = new LocalSearchIndex(2, 8, 3, 16);
+        index.indexResults(List.of(result("a", "shared"), result("b", "shared"), result("c", "shared")), NOW);
+        // Indexing a again makes b the least recently indexed
+        index.indexResults(List.of(result("a", "shared")), NOW + 1);
+        index.indexResults(List.of(result("d", "shared"), result("e", "shared")), NOW + 2);
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.getEvictionCount()).isEqualTo(2);
+        assertThat(urls(index.search("shared", 10, 0, false)))
+                .containsExactlyInAnyOrder("https://example.com/a", "https://example.com/d", "https://example.com/e");
+    }
+
+    @Test
+    void mergesSegmentsOfSimilarSize() throws InterruptedException {
+        index = new LocalSearchIndex(1, 2, 100, 16);
+        for (int i = 0; i < 8; i++) {
+            index.indexResults(List.of(result("p" + i, "shared word" + i)), NOW);
+        }
+
+        // One document per flush and two segments per tier merge into a single segment of eight
+        awaitTrue(() -> index.getSegmentCount() == 1);
+        assertThat(index.getMergeCount()).isGreaterThanOrEqualTo(7);
+        assertThat(index.size()).isEqualTo(8);
+        assertThat(index.search("shared", 10, 0, false)).hasSize(8);
+        assertThat(urls(index.search("word5", 10, 0, false))).containsExactly("https://example.com/p5");
+    }
+
+    @Test
+    void mergeDropsSegmentWhoseDocumentsWereAllReplaced() throws InterruptedException {
+        index = new LocalSearchIndex(2, 8, 100, 16);
+        index.indexResults(List.of(result("a", "old"), result("b", "old")), NOW);
+        assertThat(index.getSegmentCount()).isEqualTo(1);
+        index.indexResults(List.of(result("a", "new"), result("b", "new")), NOW + 1);
+
+        // The first segment is all deleted, so it is rewritten to nothing although no tier is full
+        awaitTrue(() -> index.getMergeCount() == 1);
+        assertThat(index.getSegmentCount()).isEqualTo(1);
+        assertThat(index.search("old", 10, 0, false)).isEmpty();
+        assertThat(index.search("new", 10, 0, false)).hasSize(2);
+    }
+
+    @Test
+    void requireAllTermsAndMinimumIndexTimeFilterHits() {
+        index = new LocalSearchIndex(4, 8, 100, 16);
+        index.indexResults(List.of(result("both", "salmon river"), result("one", "salmon lake")), NOW);
+        index.indexResults(List.of(result("stale", "salmon river")), NOW - 10_000);
+
+        assertThat(urls(index.search("salmon river", 10, 0, false))).hasSize(3)
+                .startsWith("https://example.com/both");
+        assertThat(urls(index.search("salmon river", 10, 0, true)))
+                .containsExactlyInAnyOrder("https://example.com/both", "https://example.com/stale");
+        assertThat(urls(index.search("salmon river", 10, NOW - 1, true))).containsExactly("https://example.com/both");
+        assertThat(index.search("salmon sea", 10, 0, true)).isEmpty();
+    }
+
+    @Test
+    void coversQueryOnlyWithEnoughFreshDocumentsMatchingEveryTerm() {
+        index = new LocalSearchIndex(4, 8, 100, 16);
+        index.indexResults(List.of(result("a", "salmon river"), result("b", "salmon lake")), NOW);
+        index.indexResults(List.of(result("c", "salmon river")), NOW - 10_000);
+
+        // b lacks a term and c is too old, so one document isn't enough for two results
+        assertThat(index.searchCovered("salmon river", 10, 2, NOW - 1)).isEmpty();
+        // A request for fewer results than the minimum needs only as many
+        assertThat(index.searchCovered("salmon river", 1, 2, NOW - 1)).hasValueSatisfying(
+                hits -> assertThat(urls(hits)).containsExactly("https://example.com/a"));
+
+        index.indexResults(List.of(result("d", "river salmon")), NOW);
+        assertThat(index.searchCovered("salmon river", 10, 2, NOW - 1)).hasValueSatisfying(
+                hits -> assertThat(urls(hits)).containsExactlyInAnyOrder("https://example.com/a",
+                        "https://example.com/d"));
+    }
+
+    private static SearchResult result(String path, String title) {
+        return SearchResult.builder()
+                .url("https://example.com/" + path)
+                .title(title)
+                .summary("")
+                .build();
+    }
+
+    private static List<String> urls(List<LocalSearchIndex.Hit> hits) {
+        return hits.stream().map(hit -> hit.document().getUrl()).toList();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("waiting for the merge thread").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.googlev1.service.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(5).toNanos();
+
+    @Test
+    void rejectsCallsBeyondLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        assertThat(limiter.getRejectedCount()).isEqualTo(1);
+
+        limiter.onIgnored();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsByOneOverLimitPerFastCallWhileSaturated() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4);
+
+        // Each fast call at a full limit adds 1/limit: four take it from 4 to 4.92, the fifth past 5
+        for (int round = 0; round < 4; round++) {
+            acquire(limiter, 4);
+            limiter.onSuccess(FAST);
+            release(limiter, 3);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        acquire(limiter, 4);
+        limiter.onSuccess(FAST);
+        release(limiter, 3);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.onSuccess(FAST);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void backsOffMultiplicativelyOnDropsAndSlowCalls() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+
+        limiter.tryAcquire();
+        limiter.onDropped();
+        assertThat(limiter.getLimit()).isEqualTo(10);
+
+        limiter.tryAcquire();
+        limiter.onSuccess(SLOW);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void limitStaysWithinBounds() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 2, 5, 0.5, Duration.ofSeconds(5));
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire();
+            limiter.onDropped();
+        }
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        for (int i = 0; i < 50; i++) {
+            acquire(limiter, limiter.getLimit());
+            limiter.onSuccess(FAST);
+            release(limiter, limiter.getInFlight());
+        }
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, 1, 100, 0.5, Duration.ofSeconds(5));
+    }
+
+    private static void acquire(AdaptiveConcurrencyLimiter limiter, int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+    }
+
+    private static void release(AdaptiveConcurrencyLimiter limiter, int calls) {
+        for (int i = 0; i < calls; i++) {
+            limiter.onIgnored();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.googlev1.service.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(5).toNanos();
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    // Window of 10, opens after 5 calls at 50% failures or 80% slow calls, 2 trial calls when half-open
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 10, 5, 50, 80, Duration.ofSeconds(5),
+            OPEN_DURATION, 2, now::get);
+
+    @Test
+    void opensOnFailureRateOnlyAfterMinimumCalls() {
+        failCalls(4);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        succeedCalls(1);
+        assertThat(breaker.getFailureRate()).isEqualTo(80);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void opensOnSlowCallRate() {
+        for (int i = 0; i < 4; i++) {
+            breaker.tryAcquirePermission();
+            breaker.onSuccess(SLOW);
+        }
+        succeedCalls(1);
+
+        assertThat(breaker.getSlowCallRate()).isEqualTo(80);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void onlyTheLastWindowOfCallsCounts() {
+        succeedCalls(5);
+        failCalls(4);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        succeedCalls(10);
+        assertThat(breaker.getFailureRate()).isZero();
+
+        // Five of the last ten: 50%, although only 9 of all 24 calls failed
+        failCalls(5);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void halfOpensAfterOpenDurationAndClosesWhenTrialCallsSucceed() {
+        open();
+
+        now.addAndGet(OPEN_DURATION.toNanos() - 1);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+
+        now.addAndGet(1);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        // Only the trial calls go through
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+
+        breaker.onSuccess(FAST);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        breaker.onSuccess(FAST);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        // Closing starts a clean window
+        assertThat(breaker.getFailureRate()).isZero();
+        assertThat(breaker.getTransitionCount()).isEqualTo(3);
+    }
+
+    @Test
+    void failedOrSlowTrialCallReopens() {
+        open();
+        now.addAndGet(OPEN_DURATION.toNanos());
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.onError(FAST);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        // The open period starts again from the failed trial
+        now.addAndGet(OPEN_DURATION.toNanos() - 1);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+
+        now.addAndGet(1);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.onSuccess(SLOW);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void releasedTrialPermissionCanBeTakenAgain() {
+        open();
+        now.addAndGet(OPEN_DURATION.toNanos());
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+
+        breaker.releasePermission();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+    }
+
+    private void open() {
+        failCalls(5);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    private void succeedCalls(int count) {
+        for (int i = 0; i < count; i++) {
+            assertThat(breaker.tryAcquirePermission()).isTrue();
+            breaker.onSuccess(FAST);
+        }
+    }
+
+    private void failCalls(int count) {
+        for (int i = 0; i < count; i++) {
+            assertThat(breaker.tryAcquirePermission()).isTrue();
+            breaker.onError(FAST);
+        }
+    }
+}
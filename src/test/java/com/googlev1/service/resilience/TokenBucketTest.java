@@ -0,0 +1,78 @@
+package com.googlev1.service.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AtomicLong now = new AtomicLong(42_000_000_000L);
+    // A token every 100 ms, up to 5 at once
+    private final TokenBucket bucket = new TokenBucket(10, 5, now::get);
+
+    @Test
+    void startsFullAndAllowsBurstOfCapacity() {
+        assertThat(bucket.isFull()).isTrue();
+        assertThat(bucket.getAvailableTokens()).isEqualTo(5);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryConsume()).isTrue();
+        }
+        assertThat(bucket.tryConsume()).isFalse();
+        assertThat(bucket.getAvailableTokens()).isZero();
+        assertThat(bucket.isFull()).isFalse();
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        drain();
+        assertThat(bucket.nanosUntilNextToken()).isEqualTo(INTERVAL);
+
+        now.addAndGet(INTERVAL - 1);
+        assertThat(bucket.tryConsume()).isFalse();
+        assertThat(bucket.nanosUntilNextToken()).isEqualTo(1);
+
+        now.addAndGet(1);
+        assertThat(bucket.nanosUntilNextToken()).isZero();
+        assertThat(bucket.tryConsume()).isTrue();
+        assertThat(bucket.tryConsume()).isFalse();
+
+        now.addAndGet(3 * INTERVAL);
+        assertThat(bucket.getAvailableTokens()).isEqualTo(3);
+    }
+
+    @Test
+    void idleTimeDoesNotStoreMoreThanCapacity() {
+        drain();
+        now.addAndGet(TimeUnit.HOURS.toNanos(1));
+
+        assertThat(bucket.isFull()).isTrue();
+        assertThat(bucket.getAvailableTokens()).isEqualTo(5);
+        drain();
+        assertThat(bucket.tryConsume()).isFalse();
+    }
+
+    @Test
+    void rejectedTakeLeavesStateUnchanged() {
+        drain();
+        for (int i = 0; i < 100; i++) {
+            assertThat(bucket.tryConsume()).isFalse();
+        }
+
+        now.addAndGet(INTERVAL);
+        assertThat(bucket.tryConsume()).isTrue();
+    }
+
+    private void drain() {
+        int taken = 0;
+        while (bucket.tryConsume()) {
+            taken++;
+        }
+        assertThat(taken).isEqualTo(5);
+    }
+}
@@ -0,0 +1,116 @@
+package com.googlev1.service.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpstreamBudgetTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicReference<Instant> instant = new AtomicReference<>(Instant.parse("2024-05-14T22:00:00Z"));
+
+    @Test
+    void quotaResetsAtMidnightUtc() {
+        // Midnight in the clock's zone, UTC+10, was at 14:00 UTC and doesn't count
+        UpstreamBudget budget = new UpstreamBudget(1000, 1000, 3, nanos::get,
+                new SettableClock(instant, ZoneOffset.ofHours(10)));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(budget.tryAcquire()).isTrue();
+        }
+        assertThat(budget.getRemainingQuota()).isZero();
+        assertThat(budget.tryAcquire()).isFalse();
+        assertThat(budget.getQuotaExhaustedCount()).isEqualTo(1);
+
+        advance(Duration.ofMinutes(119).plusSeconds(59));
+        assertThat(budget.tryAcquire()).isFalse();
+
+        advance(Duration.ofSeconds(1));
+        assertThat(budget.getRemainingQuota()).isEqualTo(3);
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.getRemainingQuota()).isEqualTo(2);
+    }
+
+    @Test
+    void quotaOfEarlierDayDoesNotCarryOver() {
+        UpstreamBudget budget = budget(1000, 1000, 2);
+        assertThat(budget.tryAcquire()).isTrue();
+
+        // Two days later the stored day no longer matches, whatever its count
+        advance(Duration.ofDays(2));
+        assertThat(budget.getRemainingQuota()).isEqualTo(2);
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void rateLimitRefusesBeforeQuotaIsCharged() {
+        UpstreamBudget budget = budget(1, 2, 10);
+
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isFalse();
+        assertThat(budget.getRateLimitedCount()).isEqualTo(1);
+        assertThat(budget.getRemainingQuota()).isEqualTo(8);
+        assertThat(budget.getAvailableTokens()).isZero();
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(budget.getAvailableTokens()).isEqualTo(1);
+        assertThat(budget.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void zeroDailyLimitMeansNoQuota() {
+        UpstreamBudget budget = budget(1000, 1000, 0);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(budget.tryAcquire()).isTrue();
+        }
+        assertThat(budget.getRemainingQuota()).isEqualTo(-1);
+    }
+
+    private UpstreamBudget budget(double requestsPerSecond, int burst, long dailyLimit) {
+        return new UpstreamBudget(requestsPerSecond, burst, dailyLimit, nanos::get,
+                new SettableClock(instant, ZoneOffset.UTC));
+    }
+
+    private void advance(Duration duration) {
+        instant.updateAndGet(current -> current.plus(duration));
+    }
+
+    private static final class SettableClock extends Clock {
+
+        private final AtomicReference<Instant> instant;
+        private final ZoneId zone;
+
+        SettableClock(AtomicReference<Instant> instant, ZoneId zone) {
+            this.instant = instant;
+            this.zone = zone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new SettableClock(instant, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant.get();
+        }
+    }
+}
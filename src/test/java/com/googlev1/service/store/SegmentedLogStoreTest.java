@@ -0,0 +1,223 @@
+package com.googlev1.service.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentedLogStoreTest {
+
+    // Matches the record header of SegmentedLogStore
+    private static final int HEADER_BYTES = 28;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenRebuildsIndexFromSegments() throws IOException {
+        try (SegmentedLogStore store = new SegmentedLogStore(directory, 4096, 0.5)) {
+            store.put("a", bytes("first"), 1_000, 2_000);
+            store.put("b", bytes("other"), 1_000, 2_000);
+            store.put("a", bytes("second"), 3_000, 4_000);
+            store.remove("b");
+        }
+
+        try (SegmentedLogStore store = new SegmentedLogStore(directory, 4096, 0.5)) {
+            assertThat(store.size()).isEqualTo(1);
+            SegmentedLogStore.Entry entry = store.get("a").orElseThrow();
+            assertThat(text(entry.value())).isEqualTo("second");
+            assertThat(entry.writtenAt()).isEqualTo(3_000);
+            assertThat(entry.expiresAt()).isEqualTo(4_000);
+            assertThat(store.get("b")).isEmpty();
+        }
+    }
+
+    @Test
+    void reopenKeepsEntriesOfEverySegment() throws IOException {
+        try (SegmentedLogStore store = new SegmentedLogStore(directory, 128, 0.5)) {
+            for (int i = 0; i < 10; i++) {
+                store.put("key-" + i, bytes("value-" + i), i, i + 1);
+            }
+            assertThat(store.getSegmentCount()).isGreaterThan(1);
+        }
+
+        try (SegmentedLogStore store = new SegmentedLogStore(directory, 128, 0.5)) {
+            assertThat(store.size()).isEqualTo(10);
+            for (int i = 0; i < 10; i++) {
+                assertThat(text(store.get("key-" + i).orElseThrow().value())).isEqualTo("value-" + i);
+            }
+        }
+    }
+
+    @Test
+    void corruptTailIsDroppedAndOverwrittenByLaterWrites() throws IOException {
+        int firstRecord = HEADER_BYTES + 1 + "intact".length();
+        try (SegmentedLogStore store = new SegmentedLogStore(directory, 4096, 0.5)) {
+            store.put("a", bytes("intact"), 1, 2);
+            store.put("b", bytes("damaged"), 1, 2);
+        }
+        // Flip a byte in the value of the second record, as a torn write would leave it
+        try (FileChannel channel = FileChannel.open(directory.resolve("segment-000001.log"),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long position = firstRecord + HEADER_BYTES + 1 + 2;
+            ByteBuffer oneByte = ByteBuffer.allocate(1);
+            channel.read(oneByte, position);
+            oneByte.put(0, (byte) (oneByte.get(0) ^ 0xFF));
+            oneByte.rewind();
+            channel.write(oneByte, position);
+        }
+
+        try (SegmentedLogStore store = new SegmentedLogStore(directory, 4096, 0.5)) {
+            assertThat(text(store.get("a").orElseThrow().value())).isEqualTo("intact");
+            assertThat(store.get("b")).isEmpty();
+            assertThat(store.getWrittenBytes()).isEqualTo(firstRecord);
+            store.put("c", bytes("after"), 1, 2);
+        }
+
+        try (SegmentedLogStore store = new SegmentedLogStore(directory, 4096, 0.5)) {
+            assertThat(store.size()).isEqualTo(2);
+            assertThat(text(store.get("a").orElseThrow().value())).isEqualTo("intact");
+            assertThat(text(store.get("c").orElseThrow().value())).isEqualTo("after");
+        }
+    }
+
+    @Test
+    void tombstoneKeepsShadowingOlderSegmentAfterCompaction() throws IOException {
+        try (SegmentedLogStore store = new SegmentedLogStore(directory, 256, 0.5)) {
+            // Segment 1: the deleted key and enough live data that it stays below the compaction threshold
+            store.put("k", filler(50), 1, Long.MAX_VALUE);
+            store.put("live1", filler(50), 1, Long.MAX_VALUE);
+            store.put("live2", filler(50), 1, Long.MAX_VALUE);
+            // Segment 2: the deletion, plus a record that is overwritten from segment 3 so segment 2 is all garbage
+            store.remove("k");
+            store.put("filler", filler(150), 1, Long.MAX_VALUE);
+            store.put("filler", filler(150), 2, Long.MAX_VALUE);
+            assertThat(store.getSegmentCount()).isEqualTo(3);
+
+            assertThat(store.compact()).isEqualTo(1);
+            assertThat(store.getSegmentCount()).isEqualTo(2);
+            assertThat(store.get("k")).isEmpty();
+        }
+
+        try (SegmentedLogStore store = new SegmentedLogStore(directory, 256, 0.5)) {
+            assertThat(store.get("k")).isEmpty();
+            assertThat(store.get("live1")).isPresent();
+            assertThat(store.get("live2")).isPresent();
+            assertThat(store.get("filler").orElseThrow().writtenAt()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void compactionCopiesLiveRecordsAndReclaimsGarbage() throws IOException {
+        try (SegmentedLogStore store = new SegmentedLogStore(directory, 256, 0.5)) {
+            store.put("kept", filler(60), 1, Long.MAX_VALUE);
+            store.put("dropped", filler(60), 1, Long.MAX_VALUE);
+            store.put("next", filler(60), 1, Long.MAX_VALUE);
+            store.remove("dropped");
+            long writtenBefore = store.getWrittenBytes();
+
+            assertThat(store.compact()).isEqualTo(1);
+            assertThat(store.getReclaimedBytes()).isPositive();
+            assertThat(store.getWrittenBytes()).isLessThan(writtenBefore);
+            assertThat(store.get("kept").orElseThrow().value()).isEqualTo(filler(60));
+        }
+
+        try (SegmentedLogStore store = new SegmentedLogStore(directory, 256, 0.5)) {
+            assertThat(store.get("kept").orElseThrow().value()).isEqualTo(filler(60));
+            assertThat(store.get("dropped")).isEmpty();
+            assertThat(store.get("next")).isPresent();
+        }
+    }
+
+    @Test
+    void recordLargerThanSegmentIsRejected() throws IOException {
+        try (SegmentedLogStore store = new SegmentedLogStore(directory, 256, 0.5)) {
+            assertThatThrownBy(() -> store.put("x", filler(256 - HEADER_BYTES), 1, 2))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("exceeds the segment size");
+            assertThat(store.size()).isZero();
+
+            // A record of exactly the segment size still fits, and the store keeps working
+            store.put("x", filler(256 - HEADER_BYTES - 1), 1, 2);
+            store.put("y", bytes("small"), 1, 2);
+            assertThat(store.size()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void emptyKeyIsRejectedAndLaterRecordsSurviveReopen() throws IOException {
+        try (SegmentedLogStore store = new SegmentedLogStore(directory, 4096, 0.5)) {
+            store.put("a", bytes("first"), 1, 2);
+            assertThatThrownBy(() -> store.put("", bytes("empty"), 1, 2))
+                    .isInstanceOf(IllegalArgumentException.class);
+            store.put("b", bytes("second"), 1, 2);
+        }
+
+        // A record with a zero key length would read as the end of the segment on recovery
+        try (SegmentedLogStore store = new SegmentedLogStore(directory, 4096, 0.5)) {
+            assertThat(store.size()).isEqualTo(2);
+            assertThat(text(store.get("b").orElseThrow().value())).isEqualTo("second");
+        }
+    }
+
+    @Test
+    void expiryRemovesOnlyEntriesNotRewrittenSinceTheScan() throws Exception {
+        int keys = 20_000;
+        try (SegmentedLogStore store = new SegmentedLogStore(directory, 1 << 20, 0.5)) {
+            for (int i = 0; i < keys; i++) {
+                store.put("key-" + i, bytes("expired"), 1, 2);
+            }
+
+            // Every key is rewritten with a live value while the expired ones are being removed
+            CountDownLatch start = new CountDownLatch(1);
+            Thread writer = new Thread(() -> {
+                awaitQuietly(start);
+                for (int i = 0; i < keys; i++) {
+                    store.put("key-" + i, bytes("live"), 10, Long.MAX_VALUE);
+                }
+            });
+            writer.start();
+            start.countDown();
+            int removed = store.removeExpiredBefore(5);
+            writer.join();
+
+            assertThat(removed).isLessThanOrEqualTo(keys);
+            assertThat(store.size()).isEqualTo(keys);
+            for (int i = 0; i < keys; i++) {
+                assertThat(text(store.get("key-" + i).orElseThrow().value())).as("key-" + i).isEqualTo("live");
+            }
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] filler(int length) {
+        byte[] value = new byte[length];
+        Arrays.fill(value, (byte) 'v');
+        return value;
+    }
+}
@@ -0,0 +1,140 @@
+package com.googlev1.service.tavily;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares reading a Tavily response the way it was read before, the body as a string and then as a tree, with
+ * feeding its network buffers to TavilyResponseParser. Reports the time and the bytes allocated per response,
+ * measured with the thread's allocation counter, for the recorded response and for generated ones of 5 and 20
+ * results, with and without raw content. Bodies are cut into 8 KB buffers, as they come off the network.
+ * <p>
+ * Not part of the regular build; run with {@code mvn test -Dtest=TavilyResponseParserBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TavilyResponseParserBenchmark {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int WARMUP = 2_000;
+    private static final int ROUNDS = 10_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    void compareParsers() throws IOException {
+        Map<String, byte[]> bodies = new LinkedHashMap<>();
+        bodies.put("recorded", TavilyResponseParserTest.fixture("search-response.json"));
+        Random random = new Random(44);
+        bodies.put("5 results", body(random, 5, 0));
+        bodies.put("20 results", body(random, 20, 0));
+        bodies.put("5 raw", body(random, 5, 20_000));
+        bodies.put("20 raw", body(random, 20, 20_000));
+
+        for (Map.Entry<String, byte[]> body : bodies.entrySet()) {
+            boolean includeRawContent = body.getKey().endsWith("raw");
+            byte[] bytes = body.getValue();
+            List<DataBuffer> buffers = split(bytes);
+            // Decodes the body into a string first, as the WebClient did
+            Parse tree = () -> TavilyResponseParserTest.treeResults(bytes, includeRawContent).size();
+            Parse incremental = () -> {
+                TavilyResponseParser parser = new TavilyResponseParser(objectMapper.getFactory(), includeRawContent);
+                for (DataBuffer buffer : buffers) {
+                    parser.feed(buffer);
+                }
+                return parser.finish().size();
+            };
+            System.out.printf("%-10s %7d bytes: %s; %s%n", body.getKey(), bytes.length,
+                    measure("tree", tree), measure("incremental", incremental));
+        }
+    }
+
+    private String measure(String name, Parse parse) throws IOException {
+        int sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += parse.run();
+        }
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += parse.run();
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        return String.format("%s %7.2f us, %8d B per response (%d)", name, nanos / 1e3 / ROUNDS,
+                allocated / ROUNDS, sink);
+    }
+
+    /**
+     * The body cut into network-sized buffers. Reading a buffer doesn't consume it, so they can be fed again.
+     */
+    private static List<DataBuffer> split(byte[] body) {
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int at = 0; at < body.length; at += BUFFER_SIZE) {
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(
+                    Arrays.copyOfRange(body, at, Math.min(body.length, at + BUFFER_SIZE))));
+        }
+        return buffers;
+    }
+
+    private byte[] body(Random random, int resultCount, int rawContentLength) throws IOException {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int i = 0; i < resultCount; i++) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("title", words(random, 10));
+            result.put("url", "https://site" + i + ".example.com/articles/" + random.nextInt(100_000));
+            result.put("content", words(random, 60));
+            result.put("score", random.nextDouble());
+            result.put("raw_content", rawContentLength > 0 ? text(random, rawContentLength) : null);
+            result.put("published_date", "2024-05-" + (10 + i % 20));
+            results.add(result);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("query", "benchmark query");
+        response.put("follow_up_questions", null);
+        response.put("answer", null);
+        response.put("images", List.of());
+        response.put("results", results);
+        response.put("response_time", 1.2);
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    private static final String[] WORDS = ("river kayak canoe gorge arch rapid bivouac paddle trip guide water "
+            + "boat rental camp day price booking season summer bridge village current portage").split(" ");
+
+    private static String words(Random random, int count) {
+        StringBuilder words = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        for (int i = 1; i < count; i++) {
+            words.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return words.toString();
+    }
+
+    private static String text(Random random, int length) {
+        StringBuilder text = new StringBuilder(length + 20);
+        while (text.length() < length) {
+            text.append(words(random, 12)).append(".\n");
+        }
+        return text.toString();
+    }
+
+    @FunctionalInterface
+    private interface Parse {
+
+        int run() throws IOException;
+    }
+}
@@ -0,0 +1,182 @@
+package com.googlev1.service.tavily;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.googlev1.dto.search.SearchResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TavilyResponseParserTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final JsonFactory JSON_FACTORY = OBJECT_MAPPER.getFactory();
+
+    @Test
+    void readsRecordedResponse() throws IOException {
+        List<SearchResult> results = parse(fixture("search-response.json"), false);
+
+        assertThat(results).extracting(SearchResult::getUrl).containsExactly(
+                "https://www.example-travel.com/ardeche/canoe-kayak-guide",
+                "https://gorges.example.org/river/rules?lang=en&page=2",
+                "https://blog.example.net/2023/08/ardeche-trip");
+        assertThat(results.get(0).getTitle()).isEqualTo("Canoe and kayak in the Ardèche gorges – a complete guide");
+        assertThat(results.get(1).getSummary()).endsWith("Prices from 35 € per boat.");
+        assertThat(results.get(2).getTitle()).isEqualTo("Trip report 🛶 three days on the river");
+        // raw_content wasn't asked for
+        assertThat(results).extracting(SearchResult::getContent).containsOnly("");
+    }
+
+    @Test
+    void readsRawContentOnlyWhenRequested() throws IOException {
+        List<SearchResult> results = parse(fixture("search-response.json"), true);
+
+        assertThat(results.get(0).getContent()).isEqualTo("Canoe and kayak in the Ardèche gorges\n"
+                + "The descent covers 32 km.\n\"Book ahead\" in July and August.");
+        assertThat(results.get(1).getContent()).isEmpty();
+        assertThat(results.get(2).getContent()).startsWith("Trip report\nDay one");
+    }
+
+    @Test
+    void sameResultsWhereverTheBodyIsSplit() throws IOException {
+        for (String name : new String[] {"search-response.json", "unusual-fields.json"}) {
+            byte[] body = fixture(name);
+            for (boolean includeRawContent : new boolean[] {false, true}) {
+                List<SearchResult> expected = treeResults(body, includeRawContent);
+                assertThat(expected).isNotEmpty();
+                for (int at = 0; at <= body.length; at++) {
+                    TavilyResponseParser parser = new TavilyResponseParser(JSON_FACTORY, includeRawContent);
+                    parser.feed(buffer(Arrays.copyOfRange(body, 0, at)));
+                    parser.feed(buffer(Arrays.copyOfRange(body, at, body.length)));
+                    assertThat(parser.finish()).as("%s split at byte %d", name, at).isEqualTo(expected);
+                }
+                assertThat(parseByteByByte(body, includeRawContent)).as("%s byte by byte", name).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void skipsNestedValuesAndUnknownFields() throws IOException {
+        List<SearchResult> results = parse(fixture("unusual-fields.json"), true);
+
+        // Results nested in root fields before and after "results" are not read
+        assertThat(results).hasSize(4);
+        SearchResult flat = results.get(1);
+        assertThat(flat.getTitle()).isEqualTo("Flat title");
+        assertThat(flat.getUrl()).isEqualTo("https://flat.example.com");
+        assertThat(flat.getSummary()).isEqualTo("Flat \"quoted\" content\twith escapes \\ and é");
+        assertThat(flat.getContent()).isEqualTo("Raw body");
+        assertThat(results.get(3).getTitle()).isEqualTo("Last");
+    }
+
+    @Test
+    void missingAndNullFieldsBecomeEmpty() throws IOException {
+        List<SearchResult> results = parse(fixture("unusual-fields.json"), true);
+
+        for (SearchResult result : List.of(results.get(0), results.get(2))) {
+            assertThat(result.getTitle()).isEmpty();
+            assertThat(result.getUrl()).isEmpty();
+            assertThat(result.getSummary()).isEmpty();
+            assertThat(result.getContent()).isEmpty();
+        }
+    }
+
+    @Test
+    void bodyWithoutResultsHasNone() throws IOException {
+        assertThat(parse(bytes("{\"query\":\"q\",\"answer\":null}"), false)).isEmpty();
+        assertThat(parse(bytes("{\"results\":[]}"), false)).isEmpty();
+        assertThat(parse(bytes("{\"results\":{\"title\":\"t\"}}"), false)).isEmpty();
+        assertThat(parse(bytes("[{\"results\":[{\"title\":\"t\"}]}]"), false)).isEmpty();
+    }
+
+    @Test
+    void truncatedBodyFailsOnFinishNotFeed() {
+        byte[] body = bytes("{\"results\":[{\"title\":\"Kayak\",\"url\":\"https://example.com\"},{\"title\":\"Can");
+        TavilyResponseParser parser = new TavilyResponseParser(JSON_FACTORY, false);
+
+        parser.feed(buffer(body));
+
+        assertThatThrownBy(parser::finish).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void invalidBodyFailsOnFinishNotFeed() {
+        TavilyResponseParser parser = new TavilyResponseParser(JSON_FACTORY, false);
+
+        parser.feed(buffer(bytes("{\"results\":[{\"title\":\"Kayak\"]}")));
+        // Later parts are ignored once the body is known to be invalid
+        parser.feed(buffer(bytes("{\"results\":[]}")));
+
+        assertThatThrownBy(parser::finish).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> parse(bytes("<html>502 Bad Gateway</html>"), false))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> parse(new byte[0], false)).isInstanceOf(IOException.class);
+    }
+
+    private static List<SearchResult> parse(byte[] body, boolean includeRawContent) throws IOException {
+        TavilyResponseParser parser = new TavilyResponseParser(JSON_FACTORY, includeRawContent);
+        parser.feed(buffer(body));
+        return parser.finish();
+    }
+
+    private static List<SearchResult> parseByteByByte(byte[] body, boolean includeRawContent) throws IOException {
+        TavilyResponseParser parser = new TavilyResponseParser(JSON_FACTORY, includeRawContent);
+        for (byte b : body) {
+            parser.feed(buffer(new byte[] {b}));
+        }
+        return parser.finish();
+    }
+
+    /**
+     * The results as they were read before the incremental parser: the whole body as a tree, then its fields.
+     */
+    static List<SearchResult> treeResults(byte[] body, boolean includeRawContent) throws IOException {
+        JsonNode root = OBJECT_MAPPER.readTree(new String(body, StandardCharsets.UTF_8));
+        List<SearchResult> results = new ArrayList<>();
+        JsonNode resultsNode = root.get("results");
+        if (resultsNode != null && resultsNode.isArray()) {
+            for (JsonNode resultNode : resultsNode) {
+                results.add(SearchResult.builder()
+                        .title(textValue(resultNode, "title"))
+                        .url(textValue(resultNode, "url"))
+                        .summary(textValue(resultNode, "content"))
+                        .content(includeRawContent ? textValue(resultNode, "raw_content") : "")
+                        .build());
+            }
+        }
+        return results;
+    }
+
+    private static String textValue(JsonNode node, String fieldName) {
+        JsonNode fieldNode = node.get(fieldName);
+        return fieldNode != null && !fieldNode.isNull() ? fieldNode.asText() : "";
+    }
+
+    private static DataBuffer buffer(byte[] bytes) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(bytes);
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] fixture(String name) throws IOException {
+        try (InputStream in = TavilyResponseParserTest.class.getResourceAsStream("/tavily/" + name)) {
+            if (in == null) {
+                throw new IOException("Missing test fixture " + name);
+            }
+            return in.readAllBytes();
+        }
+    }
+}